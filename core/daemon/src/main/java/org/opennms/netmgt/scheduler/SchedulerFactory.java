@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.scheduler;
+
+/**
+ * Creates the schedulers used by the daemons, which are either a {@link LegacyScheduler}
+ * or a {@link TimingWheelScheduler} when the "org.opennms.netmgt.scheduler.timingWheel"
+ * system property is set to true.
+ */
+public abstract class SchedulerFactory {
+
+    public static final String TIMING_WHEEL_PROPERTY = "org.opennms.netmgt.scheduler.timingWheel";
+
+    public static final String TICK_PROPERTY = "org.opennms.netmgt.scheduler.tick";
+
+    public static final String START_JITTER_PROPERTY = "org.opennms.netmgt.scheduler.startJitter";
+
+    /**
+     * <p>createScheduler</p>
+     *
+     * @param parent
+     *            String prepended to "Scheduler" to create fiber name
+     * @param maxSize
+     *            The maximum size of the thread pool.
+     * @return a new scheduler
+     */
+    public static Scheduler createScheduler(final String parent, final int maxSize) {
+        if (Boolean.getBoolean(TIMING_WHEEL_PROPERTY)) {
+            return new TimingWheelScheduler(parent, maxSize,
+                    Long.getLong(TICK_PROPERTY, TimingWheelScheduler.DEFAULT_TICK),
+                    Long.getLong(START_JITTER_PROPERTY, 0L));
+        }
+        return new LegacyScheduler(parent, maxSize);
+    }
+}
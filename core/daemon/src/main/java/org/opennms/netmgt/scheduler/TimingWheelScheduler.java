@@ -0,0 +1,517 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.opennms.core.concurrent.LogPreservingThreadFactory;
+import org.opennms.core.fiber.PausableFiber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * A scheduler backed by a hierarchical timing wheel, which can be used in place
+ * of the {@link LegacyScheduler}.
+ *
+ * Scheduling a runnable never blocks: the runnables are appended to one of several
+ * lock-free queues, chosen by the calling thread, and are moved into the wheel by
+ * the scheduler thread on the next tick. The wheel itself is only ever accessed by
+ * the scheduler thread, so adding and expiring runnables take constant time, no
+ * matter how many runnables are scheduled.
+ *
+ * Runnables are never started before their interval has elapsed, but may be started
+ * up to one tick late. Runnables which are not ready when they expire are checked
+ * again on the next tick.
+ *
+ * Runnables scheduled without any delay, i.e. when the services are first scheduled,
+ * can be spread over a random start jitter to avoid running all of them at once.
+ */
+public class TimingWheelScheduler implements Runnable, PausableFiber, Scheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimingWheelScheduler.class);
+
+    /**
+     * The default duration of a tick, in milliseconds.
+     */
+    public static final long DEFAULT_TICK = 100;
+
+    /**
+     * The number of buckets in every level of the wheel.
+     */
+    public static final int WHEEL_SIZE = 512;
+
+    private final long m_tick;
+
+    private final long m_startJitter;
+
+    /**
+     * The pool of threads that are used to executed the runnable instances
+     * scheduled by the class' instance.
+     */
+    private final ExecutorService m_runner;
+
+    /**
+     * The runnables which were scheduled, but not yet added to the wheel.
+     */
+    private final Queue<ScheduledRunnable>[] m_shards;
+
+    private final int m_shardMask;
+
+    /**
+     * The innermost level of the wheel, only accessed by the worker thread.
+     */
+    private TimingWheel m_wheel;
+
+    private final LongAdder m_scheduled = new LongAdder();
+
+    private final LongAdder m_numTasksExecuted = new LongAdder();
+
+    private final MetricRegistry m_metrics = new MetricRegistry();
+
+    private final Timer m_lag;
+
+    private final Counter m_overruns;
+
+    private final Counter m_deferrals;
+
+    private JmxReporter m_reporter;
+
+    /**
+     * The status for this fiber.
+     */
+    private volatile int m_status;
+
+    /**
+     * The worker thread that executes this instance.
+     */
+    private volatile Thread m_worker;
+
+    /**
+     * Constructs a new scheduler using the default tick and without any start jitter.
+     *
+     * @param parent
+     *            String prepended to "Scheduler" to create fiber name
+     * @param maxSize
+     *            The maximum size of the thread pool.
+     */
+    public TimingWheelScheduler(final String parent, final int maxSize) {
+        this(parent, maxSize, DEFAULT_TICK, 0);
+    }
+
+    /**
+     * Constructs a new scheduler.
+     *
+     * @param parent
+     *            String prepended to "Scheduler" to create fiber name
+     * @param maxSize
+     *            The maximum size of the thread pool.
+     * @param tick
+     *            The duration of a tick in milliseconds, and so the precision of the scheduler.
+     * @param startJitter
+     *            The maximum delay in milliseconds added to the runnables which are scheduled
+     *            without any interval.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheelScheduler(final String parent, final int maxSize, final long tick, final long startJitter) {
+        Assert.isTrue(tick > 0, "The tick must be positive");
+        Assert.isTrue(startJitter >= 0, "The start jitter must not be negative");
+
+        m_tick = tick;
+        m_startJitter = startJitter;
+        m_status = START_PENDING;
+        m_runner = Executors.newFixedThreadPool(maxSize, new LogPreservingThreadFactory(parent, maxSize));
+
+        // Use a power of two number of shards, so the calling thread can be mapped using a mask
+        final int numShards = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        m_shards = new Queue[numShards];
+        for (int i = 0; i < numShards; i++) {
+            m_shards[i] = new ConcurrentLinkedQueue<>();
+        }
+        m_shardMask = numShards - 1;
+
+        m_lag = m_metrics.timer(MetricRegistry.name(parent, "lag"));
+        m_overruns = m_metrics.counter(MetricRegistry.name(parent, "overruns"));
+        m_deferrals = m_metrics.counter(MetricRegistry.name(parent, "deferrals"));
+        m_metrics.register(MetricRegistry.name(parent, "scheduled"), (Gauge<Integer>) this::getScheduled);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void schedule(final long interval, final ReadyRunnable runnable) {
+        LOG.debug("schedule: Adding ready runnable {} at interval {}", runnable, interval);
+
+        long timeToRun = getCurrentTime() + interval;
+        if (interval == 0 && m_startJitter > 0) {
+            timeToRun += ThreadLocalRandom.current().nextLong(m_startJitter);
+        }
+
+        m_shards[(int) Thread.currentThread().getId() & m_shardMask].offer(new ScheduledRunnable(runnable, interval, timeToRun));
+        m_scheduled.increment();
+    }
+
+    /**
+     * <p>getCurrentTime</p>
+     *
+     * @return a long.
+     */
+    @Override
+    public long getCurrentTime() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * <p>start</p>
+     */
+    @Override
+    public synchronized void start() {
+        Assert.state(m_worker == null, "The fiber has already run or is running");
+
+        m_reporter = JmxReporter.forRegistry(m_metrics)
+                .inDomain(getClass().getPackage().getName())
+                .build();
+        m_reporter.start();
+
+        m_worker = new Thread(this, getName());
+        m_worker.start();
+        m_status = STARTING;
+
+        LOG.info("start: scheduler started");
+    }
+
+    /**
+     * <p>stop</p>
+     */
+    @Override
+    public synchronized void stop() {
+        Assert.state(m_worker != null, "The fiber has never been started");
+
+        m_status = STOP_PENDING;
+        m_worker.interrupt();
+        m_runner.shutdown();
+        m_reporter.stop();
+
+        LOG.info("stop: scheduler stopped");
+    }
+
+    /**
+     * <p>pause</p>
+     */
+    @Override
+    public synchronized void pause() {
+        Assert.state(m_worker != null, "The fiber has never been started");
+        Assert.state(m_status != STOPPED && m_status != STOP_PENDING, "The fiber is not running or a stop is pending");
+
+        if (m_status == PAUSED) {
+            return;
+        }
+
+        m_status = PAUSE_PENDING;
+    }
+
+    /**
+     * <p>resume</p>
+     */
+    @Override
+    public synchronized void resume() {
+        Assert.state(m_worker != null, "The fiber has never been started");
+        Assert.state(m_status != STOPPED && m_status != STOP_PENDING, "The fiber is not running or a stop is pending");
+
+        if (m_status == RUNNING) {
+            return;
+        }
+
+        m_status = RESUME_PENDING;
+    }
+
+    /**
+     * <p>getStatus</p>
+     *
+     * @return a int.
+     */
+    @Override
+    public synchronized int getStatus() {
+        if (m_worker != null && m_worker.isAlive() == false) {
+            m_status = STOPPED;
+        }
+        return m_status;
+    }
+
+    /**
+     * Returns the name of this fiber.
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    @Override
+    public String getName() {
+        return m_runner.toString();
+    }
+
+    /**
+     * Returns total number of runnables currently scheduled.
+     *
+     * @return the number of runnables which were scheduled, but not yet handed to the thread pool
+     */
+    public int getScheduled() {
+        return m_scheduled.intValue();
+    }
+
+    /**
+     * Returns the pool of threads that are used to executed the runnable
+     * instances scheduled by the class' instance.
+     *
+     * @return thread pool
+     */
+    public ExecutorService getRunner() {
+        return m_runner;
+    }
+
+    /**
+     * Returns the metrics of this scheduler. The lag is the time between the moment a runnable
+     * was due and the moment it was started by the thread pool, while the overruns count the
+     * runnables which were started more than one interval late.
+     *
+     * @return the metric registry
+     */
+    public MetricRegistry getMetrics() {
+        return m_metrics;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getNumTasksExecuted() {
+        return m_numTasksExecuted.sum();
+    }
+
+    /**
+     * The main method of the scheduler. On every tick, the scheduled runnables are moved
+     * into the wheel, and the runnables which expired since the last tick are handed to
+     * the thread pool.
+     */
+    @Override
+    public void run() {
+        synchronized (this) {
+            m_status = RUNNING;
+        }
+
+        LOG.debug("run: scheduler running");
+
+        m_wheel = new TimingWheel(m_tick, getCurrentTime());
+        final long tickNanos = TimeUnit.MILLISECONDS.toNanos(m_tick);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            synchronized (this) {
+                if (m_status == PAUSE_PENDING) {
+                    LOG.debug("run: pausing.");
+                    m_status = PAUSED;
+                } else if (m_status == RESUME_PENDING) {
+                    LOG.debug("run: resuming.");
+                    m_status = RUNNING;
+                } else if (m_status != RUNNING && m_status != PAUSED) {
+                    LOG.debug("run: status = {}, time to exit", m_status);
+                    break;
+                }
+            }
+
+            if (m_status == RUNNING) {
+                final long now = getCurrentTime();
+                for (final Queue<ScheduledRunnable> shard : m_shards) {
+                    ScheduledRunnable scheduled;
+                    while ((scheduled = shard.poll()) != null) {
+                        add(scheduled, now);
+                    }
+                }
+                m_wheel.advanceTo(now, this::expire);
+            }
+
+            LockSupport.parkNanos(this, tickNanos);
+        }
+
+        LOG.debug("run: scheduler exiting, state = STOPPED");
+        synchronized (this) {
+            m_status = STOPPED;
+        }
+    }
+
+    private void add(final ScheduledRunnable scheduled, final long now) {
+        if (!m_wheel.add(scheduled)) {
+            expire(scheduled, now);
+        }
+    }
+
+    private void expire(final ScheduledRunnable scheduled, final long now) {
+        if (!scheduled.runnable.isReady()) {
+            // Check again on the next tick
+            m_deferrals.inc();
+            scheduled.timeToRun = now + m_tick;
+            add(scheduled, now);
+            return;
+        }
+
+        LOG.debug("run: found ready runnable {}", scheduled.runnable);
+        try {
+            m_runner.execute(() -> {
+                final long lag = Math.max(0, getCurrentTime() - scheduled.timeToRun);
+                m_lag.update(lag, TimeUnit.MILLISECONDS);
+                if (scheduled.interval > 0 && lag > scheduled.interval) {
+                    m_overruns.inc();
+                }
+                scheduled.runnable.run();
+            });
+            m_numTasksExecuted.increment();
+        } catch (RejectedExecutionException e) {
+            LOG.warn("run: failed to execute ready runnable {}", scheduled.runnable, e);
+        }
+        m_scheduled.decrement();
+    }
+
+    private static final class ScheduledRunnable {
+        private final ReadyRunnable runnable;
+        private final long interval;
+        private long timeToRun;
+
+        private ScheduledRunnable(final ReadyRunnable runnable, final long interval, final long timeToRun) {
+            this.runnable = runnable;
+            this.interval = interval;
+            this.timeToRun = timeToRun;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExpirationHandler {
+        void expire(ScheduledRunnable scheduled, long now);
+    }
+
+    /**
+     * A single level of the hierarchical timing wheel. Every bucket of a level covers a full
+     * rotation of the level below it, and the levels are added as runnables are scheduled
+     * further in the future.
+     *
+     * The buckets of the innermost level are expired once the end of their tick has passed.
+     * The buckets of the outer levels are cascaded into the inner levels as soon as their
+     * tick begins.
+     */
+    private static final class TimingWheel {
+        private final long tick;
+        private final long span;
+        private final ArrayDeque<ScheduledRunnable>[] buckets;
+        private final TimingWheel inner;
+        private long currentTime;
+        private TimingWheel outer;
+
+        private TimingWheel(final long tick, final long startTime) {
+            this(tick, startTime, null);
+        }
+
+        @SuppressWarnings("unchecked")
+        private TimingWheel(final long tick, final long startTime, final TimingWheel inner) {
+            this.tick = tick;
+            this.span = tick * WHEEL_SIZE;
+            this.buckets = new ArrayDeque[WHEEL_SIZE];
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                this.buckets[i] = new ArrayDeque<>();
+            }
+            this.inner = inner;
+            this.currentTime = startTime - (startTime % tick);
+        }
+
+        /**
+         * Adds the runnable to the wheel.
+         *
+         * @return false if the runnable already expired
+         */
+        private boolean add(final ScheduledRunnable scheduled) {
+            final long timeToRun = scheduled.timeToRun;
+            if (inner == null && timeToRun < currentTime) {
+                return false;
+            }
+            if (timeToRun < currentTime + span) {
+                buckets[(int) ((timeToRun / tick) % WHEEL_SIZE)].add(scheduled);
+                return true;
+            }
+            if (outer == null) {
+                outer = new TimingWheel(span, currentTime, this);
+            }
+            return outer.add(scheduled);
+        }
+
+        /**
+         * Advances the innermost level to the given time, expiring all of the runnables
+         * which are due by then.
+         */
+        private void advanceTo(final long time, final ExpirationHandler handler) {
+            while (currentTime + tick <= time) {
+                final ArrayDeque<ScheduledRunnable> bucket = buckets[(int) ((currentTime / tick) % WHEEL_SIZE)];
+                currentTime += tick;
+                // Runnables which are not ready may be added back to the wheel while we expire the bucket
+                for (int n = bucket.size(); n > 0; n--) {
+                    handler.expire(bucket.poll(), time);
+                }
+                if (outer != null) {
+                    outer.cascadeTo(currentTime, this, handler);
+                }
+            }
+        }
+
+        /**
+         * Advances an outer level to the given time, moving the runnables of every bucket
+         * that begins by then into the innermost level.
+         */
+        private void cascadeTo(final long time, final TimingWheel innermost, final ExpirationHandler handler) {
+            while (currentTime + tick <= time) {
+                currentTime += tick;
+                final ArrayDeque<ScheduledRunnable> bucket = buckets[(int) ((currentTime / tick) % WHEEL_SIZE)];
+                ScheduledRunnable scheduled;
+                while ((scheduled = bucket.poll()) != null) {
+                    if (!innermost.add(scheduled)) {
+                        handler.expire(scheduled, time);
+                    }
+                }
+                if (outer != null) {
+                    outer.cascadeTo(currentTime, innermost, handler);
+                }
+            }
+        }
+    }
+}
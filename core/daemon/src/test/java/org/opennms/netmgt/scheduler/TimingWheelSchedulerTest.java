@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.scheduler;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TimingWheelSchedulerTest {
+
+    private TimingWheelScheduler scheduler;
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void canRunScheduledRunnables() {
+        scheduler = new TimingWheelScheduler("Test", 4, 10, 0);
+        scheduler.start();
+
+        final List<Long> delays = new CopyOnWriteArrayList<>();
+        scheduleAndRecord(0, delays);
+        scheduleAndRecord(200, delays);
+        scheduleAndRecord(1000, delays);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> delays.size() == 3);
+        assertEquals(3, scheduler.getNumTasksExecuted());
+        assertEquals(0, scheduler.getScheduled());
+
+        // Runnables are never started early
+        assertTrue(delays.get(1) >= 200);
+        assertTrue(delays.get(2) >= 1000);
+    }
+
+    @Test
+    public void canRunRunnablesScheduledBeyondTheInnerWheel() {
+        // With 1ms ticks, the inner wheel only covers 512ms
+        scheduler = new TimingWheelScheduler("Test", 4, 1, 0);
+        scheduler.start();
+
+        final List<Long> delays = new CopyOnWriteArrayList<>();
+        scheduleAndRecord(1500, delays);
+        scheduleAndRecord(700, delays);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> delays.size() == 2);
+        assertTrue(delays.get(0) >= 700);
+        assertTrue(delays.get(1) >= 1500);
+    }
+
+    @Test
+    public void canDeferRunnablesUntilTheyAreReady() {
+        scheduler = new TimingWheelScheduler("Test", 4, 10, 0);
+        scheduler.start();
+
+        final AtomicBoolean ready = new AtomicBoolean(false);
+        final AtomicBoolean ran = new AtomicBoolean(false);
+        scheduler.schedule(0, new ReadyRunnable() {
+            @Override
+            public boolean isReady() {
+                return ready.get();
+            }
+
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+        });
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> scheduler.getMetrics().counter("Test.deferrals").getCount() > 2);
+        assertEquals(false, ran.get());
+
+        ready.set(true);
+        await().atMost(5, TimeUnit.SECONDS).until(ran::get);
+    }
+
+    @Test
+    public void canSpreadRunnablesOverTheStartJitter() {
+        scheduler = new TimingWheelScheduler("Test", 4, 10, 1000);
+        scheduler.start();
+
+        final List<Long> delays = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            scheduleAndRecord(0, delays);
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> delays.size() == 100);
+        assertTrue(delays.stream().anyMatch(delay -> delay >= 200));
+    }
+
+    @Test
+    public void canPauseAndResume() throws InterruptedException {
+        scheduler = new TimingWheelScheduler("Test", 4, 10, 0);
+        scheduler.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> scheduler.getStatus() == TimingWheelScheduler.RUNNING);
+
+        scheduler.pause();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> scheduler.getStatus() == TimingWheelScheduler.PAUSED);
+
+        final List<Long> delays = new CopyOnWriteArrayList<>();
+        scheduleAndRecord(0, delays);
+        Thread.sleep(200);
+        assertEquals(0, delays.size());
+
+        scheduler.resume();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> delays.size() == 1);
+    }
+
+    private void scheduleAndRecord(long interval, List<Long> delays) {
+        final long start = System.currentTimeMillis();
+        scheduler.schedule(interval, new ReadyRunnable() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void run() {
+                delays.add(System.currentTimeMillis() - start);
+            }
+        });
+    }
+}
@@ -58,6 +58,19 @@ public interface RpcModule<S extends RpcRequest, T extends RpcResponse> extends
      */
     String marshalResponse(T response);
 
+    /**
+     * Marshals the response to the given request to a string.
+     *
+     * Modules that encode their payloads should answer using the encoding of the request,
+     * which the sender is known to support.
+     *
+     * @param response the response
+     * @param request the marshaled request
+     */
+    default String marshalResponse(T response, String request) {
+        return marshalResponse(response);
+    }
+
     /**
      * Unmarshals the response from a string.
      */
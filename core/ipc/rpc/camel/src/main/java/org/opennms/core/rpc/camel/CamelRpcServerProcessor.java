@@ -63,7 +63,8 @@ public class CamelRpcServerProcessor implements AsyncProcessor {
 
     @Override
     public boolean process(Exchange exchange, AsyncCallback callback) {
-        final RpcRequest request = module.unmarshalRequest(exchange.getIn().getBody(String.class));
+        final String requestBody = exchange.getIn().getBody(String.class);
+        final RpcRequest request = module.unmarshalRequest(requestBody);
         final CompletableFuture<RpcResponse> future = module.execute(request);
         future.whenComplete((res, ex) -> {
             try {
@@ -78,7 +79,7 @@ public class CamelRpcServerProcessor implements AsyncProcessor {
                 }
 
                 try {
-                    exchange.getOut().setBody(module.marshalResponse(response), String.class);
+                    exchange.getOut().setBody(module.marshalResponse(response, requestBody), String.class);
                     postProcess(exchange);
                 }  catch (Throwable t) {
                     LOG.error("Marshalling a response in RPC module {} failed.", module, t);
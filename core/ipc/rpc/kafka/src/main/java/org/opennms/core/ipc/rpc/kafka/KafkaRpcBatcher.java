@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.ipc.rpc.kafka;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.opennms.core.ipc.rpc.kafka.model.RpcMessageProtos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.protobuf.ByteString;
+
+/**
+ * Packs RPC messages that are sent to the same topic, and system id, into a single record.
+ * <p>
+ * The messages are written, length-delimited, in the content of an enclosing {@link RpcMessageProtos.RpcMessage}
+ * which is sent with the {@link #BATCH_HEADER} header. The enclosing message has no expiration time, so consumers
+ * that do not know about batches will discard them instead of trying to process them.
+ * <p>
+ * A batch is sent once it holds batchSize messages, once adding a message would make it exceed the maximum
+ * buffer size, or after lingerMs milliseconds.
+ */
+class KafkaRpcBatcher implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(KafkaRpcBatcher.class);
+
+    public static final String BATCH_HEADER = "rpc-batch";
+
+    private static final List<Header> BATCH_HEADERS = Collections.singletonList(new RecordHeader(BATCH_HEADER, new byte[] { 1 }));
+
+    private final KafkaProducer<String, byte[]> producer;
+
+    private final int batchSize;
+
+    private final long lingerMs;
+
+    private final int maxBufferSize;
+
+    private final Map<BatchKey, Batch> batches = new HashMap<>();
+
+    private final ScheduledExecutorService flushExecutor;
+
+    public KafkaRpcBatcher(KafkaProducer<String, byte[]> producer, int batchSize, long lingerMs, int maxBufferSize) {
+        this.producer = Objects.requireNonNull(producer);
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.maxBufferSize = maxBufferSize;
+        if (isEnabled()) {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("rpc-kafka-batch-flush-%d")
+                    .build());
+            flushExecutor.scheduleWithFixedDelay(this::flushExpiredBatches, lingerMs, lingerMs, TimeUnit.MILLISECONDS);
+        } else {
+            flushExecutor = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return batchSize > 1 && lingerMs > 0;
+    }
+
+    /**
+     * Adds the given message to the batch for the given topic and system id.
+     *
+     * @param callback invoked once the batch holding the message was sent, or failed to be sent
+     * @return false if the message cannot be batched, in which case it should be sent on it's own
+     */
+    public boolean add(String topic, String systemId, RpcMessageProtos.RpcMessage message, Callback callback) {
+        if (!isEnabled()) {
+            return false;
+        }
+        final int messageSize = message.getSerializedSize();
+        // Leave some room for the length prefixes
+        if (messageSize + 5 > maxBufferSize) {
+            return false;
+        }
+
+        final BatchKey key = new BatchKey(topic, Strings.nullToEmpty(systemId));
+        final List<Batch> readyBatches = new ArrayList<>(2);
+        synchronized (batches) {
+            Batch batch = batches.get(key);
+            if (batch != null && batch.size + messageSize + 5 > maxBufferSize) {
+                // No more room in the current batch
+                readyBatches.add(batches.remove(key));
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(key);
+                batches.put(key, batch);
+            }
+            batch.add(message, messageSize, callback);
+            if (batch.messages.size() >= batchSize) {
+                readyBatches.add(batches.remove(key));
+            }
+        }
+        readyBatches.forEach(this::send);
+        return true;
+    }
+
+    private void flushExpiredBatches() {
+        final long cutOff = System.currentTimeMillis() - lingerMs;
+        final List<Batch> readyBatches = new ArrayList<>();
+        synchronized (batches) {
+            final Iterator<Batch> it = batches.values().iterator();
+            while (it.hasNext()) {
+                final Batch batch = it.next();
+                if (batch.createdMillis <= cutOff) {
+                    readyBatches.add(batch);
+                    it.remove();
+                }
+            }
+        }
+        for (Batch batch : readyBatches) {
+            try {
+                send(batch);
+            } catch (Exception e) {
+                LOG.warn("Failed to send RPC batch to topic {}.", batch.key.topic, e);
+            }
+        }
+    }
+
+    private void send(Batch batch) {
+        final String batchId = UUID.randomUUID().toString();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(batch.size + 5 * batch.messages.size());
+        try {
+            for (RpcMessageProtos.RpcMessage message : batch.messages) {
+                message.writeDelimitedTo(out);
+            }
+        } catch (IOException e) {
+            // We're writing to memory
+            throw new IllegalStateException(e);
+        }
+        final RpcMessageProtos.RpcMessage.Builder builder = RpcMessageProtos.RpcMessage.newBuilder()
+                .setRpcId(batchId)
+                .setRpcContent(ByteString.copyFrom(out.toByteArray()));
+        if (!batch.key.systemId.isEmpty()) {
+            builder.setSystemId(batch.key.systemId);
+        }
+        final byte[] value = builder.build().toByteArray();
+        final Callback sendCallback = (recordMetadata, e) -> {
+            for (Callback callback : batch.callbacks) {
+                callback.onCompletion(recordMetadata, e);
+            }
+        };
+
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Sending batch {} with {} messages to topic {}.", batchId, batch.messages.size(), batch.key.topic);
+        }
+        if (!batch.key.systemId.isEmpty()) {
+            // For directed RPCs, send the batch to all partitions (consumers), see KafkaRpcClientFactory
+            producer.partitionsFor(batch.key.topic).forEach(partition -> {
+                producer.send(new ProducerRecord<>(batch.key.topic, partition.partition(), batchId, value, BATCH_HEADERS), sendCallback);
+            });
+        } else {
+            producer.send(new ProducerRecord<>(batch.key.topic, null, batchId, value, BATCH_HEADERS), sendCallback);
+        }
+    }
+
+    public static boolean isBatch(ConsumerRecord<String, byte[]> record) {
+        return record.headers().lastHeader(BATCH_HEADER) != null;
+    }
+
+    /**
+     * Extracts the messages from the content of a batch.
+     */
+    public static List<RpcMessageProtos.RpcMessage> unpack(RpcMessageProtos.RpcMessage batch) throws IOException {
+        final List<RpcMessageProtos.RpcMessage> messages = new ArrayList<>();
+        final ByteArrayInputStream in = new ByteArrayInputStream(batch.getRpcContent().toByteArray());
+        RpcMessageProtos.RpcMessage message;
+        while ((message = RpcMessageProtos.RpcMessage.parseDelimitedFrom(in)) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Sends all of the pending batches.
+     */
+    public void flush() {
+        final List<Batch> readyBatches;
+        synchronized (batches) {
+            readyBatches = new ArrayList<>(batches.values());
+            batches.clear();
+        }
+        readyBatches.forEach(this::send);
+    }
+
+    @Override
+    public void close() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+        }
+        flush();
+    }
+
+    private static class BatchKey {
+        private final String topic;
+        private final String systemId;
+
+        private BatchKey(String topic, String systemId) {
+            this.topic = topic;
+            this.systemId = systemId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final BatchKey that = (BatchKey) o;
+            return Objects.equals(topic, that.topic) &&
+                    Objects.equals(systemId, that.systemId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(topic, systemId);
+        }
+    }
+
+    private static class Batch {
+        private final BatchKey key;
+        private final long createdMillis = System.currentTimeMillis();
+        private final List<RpcMessageProtos.RpcMessage> messages = new ArrayList<>();
+        private final List<Callback> callbacks = new ArrayList<>();
+        private int size = 0;
+
+        private Batch(BatchKey key) {
+            this.key = key;
+        }
+
+        private void add(RpcMessageProtos.RpcMessage message, int messageSize, Callback callback) {
+            messages.add(message);
+            if (callback != null) {
+                callbacks.add(callback);
+            }
+            size += messageSize + 5;
+        }
+    }
+}
@@ -31,6 +31,7 @@ package org.opennms.core.ipc.rpc.kafka;
 import static org.opennms.core.ipc.rpc.kafka.KafkaRpcConstants.DEFAULT_TTL;
 import static org.opennms.core.ipc.rpc.kafka.KafkaRpcConstants.MAX_BUFFER_SIZE;
 
+import java.io.IOException;
 import java.math.RoundingMode;
 import java.util.HashSet;
 import java.util.List;
@@ -85,7 +86,6 @@ import org.slf4j.LoggerFactory;
 import com.google.common.math.IntMath;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
-import com.google.protobuf.InvalidProtocolBufferException;
 import com.swrve.ratelimitedlogger.RateLimitedLog;
 
 /**
@@ -95,7 +95,8 @@ import com.swrve.ratelimitedlogger.RateLimitedLog;
  * <p>
  * The client also expands the buffer into chunks if it is larger than the configured buffer size. The client then sends
  * the request to Kafka. If it is directed RPC (to a specific minion) it sends the request to all partitions there by to
- * all consumers (minions).
+ * all consumers (minions). When batching is enabled, small requests to the same location and system-id are packed
+ * into a single record by the {@link KafkaRpcBatcher}, but are still tracked and timed out individually.
  * <p>
  * Consumer thread (one for each module) will receive the response and send it to a response handler which will return
  * the response.
@@ -111,6 +112,7 @@ public class KafkaRpcClientFactory implements RpcClientFactory {
             .build();
     private String location;
     private KafkaProducer<String, byte[]> producer;
+    private KafkaRpcBatcher batcher;
     private final Properties kafkaConfig = new Properties();
     private final ThreadFactory threadFactory = new ThreadFactoryBuilder()
             .setNameFormat("rpc-client-kafka-consumer-%d")
@@ -181,6 +183,10 @@ public class KafkaRpcClientFactory implements RpcClientFactory {
                             .setCurrentChunkNumber(chunk)
                             .setTotalChunks(totalChunks)
                             .build();
+                    if (totalChunks == 1 && batcher.add(requestTopic, request.getSystemId(), rpcMessage, sendCallback)) {
+                        // The request will be sent along with other requests to the same location (and minion)
+                        continue;
+                    }
                     if (request.getSystemId() != null) {
                         // For directed RPCs, send request to all partitions (consumers),
                         // as it is reasonable to assume that partitions >= consumers(number of minions at location).
@@ -226,6 +232,12 @@ public class KafkaRpcClientFactory implements RpcClientFactory {
             kafkaConfig.putAll(kafkaConfigProvider.getProperties());
             producer = new KafkaProducer<>(kafkaConfig);
             LOG.info("initializing the Kafka producer with: {}", kafkaConfig);
+            batcher = new KafkaRpcBatcher(producer, KafkaRpcConstants.getBatchSize(kafkaConfig),
+                    KafkaRpcConstants.getBatchLingerMs(kafkaConfig), MAX_BUFFER_SIZE);
+            if (batcher.isEnabled()) {
+                LOG.info("batching RPC requests with: {}={}, {}={}", KafkaRpcConstants.BATCH_SIZE_PROPERTY, KafkaRpcConstants.getBatchSize(kafkaConfig),
+                        KafkaRpcConstants.BATCH_LINGER_MS_PROPERTY, KafkaRpcConstants.getBatchLingerMs(kafkaConfig));
+            }
             // Start consumer which handles all the responses.
             KafkaConsumer<String, byte[]> kafkaConsumer = new KafkaConsumer<>(kafkaConfig);
             kafkaConsumerRunner = new KafkaConsumerRunner(kafkaConsumer);
@@ -365,36 +377,18 @@ public class KafkaRpcClientFactory implements RpcClientFactory {
                 try {
                     ConsumerRecords<String, byte[]> records = consumer.poll(Long.MAX_VALUE);
                     for (ConsumerRecord<String, byte[]> record : records) {
-                        // Get Response callback from key and send rpc content to callback.
-                        ResponseCallback responseCb = rpcResponseMap.get(record.key());
-                        if (responseCb != null) {
-                            RpcMessageProtos.RpcMessage rpcMessage = RpcMessageProtos.RpcMessage
-                                    .parseFrom(record.value());
-                            ByteString rpcContent = rpcMessage.getRpcContent();
-                            // For larger messages which get split into multiple chunks, cache them until all of them arrive.
-                            if (rpcMessage.getTotalChunks() > 1) {
-                                String rpcId = rpcMessage.getRpcId();
-                                ByteString byteString = messageCache.get(rpcId);
-                                if (byteString != null) {
-                                    messageCache.put(rpcId, byteString.concat(rpcMessage.getRpcContent()));
-                                } else {
-                                    messageCache.put(rpcId, rpcMessage.getRpcContent());
-                                }
-                                if (rpcMessage.getTotalChunks() != rpcMessage.getCurrentChunkNumber() + 1) {
-                                    continue;
-                                }
-                                rpcContent = messageCache.get(rpcId);
-                            }
-                            if (LOG.isTraceEnabled()) {
-                                LOG.trace("Received RPC response for id {}",  rpcMessage.getRpcId());
+                        if (KafkaRpcBatcher.isBatch(record)) {
+                            // Responses to batched requests may be batched as well, dispatch them using their own ids.
+                            RpcMessageProtos.RpcMessage batch = RpcMessageProtos.RpcMessage.parseFrom(record.value());
+                            for (RpcMessageProtos.RpcMessage rpcMessage : KafkaRpcBatcher.unpack(batch)) {
+                                handleResponse(rpcMessage.getRpcId(), rpcMessage);
                             }
-                            responseCb.sendResponse(rpcContent.toStringUtf8());
-                        } else {
-                            LOG.warn("Received a response for request with ID:{}, but no outstanding request was found with this id, The request may have timed out.",
-                                    record.key());
+                            continue;
                         }
+                        // Get Response callback from key and send rpc content to callback.
+                        handleResponse(record.key(), RpcMessageProtos.RpcMessage.parseFrom(record.value()));
                     }
-                } catch (InvalidProtocolBufferException e) {
+                } catch (IOException e) {
                     LOG.error("error while parsing response", e);
                 } catch (WakeupException e) {
                     LOG.info(" consumer got wakeup exception, closed = {} ", closed.get(), e);
@@ -404,6 +398,33 @@ public class KafkaRpcClientFactory implements RpcClientFactory {
             consumer.close();
         }
 
+        private void handleResponse(String rpcId, RpcMessageProtos.RpcMessage rpcMessage) {
+            ResponseCallback responseCb = rpcResponseMap.get(rpcId);
+            if (responseCb == null) {
+                LOG.warn("Received a response for request with ID:{}, but no outstanding request was found with this id, The request may have timed out.",
+                        rpcId);
+                return;
+            }
+            ByteString rpcContent = rpcMessage.getRpcContent();
+            // For larger messages which get split into multiple chunks, cache them until all of them arrive.
+            if (rpcMessage.getTotalChunks() > 1) {
+                ByteString byteString = messageCache.get(rpcId);
+                if (byteString != null) {
+                    messageCache.put(rpcId, byteString.concat(rpcMessage.getRpcContent()));
+                } else {
+                    messageCache.put(rpcId, rpcMessage.getRpcContent());
+                }
+                if (rpcMessage.getTotalChunks() != rpcMessage.getCurrentChunkNumber() + 1) {
+                    return;
+                }
+                rpcContent = messageCache.get(rpcId);
+            }
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Received RPC response for id {}",  rpcMessage.getRpcId());
+            }
+            responseCb.sendResponse(rpcContent.toStringUtf8());
+        }
+
         public void stop() {
             closed.set(true);
             consumer.wakeup();
@@ -429,6 +450,9 @@ public class KafkaRpcClientFactory implements RpcClientFactory {
 
     public void stop() {
         LOG.info("stop kafka consumer runner");
+        if (batcher != null) {
+            batcher.close();
+        }
         kafkaConsumerRunner.stop();
         executor.shutdown();
         timerExecutor.shutdown();
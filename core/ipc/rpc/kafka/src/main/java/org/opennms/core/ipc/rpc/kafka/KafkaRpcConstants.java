@@ -48,6 +48,12 @@ public interface KafkaRpcConstants {
     public static final String DEFAULT_TTL_PROPERTY = "ttl";
     public static final long DEFAULT_TTL = Long.getLong(String.format("%s%s", KAFKA_CONFIG_SYS_PROP_PREFIX, DEFAULT_TTL_PROPERTY),
             DEFAULT_TTL_CONFIGURED);
+    // Maximum number of RPC messages packed in a single record, batching is disabled when <= 1.
+    public static final String BATCH_SIZE_PROPERTY = "rpc.batch.size";
+    public static final int DEFAULT_BATCH_SIZE = 1;
+    // Maximum amount of time a RPC message waits for a batch to fill up.
+    public static final String BATCH_LINGER_MS_PROPERTY = "rpc.batch.linger.ms";
+    public static final long DEFAULT_BATCH_LINGER_MS = 5;
 
 
     // Calculate remaining buffer size for each chunk.
@@ -71,4 +77,22 @@ public interface KafkaRpcConstants {
         return maxBufferSize;
     }
 
+    // Retrieve batch size from configuration properties.
+    static int getBatchSize(Properties properties) {
+        try {
+            return Integer.parseInt(properties.getProperty(BATCH_SIZE_PROPERTY));
+        } catch (NumberFormatException e) {
+            return DEFAULT_BATCH_SIZE;
+        }
+    }
+
+    // Retrieve batch linger from configuration properties.
+    static long getBatchLingerMs(Properties properties) {
+        try {
+            return Long.parseLong(properties.getProperty(BATCH_LINGER_MS_PROPERTY));
+        } catch (NumberFormatException e) {
+            return DEFAULT_BATCH_LINGER_MS;
+        }
+    }
+
 }
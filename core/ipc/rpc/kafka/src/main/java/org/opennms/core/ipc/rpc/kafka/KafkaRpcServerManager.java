@@ -48,6 +48,7 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -72,7 +73,6 @@ import com.google.common.base.Strings;
 import com.google.common.math.IntMath;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
-import com.google.protobuf.InvalidProtocolBufferException;
 import com.swrve.ratelimitedlogger.RateLimitedLog;
 
 /**
@@ -91,6 +91,7 @@ public class KafkaRpcServerManager {
     private final Properties kafkaConfig = new Properties();
     private final KafkaConfigProvider kafkaConfigProvider;
     private KafkaProducer<String, byte[]> producer;
+    private KafkaRpcBatcher batcher;
     private MinionIdentity minionIdentity;
     private Integer maxBufferSize = KafkaRpcConstants.MAX_BUFFER_SIZE_CONFIGURED;
     private final ThreadFactory threadFactory = new ThreadFactoryBuilder()
@@ -125,6 +126,9 @@ public class KafkaRpcServerManager {
         producer = Utils.runWithGivenClassLoader(() -> new KafkaProducer<String, byte[]>(kafkaConfig), KafkaProducer.class.getClassLoader());
         // Configurable cache config.
         maxBufferSize = KafkaRpcConstants.getMaxBufferSize(kafkaConfig);
+        // Responses to batched requests are batched as well when enabled.
+        batcher = new KafkaRpcBatcher(producer, KafkaRpcConstants.getBatchSize(kafkaConfig),
+                KafkaRpcConstants.getBatchLingerMs(kafkaConfig), maxBufferSize);
         // Thread to expire RpcId from rpcIdQueue.
         delayQueueExecutor.execute(() -> {
             while(true) {
@@ -178,6 +182,9 @@ public class KafkaRpcServerManager {
     }
 
     public void destroy() {
+        if (batcher != null) {
+            batcher.close();
+        }
         if (producer != null) {
             producer.close();
         }
@@ -217,96 +224,18 @@ public class KafkaRpcServerManager {
                         try {
                             RpcMessageProtos.RpcMessage rpcMessage = RpcMessageProtos.RpcMessage
                                                                           .parseFrom(record.value());
-                            String rpcId = rpcMessage.getRpcId();
-                            long expirationTime = rpcMessage.getExpirationTime();
-                            if (expirationTime < System.currentTimeMillis()) {
-                                LOG.warn("ttl already expired for the request id = {}, won't process.", rpcMessage.getRpcId());
-                                continue;
-                            }
-                            boolean hasSystemId = !Strings.isNullOrEmpty(rpcMessage.getSystemId());
-                            String minionId = minionIdentity.getId();
-                            if (hasSystemId && !(minionId.equals(rpcMessage.getSystemId()))) {
-                                // directed RPC and not directed at this minion
-                                continue;
-                            }
-                            if (hasSystemId) {
-                                // directed RPC, there may be more than one request with same request Id, cache and allow only one.
-                                String messageId = rpcId;
-                                // If this message has more than one chunk, chunk number should be added to messageId to make it unique.
-                                if (rpcMessage.getTotalChunks() > 1) {
-                                    messageId = messageId + rpcMessage.getCurrentChunkNumber();
-                                }
-                                // If rpcId is already present in queue, no need to process it again.
-                                if (rpcIdQueue.contains(new RpcId(messageId, rpcMessage.getExpirationTime())) ||
-                                        rpcMessage.getExpirationTime() < System.currentTimeMillis()) {
+                            if (KafkaRpcBatcher.isBatch(record)) {
+                                // All of the requests in a batch share the same system-id, skip the batch early if it's not for us
+                                if (!isForThisMinion(rpcMessage)) {
                                     continue;
-                                } else {
-                                    rpcIdQueue.offer(new RpcId(messageId, rpcMessage.getExpirationTime()));
                                 }
-                            }
-                            ByteString rpcContent = rpcMessage.getRpcContent();
-                            // For larger messages which get split into multiple chunks, cache them until all of them arrive.
-                            if (rpcMessage.getTotalChunks() > 1) {
-                                ByteString byteString = messageCache.get(rpcId);
-                                if (byteString != null) {
-                                    messageCache.put(rpcId, byteString.concat(rpcMessage.getRpcContent()));
-                                } else {
-                                    messageCache.put(rpcId, rpcMessage.getRpcContent());
-                                }
-                                if (rpcMessage.getTotalChunks() != rpcMessage.getCurrentChunkNumber() + 1) {
-                                    continue;
+                                for (RpcMessageProtos.RpcMessage batchedMessage : KafkaRpcBatcher.unpack(rpcMessage)) {
+                                    handleRequest(batchedMessage, true);
                                 }
-                                rpcContent = messageCache.get(rpcId);
-                                messageCache.remove(rpcId);
+                            } else {
+                                handleRequest(rpcMessage, false);
                             }
-                            RpcRequest request = module.unmarshalRequest(rpcContent.toStringUtf8());
-                            CompletableFuture<RpcResponse> future = module.execute(request);
-                            future.whenComplete((res, ex) -> {
-                                final RpcResponse response;
-                                if (ex != null) {
-                                    // An exception occurred, store the exception in a new response
-                                    LOG.warn("An error occured while executing a call in {}.", module.getId(), ex);
-                                    response = module.createResponseWithException(ex);
-                                } else {
-                                    // No exception occurred, use the given response
-                                    response = res;
-                                }
-
-                                try {
-                                    final JmsQueueNameFactory topicNameFactory = new JmsQueueNameFactory(KafkaRpcConstants.RPC_RESPONSE_TOPIC_NAME,
-                                            module.getId());
-                                    final String responseAsString = module.marshalResponse(response);
-                                    final byte[] messageInBytes = responseAsString.getBytes();
-                                    int totalChunks = IntMath.divide(messageInBytes.length, maxBufferSize, RoundingMode.UP);
-                                    // Divide the message in chunks and send each chunk as a different message with the same key.
-                                    RpcMessageProtos.RpcMessage.Builder builder = RpcMessageProtos.RpcMessage.newBuilder()
-                                                                                      .setRpcId(rpcId);
-                                    builder.setTotalChunks(totalChunks);
-                                    for (int chunk = 0; chunk < totalChunks; chunk++) {
-                                        // Calculate remaining bufferSize for each chunk.
-                                        int bufferSize = KafkaRpcConstants.getBufferSize(messageInBytes.length, maxBufferSize, chunk);
-                                        ByteString byteString = ByteString.copyFrom(messageInBytes, chunk * maxBufferSize, bufferSize);
-                                        RpcMessageProtos.RpcMessage rpcResponse = builder.setCurrentChunkNumber(chunk)
-                                                                                      .setRpcContent(byteString)
-                                                                                      .build();
-                                        final ProducerRecord<String, byte[]> producerRecord = new ProducerRecord<>(
-                                                topicNameFactory.getName(), rpcId, rpcResponse.toByteArray());
-                                        int chunkNum = chunk;
-                                        producer.send(producerRecord, (recordMetadata, e) -> {
-                                            if (e != null) {
-                                                RATE_LIMITED_LOG.error(" RPC response {} with id {} couldn't be sent to Kafka", rpcResponse, rpcId, e);
-                                            } else {
-                                                if (LOG.isTraceEnabled()) {
-                                                    LOG.trace("request with id {} executed, sending response {}, chunk number {} ", rpcId, responseAsString, chunkNum);
-                                                }
-                                            }
-                                        });
-                                    }
-                                } catch (Throwable t) {
-                                    LOG.error("Marshalling response in RPC module {} failed.", module, t);
-                                }
-                            });
-                        } catch (InvalidProtocolBufferException e) {
+                        } catch (IOException e) {
                              LOG.error("error while parsing the request", e);
                         }
                     }
@@ -321,6 +250,114 @@ public class KafkaRpcServerManager {
             }
         }
 
+        private boolean isForThisMinion(RpcMessageProtos.RpcMessage rpcMessage) {
+            // Requests without a system-id can be handled by any minion at the location
+            return Strings.isNullOrEmpty(rpcMessage.getSystemId()) || minionIdentity.getId().equals(rpcMessage.getSystemId());
+        }
+
+        /**
+         * Executes the given request and sends the response.
+         *
+         * @param batched when true, the response may be batched with other responses since
+         *                the client that sent the request knows how to unpack them
+         */
+        private void handleRequest(RpcMessageProtos.RpcMessage rpcMessage, boolean batched) {
+            String rpcId = rpcMessage.getRpcId();
+            long expirationTime = rpcMessage.getExpirationTime();
+            if (expirationTime < System.currentTimeMillis()) {
+                LOG.warn("ttl already expired for the request id = {}, won't process.", rpcMessage.getRpcId());
+                return;
+            }
+            boolean hasSystemId = !Strings.isNullOrEmpty(rpcMessage.getSystemId());
+            if (!isForThisMinion(rpcMessage)) {
+                // directed RPC and not directed at this minion
+                return;
+            }
+            if (hasSystemId) {
+                // directed RPC, there may be more than one request with same request Id, cache and allow only one.
+                String messageId = rpcId;
+                // If this message has more than one chunk, chunk number should be added to messageId to make it unique.
+                if (rpcMessage.getTotalChunks() > 1) {
+                    messageId = messageId + rpcMessage.getCurrentChunkNumber();
+                }
+                // If rpcId is already present in queue, no need to process it again.
+                if (rpcIdQueue.contains(new RpcId(messageId, rpcMessage.getExpirationTime())) ||
+                        rpcMessage.getExpirationTime() < System.currentTimeMillis()) {
+                    return;
+                } else {
+                    rpcIdQueue.offer(new RpcId(messageId, rpcMessage.getExpirationTime()));
+                }
+            }
+            ByteString rpcContent = rpcMessage.getRpcContent();
+            // For larger messages which get split into multiple chunks, cache them until all of them arrive.
+            if (rpcMessage.getTotalChunks() > 1) {
+                ByteString byteString = messageCache.get(rpcId);
+                if (byteString != null) {
+                    messageCache.put(rpcId, byteString.concat(rpcMessage.getRpcContent()));
+                } else {
+                    messageCache.put(rpcId, rpcMessage.getRpcContent());
+                }
+                if (rpcMessage.getTotalChunks() != rpcMessage.getCurrentChunkNumber() + 1) {
+                    return;
+                }
+                rpcContent = messageCache.get(rpcId);
+                messageCache.remove(rpcId);
+            }
+            final String requestBody = rpcContent.toStringUtf8();
+            RpcRequest request = module.unmarshalRequest(requestBody);
+            CompletableFuture<RpcResponse> future = module.execute(request);
+            future.whenComplete((res, ex) -> {
+                final RpcResponse response;
+                if (ex != null) {
+                    // An exception occurred, store the exception in a new response
+                    LOG.warn("An error occured while executing a call in {}.", module.getId(), ex);
+                    response = module.createResponseWithException(ex);
+                } else {
+                    // No exception occurred, use the given response
+                    response = res;
+                }
+
+                try {
+                    final JmsQueueNameFactory topicNameFactory = new JmsQueueNameFactory(KafkaRpcConstants.RPC_RESPONSE_TOPIC_NAME,
+                            module.getId());
+                    final String responseAsString = module.marshalResponse(response, requestBody);
+                    final byte[] messageInBytes = responseAsString.getBytes();
+                    int totalChunks = IntMath.divide(messageInBytes.length, maxBufferSize, RoundingMode.UP);
+                    // Divide the message in chunks and send each chunk as a different message with the same key.
+                    RpcMessageProtos.RpcMessage.Builder builder = RpcMessageProtos.RpcMessage.newBuilder()
+                                                                      .setRpcId(rpcId);
+                    builder.setTotalChunks(totalChunks);
+                    for (int chunk = 0; chunk < totalChunks; chunk++) {
+                        // Calculate remaining bufferSize for each chunk.
+                        int bufferSize = KafkaRpcConstants.getBufferSize(messageInBytes.length, maxBufferSize, chunk);
+                        ByteString byteString = ByteString.copyFrom(messageInBytes, chunk * maxBufferSize, bufferSize);
+                        RpcMessageProtos.RpcMessage rpcResponse = builder.setCurrentChunkNumber(chunk)
+                                                                      .setRpcContent(byteString)
+                                                                      .build();
+                        int chunkNum = chunk;
+                        Callback sendCallback = (recordMetadata, e) -> {
+                            if (e != null) {
+                                RATE_LIMITED_LOG.error(" RPC response {} with id {} couldn't be sent to Kafka", rpcResponse, rpcId, e);
+                            } else {
+                                if (LOG.isTraceEnabled()) {
+                                    LOG.trace("request with id {} executed, sending response {}, chunk number {} ", rpcId, responseAsString, chunkNum);
+                                }
+                            }
+                        };
+                        if (batched && totalChunks == 1 && batcher.add(topicNameFactory.getName(), null, rpcResponse, sendCallback)) {
+                            // The response will be sent along with other responses
+                            continue;
+                        }
+                        final ProducerRecord<String, byte[]> producerRecord = new ProducerRecord<>(
+                                topicNameFactory.getName(), rpcId, rpcResponse.toByteArray());
+                        producer.send(producerRecord, sendCallback);
+                    }
+                } catch (Throwable t) {
+                    LOG.error("Marshalling response in RPC module {} failed.", module, t);
+                }
+            });
+        }
+
     }
 
     /**
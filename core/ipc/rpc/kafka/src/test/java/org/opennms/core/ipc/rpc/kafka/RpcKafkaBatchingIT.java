@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.ipc.rpc.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.opennms.core.ipc.rpc.kafka.KafkaRpcConstants.BATCH_SIZE_PROPERTY;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.opennms.core.ipc.common.kafka.OsgiKafkaConfigProvider;
+import org.opennms.core.rpc.api.RequestTimedOutException;
+import org.opennms.core.rpc.echo.EchoRequest;
+import org.opennms.core.rpc.echo.EchoResponse;
+import org.opennms.core.rpc.echo.EchoRpcModule;
+import org.opennms.core.test.kafka.JUnitKafkaServer;
+import org.opennms.distributed.core.api.MinionIdentity;
+import org.osgi.service.cm.ConfigurationAdmin;
+
+/**
+ * Verifies that requests and responses can be batched, and that the
+ * requests in a batch still time out on their own.
+ */
+public class RpcKafkaBatchingIT {
+
+    private static final String KAFKA_CONFIG_PID = "org.opennms.core.ipc.rpc.kafka.";
+    private static final String REMOTE_LOCATION_NAME = "remote";
+    private static final String BATCH_SIZE = "10";
+
+    @Rule
+    public JUnitKafkaServer kafkaServer = new JUnitKafkaServer();
+
+    private MockEchoClient echoClient;
+
+    private KafkaRpcClientFactory rpcClient;
+
+    private KafkaRpcServerManager kafkaRpcServer;
+
+    private MinionIdentity minionIdentity;
+
+    private EchoRpcModule echoRpcModule = new EchoRpcModule();
+
+    @Before
+    public void setup() throws Exception {
+        System.setProperty(KAFKA_CONFIG_PID + ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaServer.getKafkaConnectString());
+        System.setProperty(KAFKA_CONFIG_PID + ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        System.setProperty(KAFKA_CONFIG_PID + BATCH_SIZE_PROPERTY, BATCH_SIZE);
+        rpcClient = new KafkaRpcClientFactory();
+        echoClient = new MockEchoClient(rpcClient);
+        rpcClient.start();
+
+        final Hashtable<String, Object> kafkaConfig = new Hashtable<>();
+        kafkaConfig.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaServer.getKafkaConnectString());
+        kafkaConfig.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        kafkaConfig.put(BATCH_SIZE_PROPERTY, BATCH_SIZE);
+        ConfigurationAdmin configAdmin = mock(ConfigurationAdmin.class, RETURNS_DEEP_STUBS);
+        when(configAdmin.getConfiguration(KafkaRpcConstants.KAFKA_CONFIG_PID).getProperties())
+                .thenReturn(kafkaConfig);
+        minionIdentity = new MockMinionIdentity(REMOTE_LOCATION_NAME);
+        kafkaRpcServer = new KafkaRpcServerManager(new OsgiKafkaConfigProvider(KafkaRpcConstants.KAFKA_CONFIG_PID, configAdmin), minionIdentity);
+        kafkaRpcServer.init();
+        kafkaRpcServer.bind(echoRpcModule);
+    }
+
+    @Test(timeout = 60000)
+    public void canBatchRequestsAndResponses() throws InterruptedException, ExecutionException {
+        final List<CompletableFuture<EchoResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 95; i++) {
+            final EchoRequest request = new EchoRequest("Kafka-RPC-" + i);
+            request.setLocation(REMOTE_LOCATION_NAME);
+            // Mix directed and non-directed requests
+            if (i % 2 == 0) {
+                request.setSystemId(minionIdentity.getId());
+            }
+            futures.add(echoClient.execute(request));
+        }
+        // The last, partial, batches are sent after lingering
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(new EchoResponse("Kafka-RPC-" + i), futures.get(i).get());
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void canTimeoutRequestsInBatches() throws InterruptedException, ExecutionException {
+        final EchoRequest slowRequest = new EchoRequest("slow");
+        slowRequest.setLocation(REMOTE_LOCATION_NAME);
+        slowRequest.setSystemId(minionIdentity.getId());
+        slowRequest.setTimeToLiveMs(1000L);
+        slowRequest.setDelay(5000L);
+        final CompletableFuture<EchoResponse> slowFuture = echoClient.execute(slowRequest);
+
+        final EchoRequest fastRequest = new EchoRequest("fast");
+        fastRequest.setLocation(REMOTE_LOCATION_NAME);
+        fastRequest.setSystemId(minionIdentity.getId());
+        final CompletableFuture<EchoResponse> fastFuture = echoClient.execute(fastRequest);
+
+        // Both requests were sent in the same batch, but only the slow one times out
+        assertEquals(new EchoResponse("fast"), fastFuture.get());
+        try {
+            slowFuture.get();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RequestTimedOutException);
+        }
+        assertTrue(slowFuture.isCompletedExceptionally());
+    }
+
+    @After
+    public void destroy() throws Exception {
+        System.clearProperty(KAFKA_CONFIG_PID + BATCH_SIZE_PROPERTY);
+        kafkaRpcServer.unbind(echoRpcModule);
+        kafkaRpcServer.destroy();
+        rpcClient.stop();
+    }
+}
@@ -33,6 +33,9 @@ import java.util.Objects;
 import org.opennms.core.rpc.api.RpcModule;
 import org.opennms.core.rpc.api.RpcRequest;
 import org.opennms.core.rpc.api.RpcResponse;
+import org.opennms.core.xml.PayloadCodec;
+import org.opennms.core.xml.PayloadCodecNegotiation;
+import org.opennms.core.xml.PayloadCodecs;
 import org.opennms.core.xml.XmlHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,12 +43,23 @@ import org.slf4j.LoggerFactory;
 /**
  * {@link RpcModule} that uses JaxbUtils for marshaling and unmarshaling requests.
  *
+ * The marshalled requests can be compressed using a {@link PayloadCodec}. Requests are only
+ * encoded once all Minions at the target location advertised the codec in their heartbeats,
+ * see {@link PayloadCodecNegotiation}, and the responses are encoded using the codec of the request.
+ * This way, Minions which predate the codecs keep receiving plain XML.
+ *
  * @author jwhite
  */
 public abstract class AbstractXmlRpcModule<S extends RpcRequest,T extends RpcResponse> implements RpcModule<S, T>  {
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractXmlRpcModule.class);
 
+    /**
+     * Name of the {@link PayloadCodec} used to encode the requests of all modules.
+     * Can be overridden for a given module using "org.opennms.core.ipc.rpc.${moduleId}.codec".
+     */
+    public static final String CODEC_SYS_PROP = "org.opennms.core.ipc.rpc.codec";
+
     private final Class<S> requestClazz;
     private final Class<T> responseClazz;
 
@@ -56,6 +70,8 @@ public abstract class AbstractXmlRpcModule<S extends RpcRequest,T extends RpcRes
     private final ThreadLocal<XmlHandler<S>> requestXmlHandler = new ThreadLocal<>();
     private final ThreadLocal<XmlHandler<T>> responseXmlHandler = new ThreadLocal<>();
 
+    private volatile PayloadCodec payloadCodec;
+
     public AbstractXmlRpcModule(Class<S> requestClazz, Class<T> responseClazz) {
         this.requestClazz = Objects.requireNonNull(requestClazz);
         this.responseClazz = Objects.requireNonNull(responseClazz);
@@ -63,12 +79,13 @@ public abstract class AbstractXmlRpcModule<S extends RpcRequest,T extends RpcRes
 
     @Override
     public String marshalRequest(S request) {
-        return getRequestXmlHandler().marshal(request);
+        final PayloadCodec codec = PayloadCodecNegotiation.negotiate(getPayloadCodec(), request.getLocation(), request.getSystemId());
+        return PayloadCodecs.encodeToText(codec, getRequestXmlHandler().marshal(request));
     }
 
     @Override
     public S unmarshalRequest(String requestXml) {
-        return getRequestXmlHandler().unmarshal(requestXml);
+        return getRequestXmlHandler().unmarshal(PayloadCodecs.decodeFromText(requestXml));
     }
 
     @Override
@@ -76,9 +93,34 @@ public abstract class AbstractXmlRpcModule<S extends RpcRequest,T extends RpcRes
         return getResponseXmlHandler().marshal(response);
     }
 
+    @Override
+    public String marshalResponse(T response, String request) {
+        // Answer using the codec the request was encoded with, which the sender is known to support
+        return PayloadCodecs.encodeToText(PayloadCodecs.getCodecOfText(request), getResponseXmlHandler().marshal(response));
+    }
+
     @Override
     public T unmarshalResponse(String response) {
-        return getResponseXmlHandler().unmarshal(response);
+        return getResponseXmlHandler().unmarshal(PayloadCodecs.decodeFromText(response));
+    }
+
+    /**
+     * The codec used to encode the marshalled requests, if supported by the receiving Minions.
+     *
+     * Defaults to plain XML, which can be consumed by every version of Minion.
+     */
+    protected PayloadCodec getPayloadCodec() {
+        if (payloadCodec == null) {
+            final PayloadCodec codec = PayloadCodecs.getCodecFromSystemProperties(
+                    String.format("org.opennms.core.ipc.rpc.%s.codec", getId()), CODEC_SYS_PROP);
+            if (codec == PayloadCodecs.BINARY) {
+                LOG.warn("RPC module {} has no binary encoding. Using '{}'.", getId(), PayloadCodecs.XML.getName());
+                payloadCodec = PayloadCodecs.XML;
+            } else {
+                payloadCodec = codec;
+            }
+        }
+        return payloadCodec;
     }
 
     private XmlHandler<S> getRequestXmlHandler() {
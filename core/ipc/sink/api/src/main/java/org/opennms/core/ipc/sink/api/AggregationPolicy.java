@@ -73,6 +73,25 @@ public interface AggregationPolicy<S, T, U> {
      */
     int getCompletionIntervalMs();
 
+    /**
+     * Target number of milliseconds for which messages should wait
+     * in a bucket before being dispatched.
+     *
+     * When set, the completion size is adapted at runtime to the rate at which
+     * messages are received: buckets are kept small at low rates in order to reduce
+     * latency, and grow up to {@link #getCompletionSize()} at high rates in order
+     * to reduce the per-message overhead of dispatching. The completion interval
+     * must also be set, and remains an upper bound on the time spent in a bucket.
+     *
+     * Values <= 0 will disable adaptive batching, and buckets will always be
+     * dispatched once they have reached the completion size.
+     *
+     * @return target number of milliseconds to keep messages in a bucket
+     */
+    default int getTargetLatencyMs() {
+        return 0;
+    }
+
     /**
      * Calculate a key for the given message.
      *
@@ -29,7 +29,6 @@
 package org.opennms.core.ipc.sink.aws.sqs.client;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 import org.opennms.core.ipc.common.aws.sqs.AmazonSQSManager;
 import org.opennms.core.ipc.sink.api.Message;
@@ -38,6 +37,7 @@ import org.opennms.core.ipc.sink.api.SinkModule;
 import org.opennms.core.ipc.sink.common.AbstractMessageDispatcherFactory;
 import org.opennms.core.logging.Logging;
 import org.opennms.core.logging.Logging.MDCCloseable;
+import org.opennms.core.xml.PayloadCodecs;
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,7 +72,7 @@ public class AmazonSQSRemoteMessageDispatcherFactory extends AbstractMessageDisp
             LOG.trace("dispatch({}): sending message {}", topic, message);
             try {
                 final String queueUrl = awsSqsManager.getSinkQueueUrlAndCreateIfNecessary(module.getId());
-                final String messageId = awsSqsManager.sendMessage(queueUrl, new String(module.marshal((T)message), StandardCharsets.UTF_8));
+                final String messageId = awsSqsManager.sendMessage(queueUrl, PayloadCodecs.toText(module.marshal((T)message)));
                 LOG.debug("SQS Message with ID {} has been successfully sent to {}", messageId, queueUrl);
             } catch (InterruptedException ex) {
                 LOG.warn("Interrupted while trying to send message. Aborting.", ex);
@@ -37,10 +37,10 @@ import org.opennms.core.ipc.sink.api.MessageConsumerManager;
 import org.opennms.core.ipc.sink.api.SinkModule;
 import org.opennms.core.ipc.sink.common.AbstractMessageConsumerManager;
 import org.opennms.core.logging.Logging;
+import org.opennms.core.xml.PayloadCodecs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -130,7 +130,7 @@ public class AmazonSQSMessageConsumerManager extends AbstractMessageConsumerMana
                     for (com.amazonaws.services.sqs.model.Message m : messages) {
                         try {
                             LOG.debug("Received SQS message with ID {} from {}", m.getMessageId(), queueUrl);
-                            final Message msg = module.unmarshal(m.getBody().getBytes(StandardCharsets.UTF_8));
+                            final Message msg = module.unmarshal(PayloadCodecs.fromText(m.getBody()));
                             dispatch(module, msg);
                             LOG.debug("Message with ID {} successfully dispatched.", m.getMessageId(), queueUrl);
                         } catch (RuntimeException e) {
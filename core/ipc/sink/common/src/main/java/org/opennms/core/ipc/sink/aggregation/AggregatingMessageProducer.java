@@ -32,6 +32,8 @@ import org.opennms.core.ipc.sink.api.AggregationPolicy;
 import org.opennms.core.ipc.sink.api.MessageDispatcher;
 import org.opennms.core.ipc.sink.api.SinkModule;
 
+import com.codahale.metrics.MetricRegistry;
+
 /**
  * A {@link MessageDispatcher} that applies the {@link SinkModule}'s {@link AggregationPolicy}
  * using the {@link Aggregator}.
@@ -43,7 +45,11 @@ public abstract class AggregatingMessageProducer<S, T> implements MessageDispatc
     private final Aggregator<S,T> aggregator;
 
     public AggregatingMessageProducer(String id, AggregationPolicy<S,T,?> policy) {
-        aggregator = new Aggregator<S,T>(id, policy, this);
+        this(id, policy, null);
+    }
+
+    public AggregatingMessageProducer(String id, AggregationPolicy<S,T,?> policy, MetricRegistry metrics) {
+        aggregator = new Aggregator<S,T>(id, policy, this, metrics);
     }
 
     @Override
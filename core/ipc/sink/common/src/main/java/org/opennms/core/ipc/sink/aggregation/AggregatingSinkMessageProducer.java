@@ -34,6 +34,8 @@ import org.opennms.core.ipc.sink.api.Message;
 import org.opennms.core.ipc.sink.api.SinkModule;
 import org.opennms.core.ipc.sink.api.SyncDispatcher;
 
+import com.codahale.metrics.MetricRegistry;
+
 /**
  * A {@link MessageDispatcher} that applies the {@link SinkModule}'s {@link AggregationPolicy}
  * using the {@link Aggregator}.
@@ -45,4 +47,8 @@ public abstract class AggregatingSinkMessageProducer<S extends Message, T extend
     public AggregatingSinkMessageProducer(SinkModule<S, T> module) {
         super(module.getId(), module.getAggregationPolicy());
     }
+
+    public AggregatingSinkMessageProducer(SinkModule<S, T> module, MetricRegistry metrics) {
+        super(module.getId(), module.getAggregationPolicy(), metrics);
+    }
 }
@@ -36,12 +36,18 @@ import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
+import java.util.function.LongSupplier;
 
 import org.opennms.core.ipc.sink.api.AggregationPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.util.concurrent.Striped;
 
 /**
@@ -50,6 +56,14 @@ import com.google.common.util.concurrent.Striped;
  * This class is designed to delegate dispatching to the calling threads as much
  * as possible (those which make calls to {@link #aggregate(Message).}
  *
+ * When the policy defines a target latency, the completion size is recalculated
+ * every time the buckets are flushed, using the rate at which messages were
+ * received for every key since the last flush. The completion size is set to
+ * the number of messages expected to be received for a key during the target
+ * latency, bounded by the completion size of the policy. The number of keys is
+ * estimated by hashing them into a fixed size bitmap (linear counting), which
+ * only needs to be written when a key is seen for the first time.
+ *
  * @author jwhite
  *
  * @param <S> individual message
@@ -74,14 +88,49 @@ public class Aggregator<S, T> implements AutoCloseable, Runnable {
      */
     private static final int NUM_STRIPE_LOCKS = Integer.getInteger(NUM_STRIPE_LOCKS_SYS_PROP, DEFAULT_NUM_STRIPE_LOCKS);
 
+    /**
+     * The number of bits used to estimate the number of distinct keys, as a power of 2.
+     * The estimate is accurate up to a few times as many keys as there are bits.
+     */
+    private static final int KEY_BITS_SHIFT = 13;
+
+    private static final int KEY_BITS = 1 << KEY_BITS_SHIFT;
+
     private final AggregationPolicy<S,T,Object> aggregationPolicy;
 
     private final AggregatingMessageProducer<S,T> messageProducer;
 
-    private final int completionSize;
+    private final int maxCompletionSize;
+
+    private volatile int completionSize;
 
     private final long completionIntervalMs;
 
+    private final long targetLatencyMs;
+
+    private final boolean adaptive;
+
+    /**
+     * Number of messages, and keys, seen since the completion size was last adapted.
+     */
+    private final LongAdder numMessagesSinceAdapted = new LongAdder();
+
+    private final AtomicLongArray keysSinceAdapted = new AtomicLongArray(KEY_BITS / Long.SIZE);
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private long lastAdaptedMillis = clock.getAsLong();
+
+    /**
+     * Exponentially weighted moving average of the number of messages received
+     * per key per millisecond, or a negative value if none was computed yet.
+     */
+    private double messagesPerKeyPerMs = -1;
+
+    private final Histogram batchSizes;
+
+    private final Histogram batchWaitTimes;
+
     private final Timer flushTimer;
 
     private final ConcurrentHashMap<Object, Bucket> buckets = new ConcurrentHashMap<>();
@@ -89,10 +138,35 @@ public class Aggregator<S, T> implements AutoCloseable, Runnable {
     private final Striped<Lock> lockStripes = Striped.lock(NUM_STRIPE_LOCKS);
 
     public Aggregator(String id, AggregationPolicy<S,T,?> policy, AggregatingMessageProducer<S,T> messageProducer) {
+        this(id, policy, messageProducer, null);
+    }
+
+    public Aggregator(String id, AggregationPolicy<S,T,?> policy, AggregatingMessageProducer<S,T> messageProducer, MetricRegistry metrics) {
         aggregationPolicy = (AggregationPolicy<S,T,Object>)Objects.requireNonNull(policy);
         this.messageProducer = Objects.requireNonNull(messageProducer);
-        completionSize = aggregationPolicy.getCompletionSize();
+        maxCompletionSize = aggregationPolicy.getCompletionSize();
         completionIntervalMs = aggregationPolicy.getCompletionIntervalMs();
+        targetLatencyMs = aggregationPolicy.getTargetLatencyMs();
+        // Adaptive batching relies on the flush timer to bound the latency, and to adapt the completion size
+        adaptive = targetLatencyMs > 0 && completionIntervalMs > 0 && maxCompletionSize > 1;
+        // Start small, and grow with the rate
+        completionSize = adaptive ? 1 : maxCompletionSize;
+
+        if (metrics != null) {
+            batchSizes = metrics.histogram(MetricRegistry.name(id, "batch-size"));
+            batchWaitTimes = metrics.histogram(MetricRegistry.name(id, "batch-wait"));
+            final String completionSizeName = MetricRegistry.name(id, "completion-size");
+            metrics.remove(completionSizeName);
+            metrics.register(completionSizeName, new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return completionSize;
+                }
+            });
+        } else {
+            batchSizes = null;
+            batchWaitTimes = null;
+        }
 
         if (completionIntervalMs > 0) {
             // Periodically verify the buckets, and flush those that are older than completionIntervalMs
@@ -125,6 +199,10 @@ public class Aggregator<S, T> implements AutoCloseable, Runnable {
     public T aggregate(S message) {
         // Compute the key
         final Object key = aggregationPolicy.key(message);
+        if (adaptive) {
+            numMessagesSinceAdapted.increment();
+            markKey(key);
+        }
         // Lock the bucket
         final Lock lock = lockStripes.get(key);
         try {
@@ -141,6 +219,7 @@ public class Aggregator<S, T> implements AutoCloseable, Runnable {
             if (accumulator != null) {
                 // The bucket is ready to be dispatched
                 buckets.remove(key);
+                updateMetrics(bucket);
                 return accumulator;
             } else {
                 // The bucket is NOT ready to be dispatched
@@ -169,7 +248,7 @@ public class Aggregator<S, T> implements AutoCloseable, Runnable {
             locks.forEach(Lock::lock);
             // Determine which buckets are ready to be dispatched
             // and remove these from the map
-            final long cutOff = System.currentTimeMillis() - completionIntervalMs;
+            final long cutOff = clock.getAsLong() - completionIntervalMs;
             for (final Object key : keys) {
                 final Bucket bucket = buckets.get(key);
                 // The bucket may have been removed between the time we retrieved
@@ -178,6 +257,7 @@ public class Aggregator<S, T> implements AutoCloseable, Runnable {
                 if (bucket != null && bucket.getFirstTimeMillis() != null && bucket.getFirstTimeMillis() <= cutOff) {
                     messagesReadyForDispatch.add(bucket.getValue());
                     buckets.remove(key);
+                    updateMetrics(bucket);
                 }
             }
         } finally {
@@ -188,6 +268,81 @@ public class Aggregator<S, T> implements AutoCloseable, Runnable {
         for (T message : messagesReadyForDispatch) {
             messageProducer.dispatch(message);
         }
+
+        if (adaptive) {
+            adaptCompletionSize();
+        }
+    }
+
+    /**
+     * Recalculates the completion size using the rate at which messages were
+     * received for every key since the last call.
+     */
+    private synchronized void adaptCompletionSize() {
+        final long now = clock.getAsLong();
+        final long elapsedMs = now - lastAdaptedMillis;
+        if (elapsedMs <= 0) {
+            return;
+        }
+        lastAdaptedMillis = now;
+
+        final int numKeys = Math.max(1, countKeys());
+        final double rate = numMessagesSinceAdapted.sumThenReset() / (double)numKeys / elapsedMs;
+        messagesPerKeyPerMs = messagesPerKeyPerMs < 0 ? rate : 0.5 * rate + 0.5 * messagesPerKeyPerMs;
+
+        final long size = Math.round(messagesPerKeyPerMs * targetLatencyMs);
+        completionSize = (int)Math.max(1, Math.min(maxCompletionSize, size));
+    }
+
+    /**
+     * Sets the bit of the given key, unless it is already set.
+     */
+    private void markKey(Object key) {
+        final int h = key.hashCode();
+        final int bit = ((h ^ (h >>> 16)) * 0x9E3779B9) >>> (Integer.SIZE - KEY_BITS_SHIFT);
+        final int index = bit / Long.SIZE;
+        final long mask = 1L << (bit % Long.SIZE);
+        long word = keysSinceAdapted.get(index);
+        while ((word & mask) == 0 && !keysSinceAdapted.compareAndSet(index, word, word | mask)) {
+            word = keysSinceAdapted.get(index);
+        }
+    }
+
+    /**
+     * Estimates the number of distinct keys seen since the last call, and clears the bits.
+     */
+    private int countKeys() {
+        int zeros = 0;
+        for (int i = 0; i < keysSinceAdapted.length(); i++) {
+            zeros += Long.SIZE - Long.bitCount(keysSinceAdapted.getAndSet(i, 0));
+        }
+        return (int)Math.round(-KEY_BITS * Math.log(Math.max(1, zeros) / (double)KEY_BITS));
+    }
+
+    /**
+     * Replaces the source of the current time in milliseconds, used by the tests.
+     */
+    void setClock(LongSupplier clock) {
+        this.clock = Objects.requireNonNull(clock);
+        synchronized (this) {
+            lastAdaptedMillis = clock.getAsLong();
+        }
+    }
+
+    private void updateMetrics(Bucket bucket) {
+        if (batchSizes != null) {
+            batchSizes.update(bucket.getCount());
+            batchWaitTimes.update(bucket.getFirstTimeMillis() != null ? clock.getAsLong() - bucket.getFirstTimeMillis() : 0);
+        }
+    }
+
+    /**
+     * The number of messages after which buckets are dispatched.
+     *
+     * @return the current completion size
+     */
+    public int getCompletionSize() {
+        return completionSize;
     }
 
     @Override
@@ -209,7 +364,7 @@ public class Aggregator<S, T> implements AutoCloseable, Runnable {
                 // We're ready!
                 return aggregationPolicy.build(accumulator);
             } else if (completionIntervalMs > 0) {
-                final long now = System.currentTimeMillis();
+                final long now = clock.getAsLong();
                 if (firstTimeMillis == null) {
                     firstTimeMillis = now;
                 } else if (now - firstTimeMillis >= completionIntervalMs) {
@@ -228,6 +383,10 @@ public class Aggregator<S, T> implements AutoCloseable, Runnable {
         public Long getFirstTimeMillis() {
             return firstTimeMillis;
         }
+
+        public int getCount() {
+            return count;
+        }
     }
     
 }
@@ -136,6 +136,12 @@ public class AsyncDispatcherImpl<W, S extends Message, T extends Message> implem
                 new LogPreservingThreadFactory(SystemInfoUtils.DEFAULT_INSTANCE_ID + ".Sink.AsyncDispatcher." + state.getModule().getId(), Integer.MAX_VALUE),
                 rejectedExecutionHandler
             );
+
+        // Drain the messages that were left in the OffHeapQueue by a previous run.
+        if (useOffHeap && offHeapQueue.getNumOfMessages(sinkModule.getId()) > 0) {
+            startOffHeapAdapter();
+            offHeapAdapter.drainPendingMessages();
+        }
     }
 
     /**
@@ -185,9 +191,7 @@ public class AsyncDispatcherImpl<W, S extends Message, T extends Message> implem
                 ((offHeapAdapter != null) && !offHeapAdapter.isOffHeapEmpty()))) {
             // Start drain thread before the first write to OffHeapQueue.
             if (offHeapAdapter == null) {
-                this.offHeapAdapter = new OffHeapAdapter();
-                offHeapAdapterExecutor.execute(offHeapAdapter);
-                LOG.info("started drain thread for {}", sinkModule.getId());
+                startOffHeapAdapter();
             }
             try {
                 return offHeapAdapter.writeMessage(message);
@@ -207,6 +211,14 @@ public class AsyncDispatcherImpl<W, S extends Message, T extends Message> implem
         }
     }
     
+    private synchronized void startOffHeapAdapter() {
+        if (offHeapAdapter == null) {
+            this.offHeapAdapter = new OffHeapAdapter();
+            offHeapAdapterExecutor.execute(offHeapAdapter);
+            LOG.info("started drain thread for {}", sinkModule.getId());
+        }
+    }
+
     @Override
     public int getQueueSize() {
         return queue.size();
@@ -254,9 +266,11 @@ public class AsyncDispatcherImpl<W, S extends Message, T extends Message> implem
                         queue.put(() -> {
                             S message = sinkModule.unmarshalSingleMessage(keyValue.getValue());
                             syncDispatcher.send(message);
-                            CompletableFuture<S> future = offHeapFutureMap.get(keyValue.getKey());
-                            future.complete(message);
-                            offHeapFutureMap.remove(keyValue.getKey());
+                            // Messages recovered from a previous run have no future.
+                            CompletableFuture<S> future = offHeapFutureMap.remove(keyValue.getKey());
+                            if (future != null) {
+                                future.complete(message);
+                            }
                         });
 
                     }
@@ -279,7 +293,12 @@ public class AsyncDispatcherImpl<W, S extends Message, T extends Message> implem
         }
         
         public boolean isOffHeapEmpty() {
-            return offHeapFutureMap.isEmpty();
+            return offHeapFutureMap.isEmpty() && offHeapQueue.getNumOfMessages(sinkModule.getId()) == 0;
+        }
+
+        /** Starts draining messages which were written to the OffHeapQueue before the first write. **/
+        public void drainPendingMessages() {
+            firstWrite.countDown();
         }
         
         public void shutdown() {
@@ -34,6 +34,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 
 import java.net.InetAddress;
@@ -42,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.After;
 import org.junit.Before;
@@ -56,6 +58,7 @@ import org.opennms.core.ipc.sink.common.AbstractMessageDispatcherFactory;
 import org.opennms.core.test.MockLogAppender;
 import org.osgi.framework.BundleContext;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.util.concurrent.RateLimiter;
 
 public class AggregationTest {
@@ -193,6 +196,96 @@ public class AggregationTest {
         }
     }
 
+    @Test
+    public void canAdaptCompletionSizeToRate() throws Exception {
+        final List<UDPPacketLog> logs = new ArrayList<>();
+        final MetricRegistry metrics = new MetricRegistry();
+        // Use a long interval so that we can trigger the flushes ourselves
+        final AggregationPolicy<UDPPacket, UDPPacketLog, UDPPacketLog> policy = new AdaptiveAggregationPolicy(60 * 1000, 100);
+        final AggregatingMessageProducer<UDPPacket, UDPPacketLog> producer = new AggregatingMessageProducer<UDPPacket, UDPPacketLog>("adaptive", policy) {
+            @Override
+            public void dispatch(UDPPacketLog message) {
+                logs.add(message);
+            }
+        };
+        final AtomicLong now = new AtomicLong(0);
+        try (AggregatingMessageProducer<UDPPacket, UDPPacketLog> p = producer;
+                Aggregator<UDPPacket, UDPPacketLog> aggregator = new Aggregator<>("adaptive", policy, producer, metrics)) {
+            aggregator.setClock(now::get);
+
+            // Messages are dispatched one by one until we know the rate
+            assertEquals(1, aggregator.getCompletionSize());
+            final UDPPacket packet = new UDPPacket(localhost, ByteBuffer.wrap(new byte[]{(byte)42}));
+            assertEquals(1, aggregator.aggregate(packet).getPackets().size());
+
+            // A high rate grows the batches up to the completion size of the policy
+            now.addAndGet(10);
+            for (int i = 0; i < 10000; i++) {
+                aggregator.aggregate(packet);
+            }
+            aggregator.run();
+            assertEquals(COMPLETION_SIZE, aggregator.getCompletionSize());
+            for (int i = 1; i < COMPLETION_SIZE; i++) {
+                assertNull(aggregator.aggregate(packet));
+            }
+            assertEquals(COMPLETION_SIZE, aggregator.aggregate(packet).getPackets().size());
+
+            // And the batches shrink back once the messages stop flowing, the average rate halves with every flush
+            for (int i = 0; i < 16; i++) {
+                now.addAndGet(2);
+                aggregator.run();
+            }
+            assertThat(aggregator.getCompletionSize(), greaterThan(1));
+            now.addAndGet(2);
+            aggregator.run();
+            assertEquals(1, aggregator.getCompletionSize());
+
+            assertEquals(10002, metrics.histogram("adaptive.batch-size").getCount());
+            assertEquals(1, metrics.getGauges().get("adaptive.completion-size").getValue());
+        }
+    }
+
+    @Test
+    public void canAdaptCompletionSizeToRatePerKey() throws Exception {
+        final AggregationPolicy<UDPPacket, UDPPacketLog, UDPPacketLog> policy = new AdaptiveAggregationPolicy(60 * 1000, 100);
+        final AggregatingMessageProducer<UDPPacket, UDPPacketLog> producer = new AggregatingMessageProducer<UDPPacket, UDPPacketLog>("adaptive-keys", policy) {
+            @Override
+            public void dispatch(UDPPacketLog message) {
+                // pass
+            }
+        };
+        final AtomicLong now = new AtomicLong(0);
+        try (AggregatingMessageProducer<UDPPacket, UDPPacketLog> p = producer;
+                Aggregator<UDPPacket, UDPPacketLog> aggregator = new Aggregator<>("adaptive-keys", policy, producer)) {
+            aggregator.setClock(now::get);
+
+            // 200 messages from 40 sources in 100ms are 5 messages per source during the target latency
+            now.addAndGet(100);
+            for (int i = 0; i < 200; i++) {
+                final InetAddress source = InetAddress.getByAddress(new byte[]{10, 0, 0, (byte)(i % 40)});
+                aggregator.aggregate(new UDPPacket(source, ByteBuffer.wrap(new byte[]{(byte)42})));
+            }
+            aggregator.run();
+            assertEquals(5, aggregator.getCompletionSize());
+        }
+    }
+
+    @Test
+    public void canDisableAdaptiveBatchingWithoutInterval() throws Exception {
+        final AggregationPolicy<UDPPacket, UDPPacketLog, UDPPacketLog> policy = new AdaptiveAggregationPolicy(0, 100);
+        final AggregatingMessageProducer<UDPPacket, UDPPacketLog> producer = new AggregatingMessageProducer<UDPPacket, UDPPacketLog>("fixed", policy) {
+            @Override
+            public void dispatch(UDPPacketLog message) {
+                // pass
+            }
+        };
+        try (AggregatingMessageProducer<UDPPacket, UDPPacketLog> p = producer;
+                Aggregator<UDPPacket, UDPPacketLog> aggregator = new Aggregator<>("fixed", policy, producer)) {
+            // Without an interval, nothing bounds the latency, so we stick to the completion size
+            assertEquals(COMPLETION_SIZE, aggregator.getCompletionSize());
+        }
+    }
+
     public static class UDPPacket implements Message {
         private final InetAddress source;
         private final ByteBuffer bytes;
@@ -394,6 +487,51 @@ public class AggregationTest {
         }
     }
 
+    private static class AdaptiveAggregationPolicy implements AggregationPolicy<UDPPacket, UDPPacketLog, UDPPacketLog> {
+        private final int completionIntervalMs;
+        private final int targetLatencyMs;
+
+        public AdaptiveAggregationPolicy(int completionIntervalMs, int targetLatencyMs) {
+            this.completionIntervalMs = completionIntervalMs;
+            this.targetLatencyMs = targetLatencyMs;
+        }
+
+        @Override
+        public int getCompletionSize() {
+            return COMPLETION_SIZE;
+        }
+
+        @Override
+        public int getCompletionIntervalMs() {
+            return completionIntervalMs;
+        }
+
+        @Override
+        public int getTargetLatencyMs() {
+            return targetLatencyMs;
+        }
+
+        @Override
+        public Object key(UDPPacket message) {
+            return message.getSource();
+        }
+
+        @Override
+        public UDPPacketLog aggregate(UDPPacketLog oldPacketLog, UDPPacket newPacket) {
+            if (oldPacketLog == null) {
+                return new UDPPacketLog(newPacket);
+            } else {
+                oldPacketLog.getPackets().add(newPacket);
+                return oldPacketLog;
+            }
+        }
+
+        @Override
+        public UDPPacketLog build(UDPPacketLog accumulator) {
+            return accumulator;
+        }
+    }
+
     private static abstract class AbstractSinkModule<S extends Message, T extends Message> implements SinkModule<S, T> {
 
         @Override
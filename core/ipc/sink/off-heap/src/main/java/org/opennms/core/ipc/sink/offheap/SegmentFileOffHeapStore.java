@@ -0,0 +1,495 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.ipc.sink.offheap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Dictionary;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.opennms.core.ipc.sink.api.OffHeapQueue;
+import org.opennms.core.ipc.sink.api.WriteFailedException;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Strings;
+
+/**
+ * An {@link OffHeapQueue} backed by append-only, memory-mapped segment files.
+ *
+ * Every module gets its own directory containing a sequence of segment files,
+ * and a cursor file which tracks the position of the next message to be read.
+ * Messages are appended to the last segment, and segments are deleted once
+ * they have been fully read. Since both the segments and the cursor are
+ * memory mapped, the queued messages survive restarts of the JVM, and the
+ * cost of reads and writes does not depend on the number of queued messages.
+ *
+ * Each record is laid out as:
+ * <pre>
+ *   int recordLength | int keyLength | key (UTF-8) | message
+ * </pre>
+ * The record length is written last, so that partially written records
+ * are ignored when recovering.
+ *
+ * The configured size limits the number of bytes of unread records. Since segments
+ * are allocated in full, the files on disk may use up to one additional segment per module.
+ * Unless configured, the segment size is derived from the configured size, and it never
+ * exceeds it.
+ */
+public class SegmentFileOffHeapStore implements OffHeapQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentFileOffHeapStore.class);
+    private static final String OFFHEAP_CONFIG = "org.opennms.core.ipc.sink.offheap";
+    private final static String OFFHEAP_SIZE = "offHeapSize";
+    private final static String OFFHEAP_FILE_PATH = "offHeapFilePath";
+    private final static String SEGMENT_SIZE = "segmentSize";
+    private final static String DEFAULT_OFFHEAP_SIZE = "10MB";
+    private final static String MAX_DEFAULT_SEGMENT_SIZE = "32MB";
+    // Number of segments that fit in the configured size, unless the segment size is configured
+    private final static int DEFAULT_SEGMENTS = 4;
+    // Default wait time for each poll is 1000msec.
+    private final static long DEFAULT_WAIT_FOR_POLL = 1000L;
+
+    private final static String SEGMENT_SUFFIX = ".segment";
+    private final static String CURSOR_FILE = "cursor";
+    // Marks the end of a segment, the next record is at the start of the following segment
+    private final static int END_OF_SEGMENT = -1;
+    // Record length and key length
+    private final static int RECORD_HEADER_SIZE = 8;
+
+    private final ConfigurationAdmin configAdmin;
+    private JmxReporter reporter = null;
+    private MetricRegistry offheapMetrics = new MetricRegistry();
+    private Path directory;
+    private long maxSizeInBytes = H2OffHeapStore.convertByteSizes(DEFAULT_OFFHEAP_SIZE);
+    private int segmentSize;
+    // Number of bytes used by the unread records of all modules.
+    private final AtomicLong size = new AtomicLong(0);
+    // Map of ModuleName and corresponding queue.
+    private final Map<String, ModuleQueue> queueMap = new ConcurrentHashMap<>();
+
+    public SegmentFileOffHeapStore(ConfigurationAdmin configAdmin) {
+        this.configAdmin = configAdmin;
+    }
+
+    public void init() throws IOException {
+        directory = Paths.get(System.getProperty("karaf.data", System.getProperty("java.io.tmpdir")), "offheap");
+        Dictionary<String, Object> properties = configAdmin.getConfiguration(OFFHEAP_CONFIG).getProperties();
+        long segmentSizeInBytes = -1;
+        if (properties != null) {
+            if (properties.get(OFFHEAP_SIZE) instanceof String) {
+                maxSizeInBytes = H2OffHeapStore.convertByteSizes((String)properties.get(OFFHEAP_SIZE));
+            }
+            if (properties.get(SEGMENT_SIZE) instanceof String) {
+                segmentSizeInBytes = H2OffHeapStore.convertByteSizes((String)properties.get(SEGMENT_SIZE));
+            }
+            if (properties.get(OFFHEAP_FILE_PATH) instanceof String) {
+                directory = Paths.get((String)properties.get(OFFHEAP_FILE_PATH));
+            }
+        }
+        if (segmentSizeInBytes <= 0) {
+            segmentSizeInBytes = Math.min(H2OffHeapStore.convertByteSizes(MAX_DEFAULT_SEGMENT_SIZE), maxSizeInBytes / DEFAULT_SEGMENTS);
+        }
+        // Segments larger than the configured size would never be filled
+        segmentSize = (int) Math.min(Integer.MAX_VALUE, Math.min(segmentSizeInBytes, maxSizeInBytes));
+
+        // Recover the queues left behind by a previous run
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> moduleDirs = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path moduleDir : moduleDirs) {
+                final String moduleName = URLDecoder.decode(moduleDir.getFileName().toString(), StandardCharsets.UTF_8.name());
+                final ModuleQueue queue = new ModuleQueue(moduleDir);
+                queueMap.put(moduleName, queue);
+                if (queue.getNumOfMessages() > 0) {
+                    LOG.info("recovered {} messages for module : {} ", queue.getNumOfMessages(), moduleName);
+                }
+            }
+        }
+
+        reporter = JmxReporter.forRegistry(offheapMetrics).inDomain(this.getClass().getPackage().getName()).build();
+        offheapMetrics.register(MetricRegistry.name("offHeapSize"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getSize();
+            }
+        });
+        reporter.start();
+        LOG.info("initializing segment file OffHeapStore in {} with max size : {} and segment size : {}",
+                directory, maxSizeInBytes, segmentSize);
+    }
+
+    @Override
+    public boolean writeMessage(byte[] message, String moduleName, String key) throws WriteFailedException {
+        if (message == null || Strings.isNullOrEmpty(moduleName)) {
+            throw new WriteFailedException("Invalid message");
+        }
+        final byte[] keyBytes = Strings.nullToEmpty(key).getBytes(StandardCharsets.UTF_8);
+        final int recordLength = RECORD_HEADER_SIZE + keyBytes.length + message.length;
+        if (!reserve(recordLength)) {
+            throw new WriteFailedException("Offheap storage exhausted, size = " + maxSizeInBytes);
+        }
+        try {
+            queueMap.computeIfAbsent(moduleName, this::openModuleQueue).append(keyBytes, message);
+        } catch (IOException | UncheckedIOException e) {
+            size.addAndGet(-recordLength);
+            throw new WriteFailedException("Failed to write message for module " + moduleName + " : " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Reserves room for a record of the given length, so that concurrent writers can't exceed the configured size.
+     */
+    private boolean reserve(int recordLength) {
+        long current;
+        do {
+            current = size.get();
+            if (current + recordLength > maxSizeInBytes) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + recordLength));
+        return true;
+    }
+
+    @Override
+    public AbstractMap.SimpleImmutableEntry<String, byte[]> readNextMessage(String moduleName)
+            throws InterruptedException {
+        final ModuleQueue queue = queueMap.get(moduleName);
+        if (queue == null) {
+            LOG.warn("No data was ever written for this module {}", moduleName);
+            return null;
+        }
+        // Poll for an item to be available, max wait is 1 second.
+        return queue.poll(DEFAULT_WAIT_FOR_POLL, TimeUnit.MILLISECONDS);
+    }
+
+    public void destroy() {
+        LOG.info("closing segment file OffHeapStore, size = {} ", getSize());
+        queueMap.values().forEach(ModuleQueue::close);
+        queueMap.clear();
+        if (reporter != null) {
+            reporter.stop();
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return size.get();
+    }
+
+    @Override
+    public int getNumOfMessages(String moduleName) {
+        final ModuleQueue queue = queueMap.get(moduleName);
+        if (queue != null) {
+            return queue.getNumOfMessages();
+        }
+        return 0;
+    }
+
+    private ModuleQueue openModuleQueue(String moduleName) {
+        try {
+            final ModuleQueue queue = new ModuleQueue(directory.resolve(URLEncoder.encode(moduleName, StandardCharsets.UTF_8.name())));
+            LOG.info("initialized segment files for module : {} ", moduleName);
+            return queue;
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String getSegmentFileName(long segmentId) {
+        return String.format("%020d%s", segmentId, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * The segment files and read cursor of a single module.
+     *
+     * All of the reads and writes are performed while holding the lock, since
+     * the mapped buffers are shared between the reader and the writers.
+     */
+    private class ModuleQueue {
+        private final Path moduleDir;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        // Oldest segment first, the reader is always positioned in the first one and the writer in the last one.
+        private final Deque<Segment> segments = new ArrayDeque<>();
+        private final FileChannel cursorChannel;
+        private final MappedByteBuffer cursor;
+        private int readPosition;
+        private int writePosition;
+        private volatile int numOfMessages;
+
+        private ModuleQueue(Path moduleDir) throws IOException {
+            this.moduleDir = moduleDir;
+            Files.createDirectories(moduleDir);
+
+            // The cursor holds the id of the segment being read in the upper 32 bits, and the position in the lower ones,
+            // so that it can be updated with a single write.
+            cursorChannel = FileChannel.open(moduleDir.resolve(CURSOR_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            cursor = cursorChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+            final long readSegmentId = cursor.getLong(0) >>> 32;
+            readPosition = (int) cursor.getLong(0);
+
+            final List<Long> segmentIds = new ArrayList<>();
+            try (DirectoryStream<Path> segmentFiles = Files.newDirectoryStream(moduleDir, "*" + SEGMENT_SUFFIX)) {
+                for (Path segmentFile : segmentFiles) {
+                    final String fileName = segmentFile.getFileName().toString();
+                    segmentIds.add(Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())));
+                }
+            }
+            Collections.sort(segmentIds);
+            for (Long segmentId : segmentIds) {
+                if (segmentId < readSegmentId) {
+                    // Fully read, but not yet deleted
+                    Files.deleteIfExists(moduleDir.resolve(getSegmentFileName(segmentId)));
+                } else {
+                    segments.addLast(Segment.open(moduleDir.resolve(getSegmentFileName(segmentId)), segmentId, segmentSize));
+                }
+            }
+
+            if (segments.isEmpty()) {
+                segments.addLast(Segment.open(moduleDir.resolve(getSegmentFileName(readSegmentId)), readSegmentId, segmentSize));
+                setReadPosition(0);
+            } else if (segments.peekFirst().id != readSegmentId) {
+                setReadPosition(0);
+            }
+
+            // Count the unread records, and find where the next one should be written
+            int position = readPosition;
+            for (Segment segment : segments) {
+                while (position + Integer.BYTES <= segment.capacity) {
+                    final int recordLength = segment.buffer.getInt(position);
+                    if (recordLength <= 0) {
+                        break;
+                    }
+                    numOfMessages++;
+                    size.addAndGet(recordLength);
+                    position += recordLength;
+                }
+                writePosition = position;
+                position = 0;
+            }
+        }
+
+        private void append(byte[] key, byte[] message) throws IOException {
+            final int recordLength = RECORD_HEADER_SIZE + key.length + message.length;
+            lock.lock();
+            try {
+                Segment segment = segments.peekLast();
+                // Always leave room for the end of segment marker
+                if (writePosition + recordLength + Integer.BYTES > segment.capacity) {
+                    segment.buffer.putInt(writePosition, END_OF_SEGMENT);
+                    segment = Segment.open(moduleDir.resolve(getSegmentFileName(segment.id + 1)), segment.id + 1,
+                            Math.max(segmentSize, recordLength + Integer.BYTES));
+                    segments.addLast(segment);
+                    writePosition = 0;
+                }
+                segment.buffer.putInt(writePosition + Integer.BYTES, key.length);
+                segment.buffer.position(writePosition + RECORD_HEADER_SIZE);
+                segment.buffer.put(key);
+                segment.buffer.put(message);
+                // Publish the record
+                segment.buffer.putInt(writePosition, recordLength);
+                writePosition += recordLength;
+                numOfMessages++;
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private AbstractMap.SimpleImmutableEntry<String, byte[]> poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            lock.lockInterruptibly();
+            try {
+                while (numOfMessages == 0) {
+                    if (nanos <= 0) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+
+                Segment segment = segments.peekFirst();
+                int recordLength = segment.buffer.getInt(readPosition);
+                if (recordLength == END_OF_SEGMENT) {
+                    // Move on to the next segment, and get rid of this one
+                    final Segment readSegment = segments.removeFirst();
+                    segment = segments.peekFirst();
+                    setReadPosition(segment.id, 0);
+                    deleteSegment(readSegment);
+                    recordLength = segment.buffer.getInt(readPosition);
+                }
+
+                final byte[] key = new byte[segment.buffer.getInt(readPosition + Integer.BYTES)];
+                final byte[] message = new byte[recordLength - RECORD_HEADER_SIZE - key.length];
+                segment.buffer.position(readPosition + RECORD_HEADER_SIZE);
+                segment.buffer.get(key);
+                segment.buffer.get(message);
+                setReadPosition(readPosition + recordLength);
+                numOfMessages--;
+                size.addAndGet(-recordLength);
+                return new AbstractMap.SimpleImmutableEntry<>(new String(key, StandardCharsets.UTF_8), message);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void setReadPosition(int position) {
+            setReadPosition(segments.peekFirst().id, position);
+        }
+
+        private void setReadPosition(long segmentId, int position) {
+            readPosition = position;
+            cursor.putLong(0, segmentId << 32 | (position & 0xFFFFFFFFL));
+        }
+
+        private void deleteSegment(Segment segment) {
+            segment.release();
+            try {
+                Files.deleteIfExists(moduleDir.resolve(getSegmentFileName(segment.id)));
+            } catch (IOException e) {
+                LOG.warn("Failed to delete segment {} in {}", segment.id, moduleDir, e);
+            }
+        }
+
+        private int getNumOfMessages() {
+            return numOfMessages;
+        }
+
+        private void close() {
+            lock.lock();
+            try {
+                segments.forEach(Segment::close);
+                segments.clear();
+                cursor.force();
+                cursorChannel.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close the cursor in {}", moduleDir, e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static class Segment {
+        private final long id;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+
+        private Segment(long id, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = buffer.capacity();
+        }
+
+        /**
+         * Opens the given segment, or creates it with the given capacity if it does not exist yet.
+         */
+        private static Segment open(Path path, long id, int capacity) throws IOException {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            final long length = channel.size() > 0 ? channel.size() : capacity;
+            return new Segment(id, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        }
+
+        private void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close segment {}", id, e);
+            }
+        }
+
+        /**
+         * Closes the segment without writing the pending changes, and unmaps it right away instead of waiting
+         * for the buffer to be garbage collected, so that the space of the deleted file is reclaimed.
+         * The buffer must not be used afterwards.
+         */
+        private void release() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close segment {}", id, e);
+            }
+            unmap(buffer);
+        }
+
+        private static void unmap(MappedByteBuffer buffer) {
+            try {
+                // Java 8: ((DirectBuffer) buffer).cleaner().clean()
+                final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                final Object cleaner = cleanerMethod.invoke(buffer);
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                try {
+                    // Java 9 and later
+                    final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                    final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                    theUnsafe.setAccessible(true);
+                    unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+                } catch (ReflectiveOperationException | RuntimeException ex) {
+                    LOG.debug("Failed to unmap segment, it is unmapped once garbage collected", ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.ipc.sink.offheap;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+import org.opennms.core.ipc.sink.api.OffHeapQueue;
+import org.opennms.core.ipc.sink.api.WriteFailedException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.osgi.service.cm.ConfigurationAdmin;
+
+/**
+ * Compares the {@link H2OffHeapStore} with the {@link SegmentFileOffHeapStore} by writing
+ * and reading messages while a given number of messages are already queued.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.core.ipc.sink.offheap.OffHeapQueueBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-XX:MaxDirectMemorySize=4g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class OffHeapQueueBenchmark {
+
+    private static final String MODULE = "Syslog";
+
+    @Param({"h2", "segments"})
+    public String store;
+
+    @Param({"0", "100000", "1000000"})
+    public int queuedMessages;
+
+    @Param({"512"})
+    public int messageSize;
+
+    private OffHeapQueue queue;
+
+    private byte[] message;
+
+    private long key = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final Hashtable<String, Object> configProperties = new Hashtable<>();
+        configProperties.put("offHeapSize", "3GB");
+        final ConfigurationAdmin configAdmin = mock(ConfigurationAdmin.class, RETURNS_DEEP_STUBS);
+        when(configAdmin.getConfiguration("org.opennms.core.ipc.sink.offheap").getProperties()).thenReturn(configProperties);
+
+        if ("h2".equals(store)) {
+            final H2OffHeapStore h2OffHeapStore = new H2OffHeapStore(configAdmin);
+            h2OffHeapStore.init();
+            queue = h2OffHeapStore;
+        } else {
+            final File directory = Files.createTempDirectory("offheap").toFile();
+            directory.deleteOnExit();
+            configProperties.put("offHeapFilePath", directory.getAbsolutePath());
+            final SegmentFileOffHeapStore segmentFileOffHeapStore = new SegmentFileOffHeapStore(configAdmin);
+            segmentFileOffHeapStore.init();
+            queue = segmentFileOffHeapStore;
+        }
+
+        message = new byte[messageSize];
+        for (int i = 0; i < queuedMessages; i++) {
+            write();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (queue instanceof H2OffHeapStore) {
+            ((H2OffHeapStore)queue).destroy();
+        } else {
+            ((SegmentFileOffHeapStore)queue).destroy();
+        }
+    }
+
+    @Benchmark
+    public AbstractMap.SimpleImmutableEntry<String, byte[]> writeAndRead() throws WriteFailedException, InterruptedException {
+        write();
+        return queue.readNextMessage(MODULE);
+    }
+
+    private void write() throws WriteFailedException {
+        queue.writeMessage(message, MODULE, Long.toString(key++));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OffHeapQueueBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
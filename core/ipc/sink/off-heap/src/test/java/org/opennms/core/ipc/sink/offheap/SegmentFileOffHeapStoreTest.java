@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.ipc.sink.offheap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opennms.core.ipc.sink.api.WriteFailedException;
+import org.osgi.service.cm.ConfigurationAdmin;
+
+public class SegmentFileOffHeapStoreTest {
+
+    private final static String OFFHEAP_SIZE = "offHeapSize";
+    private final static String OFFHEAP_FILE_PATH = "offHeapFilePath";
+    private final static String SEGMENT_SIZE = "segmentSize";
+    public static final String OFFHEAP_CONFIG = "org.opennms.core.ipc.sink.offheap";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private SegmentFileOffHeapStore queue;
+
+    @After
+    public void destroy() {
+        if (queue != null) {
+            queue.destroy();
+        }
+    }
+
+    @Test
+    public void canReadAndWriteMessagesForManyModules() throws Exception {
+        queue = createQueue(tempFolder.getRoot(), "1MB", "4KB");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        executor.execute(() -> writeMessages("traps-test", "trap", 1000));
+        executor.execute(() -> writeMessages("syslog-test", "syslog", 1000));
+        writeMessages("events-test", "event", 1000);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        assertEquals(1000, queue.getNumOfMessages("traps-test"));
+        readMessages("traps-test", "trap", 0, 1000);
+        readMessages("syslog-test", "syslog", 0, 1000);
+        readMessages("events-test", "event", 0, 1000);
+
+        // Everything was read, and the fully read segments were removed
+        assertEquals(0, queue.getSize());
+        assertEquals(0, queue.getNumOfMessages("events-test"));
+        assertNull(queue.readNextMessage("events-test"));
+        assertEquals(1, new File(tempFolder.getRoot(), "events-test").list((dir, name) -> name.endsWith(".segment")).length);
+    }
+
+    @Test
+    public void canRecoverMessagesAfterRestart() throws Exception {
+        queue = createQueue(tempFolder.getRoot(), "1MB", "4KB");
+        writeMessages("traps-test", "trap", 500);
+        readMessages("traps-test", "trap", 0, 200);
+        final long size = queue.getSize();
+        queue.destroy();
+
+        // The unread messages are still there, and are read from where we left off
+        queue = createQueue(tempFolder.getRoot(), "1MB", "4KB");
+        assertEquals(300, queue.getNumOfMessages("traps-test"));
+        assertEquals(size, queue.getSize());
+        readMessages("traps-test", "trap", 200, 500);
+        assertNull(queue.readNextMessage("traps-test"));
+
+        // New messages are appended after the recovered ones
+        writeMessages("traps-test", "trap", 10);
+        readMessages("traps-test", "trap", 0, 10);
+    }
+
+    @Test
+    public void canStoreMessagesLargerThanSegments() throws Exception {
+        queue = createQueue(tempFolder.getRoot(), "1MB", "1KB");
+        final byte[] message = new byte[8 * 1024];
+        message[message.length - 1] = 42;
+        queue.writeMessage("small".getBytes(), "test", "0");
+        queue.writeMessage(message, "test", "1");
+        queue.writeMessage("small".getBytes(), "test", "2");
+
+        assertEquals("0", queue.readNextMessage("test").getKey());
+        final AbstractMap.SimpleImmutableEntry<String, byte[]> keyValue = queue.readNextMessage("test");
+        assertEquals("1", keyValue.getKey());
+        assertEquals(42, keyValue.getValue()[message.length - 1]);
+        assertEquals("2", queue.readNextMessage("test").getKey());
+    }
+
+    @Test
+    public void canRejectWritesWhenFull() throws Exception {
+        queue = createQueue(tempFolder.getRoot(), "1KB", "4KB");
+        final byte[] message = new byte[100];
+        int numWritten = 0;
+        try {
+            while (numWritten < 100) {
+                queue.writeMessage(message, "test", Integer.toString(numWritten));
+                numWritten++;
+            }
+            fail("Writes should be rejected once the queue is full");
+        } catch (WriteFailedException e) {
+            // pass
+        }
+        assertEquals(9, numWritten);
+
+        // Space is reclaimed as messages are read
+        queue.readNextMessage("test");
+        queue.writeMessage(message, "test", Integer.toString(numWritten));
+    }
+
+    @Test
+    public void canNotExceedSizeWithConcurrentWrites() throws Exception {
+        queue = createQueue(tempFolder.getRoot(), "10KB", "1KB");
+        final byte[] message = new byte[100];
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final AtomicInteger numWritten = new AtomicInteger();
+        for (int i = 0; i < 8; i++) {
+            final String moduleName = "test" + i;
+            executor.execute(() -> {
+                try {
+                    while (true) {
+                        queue.writeMessage(message, moduleName, "0");
+                        numWritten.incrementAndGet();
+                    }
+                } catch (WriteFailedException e) {
+                    // pass
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        // Each record takes 109 bytes
+        assertEquals(10 * 1024 / 109, numWritten.get());
+        assertEquals(numWritten.get() * 109, queue.getSize());
+    }
+
+    @Test
+    public void canDeriveSegmentSizeFromOffHeapSize() throws Exception {
+        queue = createQueue(tempFolder.getRoot(), "1MB", null);
+        queue.writeMessage("message".getBytes(), "derived", "0");
+        assertEquals(256 * 1024, segmentLengths("derived")[0]);
+
+        // Segments are never larger than the off heap size
+        queue.destroy();
+        queue = createQueue(tempFolder.getRoot(), "1KB", "4KB");
+        queue.writeMessage("message".getBytes(), "capped", "0");
+        assertEquals(1024, segmentLengths("capped")[0]);
+    }
+
+    private long[] segmentLengths(String moduleName) {
+        return Arrays.stream(new File(tempFolder.getRoot(), moduleName).listFiles((dir, name) -> name.endsWith(".segment")))
+                .mapToLong(File::length)
+                .toArray();
+    }
+
+    private void writeMessages(String moduleName, String type, int count) {
+        for (int i = 0; i < count; i++) {
+            final String message = "This is " + i + " " + type + " message";
+            try {
+                queue.writeMessage(message.getBytes(), moduleName, Integer.toString(i));
+            } catch (WriteFailedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private void readMessages(String moduleName, String type, int from, int to) throws InterruptedException {
+        for (int i = from; i < to; i++) {
+            final AbstractMap.SimpleImmutableEntry<String, byte[]> keyValue = queue.readNextMessage(moduleName);
+            assertEquals(Integer.toString(i), keyValue.getKey());
+            assertEquals("This is " + i + " " + type + " message", new String(keyValue.getValue()));
+        }
+    }
+
+    private static SegmentFileOffHeapStore createQueue(File directory, String offHeapSize, String segmentSize) throws IOException {
+        final Hashtable<String, Object> configProperties = new Hashtable<>();
+        configProperties.put(OFFHEAP_SIZE, offHeapSize);
+        if (segmentSize != null) {
+            configProperties.put(SEGMENT_SIZE, segmentSize);
+        }
+        configProperties.put(OFFHEAP_FILE_PATH, directory.getAbsolutePath());
+        final ConfigurationAdmin configAdmin = mock(ConfigurationAdmin.class, RETURNS_DEEP_STUBS);
+        when(configAdmin.getConfiguration(OFFHEAP_CONFIG).getProperties()).thenReturn(configProperties);
+        final SegmentFileOffHeapStore queue = new SegmentFileOffHeapStore(configAdmin);
+        queue.init();
+        return queue;
+    }
+}
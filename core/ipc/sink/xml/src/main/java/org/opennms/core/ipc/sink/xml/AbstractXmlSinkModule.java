@@ -32,6 +32,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 import org.opennms.core.ipc.sink.api.SinkModule;
+import org.opennms.core.xml.PayloadCodec;
+import org.opennms.core.xml.PayloadCodecs;
 import org.opennms.core.xml.XmlHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +43,12 @@ public abstract class AbstractXmlSinkModule<S extends Message, T extends Message
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractXmlSinkModule.class);
 
+    /**
+     * Name of the {@link PayloadCodec} used to encode the messages of all modules.
+     * Can be overridden for a given module using "org.opennms.core.ipc.sink.${moduleId}.codec".
+     */
+    public static final String CODEC_SYS_PROP = "org.opennms.core.ipc.sink.codec";
+
     private final Class<T> messageClazz;
 
     /**
@@ -49,6 +57,7 @@ public abstract class AbstractXmlSinkModule<S extends Message, T extends Message
      */
     private final ThreadLocal<XmlHandler<T>> messageXmlHandler = new ThreadLocal<>();
 
+    private volatile PayloadCodec payloadCodec;
 
     public AbstractXmlSinkModule(Class<T> messageClazz) {
         this.messageClazz = Objects.requireNonNull(messageClazz);
@@ -56,12 +65,58 @@ public abstract class AbstractXmlSinkModule<S extends Message, T extends Message
 
     @Override
     public byte[] marshal(T message) {
-        return getXmlHandler().marshal(message).getBytes(StandardCharsets.UTF_8);
+        PayloadCodec codec = getPayloadCodec();
+        if (codec == PayloadCodecs.BINARY) {
+            final byte[] encoded = marshalBinary(message);
+            if (encoded != null) {
+                return PayloadCodecs.frame(codec, encoded);
+            }
+            // The module has no binary encoding
+            codec = PayloadCodecs.XML;
+        }
+        return PayloadCodecs.frame(codec, getXmlHandler().marshal(message).getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
     public T unmarshal(byte[] bytes) {
-        return getXmlHandler().unmarshal(new String(bytes, StandardCharsets.UTF_8));
+        // Messages are decoded using the codec referenced in their header, regardless of our own codec
+        if (PayloadCodecs.getCodecOf(bytes) == PayloadCodecs.BINARY) {
+            return unmarshalBinary(PayloadCodecs.unframe(bytes));
+        }
+        return getXmlHandler().unmarshal(new String(PayloadCodecs.unframe(bytes), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encodes the message without JAXB, when using the {@link PayloadCodecs#BINARY} codec.
+     *
+     * Modules with a high message rate can override this method, along with
+     * {@link #unmarshalBinary(byte[])}, to avoid the cost of marshalling their messages as XML.
+     *
+     * @return the encoded message, or null if the module has no binary encoding
+     */
+    protected byte[] marshalBinary(T message) {
+        return null;
+    }
+
+    /**
+     * Decodes a message encoded by {@link #marshalBinary(Message)}.
+     */
+    protected T unmarshalBinary(byte[] bytes) {
+        throw new IllegalArgumentException("Module " + getId() + " has no binary encoding.");
+    }
+
+    /**
+     * The codec used to encode the marshalled messages before they are sent.
+     *
+     * Defaults to plain XML, which can be consumed by every version of OpenNMS,
+     * so the codec should only be changed once the receiving side was upgraded.
+     */
+    protected PayloadCodec getPayloadCodec() {
+        if (payloadCodec == null) {
+            payloadCodec = PayloadCodecs.getCodecFromSystemProperties(
+                    String.format("org.opennms.core.ipc.sink.%s.codec", getId()), CODEC_SYS_PROP);
+        }
+        return payloadCodec;
     }
 
     @Override
@@ -33,12 +33,18 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -52,6 +58,11 @@ import com.google.common.cache.CacheBuilder;
 /**
  * Caches properties files in order to improve performance.
  *
+ * Files are only written when their content changes, and are replaced atomically
+ * by writing to a temporary file first. When a write-behind interval is given,
+ * changes are kept in memory and written by a background thread at most once per
+ * interval, no matter how often the properties are updated in the meantime.
+ *
  * @author <a href="mailto:brozow@opennms.org">Mathew Brozowski</a>
  * @version $Id: $
  */
@@ -62,16 +73,26 @@ public class PropertiesCache {
     public static final String CHECK_LAST_MODIFY_STRING = "org.opennms.utils.propertiesCache.enableCheckFileModified";
     public static final String CACHE_TIMEOUT = "org.opennms.utils.propertiesCache.cacheTimeout";
     public static final int DEFAULT_CACHE_TIMEOUT = 3600;
+    public static final String WRITE_BEHIND_INTERVAL = "org.opennms.utils.propertiesCache.writeBehindInterval";
 
     protected static class PropertiesHolder {
         private Properties m_properties;
         private final File m_file;
+        private final String m_key;
+        private final PropertiesCache m_owner;
         private final Lock lock = new ReentrantLock();
         private long m_lastModify = 0;
         private boolean m_checkLastModify = Boolean.getBoolean(CHECK_LAST_MODIFY_STRING);
+        private boolean m_dirty = false;
 
         PropertiesHolder(final File file) {
+            this(file, null, null);
+        }
+
+        PropertiesHolder(final File file, final String key, final PropertiesCache owner) {
             m_file = file;
+            m_key = key;
+            m_owner = owner;
             m_properties = null;
         }
         
@@ -101,23 +122,62 @@ public class PropertiesCache {
         }
         
         private void write() throws IOException {
-            if(!m_file.getParentFile().mkdirs()) {
-            	if(!m_file.getParentFile().exists()) {
-            		LOG.warn("Could not make directory: {}", m_file.getParentFile().getPath());
+            if (m_owner != null && m_owner.m_flusher != null) {
+                // Defer the write to the flusher, the pending holder is kept until it was written
+                m_dirty = true;
+                m_owner.m_pending.putIfAbsent(m_key, this);
+            } else {
+                store();
+            }
+        }
+
+        private void store() throws IOException {
+            final File parent = m_file.getParentFile();
+            if(!parent.mkdirs()) {
+            	if(!parent.exists()) {
+            		LOG.warn("Could not make directory: {}", parent.getPath());
             	}
             }
-            OutputStream out = null;
+
+            // Write to a temporary file and move it in place, so readers never see a partially written file
+            final File tmpFile = new File(parent, "." + m_file.getName() + ".tmp");
             try {
-                out = new FileOutputStream(m_file);
-                m_properties.store(out, null);
+                try (final FileOutputStream out = new FileOutputStream(tmpFile)) {
+                    m_properties.store(out, null);
+                    out.getFD().sync();
+                }
+                try {
+                    Files.move(tmpFile.toPath(), m_file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (final AtomicMoveNotSupportedException e) {
+                    Files.move(tmpFile.toPath(), m_file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
             } finally {
-                if (out != null) {
-                    try {
-                        out.close();
-                    } catch (IOException e) {
-                        // Ignore this exception
-                    }
+                Files.deleteIfExists(tmpFile.toPath());
+            }
+
+            if (m_checkLastModify) {
+                m_lastModify = m_file.lastModified();
+            }
+        }
+
+        /**
+         * Whether the file was removed from disk behind our back, i.e. by deleting the resource.
+         * The in-memory copy must be written again in that case, even though it did not change.
+         */
+        private boolean isMissing() {
+            return !m_dirty && !m_file.exists();
+        }
+
+        private void flush() throws IOException {
+            lock.lock();
+            try {
+                if (m_dirty) {
+                    store();
+                    m_dirty = false;
                 }
+                m_owner.m_pending.remove(m_key, this);
+            } finally {
+                lock.unlock();
             }
         }
 
@@ -127,7 +187,7 @@ public class PropertiesCache {
                 if (m_properties == null) {
                     readWithDefault(new Properties());
                 } else {
-                    if (m_checkLastModify && m_file.canRead() && m_lastModify != m_file.lastModified()) {
+                    if (m_checkLastModify && !m_dirty && m_file.canRead() && m_lastModify != m_file.lastModified()) {
                         m_properties = read();
                     }
                 }
@@ -156,6 +216,10 @@ public class PropertiesCache {
         public void put(final Properties properties) throws IOException {
             lock.lock();
             try {
+                // Skip the write if an equal copy is already known, the caller may have modified the cached instance
+                if (properties != m_properties && properties.equals(find()) && !isMissing()) {
+                    return;
+                }
                 m_properties = properties;
                 write();
             } finally {
@@ -174,7 +238,7 @@ public class PropertiesCache {
                         save = true;
                     }
                 }
-                if (save) {
+                if (save || isMissing()) {
                     write();
                 }
             } finally {
@@ -190,6 +254,8 @@ public class PropertiesCache {
                 if (!value.equals(get().get(key))) {
                     get().put(key, value);
                     write();
+                } else if (isMissing()) {
+                    write();
                 }
             } finally {
                 lock.unlock();
@@ -221,15 +287,44 @@ public class PropertiesCache {
 
     protected final Cache<String, PropertiesHolder> m_cache;
 
+    private final ConcurrentMap<String, PropertiesHolder> m_pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService m_flusher;
+
     public PropertiesCache() {
         this(CacheBuilder.newBuilder());
     }
 
+    /**
+     * Creates a cache which writes changed properties files in the background.
+     *
+     * @param writeBehindInterval the interval in milliseconds at which changes are written,
+     *        or zero to write them immediately
+     */
+    public PropertiesCache(final long writeBehindInterval) {
+        this(CacheBuilder.newBuilder(), writeBehindInterval);
+    }
 
     protected PropertiesCache(final CacheBuilder<Object, Object> cacheBuilder) {
+        this(cacheBuilder, 0);
+    }
+
+    protected PropertiesCache(final CacheBuilder<Object, Object> cacheBuilder, final long writeBehindInterval) {
         m_cache = cacheBuilder
                 .expireAfterAccess(Integer.getInteger(CACHE_TIMEOUT, DEFAULT_CACHE_TIMEOUT), TimeUnit.SECONDS)
                 .build();
+
+        if (writeBehindInterval > 0) {
+            m_flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "properties-cache-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            m_flusher.scheduleWithFixedDelay(this::flush, writeBehindInterval, writeBehindInterval, TimeUnit.MILLISECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "properties-cache-shutdown"));
+        } else {
+            m_flusher = null;
+        }
     }
 
     private PropertiesHolder getHolder(final File propFile) throws IOException {
@@ -239,7 +334,9 @@ public class PropertiesCache {
             return m_cache.get(key, new Callable<PropertiesHolder>() {
                 @Override
                 public PropertiesHolder call() throws Exception {
-                    return new PropertiesHolder(propFile);
+                    // Holders with unwritten changes must survive being evicted from the cache
+                    final PropertiesHolder pending = m_pending.get(key);
+                    return pending != null ? pending : new PropertiesHolder(propFile, key, PropertiesCache.this);
                 }
             });
         } catch (final ExecutionException e) {
@@ -247,10 +344,24 @@ public class PropertiesCache {
         }
     }
     
+    /**
+     * Writes all pending changes to disk.
+     */
+    public void flush() {
+        for (final PropertiesHolder holder : m_pending.values()) {
+            try {
+                holder.flush();
+            } catch (final IOException e) {
+                LOG.error("flush: Failed to write properties file {}", holder.m_file, e);
+            }
+        }
+    }
+
     /**
      * <p>clear</p>
      */
     public void clear() {
+        flush();
         synchronized (m_cache) {
             m_cache.invalidateAll();
         }
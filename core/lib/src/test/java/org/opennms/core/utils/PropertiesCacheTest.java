@@ -29,12 +29,15 @@
 package org.opennms.core.utils;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.google.common.base.Ticker;
 import com.google.common.cache.CacheBuilder;
@@ -43,6 +46,9 @@ public class PropertiesCacheTest {
     private final String FILE1 = "src/test/resources/share/rrd/snmp/1/strings.properties";
     private final String FILE2 = "src/test/resources/share/rrd/snmp/2/strings.properties";
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     static class FakeTicker extends Ticker {
         private final AtomicLong nanos = new AtomicLong();
 
@@ -96,4 +102,79 @@ public class PropertiesCacheTest {
 
         Assert.assertEquals(1L, propertiesCache.m_cache.size());
     }
+
+    @Test
+    public void testWriteOnlyWhenChanged() throws Exception {
+        final PropertiesCache propertiesCache = new PropertiesCache();
+        final File file = new File(tempFolder.getRoot(), "1/strings.properties");
+
+        propertiesCache.setProperty(file, "ifSpeed", "1000");
+        Assert.assertTrue(file.setLastModified(0));
+
+        // Setting the same values again must not touch the file
+        propertiesCache.setProperty(file, "ifSpeed", "1000");
+        propertiesCache.updateProperties(file, Collections.singletonMap("ifSpeed", "1000"));
+        propertiesCache.saveProperties(file, Collections.singletonMap("ifSpeed", "1000"));
+        Assert.assertEquals(0, file.lastModified());
+
+        propertiesCache.setProperty(file, "ifSpeed", "100");
+        Assert.assertEquals("100", new PropertiesCache().getProperty(file, "ifSpeed"));
+        Assert.assertEquals(0, tempFolder.getRoot().listFiles(f -> f.getName().endsWith(".tmp")).length);
+    }
+
+    @Test
+    public void testWriteWhenDeleted() throws Exception {
+        final PropertiesCache propertiesCache = new PropertiesCache();
+        final File file = new File(tempFolder.getRoot(), "1/strings.properties");
+
+        // A file deleted on disk is written again, even if the cached values did not change
+        propertiesCache.setProperty(file, "ifSpeed", "1000");
+        Assert.assertTrue(file.delete());
+        propertiesCache.setProperty(file, "ifSpeed", "1000");
+        Assert.assertEquals("1000", new PropertiesCache().getProperty(file, "ifSpeed"));
+
+        Assert.assertTrue(file.delete());
+        propertiesCache.updateProperties(file, Collections.singletonMap("ifSpeed", "1000"));
+        Assert.assertEquals("1000", new PropertiesCache().getProperty(file, "ifSpeed"));
+
+        Assert.assertTrue(file.delete());
+        propertiesCache.saveProperties(file, Collections.singletonMap("ifSpeed", "1000"));
+        Assert.assertEquals("1000", new PropertiesCache().getProperty(file, "ifSpeed"));
+    }
+
+    @Test
+    public void testWriteBehind() throws Exception {
+        final FakeTicker fakeTicker = new FakeTicker();
+        final PropertiesCache propertiesCache = new PropertiesCache(CacheBuilder.newBuilder().ticker(fakeTicker).concurrencyLevel(1), TimeUnit.HOURS.toMillis(1));
+        final File file = new File(tempFolder.getRoot(), "1/strings.properties");
+
+        propertiesCache.setProperty(file, "ifSpeed", "1000");
+        propertiesCache.setProperty(file, "ifAlias", "uplink");
+        Assert.assertFalse(file.exists());
+        Assert.assertEquals("1000", propertiesCache.getProperty(file, "ifSpeed"));
+
+        // Pending changes survive the eviction of the entry
+        fakeTicker.skip(PropertiesCache.DEFAULT_CACHE_TIMEOUT * 2, TimeUnit.SECONDS);
+        propertiesCache.getProperties(new File(FILE1));
+        Assert.assertEquals("uplink", propertiesCache.getProperty(file, "ifAlias"));
+        Assert.assertFalse(file.exists());
+
+        propertiesCache.flush();
+        final Properties properties = new PropertiesCache().getProperties(file);
+        Assert.assertEquals("1000", properties.getProperty("ifSpeed"));
+        Assert.assertEquals("uplink", properties.getProperty("ifAlias"));
+
+        // Nothing is written when nothing has changed
+        Assert.assertTrue(file.setLastModified(0));
+        propertiesCache.setProperty(file, "ifSpeed", "1000");
+        propertiesCache.flush();
+        Assert.assertEquals(0, file.lastModified());
+
+        // Unless the file was deleted in the meantime
+        Assert.assertTrue(file.delete());
+        propertiesCache.setProperty(file, "ifSpeed", "1000");
+        Assert.assertFalse(file.exists());
+        propertiesCache.flush();
+        Assert.assertEquals("1000", new PropertiesCache().getProperty(file, "ifSpeed"));
+    }
 }
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.xml;
+
+/**
+ * Encodes marshalled payloads before they are sent over the wire.
+ *
+ * Codecs are identified by a single byte which is written in the header of every
+ * encoded payload, so that the receiving side can decode the payload without any
+ * prior agreement with the sender. See {@link PayloadCodecs}.
+ *
+ * Implementations must be thread safe.
+ */
+public interface PayloadCodec {
+
+    /**
+     * @return the identifier written in the header of the encoded payloads
+     */
+    byte getId();
+
+    /**
+     * @return the name used to select this codec in the configuration
+     */
+    String getName();
+
+    byte[] encode(byte[] payload);
+
+    byte[] decode(byte[] encoded);
+
+}
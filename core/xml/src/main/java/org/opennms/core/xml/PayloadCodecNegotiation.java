@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.xml;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the codecs supported by the peers, so that payloads are only encoded
+ * with a codec once every peer that may receive them is able to decode them.
+ *
+ * Peers advertise the names of the codecs they support, i.e. Minions in their heartbeats.
+ * Peers that never advertised any codec are assumed to support {@link PayloadCodecs#XML} only.
+ */
+public abstract class PayloadCodecNegotiation {
+
+    /**
+     * Codecs supported by the peers, by location and id of the peer.
+     */
+    private static final Map<String, Map<String, Set<String>>> PEERS = new ConcurrentHashMap<>();
+
+    /**
+     * Records the codecs supported by the given peer, replacing the ones it advertised before.
+     *
+     * @param location location of the peer
+     * @param id id of the peer
+     * @param codecs names of the supported codecs, may be null if the peer predates the codecs
+     */
+    public static void setSupportedCodecs(String location, String id, Collection<String> codecs) {
+        Objects.requireNonNull(location);
+        Objects.requireNonNull(id);
+        final Set<String> supported = codecs != null ? Collections.unmodifiableSet(new HashSet<>(codecs)) : Collections.emptySet();
+
+        // The peer may have moved to another location
+        PEERS.forEach((l, peers) -> {
+            if (!l.equals(location)) {
+                peers.remove(id);
+            }
+        });
+        PEERS.computeIfAbsent(location, l -> new ConcurrentHashMap<>()).put(id, supported);
+    }
+
+    /**
+     * Chooses the codec used to encode a payload sent to the given location.
+     *
+     * @param codec the codec to use if possible
+     * @param location location of the receiving peers
+     * @param id id of the receiving peer, or null if any peer at the location may receive the payload
+     * @return the given codec if the receiving peers are known to support it, {@link PayloadCodecs#XML} otherwise
+     */
+    public static PayloadCodec negotiate(PayloadCodec codec, String location, String id) {
+        Objects.requireNonNull(codec);
+        if (codec == PayloadCodecs.XML || location == null) {
+            return PayloadCodecs.XML;
+        }
+
+        final Map<String, Set<String>> peers = PEERS.get(location);
+        if (peers == null || peers.isEmpty()) {
+            return PayloadCodecs.XML;
+        }
+
+        if (id != null) {
+            final Set<String> supported = peers.get(id);
+            return supported != null && supported.contains(codec.getName()) ? codec : PayloadCodecs.XML;
+        }
+
+        for (Set<String> supported : peers.values()) {
+            if (!supported.contains(codec.getName())) {
+                return PayloadCodecs.XML;
+            }
+        }
+        return codec;
+    }
+
+    /**
+     * Forgets about all peers.
+     */
+    protected static void clear() {
+        PEERS.clear();
+    }
+}
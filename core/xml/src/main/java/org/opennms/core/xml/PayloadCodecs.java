@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.xml;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Frames marshalled payloads using a {@link PayloadCodec}.
+ *
+ * Encoded payloads are prefixed with a header made of {@link #MAGIC} followed
+ * by the id of the codec. Marshalled XML never starts with these bytes, so payloads
+ * without a header are treated as plain XML. This allows senders to switch codecs
+ * without coordinating with the receivers, as long as these know about the codec,
+ * and allows receivers to keep consuming payloads from senders that predate the codecs.
+ *
+ * Transports that carry text instead of bytes should use {@link #toText(byte[])}
+ * and {@link #fromText(String)}, which Base64 encode framed payloads.
+ */
+public abstract class PayloadCodecs {
+    private static final Logger LOG = LoggerFactory.getLogger(PayloadCodecs.class);
+
+    public static final byte[] MAGIC = new byte[] { 0x00, 'N' };
+
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+
+    /**
+     * Prefix used for framed payloads converted to text.
+     */
+    private static final char TEXT_PREFIX = '!';
+
+    /**
+     * Leaves the payloads as-is.
+     */
+    public static final PayloadCodec XML = new PayloadCodec() {
+        @Override
+        public byte getId() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "xml";
+        }
+
+        @Override
+        public byte[] encode(byte[] payload) {
+            return payload;
+        }
+
+        @Override
+        public byte[] decode(byte[] encoded) {
+            return encoded;
+        }
+    };
+
+    /**
+     * Compresses the payloads using DEFLATE. Marshalled XML is highly redundant,
+     * so this typically reduces the size of the payloads by 5 to 10 times, and even
+     * more for aggregated messages.
+     */
+    public static final PayloadCodec DEFLATE = new PayloadCodec() {
+        /**
+         * Deflaters and inflaters hold native memory, so we reuse them instead
+         * of creating new instances for every payload.
+         */
+        private final ThreadLocal<Deflater> deflater = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+        private final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(Inflater::new);
+
+        @Override
+        public byte getId() {
+            return 1;
+        }
+
+        @Override
+        public String getName() {
+            return "deflate";
+        }
+
+        @Override
+        public byte[] encode(byte[] payload) {
+            final Deflater d = deflater.get();
+            d.reset();
+            d.setInput(payload);
+            d.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, payload.length / 4));
+            final byte[] buffer = new byte[8192];
+            while (!d.finished()) {
+                out.write(buffer, 0, d.deflate(buffer));
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public byte[] decode(byte[] encoded) {
+            final Inflater i = inflater.get();
+            i.reset();
+            i.setInput(encoded);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length * 8);
+            final byte[] buffer = new byte[8192];
+            try {
+                while (!i.finished()) {
+                    final int n = i.inflate(buffer);
+                    if (n == 0 && (i.needsInput() || i.needsDictionary())) {
+                        throw new IllegalArgumentException("Truncated payload.");
+                    }
+                    out.write(buffer, 0, n);
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalArgumentException("Invalid payload.", e);
+            }
+            return out.toByteArray();
+        }
+    };
+
+    /**
+     * Marks payloads that were encoded by the module itself instead of being marshalled as XML,
+     * which saves the cost of JAXB on both sides. The payloads are left as-is.
+     *
+     * Only modules that provide a binary encoding support this codec, see
+     * {@code AbstractXmlSinkModule#marshalBinary}. Other modules fall back to plain XML.
+     */
+    public static final PayloadCodec BINARY = new PayloadCodec() {
+        @Override
+        public byte getId() {
+            return 2;
+        }
+
+        @Override
+        public String getName() {
+            return "binary";
+        }
+
+        @Override
+        public byte[] encode(byte[] payload) {
+            return payload;
+        }
+
+        @Override
+        public byte[] decode(byte[] encoded) {
+            return encoded;
+        }
+    };
+
+    private static final Map<String, PayloadCodec> CODECS_BY_NAME;
+    private static final PayloadCodec[] CODECS_BY_ID = new PayloadCodec[256];
+
+    static {
+        final Map<String, PayloadCodec> codecs = new LinkedHashMap<>();
+        for (PayloadCodec codec : Arrays.asList(XML, DEFLATE, BINARY)) {
+            codecs.put(codec.getName(), codec);
+            CODECS_BY_ID[codec.getId() & 0xFF] = codec;
+        }
+        CODECS_BY_NAME = Collections.unmodifiableMap(codecs);
+    }
+
+    public static Map<String, PayloadCodec> getCodecs() {
+        return CODECS_BY_NAME;
+    }
+
+    /**
+     * Retrieves the codec with the given name.
+     *
+     * @param name name of the codec, may be null
+     * @return the codec, or {@link #XML} if no codec with the given name exists
+     */
+    public static PayloadCodec getCodec(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return XML;
+        }
+        final PayloadCodec codec = CODECS_BY_NAME.get(name.trim().toLowerCase());
+        if (codec == null) {
+            LOG.warn("Unknown codec '{}'. Available codecs are: {}. Using '{}'.", name, CODECS_BY_NAME.keySet(), XML.getName());
+            return XML;
+        }
+        return codec;
+    }
+
+    /**
+     * Retrieves the codec configured using the given system properties.
+     *
+     * @param properties system properties, in order of precedence
+     * @return the codec defined by the first property that is set, or {@link #XML}
+     */
+    public static PayloadCodec getCodecFromSystemProperties(String... properties) {
+        for (String property : properties) {
+            final String name = System.getProperty(property);
+            if (name != null) {
+                return getCodec(name);
+            }
+        }
+        return XML;
+    }
+
+    /**
+     * Encodes the given payload and prepends the header.
+     *
+     * Payloads encoded with the {@link #XML} codec are returned as-is.
+     */
+    public static byte[] frame(PayloadCodec codec, byte[] payload) {
+        Objects.requireNonNull(codec);
+        if (codec == XML) {
+            return payload;
+        }
+        final byte[] encoded = codec.encode(payload);
+        final byte[] framed = new byte[HEADER_LENGTH + encoded.length];
+        System.arraycopy(MAGIC, 0, framed, 0, MAGIC.length);
+        framed[MAGIC.length] = codec.getId();
+        System.arraycopy(encoded, 0, framed, HEADER_LENGTH, encoded.length);
+        return framed;
+    }
+
+    /**
+     * Decodes the given payload using the codec referenced in its header.
+     *
+     * @throws IllegalArgumentException if the header references an unknown codec
+     */
+    public static byte[] unframe(byte[] bytes) {
+        if (!isFramed(bytes)) {
+            return bytes;
+        }
+        final PayloadCodec codec = CODECS_BY_ID[bytes[MAGIC.length] & 0xFF];
+        if (codec == null) {
+            throw new IllegalArgumentException("Payload was encoded with an unknown codec: " + bytes[MAGIC.length]);
+        }
+        return codec.decode(Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length));
+    }
+
+    /**
+     * Retrieves the codec that was used to encode the given payload.
+     *
+     * @return the codec, or {@link #XML} if the payload is not framed or references an unknown codec
+     */
+    public static PayloadCodec getCodecOf(byte[] bytes) {
+        if (!isFramed(bytes)) {
+            return XML;
+        }
+        final PayloadCodec codec = CODECS_BY_ID[bytes[MAGIC.length] & 0xFF];
+        return codec != null ? codec : XML;
+    }
+
+    public static boolean isFramed(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_LENGTH
+                && bytes[0] == MAGIC[0] && bytes[1] == MAGIC[1];
+    }
+
+    /**
+     * Converts the given payload to text. Framed payloads are Base64 encoded.
+     */
+    public static String toText(byte[] bytes) {
+        if (!isFramed(bytes)) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return TEXT_PREFIX + Base64.getEncoder().encodeToString(bytes);
+    }
+
+    /**
+     * Converts text produced by {@link #toText(byte[])} back to a payload.
+     */
+    public static byte[] fromText(String text) {
+        if (text.length() > 0 && text.charAt(0) == TEXT_PREFIX) {
+            return Base64.getDecoder().decode(text.substring(1));
+        }
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Shortcut for framing marshalled XML for text based transports.
+     */
+    public static String encodeToText(PayloadCodec codec, String xml) {
+        if (codec == XML) {
+            return xml;
+        }
+        return toText(frame(codec, xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Retrieves the codec that was used to encode text produced by {@link #encodeToText(PayloadCodec, String)}.
+     *
+     * @return the codec, or {@link #XML} if the text is plain XML or references an unknown codec
+     */
+    public static PayloadCodec getCodecOfText(String text) {
+        if (text.length() < 1 + 4 || text.charAt(0) != TEXT_PREFIX) {
+            return XML;
+        }
+        // The first four characters hold the Base64 encoded header
+        return getCodecOf(Base64.getDecoder().decode(text.substring(1, 1 + 4)));
+    }
+
+    /**
+     * Shortcut for retrieving the marshalled XML from text produced by
+     * {@link #encodeToText(PayloadCodec, String)}.
+     */
+    public static String decodeFromText(String text) {
+        if (text.length() == 0 || text.charAt(0) != TEXT_PREFIX) {
+            return text;
+        }
+        return new String(unframe(fromText(text)), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.xml;
+
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class PayloadCodecNegotiationTest {
+
+    @After
+    public void tearDown() {
+        PayloadCodecNegotiation.clear();
+    }
+
+    @Test
+    public void usesXmlForUnknownPeers() {
+        assertSame(PayloadCodecs.XML, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, "Default", null));
+        assertSame(PayloadCodecs.XML, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, "Default", "minion-1"));
+        assertSame(PayloadCodecs.XML, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, null, null));
+    }
+
+    @Test
+    public void usesCodecOnceAllPeersAtLocationSupportIt() {
+        PayloadCodecNegotiation.setSupportedCodecs("Default", "minion-1", Arrays.asList("xml", "deflate"));
+        assertSame(PayloadCodecs.DEFLATE, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, "Default", null));
+
+        // A Minion which predates the codecs joins the location
+        PayloadCodecNegotiation.setSupportedCodecs("Default", "minion-2", null);
+        assertSame(PayloadCodecs.XML, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, "Default", null));
+        assertSame(PayloadCodecs.DEFLATE, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, "Default", "minion-1"));
+        assertSame(PayloadCodecs.XML, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, "Default", "minion-2"));
+
+        // The Minion is upgraded
+        PayloadCodecNegotiation.setSupportedCodecs("Default", "minion-2", Arrays.asList("xml", "deflate"));
+        assertSame(PayloadCodecs.DEFLATE, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, "Default", null));
+    }
+
+    @Test
+    public void forgetsPeersThatMovedToAnotherLocation() {
+        PayloadCodecNegotiation.setSupportedCodecs("Default", "minion-1", Arrays.asList("xml", "deflate"));
+        PayloadCodecNegotiation.setSupportedCodecs("Default", "minion-2", Collections.emptyList());
+        assertSame(PayloadCodecs.XML, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, "Default", null));
+
+        PayloadCodecNegotiation.setSupportedCodecs("Other", "minion-2", Collections.emptyList());
+        assertSame(PayloadCodecs.DEFLATE, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, "Default", null));
+        assertSame(PayloadCodecs.XML, PayloadCodecNegotiation.negotiate(PayloadCodecs.DEFLATE, "Other", null));
+    }
+}
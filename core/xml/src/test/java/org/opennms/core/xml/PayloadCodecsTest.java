@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.xml;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class PayloadCodecsTest {
+
+    private static final String XML;
+
+    static {
+        final StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<syslog-message-log system-id=\"minion\" location=\"MINION\">");
+        for (int i = 0; i < 100; i++) {
+            sb.append("<messages timestamp=\"2019-01-01T00:00:").append(i % 60).append(".000Z\">PDE4OT5KYW4gIDEgMDA6MDA6MDA=</messages>");
+        }
+        XML = sb.append("</syslog-message-log>").toString();
+    }
+
+    @Test
+    public void canFrameAndUnframePayloads() {
+        final byte[] xml = XML.getBytes(StandardCharsets.UTF_8);
+
+        // XML is left as-is
+        assertSame(xml, PayloadCodecs.frame(PayloadCodecs.XML, xml));
+        assertFalse(PayloadCodecs.isFramed(xml));
+        assertSame(xml, PayloadCodecs.unframe(xml));
+
+        final byte[] deflated = PayloadCodecs.frame(PayloadCodecs.DEFLATE, xml);
+        assertTrue(PayloadCodecs.isFramed(deflated));
+        assertTrue(deflated.length < xml.length / 5);
+        assertArrayEquals(xml, PayloadCodecs.unframe(deflated));
+    }
+
+    @Test
+    public void canConvertPayloadsToText() {
+        // XML is left as-is
+        assertSame(XML, PayloadCodecs.encodeToText(PayloadCodecs.XML, XML));
+        assertSame(XML, PayloadCodecs.decodeFromText(XML));
+        assertEquals(XML, new String(PayloadCodecs.fromText(PayloadCodecs.toText(XML.getBytes(StandardCharsets.UTF_8))), StandardCharsets.UTF_8));
+
+        final String text = PayloadCodecs.encodeToText(PayloadCodecs.DEFLATE, XML);
+        assertEquals('!', text.charAt(0));
+        assertTrue(text.length() < XML.length() / 3);
+        assertEquals(XML, PayloadCodecs.decodeFromText(text));
+    }
+
+    @Test
+    public void canRetrieveTheCodecOfPayloads() {
+        final byte[] xml = XML.getBytes(StandardCharsets.UTF_8);
+        assertSame(PayloadCodecs.XML, PayloadCodecs.getCodecOf(xml));
+        assertSame(PayloadCodecs.DEFLATE, PayloadCodecs.getCodecOf(PayloadCodecs.frame(PayloadCodecs.DEFLATE, xml)));
+        assertSame(PayloadCodecs.BINARY, PayloadCodecs.getCodecOf(PayloadCodecs.frame(PayloadCodecs.BINARY, new byte[] { 1, 2, 3 })));
+    }
+
+    @Test
+    public void canRetrieveTheCodecOfText() {
+        assertSame(PayloadCodecs.XML, PayloadCodecs.getCodecOfText(XML));
+        assertSame(PayloadCodecs.XML, PayloadCodecs.getCodecOfText(""));
+        assertSame(PayloadCodecs.DEFLATE, PayloadCodecs.getCodecOfText(PayloadCodecs.encodeToText(PayloadCodecs.DEFLATE, XML)));
+    }
+
+    @Test
+    public void canLookupCodecsByName() {
+        assertSame(PayloadCodecs.DEFLATE, PayloadCodecs.getCodec(" Deflate "));
+        assertSame(PayloadCodecs.XML, PayloadCodecs.getCodec(null));
+        assertSame(PayloadCodecs.XML, PayloadCodecs.getCodec("xml"));
+        // Unknown codecs fall back to XML
+        assertSame(PayloadCodecs.XML, PayloadCodecs.getCodec("zstd"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void failsOnUnknownCodecs() {
+        PayloadCodecs.unframe(new byte[] { PayloadCodecs.MAGIC[0], PayloadCodecs.MAGIC[1], 42, 1, 2, 3 });
+    }
+}
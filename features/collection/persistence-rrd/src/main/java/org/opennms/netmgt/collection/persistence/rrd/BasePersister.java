@@ -57,6 +57,7 @@ public class BasePersister extends AbstractPersister {
     private final RrdStrategy<?, ?> m_rrdStrategy;
     protected final ResourceStorageDao m_resourceStorageDao;
     private boolean m_dontReorderAttributes = false;
+    private RrdFilePool m_filePool;
 
     /**
      * <p>Constructor for BasePersister.</p>
@@ -78,7 +79,7 @@ public class BasePersister extends AbstractPersister {
      * @param attributeTypes a {@link java.util.Set} object.
      */
     protected RrdPersistOperationBuilder createBuilder(CollectionResource resource, String name, Set<CollectionAttributeType> attributeTypes) {
-        RrdPersistOperationBuilder builder  = new RrdPersistOperationBuilder(getRrdStrategy(), getRepository(), resource, name, m_dontReorderAttributes);
+        RrdPersistOperationBuilder builder  = new RrdPersistOperationBuilder(getRrdStrategy(), getRepository(), resource, name, m_dontReorderAttributes, m_filePool);
         if (resource.getTimeKeeper() != null) {
             builder.setTimeKeeper(resource.getTimeKeeper());
         }
@@ -115,4 +116,12 @@ public class BasePersister extends AbstractPersister {
     public boolean getDontReorderAttributes() {
         return m_dontReorderAttributes;
     }
+
+    public void setFilePool(RrdFilePool filePool) {
+        m_filePool = filePool;
+    }
+
+    public RrdFilePool getFilePool() {
+        return m_filePool;
+    }
 }
@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.collection.persistence.rrd;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.opennms.netmgt.rrd.RrdException;
+import org.opennms.netmgt.rrd.RrdStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a bounded number of RRD files open between updates, instead of opening and closing
+ * the file for every update. The least recently used files are closed once the bound is reached.
+ *
+ * Updates can also be buffered per file and written in batches. Buffered updates with the same
+ * timestamp are coalesced into a single update, where the known values of the later updates take
+ * precedence. Buffered updates are written once a file has a full batch, when the file is closed,
+ * and at least once per flush interval.
+ */
+public class RrdFilePool implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(RrdFilePool.class);
+
+    private final RrdStrategy<Object, Object> m_rrdStrategy;
+
+    private final int m_maxOpenFiles;
+
+    private final int m_batchSize;
+
+    /**
+     * The open files in access order, guarded by itself.
+     */
+    private final LinkedHashMap<String, PooledFile> m_files = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ScheduledExecutorService m_flusher;
+
+    /**
+     * Creates a pool which writes the updates as they are made.
+     *
+     * @param rrdStrategy the strategy used to open, update and close the files
+     * @param maxOpenFiles the maximum number of files kept open
+     */
+    public RrdFilePool(RrdStrategy<?, ?> rrdStrategy, int maxOpenFiles) {
+        this(rrdStrategy, maxOpenFiles, 1, 0);
+    }
+
+    /**
+     * Creates a pool which buffers the updates of every file.
+     *
+     * @param rrdStrategy the strategy used to open, update and close the files
+     * @param maxOpenFiles the maximum number of files kept open
+     * @param batchSize the number of updates buffered per file before they are written
+     * @param flushInterval the maximum time in milliseconds buffered updates are held, when buffering
+     */
+    @SuppressWarnings("unchecked")
+    public RrdFilePool(RrdStrategy<?, ?> rrdStrategy, int maxOpenFiles, int batchSize, long flushInterval) {
+        if (maxOpenFiles < 1) {
+            throw new IllegalArgumentException("At least one file must be kept open");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be at least 1");
+        }
+        m_rrdStrategy = (RrdStrategy<Object, Object>) rrdStrategy;
+        m_maxOpenFiles = maxOpenFiles;
+        m_batchSize = batchSize;
+
+        if (batchSize > 1 && flushInterval > 0) {
+            m_flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "rrd-file-pool-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            m_flusher.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        } else {
+            m_flusher = null;
+        }
+    }
+
+    /**
+     * Returns true if the given file is currently held open by the pool.
+     */
+    public boolean isOpen(String fileName) {
+        synchronized (m_files) {
+            final PooledFile file = m_files.get(fileName);
+            return file != null && file.rrd != null;
+        }
+    }
+
+    /**
+     * Closes the given file if it is held open by the pool, dropping its buffered updates.
+     *
+     * Used when the file was deleted while held open, since the updates would otherwise
+     * keep going to the handle of the deleted file.
+     */
+    public void invalidate(String fileName) {
+        final PooledFile file;
+        synchronized (m_files) {
+            file = m_files.remove(fileName);
+        }
+        if (file != null) {
+            file.discard();
+        }
+    }
+
+    /**
+     * Updates the given file, opening it if needed.
+     *
+     * @param fileName the path of the file
+     * @param owner the owner of the file, used in log messages
+     * @param timestamp the timestamp of the values in seconds
+     * @param values the values of the data sources, which are not finite when unknown
+     * @throws RrdException if the update, or any of the buffered updates of the file, failed
+     */
+    public void update(String fileName, String owner, long timestamp, double[] values) throws RrdException {
+        for (;;) {
+            final PooledFile file;
+            final List<PooledFile> evicted = new ArrayList<>();
+            synchronized (m_files) {
+                file = m_files.computeIfAbsent(fileName, PooledFile::new);
+                final Iterator<PooledFile> it = m_files.values().iterator();
+                while (m_files.size() > m_maxOpenFiles && it.hasNext()) {
+                    final PooledFile eldest = it.next();
+                    if (eldest != file) {
+                        it.remove();
+                        evicted.add(eldest);
+                    }
+                }
+            }
+
+            // Close the evicted files outside of the lock, since this may write their buffered updates
+            for (PooledFile eldest : evicted) {
+                eldest.close();
+            }
+
+            synchronized (file) {
+                if (file.closed) {
+                    // The file was evicted by another thread before we got to it
+                    continue;
+                }
+                file.owner = owner;
+                file.buffer(timestamp, values);
+                if (file.pending.size() >= m_batchSize) {
+                    file.write();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes all of the buffered updates, keeping the files open.
+     */
+    public void flush() {
+        for (PooledFile file : getFiles()) {
+            synchronized (file) {
+                if (file.closed || file.pending.isEmpty()) {
+                    continue;
+                }
+                try {
+                    file.write();
+                } catch (RrdException e) {
+                    LOG.error("flush: Failed to write the buffered updates of RRD file {}", file.fileName, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes all of the buffered updates and closes all of the files.
+     */
+    @Override
+    public void close() {
+        if (m_flusher != null) {
+            m_flusher.shutdown();
+        }
+
+        final List<PooledFile> files;
+        synchronized (m_files) {
+            files = new ArrayList<>(m_files.values());
+            m_files.clear();
+        }
+        for (PooledFile file : files) {
+            file.close();
+        }
+    }
+
+    public int getOpenFiles() {
+        synchronized (m_files) {
+            return m_files.size();
+        }
+    }
+
+    private List<PooledFile> getFiles() {
+        synchronized (m_files) {
+            return new ArrayList<>(m_files.values());
+        }
+    }
+
+    private class PooledFile {
+        private final String fileName;
+        private final TreeMap<Long, double[]> pending = new TreeMap<>();
+        private String owner;
+        private volatile Object rrd;
+        private boolean closed = false;
+
+        private PooledFile(String fileName) {
+            this.fileName = fileName;
+        }
+
+        private void buffer(long timestamp, double[] values) {
+            final double[] existing = pending.get(timestamp);
+            if (existing == null || existing.length != values.length) {
+                pending.put(timestamp, values);
+                return;
+            }
+            // Coalesce the updates, keeping the known values of the later update
+            for (int i = 0; i < values.length; i++) {
+                if (Double.isFinite(values[i])) {
+                    existing[i] = values[i];
+                }
+            }
+        }
+
+        /**
+         * Writes the buffered updates in order. The buffer is cleared even if an update fails,
+         * since retrying the same update would fail again.
+         */
+        private void write() throws RrdException {
+            try {
+                if (rrd == null) {
+                    rrd = m_rrdStrategy.openFile(fileName);
+                }
+                for (Map.Entry<Long, double[]> update : pending.entrySet()) {
+                    m_rrdStrategy.updateFile(rrd, owner, update.getKey(), update.getValue());
+                }
+            } catch (Throwable e) {
+                // Reopen the file on the next update, in case the handle is no longer usable
+                closeQuietly();
+                throw new RrdException("Error updating RRD file " + fileName + ": " + e, e);
+            } finally {
+                pending.clear();
+            }
+        }
+
+        private synchronized void close() {
+            try {
+                if (!pending.isEmpty()) {
+                    write();
+                }
+            } catch (RrdException e) {
+                LOG.error("close: Failed to write the buffered updates of RRD file {}", fileName, e);
+            } finally {
+                closeQuietly();
+                closed = true;
+            }
+        }
+
+        private synchronized void discard() {
+            if (!pending.isEmpty()) {
+                LOG.debug("discard: Dropping {} buffered updates of RRD file {}", pending.size(), fileName);
+                pending.clear();
+            }
+            closeQuietly();
+            closed = true;
+        }
+
+        private void closeQuietly() {
+            if (rrd == null) {
+                return;
+            }
+            try {
+                m_rrdStrategy.closeFile(rrd);
+            } catch (Throwable e) {
+                LOG.error("close: Exception closing RRD file {}", fileName, e);
+            } finally {
+                rrd = null;
+            }
+        }
+    }
+}
@@ -77,6 +77,7 @@ public class RrdPersistOperationBuilder implements PersistOperationBuilder {
     private final Map<CollectionAttributeType, Number> m_declarations;
     private final Map<String, String> m_metaData = new LinkedHashMap<String, String>();
     private TimeKeeper m_timeKeeper = new DefaultTimeKeeper();
+    private final RrdFilePool m_filePool;
 
     /** Constant <code>MAX_DS_NAME_LENGTH=19</code> */
     public static final int MAX_DS_NAME_LENGTH = 19;
@@ -86,7 +87,23 @@ public class RrdPersistOperationBuilder implements PersistOperationBuilder {
                                       ResourceIdentifier resource,
                                       String rrdName,
                                       boolean dontReorderAttributes) {
+        this(rrdStrategy, repository, resource, rrdName, dontReorderAttributes, null);
+    }
+
+    /**
+     * Creates a builder which updates the files through the given pool, instead of
+     * opening and closing them for every update. The pool is ignored unless the strategy
+     * {@link RrdStrategy#supportsNumericUpdates() supports numeric updates}, since the
+     * values would otherwise lose precision.
+     */
+    public RrdPersistOperationBuilder(RrdStrategy<?, ?> rrdStrategy,
+                                      RrdRepository repository,
+                                      ResourceIdentifier resource,
+                                      String rrdName,
+                                      boolean dontReorderAttributes,
+                                      RrdFilePool filePool) {
         m_rrdStrategy = rrdStrategy;
+        m_filePool = filePool != null && rrdStrategy.supportsNumericUpdates() ? filePool : null;
         m_repository = repository;
         m_resource = resource;
         m_rrdName = rrdName;
@@ -203,8 +220,22 @@ public class RrdPersistOperationBuilder implements PersistOperationBuilder {
 
             List<RrdDataSource> dataSources = getDataSources();
             if (dataSources != null && dataSources.size() > 0) {
-                createRRD(m_rrdStrategy, ownerName, absolutePath, m_rrdName, getRepository().getStep(), dataSources, getRepository().getRraList());
-                updateRRD(m_rrdStrategy, ownerName, absolutePath, m_rrdName, m_timeKeeper.getCurrentTime(), getValues());
+                if (m_filePool != null) {
+                    final String rrdFile = absolutePath + File.separator + m_rrdName + m_rrdStrategy.getDefaultFileExtension();
+                    // Files held open by the pool don't need to be created, unless they were deleted in the meantime
+                    final boolean open = m_filePool.isOpen(rrdFile);
+                    if (!open || !new File(rrdFile).exists()) {
+                        if (open) {
+                            // The pooled handle points to the deleted file
+                            m_filePool.invalidate(rrdFile);
+                        }
+                        createRRD(m_rrdStrategy, ownerName, absolutePath, m_rrdName, getRepository().getStep(), dataSources, getRepository().getRraList());
+                    }
+                    m_filePool.update(rrdFile, ownerName, (m_timeKeeper.getCurrentTime() + 500L) / 1000L, getNumericValues());
+                } else {
+                    createRRD(m_rrdStrategy, ownerName, absolutePath, m_rrdName, getRepository().getStep(), dataSources, getRepository().getRraList());
+                    updateRRD(m_rrdStrategy, ownerName, absolutePath, m_rrdName, m_timeKeeper.getCurrentTime(), getValues());
+                }
             }
         } catch (FileNotFoundException e) {
             LoggerFactory.getLogger(getClass()).warn("Could not get resource directory: " + e.getMessage(), e);
@@ -230,6 +261,15 @@ public class RrdPersistOperationBuilder implements PersistOperationBuilder {
         return values.toString();
     }
 
+    private double[] getNumericValues() {
+        final double[] values = new double[m_declarations.size()];
+        int i = 0;
+        for (Number value : m_declarations.values()) {
+            values[i++] = value != null && Double.isFinite(value.doubleValue()) ? value.doubleValue() : Double.NaN;
+        }
+        return values;
+    }
+
     private List<RrdDataSource> getDataSources() {
         List<RrdDataSource> dataSources = new ArrayList<RrdDataSource>(m_declarations.size());
         for (CollectionAttributeType attrDef : m_declarations.keySet()) {
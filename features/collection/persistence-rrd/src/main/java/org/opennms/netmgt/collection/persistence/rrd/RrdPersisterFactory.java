@@ -35,13 +35,24 @@ import org.opennms.netmgt.dao.api.ResourceStorageDao;
 import org.opennms.netmgt.model.ResourceTypeUtils;
 import org.opennms.netmgt.rrd.RrdRepository;
 import org.opennms.netmgt.rrd.RrdStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class RrdPersisterFactory implements PersisterFactory {
+    private static final Logger LOG = LoggerFactory.getLogger(RrdPersisterFactory.class);
 
     private RrdStrategy<?, ?> m_rrdStrategy;
 
     private ResourceStorageDao m_resourceStorageDao;
 
+    private int m_maxOpenFiles = 0;
+
+    private int m_batchSize = 1;
+
+    private long m_flushInterval = 60000;
+
+    private RrdFilePool m_filePool;
+
     public Persister createPersister(ServiceParameters params, RrdRepository repository) {
         return createPersister(params, repository, false, false, false);
     }
@@ -61,6 +72,7 @@ public class RrdPersisterFactory implements PersisterFactory {
         GroupPersister persister = new GroupPersister(params, repository, m_rrdStrategy, m_resourceStorageDao);
         persister.setIgnorePersist(dontPersistCounters);
         persister.setDontReorderAttributes(dontReorderAttributes);
+        persister.setFilePool(getFilePool());
         return persister;
     }
 
@@ -69,9 +81,37 @@ public class RrdPersisterFactory implements PersisterFactory {
         OneToOnePersister persister = new OneToOnePersister(params, repository, m_rrdStrategy, m_resourceStorageDao);
         persister.setIgnorePersist(dontPersistCounters);
         persister.setDontReorderAttributes(dontReorderAttributes);
+        persister.setFilePool(getFilePool());
         return persister;
     }
 
+    /**
+     * Returns the pool used to keep the files open between updates, or null
+     * if every update opens and closes the file.
+     *
+     * The pool hands the values to the strategy as doubles, so it is only used with strategies
+     * that store them as such. Other strategies keep receiving the values formatted from the
+     * collected numbers, which are exact for 64-bit counters.
+     */
+    public synchronized RrdFilePool getFilePool() {
+        if (m_filePool == null && m_maxOpenFiles > 0) {
+            if (!m_rrdStrategy.supportsNumericUpdates()) {
+                LOG.warn("The RRD file pool is not supported by {}. Every update opens and closes the file.", m_rrdStrategy.getClass().getSimpleName());
+                m_maxOpenFiles = 0;
+                return null;
+            }
+            m_filePool = new RrdFilePool(m_rrdStrategy, m_maxOpenFiles, m_batchSize, m_flushInterval);
+        }
+        return m_filePool;
+    }
+
+    public synchronized void destroy() {
+        if (m_filePool != null) {
+            m_filePool.close();
+            m_filePool = null;
+        }
+    }
+
     public RrdStrategy<?, ?> getRrdStrategy() {
         return m_rrdStrategy;
     }
@@ -87,5 +127,29 @@ public class RrdPersisterFactory implements PersisterFactory {
     public void setResourceStorageDao(ResourceStorageDao resourceStorageDao) {
         m_resourceStorageDao = resourceStorageDao;
     }
+
+    public int getMaxOpenFiles() {
+        return m_maxOpenFiles;
+    }
+
+    public void setMaxOpenFiles(int maxOpenFiles) {
+        m_maxOpenFiles = maxOpenFiles;
+    }
+
+    public int getBatchSize() {
+        return m_batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        m_batchSize = batchSize;
+    }
+
+    public long getFlushInterval() {
+        return m_flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        m_flushInterval = flushInterval;
+    }
 }
 
@@ -30,14 +30,32 @@ package org.opennms.features.collection.persistence.rrd;
 
 import static org.junit.Assert.assertEquals;
 
+import java.math.BigInteger;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opennms.netmgt.collection.api.AttributeGroupType;
+import org.opennms.netmgt.collection.api.AttributeType;
+import org.opennms.netmgt.collection.api.CollectionAttribute;
+import org.opennms.netmgt.collection.api.CollectionAttributeType;
+import org.opennms.netmgt.collection.api.Persister;
+import org.opennms.netmgt.collection.api.ResourceIdentifier;
+import org.opennms.netmgt.collection.persistence.rrd.RrdFilePool;
 import org.opennms.netmgt.collection.persistence.rrd.RrdPersistOperationBuilder;
+import org.opennms.netmgt.model.ResourcePath;
+import org.opennms.netmgt.rrd.NullRrdStrategy;
+import org.opennms.netmgt.rrd.RrdRepository;
 
 public class RrdPersistOperationBuilderTest {
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     @Test
     public void canFormatNumbers() {
         assertEquals("2147483647", RrdPersistOperationBuilder.mapValue(Integer.MAX_VALUE));
@@ -65,4 +83,69 @@ public class RrdPersistOperationBuilderTest {
 
         Locale.setDefault(defaultLocale);
     }
+
+    @Test
+    public void canKeepCounter64ValuesExactWithoutNumericUpdates() throws Exception {
+        final List<String> updates = new ArrayList<>();
+        final NullRrdStrategy strategy = new NullRrdStrategy() {
+            @Override
+            public void updateFile(Object rrd, String owner, String data) {
+                updates.add(data);
+            }
+        };
+
+        final RrdRepository repository = new RrdRepository();
+        repository.setRrdBaseDir(tempFolder.getRoot());
+        repository.setStep(300);
+        repository.setHeartBeat(600);
+        final ResourceIdentifier resource = new ResourceIdentifier() {
+            @Override
+            public String getOwnerName() {
+                return "test";
+            }
+
+            @Override
+            public ResourcePath getPath() {
+                return ResourcePath.get("1", "interface");
+            }
+        };
+
+        // The pool is ignored, since the values would be converted to double
+        try (RrdFilePool pool = new RrdFilePool(strategy, 10)) {
+            final RrdPersistOperationBuilder builder = new RrdPersistOperationBuilder(strategy, repository, resource, "ifHCInOctets", false, pool);
+            builder.setAttributeValue(new CounterAttributeType("ifHCInOctets"), new BigInteger("18446744073709551615"));
+            builder.commit();
+            assertEquals(0, pool.getOpenFiles());
+        }
+
+        assertEquals(1, updates.size());
+        assertEquals("18446744073709551615", updates.get(0).substring(updates.get(0).indexOf(':') + 1));
+    }
+
+    private static class CounterAttributeType implements CollectionAttributeType {
+        private final String name;
+
+        private CounterAttributeType(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public AttributeType getType() {
+            return AttributeType.COUNTER;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public AttributeGroupType getGroupType() {
+            return null;
+        }
+
+        @Override
+        public void storeAttribute(CollectionAttribute attribute, Persister persister) {
+        }
+    }
 }
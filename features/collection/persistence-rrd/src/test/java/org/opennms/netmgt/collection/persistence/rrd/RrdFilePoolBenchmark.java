@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.collection.persistence.rrd;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jrobin.core.RrdDb;
+import org.jrobin.core.RrdDef;
+import org.opennms.netmgt.rrd.RrdAttributeType;
+import org.opennms.netmgt.rrd.RrdDataSource;
+import org.opennms.netmgt.rrd.jrobin.JRobinRrdStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares updating JRobin files on disk by opening and closing the file for every update,
+ * as the {@link RrdPersistOperationBuilder} does by default, with updating them through
+ * the {@link RrdFilePool}.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.netmgt.collection.persistence.rrd.RrdFilePoolBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RrdFilePoolBenchmark {
+
+    private static final int STEP = 300;
+
+    @Param({"open-close", "pooled"})
+    public String mode;
+
+    @Param({"1000"})
+    public int numFiles;
+
+    @Param({"10"})
+    public int numDataSources;
+
+    private File directory;
+
+    private JRobinRrdStrategy strategy;
+
+    private RrdFilePool pool;
+
+    private final List<String> files = new ArrayList<>();
+
+    private int nextFile = 0;
+
+    private long timestamp;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("rrd-pool").toFile();
+        strategy = new JRobinRrdStrategy();
+
+        final List<RrdDataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < numDataSources; i++) {
+            dataSources.add(new RrdDataSource("ds" + i, RrdAttributeType.GAUGE, STEP * 2, "U", "U"));
+        }
+        for (int i = 0; i < numFiles; i++) {
+            final RrdDef def = strategy.createDefinition("benchmark", directory.getAbsolutePath(), "file" + i, STEP, dataSources,
+                    Arrays.asList("RRA:AVERAGE:0.5:1:2016", "RRA:AVERAGE:0.5:12:1488", "RRA:MAX:0.5:288:366"));
+            strategy.createFile(def);
+            files.add(def.getPath());
+        }
+
+        if ("pooled".equals(mode)) {
+            pool = new RrdFilePool(strategy, numFiles);
+        }
+        timestamp = System.currentTimeMillis() / 1000L;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void update() throws Exception {
+        final String file = files.get(nextFile);
+        if (++nextFile == numFiles) {
+            // Every file was updated, move on to the next step
+            nextFile = 0;
+            timestamp += STEP;
+        }
+
+        final double[] values = new double[numDataSources];
+        Arrays.fill(values, timestamp % 1000);
+
+        if (pool != null) {
+            pool.update(file, "benchmark", timestamp, values);
+        } else {
+            final RrdDb rrd = strategy.openFile(file);
+            try {
+                strategy.updateFile(rrd, "benchmark", timestamp + ":" + RrdPersistOperationBuilder.mapValue(values[0]) + repeat(numDataSources - 1, values[0]));
+            } finally {
+                strategy.closeFile(rrd);
+            }
+        }
+    }
+
+    private static String repeat(int count, double value) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(':').append(RrdPersistOperationBuilder.mapValue(value));
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RrdFilePoolBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.collection.persistence.rrd;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.opennms.netmgt.rrd.NullRrdStrategy;
+import org.opennms.netmgt.rrd.RrdException;
+
+public class RrdFilePoolTest {
+
+    @Test
+    public void canKeepFilesOpenBetweenUpdates() throws Exception {
+        final RecordingRrdStrategy strategy = new RecordingRrdStrategy();
+        try (RrdFilePool pool = new RrdFilePool(strategy, 2)) {
+            pool.update("a", "test", 1, new double[]{1.0});
+            pool.update("a", "test", 2, new double[]{2.0});
+            pool.update("b", "test", 1, new double[]{1.0});
+            assertTrue(pool.isOpen("a"));
+            assertTrue(pool.isOpen("b"));
+
+            // Every file was opened once, and the updates are written right away
+            assertEquals(2, strategy.opened.size());
+            assertEquals(3, strategy.updates.size());
+            assertEquals(0, strategy.closed.size());
+
+            // Opening a third file evicts the least recently used one
+            pool.update("a", "test", 3, new double[]{3.0});
+            pool.update("c", "test", 1, new double[]{1.0});
+            assertEquals(2, pool.getOpenFiles());
+            assertFalse(pool.isOpen("b"));
+            assertEquals(1, strategy.closed.size());
+            assertEquals("b", strategy.closed.get(0));
+        }
+        assertEquals(3, strategy.closed.size());
+    }
+
+    @Test
+    public void canCoalesceBufferedUpdates() throws Exception {
+        final RecordingRrdStrategy strategy = new RecordingRrdStrategy();
+        try (RrdFilePool pool = new RrdFilePool(strategy, 10, 3, 0)) {
+            pool.update("a", "test", 2, new double[]{2.0, Double.NaN});
+            pool.update("a", "test", 1, new double[]{1.0, 1.0});
+            pool.update("a", "test", 2, new double[]{Double.NaN, 2.5});
+            assertEquals(0, strategy.updates.size());
+
+            // The third distinct timestamp fills the batch
+            pool.update("a", "test", 3, new double[]{3.0, 3.0});
+            assertEquals(3, strategy.updates.size());
+            assertEquals("a@1", strategy.updates.get(0));
+            assertEquals("a@2", strategy.updates.get(1));
+            assertArrayEquals(new double[]{2.0, 2.5}, strategy.values.get(1), 0.0);
+            assertEquals("a@3", strategy.updates.get(2));
+
+            // Buffered updates are written when the pool is closed
+            pool.update("a", "test", 4, new double[]{4.0, 4.0});
+        }
+        assertEquals(4, strategy.updates.size());
+    }
+
+    @Test
+    public void canReopenFilesAfterFailedUpdates() throws Exception {
+        final RecordingRrdStrategy strategy = new RecordingRrdStrategy();
+        try (RrdFilePool pool = new RrdFilePool(strategy, 10)) {
+            pool.update("a", "test", 1, new double[]{1.0});
+            strategy.failUpdates = true;
+            try {
+                pool.update("a", "test", 2, new double[]{2.0});
+                fail("The update should have failed");
+            } catch (RrdException e) {
+                // pass
+            }
+            assertFalse(pool.isOpen("a"));
+
+            strategy.failUpdates = false;
+            pool.update("a", "test", 3, new double[]{3.0});
+            assertEquals(2, strategy.opened.size());
+        }
+    }
+
+    @Test
+    public void canInvalidateDeletedFiles() throws Exception {
+        final RecordingRrdStrategy strategy = new RecordingRrdStrategy();
+        try (RrdFilePool pool = new RrdFilePool(strategy, 10, 3, 0)) {
+            pool.update("a", "test", 1, new double[]{1.0});
+            pool.update("a", "test", 2, new double[]{2.0});
+            pool.update("a", "test", 3, new double[]{3.0});
+            pool.update("a", "test", 4, new double[]{4.0});
+            assertTrue(pool.isOpen("a"));
+
+            // The buffered update of the deleted file is dropped
+            pool.invalidate("a");
+            assertFalse(pool.isOpen("a"));
+            assertEquals(1, strategy.closed.size());
+            assertEquals(3, strategy.updates.size());
+
+            // The next update opens the recreated file
+            pool.update("a", "test", 5, new double[]{5.0});
+            pool.flush();
+            assertEquals(2, strategy.opened.size());
+            assertEquals("a@5", strategy.updates.get(3));
+        }
+    }
+
+    private static class RecordingRrdStrategy extends NullRrdStrategy {
+        private final List<String> opened = new ArrayList<>();
+        private final List<String> closed = new ArrayList<>();
+        private final List<String> updates = new ArrayList<>();
+        private final List<double[]> values = new ArrayList<>();
+        private boolean failUpdates = false;
+
+        @Override
+        public Object openFile(String fileName) {
+            opened.add(fileName);
+            return fileName;
+        }
+
+        @Override
+        public void updateFile(Object rrd, String owner, long timestamp, double[] values) throws Exception {
+            if (failUpdates) {
+                throw new Exception("Update failed");
+            }
+            this.updates.add(rrd + "@" + timestamp);
+            this.values.add(values);
+        }
+
+        @Override
+        public void closeFile(Object rrd) {
+            closed.add((String) rrd);
+        }
+    }
+}
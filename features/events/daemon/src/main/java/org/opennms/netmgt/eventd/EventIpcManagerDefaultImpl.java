@@ -58,6 +58,7 @@ import org.opennms.netmgt.xml.event.Events;
 import org.opennms.netmgt.xml.event.Log;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -72,11 +73,17 @@ import com.codahale.metrics.MetricRegistry;
  * @author <A HREF="mailto:sowmya@opennms.org">Sowmya Nataraj </A>
  * @author <A HREF="http://www.opennms.org">OpenNMS.org </A>
  */
-public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroadcaster, InitializingBean {
+public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroadcaster, InitializingBean, DisposableBean {
     
     
     private static final Logger LOG = LoggerFactory.getLogger(EventIpcManagerDefaultImpl.class);
 
+    /**
+     * Use the {@link RingBufferEventBroadcaster} to dispatch events to the listeners
+     * instead of a thread pool per listener.
+     */
+    public static final String RING_BUFFER_SYS_PROP = "org.opennms.eventd.ringBufferBroadcaster";
+
     public static class DiscardTrapsAndSyslogEvents implements RejectedExecutionHandler {
         /**
          * Creates a <tt>DiscardOldestPolicy</tt> for the given executor.
@@ -128,6 +135,14 @@ public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroa
 
     private final MetricRegistry m_registry;
 
+    private boolean m_useRingBuffer = Boolean.getBoolean(RING_BUFFER_SYS_PROP);
+
+    /**
+     * Set when the ring buffer broadcaster is in use, in which case it
+     * handles all of the listener registrations.
+     */
+    private RingBufferEventBroadcaster m_ringBufferBroadcaster;
+
     /**
      * A thread dedicated to each listener. The events meant for each listener
      * is added to an execution queue when the 'sendNow()' is called. The
@@ -296,6 +311,11 @@ public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroa
             LOG.debug("Event ID {} to be broadcasted: {}", event.getDbid(), event.getUei());
         }
 
+        if (m_ringBufferBroadcaster != null) {
+            m_ringBufferBroadcaster.broadcast(event, synchronous);
+            return;
+        }
+
         if (LOG.isDebugEnabled() && m_listeners.isEmpty()) {
             LOG.debug("No listeners interested in all events");
         }
@@ -367,6 +387,11 @@ public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroa
     public synchronized void addEventListener(EventListener listener) {
         Assert.notNull(listener, "listener argument cannot be null");
 
+        if (m_ringBufferBroadcaster != null) {
+            m_ringBufferBroadcaster.addEventListener(listener);
+            return;
+        }
+
         createListenerThread(listener);
 
         addMatchAllForListener(listener);
@@ -396,6 +421,11 @@ public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroa
             LOG.debug("Adding event listener {} for UEIs: {}", listener.getName(), StringUtils.collectionToCommaDelimitedString(ueis));
         }
 
+        if (m_ringBufferBroadcaster != null) {
+            m_ringBufferBroadcaster.addEventListener(listener, ueis);
+            return;
+        }
+
         createListenerThread(listener);
 
         for (String uei : ueis) {
@@ -435,6 +465,11 @@ public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroa
         Assert.notNull(listener, "listener argument cannot be null");
         Assert.notNull(ueis, "ueilist argument cannot be null");
 
+        if (m_ringBufferBroadcaster != null) {
+            m_ringBufferBroadcaster.removeEventListener(listener, ueis);
+            return;
+        }
+
         for (String uei : ueis) {
             removeUeiForListener(uei, listener);
         }
@@ -456,6 +491,11 @@ public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroa
         Assert.notNull(listener, "listener argument cannot be null");
         Assert.notNull(uei, "uei argument cannot be null");
 
+        if (m_ringBufferBroadcaster != null) {
+            m_ringBufferBroadcaster.removeEventListener(listener, Collections.singletonList(uei));
+            return;
+        }
+
         removeUeiForListener(uei, listener);
     }
 
@@ -470,7 +510,12 @@ public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroa
     @Override
     public synchronized void removeEventListener(EventListener listener) {
         Assert.notNull(listener, "listener argument cannot be null");
-        
+
+        if (m_ringBufferBroadcaster != null) {
+            m_ringBufferBroadcaster.removeEventListener(listener);
+            return;
+        }
+
         removeMatchAllForListener(listener);
 
         for (String uei : m_ueiListeners.keySet()) {
@@ -546,6 +591,11 @@ public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroa
         Assert.state(m_eventHandler != null, "eventHandler not set");
         Assert.state(m_handlerPoolSize != null, "handlerPoolSize not set");
 
+        if (m_useRingBuffer) {
+            LOG.info("Using ring buffers to broadcast events to the listeners.");
+            m_ringBufferBroadcaster = new RingBufferEventBroadcaster(m_registry, m_handlerQueueLength);
+        }
+
         final LinkedBlockingQueue<Runnable> workQueue = m_handlerQueueLength == null ? new LinkedBlockingQueue<>() : new LinkedBlockingQueue<>(m_handlerQueueLength);
         m_registry.remove("eventlogs.queued");
         m_registry.register("eventlogs.queued", new Gauge<Integer>() {
@@ -577,6 +627,32 @@ public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroa
         });
     }
 
+    @Override
+    public void destroy() {
+        if (m_ringBufferBroadcaster != null) {
+            m_ringBufferBroadcaster.stop();
+        }
+    }
+
+    /**
+     * <p>isUseRingBuffer</p>
+     *
+     * @return true if the events are broadcast using the {@link RingBufferEventBroadcaster}
+     */
+    public boolean isUseRingBuffer() {
+        return m_useRingBuffer;
+    }
+
+    /**
+     * <p>setUseRingBuffer</p>
+     *
+     * @param useRingBuffer use the {@link RingBufferEventBroadcaster} to broadcast events
+     */
+    public void setUseRingBuffer(boolean useRingBuffer) {
+        Assert.state(m_eventHandlerPool == null, "useRingBuffer property cannot be set after afterPropertiesSet() is called");
+        m_useRingBuffer = useRingBuffer;
+    }
+
     /**
      * <p>getEventHandler</p>
      *
@@ -636,6 +712,9 @@ public class EventIpcManagerDefaultImpl implements EventIpcManager, EventIpcBroa
 
     @Override
     public boolean hasEventListener(final String uei) {
+        if (m_ringBufferBroadcaster != null) {
+            return m_ringBufferBroadcaster.hasEventListener(uei);
+        }
         if (this.m_ueiListeners.containsKey(uei)) {
             return this.m_ueiListeners.get(uei).size() > 0;
         } else {
@@ -0,0 +1,538 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.eventd;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.opennms.core.concurrent.LogPreservingThreadFactory;
+import org.opennms.core.logging.Logging;
+import org.opennms.netmgt.events.api.EventListener;
+import org.opennms.netmgt.events.api.ThreadAwareEventListener;
+import org.opennms.netmgt.xml.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Broadcasts events to the registered listeners using a pre-allocated,
+ * bounded ring buffer per listener instead of a {@link java.util.concurrent.ThreadPoolExecutor}.
+ *
+ * The routing table that maps UEIs to listeners is rebuilt on every registration change
+ * and published as an immutable snapshot, so that broadcasting never takes a lock.
+ * The listeners resolved for a given UEI, including the partial "directory" matches,
+ * are memoized in the snapshot.
+ *
+ * Unlike the thread pools, which are unbounded unless a queue length is configured,
+ * the ring buffers are always bounded, and hold {@link #DEFAULT_CAPACITY} events
+ * when no queue length is configured. When the ring buffer of a listener is full,
+ * the new event is discarded, as done by the thread pools when their queue is full.
+ * The discarded events are counted in the dropped metric.
+ *
+ * The following metrics are published for every listener:
+ * <ul>
+ *   <li>eventlisteners.&lt;name&gt;.queued - the number of events waiting to be processed</li>
+ *   <li>eventlisteners.&lt;name&gt;.dropped - the number of events discarded because the buffer was full</li>
+ *   <li>eventlisteners.&lt;name&gt;.lag - the age in milliseconds of the oldest event waiting to be processed</li>
+ * </ul>
+ */
+public class RingBufferEventBroadcaster {
+    private static final Logger LOG = LoggerFactory.getLogger(RingBufferEventBroadcaster.class);
+
+    /**
+     * Size of the ring buffers used when no queue length is configured.
+     */
+    public static final int DEFAULT_CAPACITY = 16384;
+
+    /**
+     * Upper bound on the number of UEIs for which the resolved listeners are memoized.
+     */
+    private static final int MAX_RESOLVED_UEIS = 10000;
+
+    private static final ListenerRing[] NO_RINGS = new ListenerRing[0];
+
+    private final MetricRegistry m_registry;
+
+    private final int m_capacity;
+
+    /**
+     * Registration state, only accessed while holding the lock on this object.
+     */
+    private final Map<String, ListenerRing> m_rings = new HashMap<>();
+    private final Set<EventListener> m_listeners = new LinkedHashSet<>();
+    private final Map<String, Set<EventListener>> m_ueiListeners = new LinkedHashMap<>();
+
+    /**
+     * Immutable routing table used when broadcasting.
+     */
+    private volatile Routes m_routes = new Routes(NO_RINGS, Collections.emptyMap());
+
+    public RingBufferEventBroadcaster(MetricRegistry registry, Integer capacity) {
+        m_registry = Objects.requireNonNull(registry);
+        m_capacity = capacity == null || capacity <= 0 ? DEFAULT_CAPACITY : capacity;
+    }
+
+    /**
+     * Queues the event to all of the listeners interested in it.
+     *
+     * @param event the event to broadcast
+     * @param synchronous when true, wait until all of the listeners have processed the event
+     */
+    public void broadcast(Event event, boolean synchronous) {
+        final Routes routes = m_routes;
+        final List<CompletableFuture<Void>> listenerFutures = synchronous ? new ArrayList<>() : null;
+
+        // Send to listeners interested in receiving all events
+        for (ListenerRing ring : routes.all) {
+            queue(ring, event, listenerFutures);
+        }
+
+        if (event.getUei() == null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Event ID {} does not have a UEI, so skipping UEI matching", event.getDbid());
+            }
+        } else {
+            final ListenerRing[] rings = routes.resolve(event.getUei());
+            if (rings.length == 0 && LOG.isDebugEnabled()) {
+                LOG.debug("No listener interested in event ID {}: {}", event.getDbid(), event.getUei());
+            }
+            for (ListenerRing ring : rings) {
+                queue(ring, event, listenerFutures);
+            }
+        }
+
+        if (synchronous) {
+            // Wait for all of the listeners to complete before returning
+            CompletableFuture.allOf(listenerFutures.toArray(new CompletableFuture[0])).join();
+        }
+    }
+
+    private static void queue(ListenerRing ring, Event event, List<CompletableFuture<Void>> listenerFutures) {
+        if (listenerFutures == null) {
+            ring.offer(event, null);
+        } else {
+            final CompletableFuture<Void> future = new CompletableFuture<>();
+            ring.offer(event, future);
+            listenerFutures.add(future);
+        }
+    }
+
+    public synchronized void addEventListener(EventListener listener) {
+        createRing(listener);
+        m_listeners.add(listener);
+
+        // Since we have a match-all listener, remove any specific UEIs
+        for (Set<EventListener> listeners : m_ueiListeners.values()) {
+            listeners.remove(listener);
+        }
+        rebuildRoutes();
+    }
+
+    public synchronized void addEventListener(EventListener listener, Collection<String> ueis) {
+        createRing(listener);
+        for (String uei : ueis) {
+            m_ueiListeners.computeIfAbsent(uei, k -> new LinkedHashSet<>()).add(listener);
+        }
+
+        // Since we have a UEI-specific listener, remove the match-all listener
+        m_listeners.remove(listener);
+        rebuildRoutes();
+    }
+
+    public synchronized void removeEventListener(EventListener listener, Collection<String> ueis) {
+        for (String uei : ueis) {
+            final Set<EventListener> listeners = m_ueiListeners.get(uei);
+            if (listeners != null) {
+                listeners.remove(listener);
+            }
+        }
+        rebuildRoutes();
+    }
+
+    public synchronized void removeEventListener(EventListener listener) {
+        m_listeners.remove(listener);
+        for (Set<EventListener> listeners : m_ueiListeners.values()) {
+            listeners.remove(listener);
+        }
+        rebuildRoutes();
+
+        // Stop and remove the ring for this listener
+        final ListenerRing ring = m_rings.remove(listener.getName());
+        if (ring != null) {
+            ring.stop();
+            ring.unregisterMetrics();
+        }
+    }
+
+    public boolean hasEventListener(String uei) {
+        return m_routes.byUei.containsKey(uei);
+    }
+
+    /**
+     * Stops all of the listener threads.
+     */
+    public synchronized void stop() {
+        m_listeners.clear();
+        m_ueiListeners.clear();
+        rebuildRoutes();
+        for (ListenerRing ring : m_rings.values()) {
+            ring.stop();
+            ring.unregisterMetrics();
+        }
+        m_rings.clear();
+    }
+
+    private void createRing(EventListener listener) {
+        if (m_rings.containsKey(listener.getName())) {
+            return;
+        }
+        final ListenerRing ring = new ListenerRing(listener, m_capacity);
+        ring.registerMetrics(m_registry);
+        ring.start();
+        m_rings.put(listener.getName(), ring);
+    }
+
+    private void rebuildRoutes() {
+        final ListenerRing[] all = toRings(m_listeners);
+        final Map<String, ListenerRing[]> byUei = new HashMap<>();
+        for (Map.Entry<String, Set<EventListener>> entry : m_ueiListeners.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                byUei.put(entry.getKey(), toRings(entry.getValue()));
+            }
+        }
+        m_routes = new Routes(all, byUei);
+    }
+
+    private ListenerRing[] toRings(Collection<EventListener> listeners) {
+        final List<ListenerRing> rings = new ArrayList<>(listeners.size());
+        for (EventListener listener : listeners) {
+            final ListenerRing ring = m_rings.get(listener.getName());
+            if (ring != null) {
+                rings.add(ring);
+            }
+        }
+        return rings.toArray(NO_RINGS);
+    }
+
+    /**
+     * Immutable snapshot of the routing table.
+     */
+    private static class Routes {
+        private final ListenerRing[] all;
+        private final Map<String, ListenerRing[]> byUei;
+        private final Map<String, ListenerRing[]> resolved = new ConcurrentHashMap<>();
+
+        private Routes(ListenerRing[] all, Map<String, ListenerRing[]> byUei) {
+            this.all = all;
+            this.byUei = byUei;
+        }
+
+        private ListenerRing[] resolve(String uei) {
+            ListenerRing[] rings = resolved.get(uei);
+            if (rings != null) {
+                return rings;
+            }
+
+            /*
+             * Find the listeners who are interested in this event UEI.
+             * Loop to attempt partial wild card "directory" matches.
+             */
+            final Set<ListenerRing> matched = new LinkedHashSet<>();
+            for (String prefix = uei; prefix.length() > 0; ) {
+                final ListenerRing[] matches = byUei.get(prefix);
+                if (matches != null) {
+                    Collections.addAll(matched, matches);
+                }
+
+                // Try wild cards: Find / before last character
+                int i = prefix.lastIndexOf("/", prefix.length() - 2);
+                if (i > 0) {
+                    // Split at "/", including the /
+                    prefix = prefix.substring(0, i + 1);
+                } else {
+                    // No more wild cards to match
+                    break;
+                }
+            }
+
+            rings = matched.toArray(NO_RINGS);
+            if (resolved.size() < MAX_RESOLVED_UEIS) {
+                resolved.put(uei, rings);
+            }
+            return rings;
+        }
+    }
+
+    /**
+     * A bounded multi-producer, multi-consumer ring buffer dedicated to a single listener,
+     * along with the threads that consume it.
+     *
+     * The slots are pre-allocated and claimed using a per-slot sequence number
+     * (see Dmitry Vyukov's bounded MPMC queue), so that neither producers
+     * nor consumers ever block on a lock.
+     */
+    private static class ListenerRing {
+        private static final int SPINS_BEFORE_PARKING = 100;
+        private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+        private final EventListener m_listener;
+        private final int m_capacity;
+        private final AtomicLongArray m_sequences;
+        private final Event[] m_events;
+        private final CompletableFuture<?>[] m_futures;
+        private final long[] m_enqueuedAt;
+        private final AtomicLong m_head = new AtomicLong();
+        private final AtomicLong m_tail = new AtomicLong();
+
+        private final Thread[] m_threads;
+        private final AtomicInteger m_parked = new AtomicInteger();
+        private volatile boolean m_running = true;
+
+        private final Counter m_dropped = new Counter();
+        private String[] m_metricNames = new String[0];
+        private MetricRegistry m_registry;
+
+        private ListenerRing(EventListener listener, int capacity) {
+            m_listener = listener;
+            m_capacity = capacity;
+            m_sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                m_sequences.set(i, i);
+            }
+            m_events = new Event[capacity];
+            m_futures = new CompletableFuture<?>[capacity];
+            m_enqueuedAt = new long[capacity];
+
+            int numThreads = 1;
+            if (m_listener instanceof ThreadAwareEventListener) {
+                numThreads = ((ThreadAwareEventListener)m_listener).getNumThreads();
+            }
+
+            // This ThreadFactory will ensure that the log prefix of the calling thread
+            // is used for all events that this listener handles.
+            final ThreadFactory threadFactory = new LogPreservingThreadFactory(m_listener.getName(), numThreads);
+            m_threads = new Thread[numThreads];
+            for (int i = 0; i < numThreads; i++) {
+                m_threads[i] = threadFactory.newThread(this::consume);
+            }
+        }
+
+        private void start() {
+            for (Thread thread : m_threads) {
+                thread.start();
+            }
+        }
+
+        private void stop() {
+            m_running = false;
+            for (Thread thread : m_threads) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void offer(Event event, CompletableFuture<Void> future) {
+            if (!tryOffer(event, future)) {
+                m_dropped.inc();
+                LOG.warn("Listener {}'s event queue is full, discarding event", m_listener.getName());
+                // Don't leave synchronous callers waiting on a discarded event
+                if (future != null) {
+                    future.complete(null);
+                }
+                return;
+            }
+
+            if (m_parked.get() > 0) {
+                for (Thread thread : m_threads) {
+                    LockSupport.unpark(thread);
+                }
+            }
+        }
+
+        private boolean tryOffer(Event event, CompletableFuture<Void> future) {
+            long pos = m_tail.get();
+            for (;;) {
+                final int index = (int)(pos % m_capacity);
+                final long dif = m_sequences.get(index) - pos;
+                if (dif == 0) {
+                    if (m_tail.compareAndSet(pos, pos + 1)) {
+                        m_events[index] = event;
+                        m_futures[index] = future;
+                        m_enqueuedAt[index] = System.nanoTime();
+                        m_sequences.lazySet(index, pos + 1);
+                        return true;
+                    }
+                    pos = m_tail.get();
+                } else if (dif < 0) {
+                    // Full
+                    return false;
+                } else {
+                    pos = m_tail.get();
+                }
+            }
+        }
+
+        /**
+         * Claims the slot at the head of the buffer.
+         *
+         * @return the position of the claimed slot, or -1 if the buffer is empty
+         */
+        private long claim() {
+            long pos = m_head.get();
+            for (;;) {
+                final int index = (int)(pos % m_capacity);
+                final long dif = m_sequences.get(index) - (pos + 1);
+                if (dif == 0) {
+                    if (m_head.compareAndSet(pos, pos + 1)) {
+                        return pos;
+                    }
+                    pos = m_head.get();
+                } else if (dif < 0) {
+                    // Empty
+                    return -1;
+                } else {
+                    pos = m_head.get();
+                }
+            }
+        }
+
+        private void release(int index, long pos) {
+            m_events[index] = null;
+            m_futures[index] = null;
+            m_sequences.lazySet(index, pos + m_capacity);
+        }
+
+        private void consume() {
+            int idle = 0;
+            while (m_running || size() > 0) {
+                final long pos = claim();
+                if (pos < 0) {
+                    idle = idle(idle);
+                    continue;
+                }
+                idle = 0;
+
+                final int index = (int)(pos % m_capacity);
+                final Event event = m_events[index];
+                final CompletableFuture<?> future = m_futures[index];
+                release(index, pos);
+
+                dispatch(event);
+                if (future != null) {
+                    future.complete(null);
+                }
+            }
+        }
+
+        private int idle(int idle) {
+            if (idle < SPINS_BEFORE_PARKING) {
+                Thread.yield();
+                return idle + 1;
+            }
+            m_parked.incrementAndGet();
+            try {
+                // Check again after advertising that we're parked to avoid missing a wake-up
+                if (m_running && size() == 0) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+            } finally {
+                m_parked.decrementAndGet();
+            }
+            return idle;
+        }
+
+        private void dispatch(Event event) {
+            try {
+                if (LOG.isDebugEnabled()) LOG.debug("run: calling onEvent on {} for event {}", m_listener.getName(), event.toStringSimple());
+
+                // Make sure we restore our log4j logging prefix after onEvent is called
+                Map<String,String> mdc = Logging.getCopyOfContextMap();
+                try {
+                    m_listener.onEvent(event);
+                } finally {
+                    Logging.setContextMap(mdc);
+                }
+            } catch (Throwable t) {
+                LOG.warn("run: an unexpected error occured during ListenerThread {}", m_listener.getName(), t);
+            }
+        }
+
+        private long size() {
+            return Math.max(0, m_tail.get() - m_head.get());
+        }
+
+        /**
+         * @return the age of the oldest event in the buffer, in milliseconds
+         */
+        private long lag() {
+            final long pos = m_head.get();
+            final int index = (int)(pos % m_capacity);
+            if (m_sequences.get(index) != pos + 1) {
+                return 0;
+            }
+            return TimeUnit.NANOSECONDS.toMillis(Math.max(0, System.nanoTime() - m_enqueuedAt[index]));
+        }
+
+        private void registerMetrics(MetricRegistry registry) {
+            m_registry = registry;
+            final String queued = MetricRegistry.name("eventlisteners", m_listener.getName(), "queued");
+            final String dropped = MetricRegistry.name("eventlisteners", m_listener.getName(), "dropped");
+            final String lag = MetricRegistry.name("eventlisteners", m_listener.getName(), "lag");
+            m_metricNames = new String[] { queued, dropped, lag };
+            unregisterMetrics();
+            registry.register(queued, (Gauge<Long>) this::size);
+            registry.register(dropped, m_dropped);
+            registry.register(lag, (Gauge<Long>) this::lag);
+        }
+
+        private void unregisterMetrics() {
+            for (String name : m_metricNames) {
+                m_registry.remove(name);
+            }
+        }
+    }
+}
@@ -32,6 +32,11 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
@@ -56,6 +61,8 @@ import org.opennms.netmgt.xml.event.Log;
 import org.opennms.netmgt.xml.event.Operaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DeadlockLoserDataAccessException;
 import org.springframework.transaction.TransactionStatus;
@@ -63,6 +70,8 @@ import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.util.Assert;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.codahale.metrics.Timer.Context;
@@ -86,12 +95,28 @@ import com.codahale.metrics.Timer.Context;
  * @see org.opennms.netmgt.events.api.EventDatabaseConstants#DB_ATTRIB_DELIM
  * @see org.opennms.netmgt.events.api.EventDatabaseConstants#NAME_VAL_DELIM
  *
+ * When the batch size is greater than one, the events from concurrent callers
+ * are queued and written by a single thread in micro-batches, bounded by the batch
+ * size and the batch interval, using JDBC batch inserts. Callers still block until
+ * their events have been written, so that the database id of every event is set
+ * before the event is handed to the next processor.
+ *
  * @author <A HREF="mailto:sowmya@opennms.org">Sowmya Nataraj </A>
  * @author <A HREF="http://www.opennms.org">OpenNMS.org </A>
  */
-public class HibernateEventWriter implements EventWriter {
+public class HibernateEventWriter implements EventWriter, InitializingBean, DisposableBean {
     private static final Logger LOG = LoggerFactory.getLogger(HibernateEventWriter.class);
 
+    /**
+     * Maximum number of events written per batch, batching is disabled when <= 1.
+     */
+    public static final String BATCH_SIZE_SYS_PROP = "org.opennms.eventd.writer.batchSize";
+
+    /**
+     * Maximum amount of time, in milliseconds, to wait for a batch to fill up.
+     */
+    public static final String BATCH_INTERVAL_SYS_PROP = "org.opennms.eventd.writer.batchIntervalMs";
+
     public static final String LOG_MSG_DEST_DO_NOT_PERSIST = "donotpersist";
     public static final String LOG_MSG_DEST_SUPRRESS = "suppress";
     public static final String LOG_MSG_DEST_LOG_AND_DISPLAY = "logndisplay";
@@ -121,8 +146,89 @@ public class HibernateEventWriter implements EventWriter {
 
     private final Timer writeTimer;
 
+    private final Timer batchWriteTimer;
+
+    private final Histogram batchSizes;
+
+    private final Timer batchLatencyTimer;
+
+    private int m_batchSize = Integer.getInteger(BATCH_SIZE_SYS_PROP, 1);
+
+    private long m_batchIntervalMs = Long.getLong(BATCH_INTERVAL_SYS_PROP, 5L);
+
+    private final BlockingQueue<PendingWrite> m_pendingWrites = new LinkedBlockingQueue<>();
+
+    private Thread m_batchWriter;
+
+    private volatile boolean m_running = false;
+
     public HibernateEventWriter(MetricRegistry registry) {
         writeTimer = Objects.requireNonNull(registry).timer("eventlogs.process.write");
+        batchWriteTimer = registry.timer("eventlogs.process.write.batch");
+        batchSizes = registry.histogram("eventlogs.process.write.batch.sizes");
+        batchLatencyTimer = registry.timer("eventlogs.process.write.batch.latency");
+        registry.register("eventlogs.process.write.batch.pending", (Gauge<Integer>) m_pendingWrites::size);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (m_batchSize > 1) {
+            LOG.info("Writing events in batches of up to {} events every {}ms.", m_batchSize, m_batchIntervalMs);
+            m_running = true;
+            m_batchWriter = new Thread(this::writeBatches, "Eventd-BatchWriter");
+            m_batchWriter.setDaemon(true);
+            m_batchWriter.start();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        m_running = false;
+        if (m_batchWriter != null) {
+            m_batchWriter.interrupt();
+            m_batchWriter.join();
+            m_batchWriter = null;
+        }
+        // Don't leave any callers that raced with the shutdown waiting
+        PendingWrite pendingWrite;
+        while ((pendingWrite = m_pendingWrites.poll()) != null) {
+            pendingWrite.future.completeExceptionally(new EventProcessorException("The event writer was stopped before the events were written."));
+        }
+    }
+
+    public int getBatchSize() {
+        return m_batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        m_batchSize = batchSize;
+    }
+
+    public long getBatchIntervalMs() {
+        return m_batchIntervalMs;
+    }
+
+    public void setBatchIntervalMs(long batchIntervalMs) {
+        m_batchIntervalMs = batchIntervalMs;
+    }
+
+    protected int getPendingWrites() {
+        return m_pendingWrites.size();
+    }
+
+    /**
+     * A log waiting to be written by the batch writer.
+     */
+    private static class PendingWrite {
+        private final Header header;
+        private final List<Event> events;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingWrite(Header header, List<Event> events) {
+            this.header = header;
+            this.events = events;
+        }
     }
 
     /**
@@ -179,28 +285,144 @@ public class HibernateEventWriter implements EventWriter {
                 return;
             }
 
+            if (m_running) {
+                enqueueAndWait(eventLog.getHeader(), eventsToPersist);
+                return;
+            }
+
             // Time the transaction and insertions
             try (Context context = writeTimer.time()) {
-                final AtomicReference<EventProcessorException> exception = new AtomicReference<>();
-
-                m_transactionManager.execute(new TransactionCallbackWithoutResult() {
-                    @Override
-                    protected void doInTransactionWithoutResult(TransactionStatus status) {
-                        for (Event eachEvent : eventsToPersist) {
-                            try {
-                                process(eventLog.getHeader(), eachEvent);
-                            } catch (EventProcessorException e) {
-                                exception.set(e);
-                                return;
-                            }
+                writeInTransaction(eventLog.getHeader(), eventsToPersist);
+            }
+        }
+    }
+
+    private void enqueueAndWait(final Header header, final List<Event> events) throws EventProcessorException {
+        final PendingWrite pendingWrite = new PendingWrite(header, events);
+        m_pendingWrites.add(pendingWrite);
+        try {
+            pendingWrite.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventProcessorException("Interrupted while waiting for events to be written.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EventProcessorException) {
+                throw (EventProcessorException)e.getCause();
+            }
+            throw new EventProcessorException("Unexpected exception while storing events.", e.getCause());
+        }
+    }
+
+    /**
+     * Drains the pending writes in batches until stopped.
+     */
+    private void writeBatches() {
+        final List<PendingWrite> batch = new ArrayList<>();
+        while (m_running || !m_pendingWrites.isEmpty()) {
+            try {
+                final PendingWrite first = m_pendingWrites.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                int numEvents = first.events.size();
+
+                // Wait for more events until the batch is full or the interval elapsed
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(m_batchIntervalMs);
+                while (numEvents < m_batchSize) {
+                    final long remaining = deadline - System.nanoTime();
+                    final PendingWrite next = remaining > 0 ? m_pendingWrites.poll(remaining, TimeUnit.NANOSECONDS) : m_pendingWrites.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    numEvents += next.events.size();
+                }
+
+                writeBatch(batch, numEvents);
+            } catch (InterruptedException e) {
+                // Drain whatever is left before exiting
+                Thread.interrupted();
+                m_pendingWrites.drainTo(batch);
+                if (!batch.isEmpty()) {
+                    writeBatch(batch, batch.stream().mapToInt(p -> p.events.size()).sum());
+                }
+                if (!m_running) {
+                    break;
+                }
+            } catch (Throwable t) {
+                LOG.error("Unexpected error while writing a batch of events.", t);
+                batch.forEach(p -> p.future.completeExceptionally(t));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(final List<PendingWrite> batch, final int numEvents) {
+        batchSizes.update(numEvents);
+        try (Context context = batchWriteTimer.time()) {
+            m_transactionManager.execute(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    final List<OnmsEvent> ovents = new ArrayList<>(numEvents);
+                    for (final PendingWrite pendingWrite : batch) {
+                        for (final Event event : pendingWrite.events) {
+                            LOG.debug("HibernateEventWriter: batching {}, nodeid: {}, ipaddr: {}, serviceid: {}, time: {}", event.getUei(), event.getNodeid(), event.getInterface(), event.getService(), event.getTime());
+                            ovents.add(createOnmsEvent(pendingWrite.header, event));
+                        }
+                    }
+                    eventDao.saveInBatch(ovents);
+
+                    // Update the events with the database IDs of the events stored in the database
+                    int i = 0;
+                    for (final PendingWrite pendingWrite : batch) {
+                        for (final Event event : pendingWrite.events) {
+                            event.setDbid(ovents.get(i++).getId());
                         }
                     }
-                });
+                }
+            });
+        } catch (Throwable t) {
+            // Isolate the failure by falling back to writing the logs one by one
+            LOG.warn("Failed to write a batch of {} events, writing them individually.", numEvents, t);
+            for (final PendingWrite pendingWrite : batch) {
+                try {
+                    writeInTransaction(pendingWrite.header, pendingWrite.events);
+                    complete(pendingWrite);
+                } catch (Throwable e) {
+                    pendingWrite.future.completeExceptionally(e);
+                }
+            }
+            return;
+        }
+        batch.forEach(this::complete);
+    }
 
-                if (exception.get() != null) {
-                    throw exception.get();
+    private void complete(final PendingWrite pendingWrite) {
+        batchLatencyTimer.update(System.nanoTime() - pendingWrite.enqueuedAt, TimeUnit.NANOSECONDS);
+        pendingWrite.future.complete(null);
+    }
+
+    private void writeInTransaction(final Header header, final List<Event> events) throws EventProcessorException {
+        final AtomicReference<EventProcessorException> exception = new AtomicReference<>();
+
+        m_transactionManager.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                for (Event eachEvent : events) {
+                    try {
+                        process(header, eachEvent);
+                    } catch (EventProcessorException e) {
+                        exception.set(e);
+                        return;
+                    }
                 }
             }
+        });
+
+        if (exception.get() != null) {
+            throw exception.get();
         }
     }
 
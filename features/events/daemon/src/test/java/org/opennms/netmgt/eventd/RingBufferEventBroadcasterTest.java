@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.eventd;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.netmgt.events.api.EventListener;
+import org.opennms.netmgt.model.events.EventBuilder;
+import org.opennms.netmgt.xml.event.Event;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+public class RingBufferEventBroadcasterTest {
+
+    private final MetricRegistry m_registry = new MetricRegistry();
+
+    private EventIpcManagerDefaultImpl m_manager;
+
+    @Before
+    public void setUp() {
+        m_manager = new EventIpcManagerDefaultImpl(m_registry);
+        m_manager.setEventHandler(new DefaultEventHandlerImpl(m_registry));
+        m_manager.setHandlerPoolSize(1);
+        m_manager.setHandlerQueueLength(5);
+        m_manager.setUseRingBuffer(true);
+        m_manager.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        m_manager.destroy();
+    }
+
+    @Test
+    public void canRouteByUeiAndPartialUei() {
+        final CollectingListener all = new CollectingListener("all");
+        final CollectingListener foo = new CollectingListener("foo");
+        final CollectingListener prefix = new CollectingListener("prefix");
+        m_manager.addEventListener(all);
+        m_manager.addEventListener(foo, "uei.opennms.org/foo");
+        m_manager.addEventListener(prefix, Arrays.asList("uei.opennms.org/", "uei.opennms.org/foo"));
+
+        assertTrue(m_manager.hasEventListener("uei.opennms.org/foo"));
+        assertFalse(m_manager.hasEventListener("uei.opennms.org/bar"));
+
+        m_manager.broadcastNow(new EventBuilder("uei.opennms.org/foo", "test").getEvent(), true);
+        m_manager.broadcastNow(new EventBuilder("uei.opennms.org/bar", "test").getEvent(), true);
+        m_manager.broadcastNow(new EventBuilder("uei.example.org/baz", "test").getEvent(), true);
+
+        assertEquals(3, all.events.size());
+        assertEquals(1, foo.events.size());
+        // Matched both by UEI and partial UEI, but only delivered once
+        assertEquals(2, prefix.events.size());
+
+        // Changes to the registrations are visible to the next broadcast
+        m_manager.removeEventListener(foo, "uei.opennms.org/foo");
+        m_manager.removeEventListener(all);
+        m_manager.broadcastNow(new EventBuilder("uei.opennms.org/foo", "test").getEvent(), true);
+        assertEquals(3, all.events.size());
+        assertEquals(1, foo.events.size());
+        assertEquals(3, prefix.events.size());
+    }
+
+    @Test
+    public void canDiscardNewEventsWhenFull() throws InterruptedException {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> received = new CopyOnWriteArrayList<>();
+        final EventListener slowListener = new EventListener() {
+            @Override
+            public String getName() {
+                return "slow";
+            }
+
+            @Override
+            public void onEvent(Event event) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                }
+                received.add(event.getUei());
+            }
+        };
+        m_manager.addEventListener(slowListener);
+
+        // Wait for the listener to be busy with the first event
+        m_manager.broadcastNow(new EventBuilder("uei.opennms.org/0", "test").getEvent(), false);
+        blocked.await();
+
+        // Fill the buffer, and overflow it by 4 events
+        for (int i = 1; i < 10; i++) {
+            m_manager.broadcastNow(new EventBuilder("uei.opennms.org/" + i, "test").getEvent(), false);
+        }
+        assertEquals(5L, gauge("eventlisteners.slow.queued").getValue().longValue());
+        assertEquals(4L, ((Counter)m_registry.getMetrics().get("eventlisteners.slow.dropped")).getCount());
+
+        // Synchronous callers are not left waiting on discarded events
+        m_manager.broadcastNow(new EventBuilder("uei.opennms.org/10", "test").getEvent(), true);
+        assertEquals(5L, ((Counter)m_registry.getMetrics().get("eventlisteners.slow.dropped")).getCount());
+
+        // The new events were discarded, like the thread pools do
+        release.countDown();
+        await().atMost(10, TimeUnit.SECONDS).until(received::size, is(equalTo(6)));
+        assertEquals(Arrays.asList("uei.opennms.org/0", "uei.opennms.org/1", "uei.opennms.org/2",
+                "uei.opennms.org/3", "uei.opennms.org/4", "uei.opennms.org/5"), received);
+        assertEquals(0L, gauge("eventlisteners.slow.queued").getValue().longValue());
+
+        // The metrics are removed along with the listener
+        m_manager.removeEventListener(slowListener);
+        assertFalse(m_registry.getMetrics().containsKey("eventlisteners.slow.queued"));
+    }
+
+    @Test
+    public void canBroadcastFromManyThreads() throws InterruptedException {
+        final AtomicInteger counter = new AtomicInteger();
+        m_manager.addEventListener(new EventListener() {
+            @Override
+            public String getName() {
+                return "counter";
+            }
+
+            @Override
+            public void onEvent(Event event) {
+                counter.incrementAndGet();
+            }
+        }, "uei.opennms.org/");
+
+        final int numThreads = 4;
+        final int numEvents = 1000;
+        final Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(() -> {
+                for (int k = 0; k < numEvents; k++) {
+                    m_manager.broadcastNow(new EventBuilder("uei.opennms.org/foo", "test").getEvent(), true);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(numThreads * numEvents, counter.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Gauge<Long> gauge(String name) {
+        return (Gauge<Long>)m_registry.getMetrics().get(name);
+    }
+
+    private static class CollectingListener implements EventListener {
+        private final String name;
+        private final List<Event> events = new CopyOnWriteArrayList<>();
+
+        private CollectingListener(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void onEvent(Event e) {
+            events.add(e);
+        }
+    }
+}
@@ -28,6 +28,7 @@
 
 package org.opennms.netmgt.eventd.processor;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -35,6 +36,12 @@ import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.opennms.netmgt.events.api.EventProcessorException;
@@ -116,4 +123,36 @@ public class HibernateEventWriterTest {
         eventWriter.process(log);
         verify(transactionManager, times(1)).execute(any());
     }
+
+    /**
+     * Verifies that logs from concurrent callers are grouped into a
+     * single transaction when batching is enabled.
+     */
+    @Test
+    public void testBatchedTransactions() throws Exception {
+        eventWriter.setBatchSize(10);
+        eventWriter.setBatchIntervalMs(5000);
+        eventWriter.afterPropertiesSet();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(executor.submit(() -> {
+                    EventBuilder bldr = new EventBuilder("testUei", "testSource");
+                    bldr.setLogDest(HibernateEventWriter.LOG_MSG_DEST_LOG_AND_DISPLAY);
+                    eventWriter.process(bldr.getLog());
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            verify(transactionManager, times(1)).execute(any());
+            assertEquals(0, eventWriter.getPendingWrites());
+        } finally {
+            executor.shutdown();
+            eventWriter.destroy();
+        }
+    }
 }
@@ -37,7 +37,6 @@ import java.util.EmptyStackException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Stack;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
@@ -84,53 +83,47 @@ public class ParserStageSequenceBuilder {
 	}
 
 	/**
-	 * The state of an individual {@link ParserStage} operation.
+	 * The state of an individual {@link ParserStage} operation. Stages are
+	 * applied one at a time on the parsing thread so a single instance is
+	 * reused per thread, see {@link #STAGE_STATE}.
 	 */
 	private static class ParserStageState {
-		public final ByteBuffer buffer;
+		public ByteBuffer buffer;
 
-		private StringBuilder accumulatedValue = null;
-		private AtomicInteger accumulatedSize = null;
+		private final StringBuilder accumulatedValue = new StringBuilder();
+		private int accumulatedSize = 0;
 
 		// Only used by MatchMonth
 		public RadixTreeNode<CharacterWithValue> currentNode = null; 
 
-		public ParserStageState(ByteBuffer input) {
+		public ParserStageState reset(ByteBuffer input) {
 			buffer = input;
+			accumulatedValue.setLength(0);
+			accumulatedSize = 0;
+			currentNode = null;
+			return this;
 		}
 
 		public void accumulate(char c) {
-			accessAccumulatedValue().append(c);
-			accessAccumulatedSize().incrementAndGet();
+			accumulatedValue.append(c);
+			accumulatedSize++;
 		}
 
 		public int getAccumulatedSize() {
-			return accessAccumulatedSize().get();
-		}
-
-		private final StringBuilder accessAccumulatedValue() {
-			if (accumulatedValue == null) {
-				accumulatedValue = new StringBuilder();
-			}
-			return accumulatedValue;
-		}
-
-		private final AtomicInteger accessAccumulatedSize() {
-			if (accumulatedSize == null) {
-				accumulatedSize = new AtomicInteger();
-			}
 			return accumulatedSize;
 		}
 
 		@Override
 		public String toString() {
 			return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
-				.append("accumulatedValue", accumulatedValue == null ? "null" : accumulatedValue.toString())
-				.append("accumulatedSize", accumulatedSize == null ? 0 : accumulatedSize.get())
+				.append("accumulatedValue", accumulatedSize == 0 ? "null" : accumulatedValue.toString())
+				.append("accumulatedSize", accumulatedSize)
 				.toString();
 		}
 	}
 
+	private static final ThreadLocal<ParserStageState> STAGE_STATE = ThreadLocal.withInitial(ParserStageState::new);
+
 	final List<ParserStage> m_stages = new ArrayList<>();
 
 	final Stack<Boolean> m_optional = new Stack<>();
@@ -336,16 +329,15 @@ public class ParserStageSequenceBuilder {
 			if (incomingState == null) {
 				return null;
 			} else {
-				LOG.trace("Starting stage: " + this);
+				LOG.trace("Starting stage: {}", this);
 			}
 
 			ParserState state = incomingState.clone();
 
-			// Create a new state for the current ParserStage.
-			// Use ByteBuffer.duplicate() to create a buffer with marks
-			// and positions that only this stage will use.
-//			ParserStageState stageState = new ParserStageState(state.getBuffer().duplicate()); 
-			ParserStageState stageState = new ParserStageState(state.getBuffer()); 
+			// Reset the per-thread state for the current ParserStage. The cloned
+			// ParserState has a duplicate of the buffer with marks and positions
+			// that only this stage will use.
+			ParserStageState stageState = STAGE_STATE.get().reset(state.getStageBuffer());
 
 			while(true) {
 				stageState.buffer.mark();
@@ -376,7 +368,7 @@ public class ParserStageSequenceBuilder {
 						return new ParserState(stageState.buffer, state.message);
 					} else {
 						// Reached end of buffer, match failed
-						LOG.trace("Parse failed due to buffer underflow: " + this);
+						LOG.trace("Parse failed due to buffer underflow: {}", this);
 						return null;
 					}
 				}
@@ -447,11 +439,10 @@ public class ParserStageSequenceBuilder {
 		}
 
 		protected static String getAccumulatedValue(ParserStageState state) {
-			final StringBuilder accumulatedValue = state.accumulatedValue;
-			if (accumulatedValue == null) {
+			if (state.accumulatedSize == 0) {
 				return null;
 			} else {
-				return accumulatedValue.toString();
+				return state.accumulatedValue.toString();
 			}
 		}
 
@@ -62,6 +62,15 @@ public class ParserState implements Cloneable {
 		return buffer.asReadOnlyBuffer();
 	}
 
+	/**
+	 * Access the buffer without wrapping it. This is only safe on a state
+	 * returned by {@link #clone()} since that buffer already has its own
+	 * read-only position and mark.
+	 */
+	ByteBuffer getStageBuffer() {
+		return buffer;
+	}
+
 	@Override
 	public String toString() {
 		return new ToStringBuilder(this)
@@ -71,7 +80,7 @@ public class ParserState implements Cloneable {
 	
 	@Override
 	public ParserState clone() {
-		ParserState retval = new ParserState(buffer.duplicate(), message.clone());
+		ParserState retval = new ParserState(buffer.asReadOnlyBuffer(), message.clone());
 		LOG.trace("ORIGINAL: {}", this);
 		LOG.trace("CLONE   : {}", retval);
 		return retval;
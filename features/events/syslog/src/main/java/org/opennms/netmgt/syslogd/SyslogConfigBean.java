@@ -55,6 +55,7 @@ public final class SyslogConfigBean implements SyslogdConfig {
 	private int m_queueSize;
 	private int m_batchSize;
 	private int m_batchIntervalMs;
+	private int m_batchTargetLatencyMs;
 	private TimeZone timeZone;
 	private boolean includeRawSyslogmessage;
 
@@ -197,6 +198,15 @@ public final class SyslogConfigBean implements SyslogdConfig {
         m_batchIntervalMs = batchIntervalMs;
     }
 
+    @Override
+    public int getBatchTargetLatencyMs() {
+        return m_batchTargetLatencyMs;
+    }
+
+    public void setBatchTargetLatencyMs(int batchTargetLatencyMs) {
+        m_batchTargetLatencyMs = batchTargetLatencyMs;
+    }
+
     @Override
     public void reload() throws IOException {
       // pass
@@ -58,28 +58,29 @@ public class SyslogParser {
     private Boolean m_found = null;
     private Boolean m_matched = null;
     private boolean m_traceEnabled = false;
-    private static final LoadingCache<String,Class<? extends SyslogParser>> PARSER_CLASSES = CacheBuilder.newBuilder().build(
-        new CacheLoader<String,Class<? extends SyslogParser>>() {
-            public Class<? extends SyslogParser> load(String className) {
+    private static final LoadingCache<String,Constructor<? extends SyslogParser>> PARSER_CONSTRUCTORS = CacheBuilder.newBuilder().build(
+        new CacheLoader<String,Constructor<? extends SyslogParser>>() {
+            public Constructor<? extends SyslogParser> load(String className) throws NoSuchMethodException {
+                Class<? extends SyslogParser> parserClass;
                 try {
-                    return Class.forName(className).asSubclass(SyslogParser.class);
+                    parserClass = Class.forName(className).asSubclass(SyslogParser.class);
                 } catch (final Exception e) {
                     LOG.debug("Unable to instantiate Syslog parser class specified in config: {}", className, e);
-                    return CustomSyslogParser.class;
+                    parserClass = CustomSyslogParser.class;
                 }
+                return parserClass.getConstructor(SyslogdConfig.class, ByteBuffer.class);
             }
         }
     );
 
     public static SyslogParser getParserInstance(SyslogdConfig config, ByteBuffer text) throws MessageDiscardedException {
-        Class<? extends SyslogParser> parserClass = PARSER_CLASSES.getUnchecked(config.getParser());
-
         final SyslogParser retval;
         try {
-            Constructor<? extends SyslogParser> m = parserClass.getConstructor(SyslogdConfig.class, ByteBuffer.class);
-            retval = (SyslogParser)m.newInstance(config, text);
+            // Look up the constructor once per class instead of once per message
+            final Constructor<? extends SyslogParser> m = PARSER_CONSTRUCTORS.getUnchecked(config.getParser());
+            retval = m.newInstance(config, text);
         } catch (final Exception ex) {
-            LOG.debug("Unable to get parser for class '{}'", parserClass.getName(), ex);
+            LOG.debug("Unable to get parser for class '{}'", config.getParser(), ex);
             throw new MessageDiscardedException(ex);
         }
 
@@ -28,12 +28,24 @@
 
 package org.opennms.netmgt.syslogd;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Objects;
 
 import org.opennms.core.ipc.sink.api.AggregationPolicy;
 import org.opennms.core.ipc.sink.api.AsyncPolicy;
 import org.opennms.core.ipc.sink.xml.AbstractXmlSinkModule;
+import org.opennms.core.xml.ByteBufferXmlAdapter;
 import org.opennms.netmgt.config.SyslogdConfig;
 import org.opennms.netmgt.dao.api.DistPollerDao;
 import org.opennms.netmgt.syslogd.api.SyslogConnection;
@@ -44,6 +56,13 @@ public class SyslogSinkModule extends AbstractXmlSinkModule<SyslogConnection, Sy
 
     public static final String MODULE_ID = "Syslog";
 
+    /**
+     * Version of the binary encoding, written first so that the encoding can evolve.
+     */
+    private static final int BINARY_VERSION = 1;
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
     private final SyslogdConfig config;
     private final DistPollerDao distPollerDao;
 
@@ -78,6 +97,11 @@ public class SyslogSinkModule extends AbstractXmlSinkModule<SyslogConnection, Sy
                 return config.getBatchIntervalMs();
             }
 
+            @Override
+            public int getTargetLatencyMs() {
+                return config.getBatchTargetLatencyMs();
+            }
+
             @Override
             public Object key(SyslogConnection syslogConnection) {
                 return syslogConnection.getSource();
@@ -128,6 +152,88 @@ public class SyslogSinkModule extends AbstractXmlSinkModule<SyslogConnection, Sy
         return new SyslogConnection(inetSocketAddress, syslogMessageDTO.getBytes());
     }
 
+    /**
+     * Writes the message log as a sequence of fields, instead of XML with Base64 encoded messages.
+     */
+    @Override
+    protected byte[] marshalBinary(SyslogMessageLogDTO messageLog) {
+        final ByteBufferXmlAdapter bufferAdapter = new ByteBufferXmlAdapter();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(BINARY_VERSION);
+            writeString(out, messageLog.getLocation());
+            writeString(out, messageLog.getSystemId());
+            writeBytes(out, messageLog.getSourceAddress() != null ? messageLog.getSourceAddress().getAddress() : null);
+            out.writeInt(messageLog.getSourcePort());
+            out.writeInt(messageLog.getMessages().size());
+            for (final SyslogMessageDTO message : messageLog.getMessages()) {
+                out.writeLong(message.getTimestamp() != null ? message.getTimestamp().getTime() : NO_TIMESTAMP);
+                writeBytes(out, message.getBytes() != null ? bufferAdapter.marshal(message.getBytes()) : null);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    protected SyslogMessageLogDTO unmarshalBinary(byte[] bytes) {
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            final int version = in.readUnsignedByte();
+            if (version != BINARY_VERSION) {
+                throw new IllegalArgumentException("Unsupported version of the binary encoding: " + version);
+            }
+            final SyslogMessageLogDTO messageLog = new SyslogMessageLogDTO();
+            messageLog.setLocation(readString(in));
+            messageLog.setSystemId(readString(in));
+            final byte[] address = readBytes(in);
+            messageLog.setSourceAddress(address != null ? InetAddress.getByAddress(address) : null);
+            messageLog.setSourcePort(in.readInt());
+            final int count = in.readInt();
+            final List<SyslogMessageDTO> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final SyslogMessageDTO message = new SyslogMessageDTO();
+                final long timestamp = in.readLong();
+                message.setTimestamp(timestamp != NO_TIMESTAMP ? new Date(timestamp) : null);
+                final byte[] buffer = readBytes(in);
+                message.setBytes(buffer != null ? ByteBuffer.wrap(buffer) : null);
+                messages.add(message);
+            }
+            messageLog.setMessages(messages);
+            return messageLog;
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Invalid message log.", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value != null ? value.length : -1);
+        if (value != null) {
+            out.write(value);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
     /**
      * Used for testing.
      */
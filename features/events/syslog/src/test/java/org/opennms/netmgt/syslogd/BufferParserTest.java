@@ -396,6 +396,34 @@ public class BufferParserTest {
 		assertNull("No pattern should match", root.join());
 	}
 
+	/**
+	 * When several branches of the tree match, the first branch that was
+	 * taught to the parser must win.
+	 */
+	@Test
+	public void testFirstCompleteParseWins() {
+		RadixTreeParser radixParser = new RadixTreeParser();
+		radixParser.teach(GrokParserStageSequenceBuilder.parseGrok("<%{INT:facilityPriority}> %{NOSPACE:hostname} %{STRING:message}").toArray(new ParserStage[0]));
+		radixParser.teach(GrokParserStageSequenceBuilder.parseGrok("<%{INT:facilityPriority}> %{NOSPACE:processName} %{STRING:message}").toArray(new ParserStage[0]));
+		radixParser.teach(GrokParserStageSequenceBuilder.parseGrok("<%{INT:facilityPriority}> %{STRING:message}").toArray(new ParserStage[0]));
+
+		for (int i = 0; i < 2; i++) {
+			SyslogMessage message = radixParser.parseMessage(ByteBuffer.wrap("<14> localhost connect from www.opennms.org".getBytes(StandardCharsets.US_ASCII)));
+			assertNotNull(message);
+			assertEquals("localhost", message.getHostName());
+			assertNull(message.getProcessName());
+			assertEquals("connect from www.opennms.org", message.getMessage());
+
+			// The future based API returns the same result
+			assertEquals("localhost", radixParser.parse(ByteBuffer.wrap("<14> localhost connect".getBytes(StandardCharsets.US_ASCII))).join().getHostName());
+
+			// Make sure that everything works after edge compression as well
+			radixParser.performEdgeCompression();
+		}
+
+		assertNull(radixParser.parseMessage(ByteBuffer.wrap("14 localhost connect".getBytes(StandardCharsets.US_ASCII))));
+	}
+
 	@Test
 	public void testGrokRadixTree() {
 		RadixTreeParser radixParser = new RadixTreeParser();
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.syslogd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Test;
+import org.opennms.core.ipc.sink.xml.AbstractXmlSinkModule;
+import org.opennms.core.xml.PayloadCodecs;
+import org.opennms.netmgt.config.SyslogdConfig;
+import org.opennms.netmgt.dao.api.DistPollerDao;
+import org.opennms.netmgt.syslogd.api.SyslogMessageDTO;
+import org.opennms.netmgt.syslogd.api.SyslogMessageLogDTO;
+
+public class SyslogSinkModuleTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty(AbstractXmlSinkModule.CODEC_SYS_PROP);
+    }
+
+    @Test
+    public void canMarshalMessageLogsWithoutXml() throws Exception {
+        System.setProperty(AbstractXmlSinkModule.CODEC_SYS_PROP, PayloadCodecs.BINARY.getName());
+        final SyslogSinkModule module = new SyslogSinkModule(mock(SyslogdConfig.class), mock(DistPollerDao.class));
+
+        final SyslogMessageLogDTO messageLog = new SyslogMessageLogDTO("loc", "99",
+                new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 1514));
+        for (int i = 0; i < 10; i++) {
+            final SyslogMessageDTO message = new SyslogMessageDTO(ByteBuffer.wrap(
+                    ("<31>main: 2010-08-19 localhost foo" + i + ": load test " + i + " on tty1").getBytes(StandardCharsets.US_ASCII)));
+            message.setTimestamp(new Date(i * 1000));
+            messageLog.getMessages().add(message);
+        }
+
+        final byte[] bytes = module.marshal(messageLog);
+        assertSame(PayloadCodecs.BINARY, PayloadCodecs.getCodecOf(bytes));
+        assertEquals(messageLog, module.unmarshal(bytes));
+
+        // Messages marshalled as XML are still accepted
+        System.clearProperty(AbstractXmlSinkModule.CODEC_SYS_PROP);
+        final byte[] xml = new SyslogSinkModule(mock(SyslogdConfig.class), mock(DistPollerDao.class)).marshal(messageLog);
+        assertSame(PayloadCodecs.XML, PayloadCodecs.getCodecOf(xml));
+        assertEquals(messageLog, module.unmarshal(xml));
+        assertTrue(bytes.length < xml.length / 2);
+    }
+}
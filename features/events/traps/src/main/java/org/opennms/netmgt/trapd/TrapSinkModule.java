@@ -81,6 +81,11 @@ public class TrapSinkModule extends AbstractXmlSinkModule<TrapInformationWrapper
                 return config.getBatchIntervalMs();
             }
 
+            @Override
+            public int getTargetLatencyMs() {
+                return config.getBatchTargetLatencyMs();
+            }
+
             @Override
             public Object key(TrapInformationWrapper message) {
                 return message.getTrapAddress();
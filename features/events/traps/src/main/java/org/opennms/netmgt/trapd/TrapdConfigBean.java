@@ -59,6 +59,7 @@ public class TrapdConfigBean implements TrapdConfig, Serializable {
 	private List<SnmpV3User> snmpV3Users= new ArrayList<>();
 	private boolean includeRawMessage;
 	private int batchIntervalInMs;
+	private int batchTargetLatencyInMs;
 	private int batchSize;
 	private int queueSize;
 	private int numThreads;
@@ -78,6 +79,7 @@ public class TrapdConfigBean implements TrapdConfig, Serializable {
 		setNewSuspectOnTrap(trapdConfiguration.isNewSuspectOnTrap());
 		setIncludeRawMessage(trapdConfiguration.isIncludeRawMessage());
 		setBatchIntervalMs(trapdConfiguration.getBatchInterval());
+		setBatchTargetLatencyMs(trapdConfiguration.getBatchTargetLatency());
 		setBatchSize(trapdConfiguration.getBatchSize());
 		setQueueSize(trapdConfiguration.getQueueSize());
 		setNumThreads(trapdConfiguration.getThreads());
@@ -161,6 +163,11 @@ public class TrapdConfigBean implements TrapdConfig, Serializable {
 		return batchIntervalInMs;
 	}
 
+	@Override
+	public int getBatchTargetLatencyMs() {
+		return batchTargetLatencyInMs;
+	}
+
 	@Override
 	public void update(TrapdConfig config) {
 		setSnmpTrapAddress(config.getSnmpTrapAddress());
@@ -168,6 +175,7 @@ public class TrapdConfigBean implements TrapdConfig, Serializable {
 		setNewSuspectOnTrap(config.getNewSuspectOnTrap());
 		setIncludeRawMessage(config.isIncludeRawMessage());
 		setBatchIntervalMs(config.getBatchIntervalMs());
+		setBatchTargetLatencyMs(config.getBatchTargetLatencyMs());
 		setBatchSize(config.getBatchSize());
 		setQueueSize(config.getQueueSize());
 		setNumThreads(config.getNumThreads());
@@ -178,6 +186,10 @@ public class TrapdConfigBean implements TrapdConfig, Serializable {
 		this.batchIntervalInMs = batchIntervalInMs;
 	}
 
+	public void setBatchTargetLatencyMs(int batchTargetLatencyInMs) {
+		this.batchTargetLatencyInMs = batchTargetLatencyInMs;
+	}
+
 	public void setBatchSize(int batchSize) {
 		this.batchSize = batchSize;
 	}
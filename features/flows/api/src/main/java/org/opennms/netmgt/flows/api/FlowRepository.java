@@ -39,6 +39,12 @@ import com.google.common.collect.Table;
 
 public interface FlowRepository {
 
+    /**
+     * Persists the given flows.
+     *
+     * Implementations may persist the flows asynchronously. In this case, the calling thread
+     * is blocked while the implementation cannot keep up, in order to push back on the producer.
+     */
     void persist(Collection<Flow> packets, FlowSource source) throws FlowException;
 
     CompletableFuture<Long> getFlowCount(List<Filter> filters);
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.classification.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.opennms.core.utils.IPLike;
+import org.opennms.netmgt.flows.classification.ClassificationEngine;
+import org.opennms.netmgt.flows.classification.ClassificationRequest;
+import org.opennms.netmgt.flows.classification.ClassificationRuleProvider;
+import org.opennms.netmgt.flows.classification.FilterService;
+import org.opennms.netmgt.flows.classification.internal.value.PortValue;
+import org.opennms.netmgt.flows.classification.internal.value.StringValue;
+import org.opennms.netmgt.flows.classification.persistence.api.Protocol;
+import org.opennms.netmgt.flows.classification.persistence.api.Protocols;
+import org.opennms.netmgt.flows.classification.persistence.api.Rule;
+import org.opennms.netmgt.flows.classification.persistence.api.RulePriorityComparator;
+
+/**
+ * {@link ClassificationEngine} which pre-computes a bitset of the applicable rules for each value of each field
+ * of a flow (protocol, src/dst port and src/dst address).
+ *
+ * The rules are sorted by priority when loaded, so that the bit index of a rule is its rank. A flow is classified
+ * by intersecting the bitsets for its field values word by word, and walking the candidates in priority order
+ * until the first one matches. Only wildcard address expressions and exporter filters, which cannot be indexed,
+ * are evaluated per candidate.
+ *
+ * The results are the same as the ones of the {@link DefaultClassificationEngine}.
+ * The index is rebuilt on {@link #reload()} and swapped atomically, so classification is safe while reloading.
+ */
+public class BitSetClassificationEngine implements ClassificationEngine {
+
+    private final ClassificationRuleProvider ruleProvider;
+    private final FilterService filterService;
+
+    private volatile Index index = new Index(new ArrayList<>());
+
+    public BitSetClassificationEngine(ClassificationRuleProvider ruleProvider, FilterService filterService) {
+        this(ruleProvider, filterService, true);
+    }
+
+    public BitSetClassificationEngine(ClassificationRuleProvider ruleProvider, FilterService filterService, boolean initialize) {
+        this.ruleProvider = Objects.requireNonNull(ruleProvider);
+        this.filterService = Objects.requireNonNull(filterService);
+        if (initialize) {
+            this.reload();
+        }
+    }
+
+    @Override
+    public void reload() {
+        final List<Rule> rules = new ArrayList<>(ruleProvider.getRules());
+        // Stable sort, ties keep the order of the provider
+        rules.sort(new RulePriorityComparator());
+        index = new Index(rules);
+    }
+
+    @Override
+    public String classify(ClassificationRequest request) {
+        final Index currentIndex = index;
+        final long[] srcPortBits = currentIndex.srcPorts[request.getSrcPort()];
+        final long[] dstPortBits = currentIndex.dstPorts[request.getDstPort()];
+        final long[] protocolBits = currentIndex.getProtocolBits(request.getProtocol());
+        final long[] srcAddressBits = currentIndex.srcAddresses.getOrDefault(request.getSrcAddress(), currentIndex.anySrcAddress);
+        final long[] dstAddressBits = currentIndex.dstAddresses.getOrDefault(request.getDstAddress(), currentIndex.anyDstAddress);
+
+        // Intersect the bitsets one word at a time, and stop at the first candidate which matches.
+        // As the rules are sorted, this is the one with the highest priority
+        for (int word = 0; word < currentIndex.words; word++) {
+            long candidates = srcPortBits[word] & dstPortBits[word] & protocolBits[word] & srcAddressBits[word] & dstAddressBits[word];
+            while (candidates != 0) {
+                final int i = word * Long.SIZE + Long.numberOfTrailingZeros(candidates);
+                if (currentIndex.matches(i, request, filterService)) {
+                    return currentIndex.rules.get(i).getName();
+                }
+                candidates &= candidates - 1;
+            }
+        }
+        // Same as the DefaultClassificationEngine, we leave it up to the caller to name unmapped flows
+        return null;
+    }
+
+    private static class Index {
+        private final List<Rule> rules;
+        private final int words;
+
+        // For each value of a field, the rules which apply to it, including the ones not defining the field
+        private final long[][] srcPorts = new long[Rule.MAX_PORT_VALUE][];
+        private final long[][] dstPorts = new long[Rule.MAX_PORT_VALUE][];
+        private final Map<Integer, long[]> protocols = new HashMap<>();
+        private final long[] anyProtocol;
+        private final Map<String, long[]> srcAddresses = new HashMap<>();
+        private final long[] anySrcAddress;
+        private final Map<String, long[]> dstAddresses = new HashMap<>();
+        private final long[] anyDstAddress;
+
+        // Wildcard addresses and exporter filters, which must be verified for each candidate
+        private final BitSet srcAddressWildcards = new BitSet();
+        private final BitSet dstAddressWildcards = new BitSet();
+        private final BitSet exporterFilters = new BitSet();
+
+        private Index(List<Rule> rules) {
+            this.rules = rules;
+            this.words = (rules.size() + Long.SIZE - 1) / Long.SIZE;
+
+            final FieldIndex<Integer> srcPortIndex = new FieldIndex<>();
+            final FieldIndex<Integer> dstPortIndex = new FieldIndex<>();
+            final FieldIndex<Integer> protocolIndex = new FieldIndex<>();
+            final FieldIndex<String> srcAddressIndex = new FieldIndex<>();
+            final FieldIndex<String> dstAddressIndex = new FieldIndex<>();
+
+            for (int i = 0; i < rules.size(); i++) {
+                final Rule rule = rules.get(i);
+
+                if (rule.hasProtocolDefinition()) {
+                    for (StringValue eachProtocol : new StringValue(rule.getProtocol()).splitBy(",")) {
+                        final Protocol protocol = Protocols.getProtocol(eachProtocol.getValue());
+                        if (protocol != null) {
+                            protocolIndex.set(protocol.getDecimal(), i);
+                        }
+                    }
+                } else {
+                    protocolIndex.any.set(i);
+                }
+
+                if (rule.hasSrcPortDefinition()) {
+                    for (Integer eachPort : new PortValue(rule.getSrcPort()).getPorts()) {
+                        srcPortIndex.set(eachPort, i);
+                    }
+                } else {
+                    srcPortIndex.any.set(i);
+                }
+                if (rule.hasDstPortDefinition()) {
+                    for (Integer eachPort : new PortValue(rule.getDstPort()).getPorts()) {
+                        dstPortIndex.set(eachPort, i);
+                    }
+                } else {
+                    dstPortIndex.any.set(i);
+                }
+
+                indexAddress(rule.hasSrcAddressDefinition() ? rule.getSrcAddress() : null, i, srcAddressIndex, srcAddressWildcards);
+                indexAddress(rule.hasDstAddressDefinition() ? rule.getDstAddress() : null, i, dstAddressIndex, dstAddressWildcards);
+
+                if (rule.hasExportFilterDefinition()) {
+                    exporterFilters.set(i);
+                }
+            }
+
+            // Rules with wildcard addresses are candidates for every address
+            srcAddressIndex.any.or(srcAddressWildcards);
+            dstAddressIndex.any.or(dstAddressWildcards);
+
+            // Port ranges result in many identical bitsets, which are shared to keep the index small
+            final Map<BitSet, long[]> interned = new HashMap<>();
+            final long[] anySrcPort = toWords(srcPortIndex.any, interned);
+            final long[] anyDstPort = toWords(dstPortIndex.any, interned);
+            for (int port = 0; port < Rule.MAX_PORT_VALUE; port++) {
+                srcPorts[port] = srcPortIndex.values.containsKey(port) ? toWords(srcPortIndex.union(port), interned) : anySrcPort;
+                dstPorts[port] = dstPortIndex.values.containsKey(port) ? toWords(dstPortIndex.union(port), interned) : anyDstPort;
+            }
+            anyProtocol = toWords(protocolIndex.any, interned);
+            protocolIndex.values.keySet().forEach(protocol -> protocols.put(protocol, toWords(protocolIndex.union(protocol), interned)));
+            anySrcAddress = toWords(srcAddressIndex.any, interned);
+            srcAddressIndex.values.keySet().forEach(address -> srcAddresses.put(address, toWords(srcAddressIndex.union(address), interned)));
+            anyDstAddress = toWords(dstAddressIndex.any, interned);
+            dstAddressIndex.values.keySet().forEach(address -> dstAddresses.put(address, toWords(dstAddressIndex.union(address), interned)));
+        }
+
+        private long[] getProtocolBits(Protocol protocol) {
+            if (protocol == null) {
+                return anyProtocol;
+            }
+            return protocols.getOrDefault(protocol.getDecimal(), anyProtocol);
+        }
+
+        private boolean matches(int i, ClassificationRequest request, FilterService filterService) {
+            final Rule rule = rules.get(i);
+            if (srcAddressWildcards.get(i) && !IPLike.matches(request.getSrcAddress(), rule.getSrcAddress())) {
+                return false;
+            }
+            if (dstAddressWildcards.get(i) && !IPLike.matches(request.getDstAddress(), rule.getDstAddress())) {
+                return false;
+            }
+            if (exporterFilters.get(i) && !filterService.matches(request.getExporterAddress(), rule.getExporterFilter())) {
+                return false;
+            }
+            return true;
+        }
+
+        private long[] toWords(BitSet bitSet, Map<BitSet, long[]> interned) {
+            return interned.computeIfAbsent(bitSet, key -> Arrays.copyOf(key.toLongArray(), words));
+        }
+
+        private static void indexAddress(String address, int i, FieldIndex<String> index, BitSet wildcards) {
+            final StringValue value = new StringValue(address);
+            if (value.isNull() || value.isWildcard()) {
+                index.any.set(i);
+            } else if (value.hasWildcard()) {
+                wildcards.set(i);
+            } else {
+                index.set(address, i);
+            }
+        }
+    }
+
+    // The rules which don't define a field, and the rules by value of the field, while building the index
+    private static class FieldIndex<T> {
+        private final BitSet any = new BitSet();
+        private final Map<T, BitSet> values = new HashMap<>();
+
+        private void set(T value, int i) {
+            values.computeIfAbsent(value, key -> new BitSet()).set(i);
+        }
+
+        private BitSet union(T value) {
+            final BitSet union = (BitSet) any.clone();
+            union.or(values.get(value));
+            return union;
+        }
+    }
+}
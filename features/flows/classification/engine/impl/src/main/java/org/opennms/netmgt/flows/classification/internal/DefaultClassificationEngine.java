@@ -144,6 +144,9 @@ public class DefaultClassificationEngine implements ClassificationEngine {
                 // Check weather to apply rule for src or dst port (both may be very unlikely, but possible)
                 if (rule.hasDstPortDefinition() && rule.hasSrcPortDefinition()) {
                     portRule.setSrcPort(rule.getSrcPort()); // keep src port as is, to apply filter
+                    // The dst port must be verified as well, as the rule is also looked up by the src port of a flow.
+                    // This also keeps the priority of the classifier in line with the one of the rule.
+                    portRule.setDstPort(Integer.toString(port));
                 } else {
                     // Only src or dst ports are defined (or none)
                     // if none, the value of either src or dst port may be empty, as the filtering already occurred
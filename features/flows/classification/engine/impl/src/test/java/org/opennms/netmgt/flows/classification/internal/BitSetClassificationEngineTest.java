@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.classification.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.opennms.netmgt.flows.classification.ClassificationEngine;
+import org.opennms.netmgt.flows.classification.ClassificationRequest;
+import org.opennms.netmgt.flows.classification.ClassificationRequestBuilder;
+import org.opennms.netmgt.flows.classification.FilterService;
+import org.opennms.netmgt.flows.classification.exception.InvalidFilterException;
+import org.opennms.netmgt.flows.classification.persistence.api.Group;
+import org.opennms.netmgt.flows.classification.persistence.api.GroupBuilder;
+import org.opennms.netmgt.flows.classification.persistence.api.Protocol;
+import org.opennms.netmgt.flows.classification.persistence.api.ProtocolType;
+import org.opennms.netmgt.flows.classification.persistence.api.Rule;
+import org.opennms.netmgt.flows.classification.persistence.api.RuleBuilder;
+
+import com.google.common.collect.Lists;
+
+public class BitSetClassificationEngineTest {
+
+    // Exporters 10.1.0.1 and 10.1.0.3 match filter "a", exporters 10.1.0.2 and 10.1.0.3 match filter "b"
+    private static final FilterService FILTER_SERVICE = new FilterService() {
+        @Override
+        public void validate(String filterExpression) throws InvalidFilterException {
+
+        }
+
+        @Override
+        public boolean matches(String address, String filterExpression) {
+            final int exporter = Integer.parseInt(address.substring(address.lastIndexOf('.') + 1));
+            return "a".equals(filterExpression) ? (exporter & 1) != 0 : (exporter & 2) != 0;
+        }
+    };
+
+    private static final Protocol[] PROTOCOLS = new Protocol[]{ ProtocolType.TCP, ProtocolType.UDP, ProtocolType.ICMP };
+
+    @Test
+    public void verifyRuleEngineBasic() {
+        final BitSetClassificationEngine engine = new BitSetClassificationEngine(() ->
+                Lists.newArrayList(
+                        new RuleBuilder().withName("rule1").withSrcPort(80).build(),
+                        new RuleBuilder().withName("rule2").withDstPort(443).build(),
+                        new RuleBuilder().withName("rule3").withSrcPort(8888).withDstPort(9999).build(),
+                        new RuleBuilder().withName("rule4").withSrcPort(8888).withDstPort(80).build(),
+                        new RuleBuilder().withName("rule5").build()
+                ), FilterService.NOOP);
+
+        assertEquals("rule2", engine.classify(new ClassificationRequestBuilder().withSrcPort(9999).withDstPort(443).build()));
+        assertEquals("rule3", engine.classify(new ClassificationRequestBuilder().withSrcPort(8888).withDstPort(9999).build()));
+        assertEquals("rule4", engine.classify(new ClassificationRequestBuilder().withSrcPort(8888).withDstPort(80).build()));
+        assertEquals("rule1", engine.classify(new ClassificationRequestBuilder().withSrcPort(80).withDstPort(8888).build()));
+        assertEquals("rule5", engine.classify(new ClassificationRequestBuilder().withSrcPort(1).withDstPort(2).build()));
+    }
+
+    @Test
+    public void verifyAddressesAndProtocols() {
+        final BitSetClassificationEngine engine = new BitSetClassificationEngine(() -> Lists.newArrayList(
+                new Rule("HTTP", "80"),
+                new Rule("HTTP_CUSTOM", "192.168.0.1", "80"),
+                new Rule("DUMMY", "192.168.1.*", "8000-9000,80,8080"),
+                new RuleBuilder().withName("DNS").withDstPort(53).withProtocol("udp").build()
+            ), FilterService.NOOP
+        );
+
+        assertEquals("HTTP_CUSTOM", engine.classify(new ClassificationRequest("Default", 0, null, 80, "192.168.0.1", ProtocolType.TCP)));
+        assertEquals("DUMMY",       engine.classify(new ClassificationRequest("Default", 0, null, 80, "192.168.1.17", ProtocolType.TCP)));
+        assertEquals("HTTP",        engine.classify(new ClassificationRequest("Default", 0, null, 80, "192.168.2.1", ProtocolType.TCP)));
+        assertEquals("DNS",         engine.classify(new ClassificationRequest("Default", 0, null, 53, "192.168.2.1", ProtocolType.UDP)));
+        assertEquals(null,          engine.classify(new ClassificationRequest("Default", 0, null, 53, "192.168.2.1", ProtocolType.TCP)));
+    }
+
+    @Test
+    public void verifySameResultsAsDefaultClassificationEngine() {
+        final Random random = new Random(42);
+        for (int ruleSet = 0; ruleSet < 50; ruleSet++) {
+            final List<Rule> rules = createRules(random, 1 + random.nextInt(100));
+            final ClassificationEngine expectedEngine = new DefaultClassificationEngine(() -> rules, FILTER_SERVICE);
+            final ClassificationEngine actualEngine = new BitSetClassificationEngine(() -> rules, FILTER_SERVICE);
+
+            for (int i = 0; i < 2000; i++) {
+                final ClassificationRequest request = new ClassificationRequestBuilder()
+                        .withLocation("Default")
+                        .withSrcPort(random.nextInt(24))
+                        .withSrcAddress("10.0.0." + random.nextInt(4))
+                        .withDstPort(random.nextInt(24))
+                        .withDstAddress("10.0.0." + random.nextInt(4))
+                        .withProtocol(PROTOCOLS[random.nextInt(PROTOCOLS.length)])
+                        .withExporterAddress("10.1.0." + random.nextInt(4))
+                        .build();
+                assertEquals("Rule set " + ruleSet + ", " + rules + ", request " + request,
+                        expectedEngine.classify(request), actualEngine.classify(request));
+            }
+        }
+    }
+
+    // Uses a small range of values, to ensure rules overlap
+    private static List<Rule> createRules(Random random, int count) {
+        final List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            groups.add(new GroupBuilder().withName("group" + i).withPriority(random.nextInt(3)).build());
+        }
+        final List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final Group group = groups.get(random.nextInt(groups.size()));
+            final Rule rule = new RuleBuilder()
+                    .withName("rule" + i)
+                    .withGroup(group)
+                    .withSrcPort(randomPorts(random))
+                    .withDstPort(randomPorts(random))
+                    .withSrcAddress(randomAddress(random))
+                    .withDstAddress(randomAddress(random))
+                    .withProtocol(random.nextInt(3) == 0 ? (random.nextBoolean() ? "tcp" : "udp,icmp") : null)
+                    .withExporterFilter(random.nextInt(4) == 0 ? (random.nextBoolean() ? "a" : "b") : null)
+                    .build();
+            // The order of rules with the same priority is not defined, so these share the same name
+            rule.setName("rule-" + group.getPriority() + "-" + rule.calculatePriority());
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    private static String randomPorts(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return Integer.toString(random.nextInt(24));
+            case 1:
+                return random.nextInt(24) + "," + random.nextInt(24);
+            case 2:
+                final int start = random.nextInt(20);
+                return start + "-" + (start + random.nextInt(5));
+            default:
+                return null;
+        }
+    }
+
+    private static String randomAddress(Random random) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return "10.0.0." + random.nextInt(4);
+            case 1:
+                return "10.0.0.*";
+            case 2:
+                return "10.0.*.1-2";
+            case 3:
+                return "*";
+            default:
+                return null;
+        }
+    }
+}
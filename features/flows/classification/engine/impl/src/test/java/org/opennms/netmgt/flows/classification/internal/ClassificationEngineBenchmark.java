@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.classification.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.opennms.netmgt.flows.classification.ClassificationEngine;
+import org.opennms.netmgt.flows.classification.ClassificationRequest;
+import org.opennms.netmgt.flows.classification.ClassificationRequestBuilder;
+import org.opennms.netmgt.flows.classification.FilterService;
+import org.opennms.netmgt.flows.classification.persistence.api.Group;
+import org.opennms.netmgt.flows.classification.persistence.api.GroupBuilder;
+import org.opennms.netmgt.flows.classification.persistence.api.Groups;
+import org.opennms.netmgt.flows.classification.persistence.api.Protocol;
+import org.opennms.netmgt.flows.classification.persistence.api.ProtocolType;
+import org.opennms.netmgt.flows.classification.persistence.api.Rule;
+import org.opennms.netmgt.flows.classification.persistence.api.RuleBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Compares the {@link DefaultClassificationEngine} with the {@link BitSetClassificationEngine}, both wrapped
+ * in a {@link TimingClassificationEngine} as they are when deployed, by classifying random flows against
+ * a generated rule set, which resembles the pre-defined rules (mostly a protocol and a dst port) with some
+ * user-defined rules on top.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.netmgt.flows.classification.internal.ClassificationEngineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ClassificationEngineBenchmark {
+
+    private static final Protocol[] PROTOCOLS = new Protocol[]{ ProtocolType.TCP, ProtocolType.UDP };
+
+    @Param({"default", "bitset"})
+    public String engine;
+
+    @Param({"100", "6000"})
+    public int rules;
+
+    private ClassificationEngine classificationEngine;
+
+    private final List<ClassificationRequest> requests = new ArrayList<>();
+
+    private int requestIndex = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        final List<Rule> ruleList = createRules(random, rules);
+        final ClassificationEngine delegate = "bitset".equals(engine)
+                ? new BitSetClassificationEngine(() -> ruleList, FilterService.NOOP)
+                : new DefaultClassificationEngine(() -> ruleList, FilterService.NOOP);
+        classificationEngine = new TimingClassificationEngine(new MetricRegistry(), delegate);
+
+        for (int i = 0; i < 100000; i++) {
+            requests.add(new ClassificationRequestBuilder()
+                    .withLocation("Default")
+                    .withSrcAddress("10.0." + random.nextInt(4) + "." + random.nextInt(256))
+                    .withSrcPort(random.nextBoolean() ? random.nextInt(1024) : 1024 + random.nextInt(64512))
+                    .withDstAddress("192.168." + random.nextInt(4) + "." + random.nextInt(256))
+                    .withDstPort(random.nextBoolean() ? random.nextInt(1024) : 1024 + random.nextInt(64512))
+                    .withProtocol(PROTOCOLS[random.nextInt(PROTOCOLS.length)])
+                    .withExporterAddress("10.1.0.1")
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public String classify() {
+        final ClassificationRequest request = requests.get(requestIndex);
+        requestIndex = (requestIndex + 1) % requests.size();
+        return classificationEngine.classify(request);
+    }
+
+    private static List<Rule> createRules(Random random, int count) {
+        final Group systemGroup = new GroupBuilder().withName(Groups.SYSTEM_DEFINED).withPriority(0).build();
+        final Group userGroup = new GroupBuilder().withName(Groups.USER_DEFINED).withPriority(10).build();
+        final List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final RuleBuilder builder = new RuleBuilder().withName("rule" + i);
+            if (i % 20 == 0) {
+                // User defined rules, using addresses and port ranges
+                final int port = random.nextInt(60000);
+                builder.withGroup(userGroup)
+                        .withDstPort(port + "-" + (port + random.nextInt(100)))
+                        .withSrcAddress(random.nextBoolean() ? "10.0." + random.nextInt(4) + ".*" : "10.0.0." + random.nextInt(256))
+                        .withDstAddress(random.nextBoolean() ? "192.168.*.1-100" : null);
+            } else {
+                builder.withGroup(systemGroup)
+                        .withDstPort(random.nextInt(Rule.MAX_PORT_VALUE))
+                        .withProtocol(random.nextBoolean() ? "tcp" : "tcp,udp");
+            }
+            rules.add(builder.build());
+        }
+        return rules;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ClassificationEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -64,6 +64,20 @@ public class DefaultClassificationEngineTest {
         assertEquals("rule4", engine.classify(new ClassificationRequestBuilder().withSrcPort(8888).withDstPort(80).build()));
     }
 
+    @Test
+    public void verifySrcAndDstPortMustMatch() {
+        final DefaultClassificationEngine engine = new DefaultClassificationEngine(() ->
+                Lists.newArrayList(
+                        new RuleBuilder().withName("rule1").withSrcPort("8888,9999").withDstPort(9999).build(),
+                        new RuleBuilder().withName("rule2").withSrcPort(9999).build()
+                ), FilterService.NOOP);
+
+        // The src port is one of the rule's dst ports as well, but the dst port does not match
+        assertEquals("rule2", engine.classify(new ClassificationRequestBuilder().withSrcPort(9999).withDstPort(80).build()));
+        assertEquals("rule1", engine.classify(new ClassificationRequestBuilder().withSrcPort(9999).withDstPort(9999).build()));
+        assertEquals("rule1", engine.classify(new ClassificationRequestBuilder().withSrcPort(8888).withDstPort(9999).build()));
+    }
+
     @Test
     public void verifyRuleEngineExtended() {
         // Define Rule set
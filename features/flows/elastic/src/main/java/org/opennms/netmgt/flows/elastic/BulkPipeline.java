@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.opennms.plugins.elasticsearch.rest.bulk.BulkRequest;
+import org.opennms.plugins.elasticsearch.rest.bulk.BulkWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.searchbox.client.JestClient;
+
+/**
+ * Indexes documents asynchronously, so that the threads handing over the documents
+ * do not have to wait for Elasticsearch.
+ *
+ * Documents are collected until either the bulk size is reached, or the oldest document
+ * waited for the flush interval. The resulting bulk requests are executed by a fixed number of
+ * threads, which limits the number of requests in flight.
+ *
+ * At most queue capacity documents are buffered or in flight. Once this is reached,
+ * {@link #index(List, Consumer)} blocks until room is available. This pushes back on the caller,
+ * i.e. the telemetry consumer, instead of buffering an unbounded number of documents.
+ */
+public class BulkPipeline<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkPipeline.class);
+
+    private final JestClient client;
+
+    private final Function<List<T>, BulkWrapper> transformer;
+
+    private final int bulkRetryCount;
+
+    private final int bulkSize;
+
+    private final long flushIntervalMs;
+
+    private final int queueCapacity;
+
+    private final Semaphore capacity;
+
+    private final ExecutorService executor;
+
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    /**
+     * Time taken to execute a bulk request, including retries
+     */
+    private final Timer bulkIndexingTimer;
+
+    /**
+     * Time callers were blocked, waiting for room in the queue
+     */
+    private final Timer backPressureTimer;
+
+    /**
+     * Number of documents which could not be indexed
+     */
+    private final Meter documentsFailedMeter;
+
+    /**
+     * Number of documents per bulk request
+     */
+    private final Histogram documentsPerBulk;
+
+    private List<Batch<T>> pending = new ArrayList<>();
+
+    private int pendingDocuments = 0;
+
+    private long pendingSince = 0;
+
+    public BulkPipeline(MetricRegistry metricRegistry, JestClient client, Function<List<T>, BulkWrapper> transformer,
+                        int bulkRetryCount, int bulkSize, long flushIntervalMs, int maxInFlight, int queueCapacity) {
+        if (bulkSize < 1 || maxInFlight < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("The bulk size, number of requests in flight and queue capacity must be strictly positive.");
+        }
+        this.client = Objects.requireNonNull(client);
+        this.transformer = Objects.requireNonNull(transformer);
+        this.bulkRetryCount = bulkRetryCount;
+        this.bulkSize = bulkSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queueCapacity = queueCapacity;
+        this.capacity = new Semaphore(queueCapacity);
+
+        bulkIndexingTimer = metricRegistry.timer("bulkIndexing");
+        backPressureTimer = metricRegistry.timer("bulkBackPressure");
+        documentsFailedMeter = metricRegistry.meter("bulkDocumentsFailed");
+        documentsPerBulk = metricRegistry.histogram("bulkDocuments");
+        metricRegistry.register("bulkQueued", (Gauge<Integer>) () -> queueCapacity - capacity.availablePermits());
+        metricRegistry.register("bulkInFlight", (Gauge<Integer>) inFlight::get);
+
+        executor = Executors.newFixedThreadPool(maxInFlight, new ThreadFactoryBuilder()
+                .setNameFormat("flow-bulk-indexer-%d")
+                .build());
+        flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("flow-bulk-flusher")
+                .setDaemon(true)
+                .build());
+        if (flushIntervalMs > 0) {
+            final long checkIntervalMs = Math.max(1, flushIntervalMs / 2);
+            flusher.scheduleWithFixedDelay(this::flushIfDue, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Queues the given documents to be indexed, blocking while the queue is full.
+     *
+     * @param documents the documents to index
+     * @param onIndexed called with the given documents once these were indexed
+     */
+    public void index(List<T> documents, Consumer<List<T>> onIndexed) throws InterruptedException {
+        if (documents.isEmpty()) {
+            return;
+        }
+        // Larger lists than the capacity are let through once the queue is empty
+        final int permits = Math.min(documents.size(), queueCapacity);
+        if (!capacity.tryAcquire(permits)) {
+            // Make sure the pending documents do not hold on to the room we are waiting for
+            flush();
+            try (final Timer.Context ctx = backPressureTimer.time()) {
+                capacity.acquire(permits);
+            }
+        }
+
+        final List<Batch<T>> toSubmit;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                pendingSince = System.currentTimeMillis();
+            }
+            pending.add(new Batch<>(documents, onIndexed, permits));
+            pendingDocuments += documents.size();
+            toSubmit = pendingDocuments >= bulkSize ? drain() : null;
+        }
+        if (toSubmit != null) {
+            submit(toSubmit);
+        }
+    }
+
+    /**
+     * Submits all pending documents, without waiting for these to be indexed.
+     */
+    public void flush() {
+        final List<Batch<T>> toSubmit;
+        synchronized (this) {
+            toSubmit = drain();
+        }
+        submit(toSubmit);
+    }
+
+    public void destroy() {
+        flusher.shutdown();
+        flush();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOG.warn("Timed out while waiting for {} bulk requests to complete.", inFlight.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushIfDue() {
+        final List<Batch<T>> toSubmit;
+        synchronized (this) {
+            if (pending.isEmpty() || System.currentTimeMillis() - pendingSince < flushIntervalMs) {
+                return;
+            }
+            toSubmit = drain();
+        }
+        submit(toSubmit);
+    }
+
+    private List<Batch<T>> drain() {
+        final List<Batch<T>> drained = pending;
+        pending = new ArrayList<>();
+        pendingDocuments = 0;
+        return drained;
+    }
+
+    private void submit(List<Batch<T>> batches) {
+        if (batches.isEmpty()) {
+            return;
+        }
+        inFlight.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                execute(batches);
+            } finally {
+                inFlight.decrementAndGet();
+                capacity.release(batches.stream().mapToInt(b -> b.permits).sum());
+            }
+        });
+    }
+
+    private void execute(List<Batch<T>> batches) {
+        final List<T> documents = new ArrayList<>();
+        for (Batch<T> batch : batches) {
+            documents.addAll(batch.documents);
+        }
+        documentsPerBulk.update(documents.size());
+
+        try (final Timer.Context ctx = bulkIndexingTimer.time()) {
+            // the bulk request considers retries
+            new BulkRequest<>(client, documents, transformer, bulkRetryCount).execute();
+        } catch (IOException ex) {
+            LOG.error("Failed to index {} documents: {}", documents.size(), ex.getMessage(), ex);
+            documentsFailedMeter.mark(documents.size());
+            return;
+        }
+
+        for (Batch<T> batch : batches) {
+            try {
+                batch.onIndexed.accept(batch.documents);
+            } catch (RuntimeException ex) {
+                LOG.warn("Failed to handle {} indexed documents: {}", batch.documents.size(), ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private static class Batch<T> {
+        private final List<T> documents;
+        private final Consumer<List<T>> onIndexed;
+        private final int permits;
+
+        private Batch(List<T> documents, Consumer<List<T>> onIndexed, int permits) {
+            this.documents = documents;
+            this.onIndexed = onIndexed;
+            this.permits = permits;
+        }
+    }
+}
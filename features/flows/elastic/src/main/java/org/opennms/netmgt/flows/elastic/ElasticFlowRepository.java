@@ -57,6 +57,9 @@ import org.opennms.netmgt.flows.classification.ClassificationEngine;
 import org.opennms.netmgt.flows.classification.ClassificationRequest;
 import org.opennms.netmgt.flows.classification.persistence.api.Protocol;
 import org.opennms.netmgt.flows.classification.persistence.api.Protocols;
+import org.opennms.netmgt.flows.elastic.aggregate.AggregatedFlowQueryService;
+import org.opennms.netmgt.flows.elastic.aggregate.FlowAggregator;
+import org.opennms.netmgt.flows.elastic.aggregate.GroupedBy;
 import org.opennms.netmgt.flows.elastic.index.IndexSelector;
 import org.opennms.netmgt.flows.filter.api.Filter;
 import org.opennms.netmgt.flows.filter.api.TimeRangeFilter;
@@ -112,6 +115,8 @@ public class ElasticFlowRepository implements FlowRepository {
 
     private final int bulkRetryCount;
 
+    private final MetricRegistry metricRegistry;
+
     /**
      * Flows/second throughput
      */
@@ -128,7 +133,7 @@ public class ElasticFlowRepository implements FlowRepository {
     private final Timer logEnrichementTimer;
 
     /**
-     * Time taken to persist the flows in a log
+     * Time taken to persist the flows in a log, or to queue them when pipelined
      */
     private final Timer logPersistingTimer;
 
@@ -156,6 +161,29 @@ public class ElasticFlowRepository implements FlowRepository {
      */
     private final ConcurrentMap<Integer, Set<Integer>> markerCache = Maps.newConcurrentMap();
 
+    /**
+     * Rolls up the persisted flows into summaries, optional.
+     */
+    private FlowAggregator flowAggregator;
+
+    /**
+     * Answers queries over long time ranges from the summaries, optional.
+     */
+    private AggregatedFlowQueryService aggregatedFlowQueryService;
+
+    /**
+     * Indexes the flows asynchronously, only used if the number of bulk requests in flight is positive.
+     */
+    private BulkPipeline<FlowDocument> bulkPipeline;
+
+    private int bulkSize = 1000;
+
+    private long bulkFlushIntervalMs = 500;
+
+    private int bulkMaxInFlight = 0;
+
+    private int bulkQueueCapacity = 10000;
+
     public ElasticFlowRepository(MetricRegistry metricRegistry, JestClient jestClient, IndexStrategy indexStrategy,
                                  DocumentEnricher documentEnricher, ClassificationEngine classificationEngine,
                                  TransactionOperations transactionOperations, NodeDao nodeDao, SnmpInterfaceDao snmpInterfaceDao,
@@ -169,6 +197,7 @@ public class ElasticFlowRepository implements FlowRepository {
         this.snmpInterfaceDao = Objects.requireNonNull(snmpInterfaceDao);
         this.bulkRetryCount = bulkRetryCount;
         this.indexSelector = new IndexSelector(TYPE, indexStrategy, maxFlowDurationMs);
+        this.metricRegistry = Objects.requireNonNull(metricRegistry);
 
         flowsPersistedMeter = metricRegistry.meter("flowsPersisted");
         logConversionTimer = metricRegistry.timer("logConversion");
@@ -189,6 +218,19 @@ public class ElasticFlowRepository implements FlowRepository {
         });
     }
 
+    public void init() {
+        if (bulkMaxInFlight > 0) {
+            bulkPipeline = new BulkPipeline<>(metricRegistry, client, this::toBulk, bulkRetryCount,
+                    bulkSize, bulkFlushIntervalMs, bulkMaxInFlight, bulkQueueCapacity);
+        }
+    }
+
+    public void destroy() {
+        if (bulkPipeline != null) {
+            bulkPipeline.destroy();
+        }
+    }
+
     @Override
     public void persist(final Collection<Flow> flows, final FlowSource source) throws FlowException {
         LOG.debug("Converting {} flows from {} to flow documents.", flows.size(), source);
@@ -217,17 +259,18 @@ public class ElasticFlowRepository implements FlowRepository {
 
         LOG.debug("Persisting {} flow documents.", flowDocuments.size());
         try (final Timer.Context ctx = logPersistingTimer.time()) {
-            final BulkRequest<FlowDocument> bulkRequest = new BulkRequest<>(client, flowDocuments, (documents) -> {
-                final Bulk.Builder bulkBuilder = new Bulk.Builder();
-                for (FlowDocument flowDocument : documents) {
-                   final String index = indexStrategy.getIndex(TYPE, Instant.ofEpochMilli(flowDocument.getTimestamp()));
-                   final Index.Builder indexBuilder = new Index.Builder(flowDocument)
-                        .index(index)
-                        .type(TYPE);
-                    bulkBuilder.addAction(indexBuilder.build());
+            if (bulkPipeline != null) {
+                // Index asynchronously, this only blocks if the pipeline is full
+                try {
+                    bulkPipeline.index(flowDocuments, this::onPersisted);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new FlowException("Interrupted while waiting to persist the flows.", ex);
                 }
-                return new BulkWrapper(bulkBuilder);
-            }, bulkRetryCount);
+                return;
+            }
+
+            final BulkRequest<FlowDocument> bulkRequest = new BulkRequest<>(client, flowDocuments, this::toBulk, bulkRetryCount);
             try {
                 // the bulk request considers retries
                 bulkRequest.execute();
@@ -237,7 +280,27 @@ public class ElasticFlowRepository implements FlowRepository {
                 LOG.error("An error occurred while executing the given request: {}", ex.getMessage(), ex);
                 throw new FlowException(ex.getMessage(), ex);
             }
-            flowsPersistedMeter.mark(flowDocuments.size());
+        }
+        onPersisted(flowDocuments);
+    }
+
+    private BulkWrapper toBulk(List<FlowDocument> documents) {
+        final Bulk.Builder bulkBuilder = new Bulk.Builder();
+        for (FlowDocument flowDocument : documents) {
+            final String index = indexStrategy.getIndex(TYPE, Instant.ofEpochMilli(flowDocument.getTimestamp()));
+            final Index.Builder indexBuilder = new Index.Builder(flowDocument)
+                    .index(index)
+                    .type(TYPE);
+            bulkBuilder.addAction(indexBuilder.build());
+        }
+        return new BulkWrapper(bulkBuilder);
+    }
+
+    private void onPersisted(List<FlowDocument> flowDocuments) {
+        flowsPersistedMeter.mark(flowDocuments.size());
+
+        if (flowAggregator != null) {
+            flowAggregator.aggregate(flowDocuments);
         }
 
         // Mark nodes and interfaces as having associated flows
@@ -440,6 +503,10 @@ public class ElasticFlowRepository implements FlowRepository {
     private CompletableFuture<Table<Directional<String>, Long, Double>> getSeriesFromTopN(int N, long step, String groupByTerm,
                                                                                           String keyForMissingTerm, boolean includeOther,
                                                                                           List<Filter> filters) {
+        final long resolution = getSummaryResolution(filters, step);
+        if (resolution > 0) {
+            return aggregatedFlowQueryService.getSeriesFromTopN(N, step, GroupedBy.fromFlowTerm(groupByTerm), includeOther, filters, resolution);
+        }
         return getTopN(N, groupByTerm, keyForMissingTerm, filters)
                 .thenCompose((topN) -> getSeriesFromTopN(topN, step, groupByTerm, keyForMissingTerm, includeOther, filters));
     }
@@ -562,10 +629,24 @@ public class ElasticFlowRepository implements FlowRepository {
     }
 
     private CompletableFuture<List<TrafficSummary<String>>> getTotalBytesFromTopN(int N, String groupByTerm, String keyForMissingTerm, boolean includeOther, List<Filter> filters) {
+        final long resolution = getSummaryResolution(filters, 0);
+        if (resolution > 0) {
+            return aggregatedFlowQueryService.getTotalBytesFromTopN(N, GroupedBy.fromFlowTerm(groupByTerm), includeOther, filters, resolution);
+        }
         return getTopN(N, groupByTerm, keyForMissingTerm, filters)
                 .thenCompose((topN) -> getTotalBytesFromTopN(topN, groupByTerm, keyForMissingTerm, includeOther, filters));
     }
 
+    /**
+     * @return the resolution of the summaries to answer the query with, or 0 if the flows should be queried
+     */
+    private long getSummaryResolution(List<Filter> filters, long step) {
+        if (aggregatedFlowQueryService == null) {
+            return 0;
+        }
+        return aggregatedFlowQueryService.getResolution(filters, step);
+    }
+
     /**
      * Perform a best-effort classification of the application based on
      * the context of the conversation key.
@@ -675,6 +756,30 @@ public class ElasticFlowRepository implements FlowRepository {
                 .findFirst().orElse(null);
     }
 
+    public void setFlowAggregator(FlowAggregator flowAggregator) {
+        this.flowAggregator = flowAggregator;
+    }
+
+    public void setAggregatedFlowQueryService(AggregatedFlowQueryService aggregatedFlowQueryService) {
+        this.aggregatedFlowQueryService = aggregatedFlowQueryService;
+    }
+
+    public void setBulkSize(int bulkSize) {
+        this.bulkSize = bulkSize;
+    }
+
+    public void setBulkFlushIntervalMs(long bulkFlushIntervalMs) {
+        this.bulkFlushIntervalMs = bulkFlushIntervalMs;
+    }
+
+    public void setBulkMaxInFlight(int bulkMaxInFlight) {
+        this.bulkMaxInFlight = bulkMaxInFlight;
+    }
+
+    public void setBulkQueueCapacity(int bulkQueueCapacity) {
+        this.bulkQueueCapacity = bulkQueueCapacity;
+    }
+
     private static boolean isIngress(TermsAggregation.Entry entry) {
         final String directionAsString = entry.getKeyAsString();
         if (Direction.INGRESS.name().equalsIgnoreCase(directionAsString)) {
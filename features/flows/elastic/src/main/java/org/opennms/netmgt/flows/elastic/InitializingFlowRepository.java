@@ -28,6 +28,7 @@
 
 package org.opennms.netmgt.flows.elastic;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -42,6 +43,7 @@ import org.opennms.netmgt.flows.api.FlowSource;
 import org.opennms.netmgt.flows.api.TrafficSummary;
 import org.opennms.netmgt.flows.filter.api.Filter;
 import org.opennms.plugins.elasticsearch.rest.template.IndexSettings;
+import org.opennms.plugins.elasticsearch.rest.template.TemplateInitializer;
 import org.osgi.framework.BundleContext;
 
 import com.google.common.collect.Table;
@@ -54,20 +56,21 @@ import io.searchbox.client.JestClient;
  */
 public class InitializingFlowRepository implements FlowRepository {
 
-    private final ElasticFlowRepositoryInitializer initializer;
+    private final List<TemplateInitializer> initializers;
     private final FlowRepository delegate;
 
     public InitializingFlowRepository(final BundleContext bundleContext, final FlowRepository delegate, final JestClient client, final IndexSettings indexSettings) {
-        this(delegate, new ElasticFlowRepositoryInitializer(bundleContext, client, indexSettings));
+        this(delegate, new ElasticFlowRepositoryInitializer(bundleContext, client, indexSettings),
+                new FlowSummaryInitializer(bundleContext, client, indexSettings));
     }
 
     protected InitializingFlowRepository(final FlowRepository delegate, final JestClient client) {
-        this(delegate, new ElasticFlowRepositoryInitializer(client));
+        this(delegate, new ElasticFlowRepositoryInitializer(client), new FlowSummaryInitializer(client));
     }
 
-    private InitializingFlowRepository(final FlowRepository delegate, final ElasticFlowRepositoryInitializer initializer) {
+    private InitializingFlowRepository(final FlowRepository delegate, final TemplateInitializer... initializers) {
         this.delegate = Objects.requireNonNull(delegate);
-        this.initializer = Objects.requireNonNull(initializer);
+        this.initializers = Arrays.asList(initializers);
     }
 
     @Override
@@ -102,8 +105,10 @@ public class InitializingFlowRepository implements FlowRepository {
     }
 
     private void ensureInitialized() {
-        if (!initializer.isInitialized()) {
-            initializer.initialize();
+        for (TemplateInitializer initializer : initializers) {
+            if (!initializer.isInitialized()) {
+                initializer.initialize();
+            }
         }
     }
 
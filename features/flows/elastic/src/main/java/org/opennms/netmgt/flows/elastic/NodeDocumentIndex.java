@@ -0,0 +1,390 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.opennms.core.criteria.CriteriaBuilder;
+import org.opennms.core.criteria.Fetch;
+import org.opennms.core.utils.InetAddressUtils;
+import org.opennms.netmgt.dao.api.InterfaceToNodeCache;
+import org.opennms.netmgt.dao.api.NodeDao;
+import org.opennms.netmgt.events.api.EventConstants;
+import org.opennms.netmgt.events.api.EventListener;
+import org.opennms.netmgt.events.api.EventSubscriptionService;
+import org.opennms.netmgt.model.OnmsCategory;
+import org.opennms.netmgt.model.OnmsIpInterface;
+import org.opennms.netmgt.model.OnmsNode;
+import org.opennms.netmgt.model.PrimaryType;
+import org.opennms.netmgt.xml.event.Event;
+import org.opennms.netmgt.xml.event.Parm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Index of the {@link NodeDocument}s used to enrich flows, by location and IP address.
+ *
+ * All nodes are loaded in bulk when the index is initialized, and kept up to date by listening for
+ * node and interface events. The documents are shared by all the addresses of a node.
+ *
+ * If an address is not indexed, the {@link InterfaceToNodeCache} is consulted, which is kept in memory as well.
+ * If the address is known by the latter, the index was stale and the node is loaded from the database.
+ *
+ * When no {@link EventSubscriptionService} is available (i.e. on Sentinel), the index is reloaded periodically.
+ */
+public class NodeDocumentIndex implements EventListener {
+    private static final Logger LOG = LoggerFactory.getLogger(NodeDocumentIndex.class);
+
+    protected static final List<String> UEIS = Lists.newArrayList(
+            EventConstants.NODE_ADDED_EVENT_UEI,
+            EventConstants.NODE_UPDATED_EVENT_UEI,
+            EventConstants.NODE_DELETED_EVENT_UEI,
+            EventConstants.NODE_CATEGORY_MEMBERSHIP_CHANGED_EVENT_UEI,
+            EventConstants.NODE_GAINED_INTERFACE_EVENT_UEI,
+            EventConstants.INTERFACE_DELETED_EVENT_UEI,
+            EventConstants.INTERFACE_REPARENTED_EVENT_UEI);
+
+    private final NodeDao nodeDao;
+
+    private final InterfaceToNodeCache interfaceToNodeCache;
+
+    private final TransactionOperations transactionOperations;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    // The keys of each node, used to update the entries of a single node
+    private final Map<Integer, Set<Key>> nodeKeys = new ConcurrentHashMap<>();
+
+    private final Meter hits;
+
+    private final Meter misses;
+
+    private final Meter stale;
+
+    private final Timer indexLoadTimer;
+
+    private final Timer nodeLoadTimer;
+
+    private long reloadInterval = TimeUnit.MINUTES.toSeconds(5);
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile EventSubscriptionService eventSubscriptionService;
+
+    public NodeDocumentIndex(MetricRegistry metricRegistry, NodeDao nodeDao, InterfaceToNodeCache interfaceToNodeCache,
+                             TransactionOperations transactionOperations) {
+        this.nodeDao = Objects.requireNonNull(nodeDao);
+        this.interfaceToNodeCache = Objects.requireNonNull(interfaceToNodeCache);
+        this.transactionOperations = Objects.requireNonNull(transactionOperations);
+
+        this.hits = metricRegistry.meter("nodeIndexHits");
+        this.misses = metricRegistry.meter("nodeIndexMisses");
+        this.stale = metricRegistry.meter("nodeIndexStale");
+        this.indexLoadTimer = metricRegistry.timer("nodeIndexLoadTime");
+        this.nodeLoadTimer = metricRegistry.timer("nodeLoadTime");
+        metricRegistry.register("nodeIndexSize", (Gauge<Integer>) entries::size);
+    }
+
+    public void init() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            // The index is populated on demand, and reloaded later
+            LOG.error("Failed to load the node index. Nodes will be loaded on demand.", e);
+        }
+
+        if (reloadInterval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("flow-node-index-reload")
+                    .setDaemon(true)
+                    .build());
+            scheduler.scheduleWithFixedDelay(() -> {
+                // The index is kept up to date by events if possible
+                if (eventSubscriptionService != null) {
+                    return;
+                }
+                try {
+                    load();
+                } catch (RuntimeException e) {
+                    LOG.error("Failed to reload the node index.", e);
+                }
+            }, reloadInterval, reloadInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        unbind(eventSubscriptionService);
+    }
+
+    /**
+     * Loads all nodes with their interfaces and categories in a single query, and replaces the indexed nodes.
+     */
+    public void load() {
+        try (Timer.Context ctx = indexLoadTimer.time()) {
+            final List<OnmsNode> nodes = transactionOperations.execute(status -> {
+                final CriteriaBuilder builder = new CriteriaBuilder(OnmsNode.class);
+                builder.ne("type", String.valueOf(OnmsNode.NodeType.DELETED.value()));
+                builder.fetch("location", Fetch.FetchType.EAGER);
+                builder.fetch("ipInterfaces", Fetch.FetchType.EAGER);
+                builder.fetch("categories", Fetch.FetchType.EAGER);
+                builder.distinct();
+                final List<OnmsNode> result = nodeDao.findMatching(builder.toCriteria());
+                // Build the documents while the session is still open
+                result.forEach(this::update);
+                return result;
+            });
+
+            // Remove the nodes which are gone
+            final Set<Integer> nodeIds = nodes.stream().map(OnmsNode::getId).collect(Collectors.toSet());
+            for (Integer nodeId : Lists.newArrayList(nodeKeys.keySet())) {
+                if (!nodeIds.contains(nodeId)) {
+                    remove(nodeId);
+                }
+            }
+            LOG.info("Loaded {} addresses of {} nodes into the node index.", entries.size(), nodeIds.size());
+        }
+    }
+
+    /**
+     * Must be called from within a transaction if the index is stale, as the node will be loaded in this case.
+     */
+    public Optional<NodeDocument> get(String location, String ipAddress) {
+        final InetAddress inetAddress = InetAddressUtils.addr(ipAddress);
+        final Entry entry = entries.get(new Key(location, inetAddress));
+        if (entry != null) {
+            hits.mark();
+            return Optional.of(entry.document);
+        }
+
+        final Optional<Integer> nodeId = interfaceToNodeCache.getFirstNodeId(location, inetAddress);
+        if (!nodeId.isPresent()) {
+            misses.mark();
+            return Optional.empty();
+        }
+
+        // The node is known, but was not indexed (yet)
+        stale.mark();
+        try (Timer.Context ctx = nodeLoadTimer.time()) {
+            final OnmsNode node = nodeDao.get(nodeId.get());
+            if (node == null) {
+                LOG.warn("Node with id: {} at location: {} with IP address: {} is in the interface to node cache, but wasn't found in the database.",
+                        nodeId.get(), location, ipAddress);
+                return Optional.empty();
+            }
+            return Optional.of(update(node));
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void setReloadInterval(long reloadInterval) {
+        this.reloadInterval = reloadInterval;
+    }
+
+    public void bind(EventSubscriptionService eventSubscriptionService) {
+        if (eventSubscriptionService != null) {
+            eventSubscriptionService.addEventListener(this, UEIS);
+            this.eventSubscriptionService = eventSubscriptionService;
+        }
+    }
+
+    public void unbind(EventSubscriptionService eventSubscriptionService) {
+        if (eventSubscriptionService != null) {
+            eventSubscriptionService.removeEventListener(this, UEIS);
+            this.eventSubscriptionService = null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NodeDocumentIndex.class.getName();
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        if (EventConstants.INTERFACE_REPARENTED_EVENT_UEI.equals(event.getUei())) {
+            refresh(getIntParm(event, EventConstants.PARM_OLD_NODEID));
+            refresh(getIntParm(event, EventConstants.PARM_NEW_NODEID));
+        } else if (EventConstants.NODE_DELETED_EVENT_UEI.equals(event.getUei())) {
+            if (event.hasNodeid()) {
+                remove(event.getNodeid().intValue());
+            }
+        } else if (event.hasNodeid()) {
+            refresh(event.getNodeid().intValue());
+        }
+    }
+
+    private void refresh(Integer nodeId) {
+        if (nodeId == null) {
+            return;
+        }
+        try {
+            transactionOperations.execute(status -> {
+                final OnmsNode node = nodeDao.get(nodeId);
+                if (node == null) {
+                    remove(nodeId);
+                } else {
+                    update(node);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // Remove the node, so it is loaded on demand
+            LOG.warn("Failed to refresh node with id: {} in the node index.", nodeId, e);
+            remove(nodeId);
+        }
+    }
+
+    private synchronized NodeDocument update(OnmsNode node) {
+        final NodeDocument document = new NodeDocument();
+        document.setForeignSource(node.getForeignSource());
+        document.setForeignId(node.getForeignId());
+        document.setNodeId(node.getId());
+        document.setCategories(node.getCategories().stream().map(OnmsCategory::getName).collect(Collectors.toList()));
+
+        final String location = node.getLocation() != null ? node.getLocation().getLocationName() : null;
+        final Set<Key> keys = new HashSet<>();
+        for (OnmsIpInterface iface : node.getIpInterfaces()) {
+            // Skip deleted interfaces
+            if ("D".equals(iface.getIsManaged()) || iface.getIpAddress() == null) {
+                continue;
+            }
+            final Key key = new Key(location, iface.getIpAddress());
+            final Entry entry = new Entry(document, iface.getIsSnmpPrimary());
+            // If multiple nodes share an address, prefer the same node as the InterfaceToNodeCache does
+            entries.merge(key, entry, (existing, updated) ->
+                    existing.document.getNodeId().equals(updated.document.getNodeId()) || updated.compareTo(existing) < 0 ? updated : existing);
+            keys.add(key);
+        }
+
+        final Set<Key> previousKeys = nodeKeys.put(node.getId(), keys);
+        if (previousKeys != null) {
+            previousKeys.removeAll(keys);
+            removeEntries(node.getId(), previousKeys);
+        }
+        return document;
+    }
+
+    private synchronized void remove(int nodeId) {
+        final Set<Key> keys = nodeKeys.remove(nodeId);
+        if (keys != null) {
+            removeEntries(nodeId, keys);
+        }
+    }
+
+    // Only removes the entries which are owned by the given node
+    private void removeEntries(int nodeId, Set<Key> keys) {
+        for (Key key : keys) {
+            entries.computeIfPresent(key, (k, entry) -> entry.document.getNodeId() == nodeId ? null : entry);
+        }
+    }
+
+    private static Integer getIntParm(Event event, String name) {
+        final Parm parm = event.getParm(name);
+        if (parm == null || parm.getValue() == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(parm.getValue().getContent());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final NodeDocument document;
+
+        private final PrimaryType primaryType;
+
+        private Entry(NodeDocument document, PrimaryType primaryType) {
+            this.document = document;
+            this.primaryType = primaryType != null ? primaryType : PrimaryType.NOT_ELIGIBLE;
+        }
+
+        @Override
+        public int compareTo(Entry that) {
+            final int result = primaryType.compareTo(that.primaryType);
+            return result != 0 ? result : Integer.compare(document.getNodeId(), that.document.getNodeId());
+        }
+    }
+
+    // Uses the raw address to keep the index small
+    private static class Key {
+        private final String location;
+
+        private final byte[] address;
+
+        private final int hashCode;
+
+        private Key(String location, InetAddress address) {
+            this.location = location;
+            this.address = address.getAddress();
+            this.hashCode = 31 * Objects.hashCode(location) + Arrays.hashCode(this.address);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key that = (Key) o;
+            return Objects.equals(location, that.location) &&
+                   Arrays.equals(address, that.address);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic.aggregate;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import org.opennms.netmgt.flows.api.Directional;
+import org.opennms.netmgt.flows.api.TrafficSummary;
+import org.opennms.netmgt.flows.elastic.ElasticFlowRepository;
+import org.opennms.netmgt.flows.elastic.SearchQueryProvider;
+import org.opennms.netmgt.flows.elastic.index.IndexSelector;
+import org.opennms.netmgt.flows.filter.api.ExporterNodeFilter;
+import org.opennms.netmgt.flows.filter.api.Filter;
+import org.opennms.netmgt.flows.filter.api.SnmpInterfaceIdFilter;
+import org.opennms.netmgt.flows.filter.api.TimeRangeFilter;
+import org.opennms.plugins.elasticsearch.rest.index.IndexStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Table;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateExceptionHandler;
+
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResultHandler;
+import io.searchbox.core.Search;
+import io.searchbox.core.SearchResult;
+import io.searchbox.core.search.aggregation.DateHistogramAggregation;
+import io.searchbox.core.search.aggregation.FilterAggregation;
+import io.searchbox.core.search.aggregation.MetricAggregation;
+import io.searchbox.core.search.aggregation.SumAggregation;
+import io.searchbox.core.search.aggregation.TermsAggregation;
+
+/**
+ * Answers top N queries from the {@link FlowSummary} documents persisted by the {@link FlowAggregator}.
+ *
+ * Summaries are only used for queries on a single interface of an exporter which span at least
+ * the query threshold. The traffic of the windows overlapping the start and end of the time range is
+ * fully accounted, and the most recent windows are only available once they were flushed.
+ */
+public class AggregatedFlowQueryService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AggregatedFlowQueryService.class);
+
+    /**
+     * Minimum number of windows a time range must span to be summed up using a given resolution.
+     */
+    private static final int MIN_WINDOWS_PER_RANGE = 24;
+
+    private final JestClient client;
+
+    private final IndexStrategy indexStrategy;
+
+    private final FlowAggregator flowAggregator;
+
+    private final SearchQueryProvider searchQueryProvider = new SearchQueryProvider();
+
+    private final Configuration cfg = new Configuration(Configuration.VERSION_2_3_23);
+
+    private long queryThresholdMs = 21600000;
+
+    public AggregatedFlowQueryService(JestClient client, IndexStrategy indexStrategy, FlowAggregator flowAggregator) {
+        this.client = Objects.requireNonNull(client);
+        this.indexStrategy = Objects.requireNonNull(indexStrategy);
+        this.flowAggregator = Objects.requireNonNull(flowAggregator);
+
+        cfg.setClassForTemplateLoading(getClass(), "");
+        cfg.setDefaultEncoding(StandardCharsets.UTF_8.name());
+        cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+    }
+
+    /**
+     * Determines the resolution of the summaries to use for the given query.
+     *
+     * @param step the length of the steps in the requested series, or 0 if the totals are requested
+     * @return the resolution, or 0 if the query cannot be answered from the summaries
+     */
+    public long getResolution(List<Filter> filters, long step) {
+        if (!flowAggregator.isEnabled()) {
+            return 0;
+        }
+        final TimeRangeFilter timeRange = findFilter(filters, TimeRangeFilter.class);
+        if (timeRange == null
+                || findFilter(filters, ExporterNodeFilter.class) == null
+                || findFilter(filters, SnmpInterfaceIdFilter.class) == null) {
+            return 0;
+        }
+        final long range = timeRange.getEnd() - timeRange.getStart();
+        if (range < queryThresholdMs) {
+            return 0;
+        }
+
+        // Use the coarsest resolution which still fits the requested steps
+        final long maxResolution = step > 0 ? step : range / MIN_WINDOWS_PER_RANGE;
+        long resolution = 0;
+        for (long candidate : flowAggregator.getResolutions()) {
+            if (candidate <= maxResolution) {
+                resolution = candidate;
+            }
+        }
+        return resolution;
+    }
+
+    public CompletableFuture<List<TrafficSummary<String>>> getTotalBytesFromTopN(int N, GroupedBy groupedBy, boolean includeOther,
+                                                                                 List<Filter> filters, long resolution) {
+        if (N < 1 && !includeOther) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        final TimeRangeFilter timeRange = getAlignedTimeRange(filters, resolution);
+        final String query = render("summary_top_n.ftl", ImmutableMap.builder()
+                .putAll(getFilterContext(filters, groupedBy, resolution, timeRange))
+                .put("N", Math.max(N, 1))
+                .build());
+        return searchAsync(query, timeRange).thenApply(res -> {
+            final List<TrafficSummary<String>> summaries = new ArrayList<>();
+            final MetricAggregation aggs = res.getAggregations();
+            if (aggs == null) {
+                // No results
+                return summaries;
+            }
+            long bytesIn = 0;
+            long bytesOut = 0;
+            final TermsAggregation keys = aggs.getFilterAggregation("grouped_by").getTermsAggregation("keys");
+            for (TermsAggregation.Entry bucket : keys.getBuckets()) {
+                if (summaries.size() >= N) {
+                    break;
+                }
+                final TrafficSummary<String> summary = new TrafficSummary<>(bucket.getKey());
+                summary.setBytesIn(getSum(bucket, "bytes_ingress"));
+                summary.setBytesOut(getSum(bucket, "bytes_egress"));
+                bytesIn += summary.getBytesIn();
+                bytesOut += summary.getBytesOut();
+                summaries.add(summary);
+            }
+
+            if (includeOther) {
+                // Everything which is not part of the top N
+                final FilterAggregation total = aggs.getFilterAggregation("total");
+                final TrafficSummary<String> other = new TrafficSummary<>(ElasticFlowRepository.OTHER_APPLICATION_NAME);
+                other.setBytesIn(Math.max(0, getSum(total, "bytes_ingress") - bytesIn));
+                other.setBytesOut(Math.max(0, getSum(total, "bytes_egress") - bytesOut));
+                summaries.add(other);
+            }
+            return summaries;
+        });
+    }
+
+    public CompletableFuture<Table<Directional<String>, Long, Double>> getSeriesFromTopN(int N, long step, GroupedBy groupedBy,
+                                                                                         boolean includeOther, List<Filter> filters,
+                                                                                         long resolution) {
+        return getTotalBytesFromTopN(N, groupedBy, false, filters, resolution).<Table<Directional<String>, Long, Double>>thenCompose(summaries -> {
+            final List<String> topN = new ArrayList<>(summaries.size());
+            summaries.forEach(summary -> topN.add(summary.getEntity()));
+            if (topN.isEmpty() && !includeOther) {
+                // Avoid a query and return an empty table
+                return CompletableFuture.completedFuture(ImmutableTable.<Directional<String>, Long, Double>of());
+            }
+
+            final TimeRangeFilter timeRange = getAlignedTimeRange(filters, resolution);
+            final String query = render("summary_series.ftl", ImmutableMap.builder()
+                    .putAll(getFilterContext(filters, groupedBy, resolution, timeRange))
+                    .put("topN", topN)
+                    .put("step", step)
+                    .build());
+            return searchAsync(query, timeRange).thenApply(res -> toTable(res, topN, includeOther));
+        });
+    }
+
+    private static Table<Directional<String>, Long, Double> toTable(SearchResult res, List<String> topN, boolean includeOther) {
+        final ImmutableTable.Builder<Directional<String>, Long, Double> builder = ImmutableTable.builder();
+        final MetricAggregation aggs = res.getAggregations();
+        if (aggs == null) {
+            // No results
+            return builder.build();
+        }
+
+        // Add the rows in the same order as the top N
+        final Map<String, TermsAggregation.Entry> bucketsByKey = new HashMap<>();
+        for (TermsAggregation.Entry bucket : aggs.getFilterAggregation("grouped_by").getTermsAggregation("keys").getBuckets()) {
+            bucketsByKey.put(bucket.getKey(), bucket);
+        }
+        final Map<Long, long[]> topNSums = new HashMap<>();
+        for (String key : topN) {
+            final TermsAggregation.Entry bucket = bucketsByKey.get(key);
+            if (bucket == null) {
+                continue;
+            }
+            for (DateHistogramAggregation.DateHistogram histogram : bucket.getDateHistogramAggregation("series").getBuckets()) {
+                final long bytesIn = getSum(histogram, "bytes_ingress");
+                final long bytesOut = getSum(histogram, "bytes_egress");
+                builder.put(new Directional<>(key, true), histogram.getTime(), (double) bytesIn);
+                builder.put(new Directional<>(key, false), histogram.getTime(), (double) bytesOut);
+                final long[] sums = topNSums.computeIfAbsent(histogram.getTime(), t -> new long[2]);
+                sums[0] += bytesIn;
+                sums[1] += bytesOut;
+            }
+        }
+
+        if (includeOther) {
+            for (DateHistogramAggregation.DateHistogram histogram : aggs.getFilterAggregation("total").getDateHistogramAggregation("series").getBuckets()) {
+                final long[] sums = topNSums.getOrDefault(histogram.getTime(), new long[2]);
+                builder.put(new Directional<>(ElasticFlowRepository.OTHER_APPLICATION_NAME, true), histogram.getTime(),
+                        (double) Math.max(0, getSum(histogram, "bytes_ingress") - sums[0]));
+                builder.put(new Directional<>(ElasticFlowRepository.OTHER_APPLICATION_NAME, false), histogram.getTime(),
+                        (double) Math.max(0, getSum(histogram, "bytes_egress") - sums[1]));
+            }
+        }
+        return builder.build();
+    }
+
+    private Map<String, Object> getFilterContext(List<Filter> filters, GroupedBy groupedBy, long resolution, TimeRangeFilter timeRange) {
+        final List<String> exporterFilters = new ArrayList<>();
+        for (Filter filter : filters) {
+            if (filter instanceof ExporterNodeFilter) {
+                exporterFilters.add(searchQueryProvider.visit((ExporterNodeFilter) filter));
+            }
+        }
+        return ImmutableMap.<String, Object>builder()
+                .put("filters", exporterFilters)
+                .put("resolution", resolution)
+                .put("ifIndex", findFilter(filters, SnmpInterfaceIdFilter.class).getSnmpInterfaceId())
+                .put("groupedBy", groupedBy.getValue())
+                .put("start", timeRange.getStart())
+                .put("end", timeRange.getEnd())
+                .build();
+    }
+
+    /**
+     * Expands the start of the time range to include the window it falls into.
+     */
+    private static TimeRangeFilter getAlignedTimeRange(List<Filter> filters, long resolution) {
+        final TimeRangeFilter timeRange = findFilter(filters, TimeRangeFilter.class);
+        return new TimeRangeFilter(timeRange.getStart() - Math.floorMod(timeRange.getStart(), resolution), timeRange.getEnd());
+    }
+
+    private static long getSum(MetricAggregation aggregation, String name) {
+        final SumAggregation sum = aggregation.getSumAggregation(name);
+        if (sum == null || sum.getSum() == null) {
+            return 0;
+        }
+        return sum.getSum().longValue();
+    }
+
+    private static <T extends Filter> T findFilter(List<Filter> filters, Class<T> clazz) {
+        return filters.stream()
+                .filter(clazz::isInstance)
+                .map(clazz::cast)
+                .findFirst().orElse(null);
+    }
+
+    private String render(String templateName, Map<Object, Object> context) {
+        try {
+            final StringWriter writer = new StringWriter();
+            final Template template = cfg.getTemplate(templateName);
+            template.process(context, writer);
+            return writer.toString();
+        } catch (IOException|TemplateException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private CompletableFuture<SearchResult> searchAsync(String query, TimeRangeFilter timeRangeFilter) {
+        final List<String> indices = new IndexSelector(FlowAggregator.TYPE, indexStrategy, 0).getIndexNames(timeRangeFilter);
+        final Search search = new Search.Builder(query)
+                .addType(FlowAggregator.TYPE)
+                .addIndices(indices)
+                .setParameter("ignore_unavailable", "true") // ignore unknown index
+                .build();
+        LOG.debug("Executing asynchronous query on {}: {}", indices, query);
+
+        final CompletableFuture<SearchResult> future = new CompletableFuture<>();
+        client.executeAsync(search, new JestResultHandler<SearchResult>() {
+            @Override
+            public void completed(SearchResult result) {
+                if (!result.isSucceeded()) {
+                    future.completeExceptionally(new Exception(result.getErrorMessage()));
+                } else {
+                    future.complete(result);
+                }
+            }
+            @Override
+            public void failed(Exception ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        return future;
+    }
+
+    public void setQueryThresholdMs(long queryThresholdMs) {
+        this.queryThresholdMs = queryThresholdMs;
+    }
+}
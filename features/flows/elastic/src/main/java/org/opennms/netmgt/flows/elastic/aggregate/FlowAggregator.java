@@ -0,0 +1,469 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic.aggregate;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.opennms.netmgt.flows.elastic.Direction;
+import org.opennms.netmgt.flows.elastic.ElasticFlowRepository;
+import org.opennms.netmgt.flows.elastic.FlowDocument;
+import org.opennms.netmgt.flows.elastic.NodeDocument;
+import org.opennms.plugins.elasticsearch.rest.bulk.BulkException;
+import org.opennms.plugins.elasticsearch.rest.bulk.BulkRequest;
+import org.opennms.plugins.elasticsearch.rest.bulk.BulkWrapper;
+import org.opennms.plugins.elasticsearch.rest.index.IndexStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Splitter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.Index;
+
+/**
+ * Rolls up the persisted flows into {@link FlowSummary} documents, which can be
+ * queried instead of the flows themselves when looking at long time ranges.
+ *
+ * The traffic of each interface of an exporter is tracked in windows of fixed length, one set of
+ * windows for every configured resolution. The top K applications and conversations of each window
+ * are tracked with a {@link TopKSketch}, so the memory used is bounded by the number of interfaces.
+ *
+ * Windows are persisted once no more flows are expected for them, that is after the end of the
+ * window plus the flush delay. Flows arriving later on open a new window for the same range, which
+ * is persisted as a separate set of summaries.
+ *
+ * Summaries which could not be persisted are retried with the next flush. At most
+ * {@link #setMaxPendingSummaries(int)} summaries are kept for this, the oldest ones are dropped first.
+ */
+public class FlowAggregator {
+
+    public static final String TYPE = "netflow_agg";
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlowAggregator.class);
+
+    /**
+     * Flows spanning more windows than this are accounted to the window they ended in.
+     */
+    private static final int MAX_WINDOWS_PER_FLOW = 100;
+
+    private final JestClient client;
+
+    private final IndexStrategy indexStrategy;
+
+    private final int bulkRetryCount;
+
+    private final Map<WindowKey, Window> windows = new HashMap<>();
+
+    private final Deque<FlowSummary> pendingSummaries = new ArrayDeque<>();
+
+    private final Meter flowsAggregatedMeter;
+
+    private final Meter summariesPersistedMeter;
+
+    private final Meter summariesDroppedMeter;
+
+    private final Timer flushTimer;
+
+    private boolean enabled = false;
+
+    private List<Long> resolutions = Collections.emptyList();
+
+    private int topK = 100;
+
+    private long flushDelayMs = 120000;
+
+    private long flushIntervalMs = 10000;
+
+    private int maxPendingSummaries = 100000;
+
+    private ScheduledExecutorService scheduler;
+
+    public FlowAggregator(MetricRegistry metricRegistry, JestClient client, IndexStrategy indexStrategy, int bulkRetryCount) {
+        this.client = Objects.requireNonNull(client);
+        this.indexStrategy = Objects.requireNonNull(indexStrategy);
+        this.bulkRetryCount = bulkRetryCount;
+
+        this.flowsAggregatedMeter = metricRegistry.meter("flowsAggregated");
+        this.summariesPersistedMeter = metricRegistry.meter("summariesPersisted");
+        this.summariesDroppedMeter = metricRegistry.meter("summariesDropped");
+        this.flushTimer = metricRegistry.timer("summaryFlush");
+        metricRegistry.register("summaryWindows", (Gauge<Integer>) () -> {
+            synchronized (windows) {
+                return windows.size();
+            }
+        });
+        metricRegistry.register("summariesPending", (Gauge<Integer>) () -> {
+            synchronized (pendingSummaries) {
+                return pendingSummaries.size();
+            }
+        });
+    }
+
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (resolutions.isEmpty()) {
+            LOG.warn("No resolutions are configured. Flows will not be aggregated.");
+            enabled = false;
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("flow-aggregator-flush")
+                .setDaemon(true)
+                .build());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.error("Flushing the flow summaries failed.", e);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void destroy() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Persist what we have, the summaries of a range are added up when queried
+        flush(Long.MAX_VALUE);
+    }
+
+    public void aggregate(List<FlowDocument> flowDocuments) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (windows) {
+            for (FlowDocument flow : flowDocuments) {
+                aggregate(flow);
+            }
+        }
+        flowsAggregatedMeter.mark(flowDocuments.size());
+    }
+
+    private void aggregate(FlowDocument flow) {
+        final NodeDocument exporter = flow.getNodeExporter();
+        if (exporter == null || exporter.getNodeId() == null || flow.getBytes() == null) {
+            return;
+        }
+        // Account the flow to the same interface as the SNMP interface filter does
+        final boolean ingress = flow.getDirection() != Direction.EGRESS;
+        final Integer ifIndex = ingress ? flow.getInputSnmp() : flow.getOutputSnmp();
+        if (ifIndex == null) {
+            return;
+        }
+
+        long bytes = flow.getBytes();
+        if (flow.getSamplingInterval() != null && flow.getSamplingInterval() > 0) {
+            bytes = (long) (bytes * flow.getSamplingInterval());
+        }
+        final long lastSwitched = flow.getLastSwitched() != null ? flow.getLastSwitched() : flow.getTimestamp();
+        final long firstSwitched = flow.getFirstSwitched() != null ? Math.min(flow.getFirstSwitched(), lastSwitched) : lastSwitched;
+        final String application = flow.getApplication() != null ? flow.getApplication() : ElasticFlowRepository.UNKNOWN_APPLICATION_NAME;
+
+        for (long resolution : resolutions) {
+            final long firstWindow = firstSwitched - Math.floorMod(firstSwitched, resolution);
+            // The last switched time is exclusive, unless the flow has no duration
+            final long end = lastSwitched > firstSwitched ? lastSwitched - 1 : lastSwitched;
+            final long lastWindow = end - Math.floorMod(end, resolution);
+            if (firstWindow == lastWindow || (lastWindow - firstWindow) / resolution >= MAX_WINDOWS_PER_FLOW) {
+                getWindow(resolution, lastWindow, exporter, ifIndex).add(application, flow.getConvoKey(), bytes, ingress);
+                continue;
+            }
+
+            // Split the bytes proportionally over the windows the flow spans
+            final long duration = lastSwitched - firstSwitched;
+            long remaining = bytes;
+            for (long start = firstWindow; start <= lastWindow; start += resolution) {
+                final long portion;
+                if (start == lastWindow) {
+                    portion = remaining;
+                } else {
+                    final long overlap = Math.min(start + resolution, lastSwitched) - Math.max(start, firstSwitched);
+                    portion = (long) (bytes * (overlap / (double) duration));
+                }
+                remaining -= portion;
+                getWindow(resolution, start, exporter, ifIndex).add(application, flow.getConvoKey(), portion, ingress);
+            }
+        }
+    }
+
+    private Window getWindow(long resolution, long start, NodeDocument exporter, int ifIndex) {
+        return windows.computeIfAbsent(new WindowKey(resolution, start, exporter.getNodeId(), ifIndex),
+                key -> new Window(key, exporter, topK));
+    }
+
+    /**
+     * Persists the summaries of all windows which ended at least flush delay before the given time,
+     * together with the summaries which failed to persist before.
+     */
+    public void flush(long now) {
+        final List<FlowSummary> summaries = new ArrayList<>();
+        synchronized (pendingSummaries) {
+            summaries.addAll(pendingSummaries);
+            pendingSummaries.clear();
+        }
+        try (final Timer.Context ctx = flushTimer.time()) {
+            summaries.addAll(collect(now));
+            if (summaries.isEmpty()) {
+                return;
+            }
+            LOG.debug("Persisting {} flow summaries.", summaries.size());
+            final BulkRequest<FlowSummary> bulkRequest = new BulkRequest<>(client, summaries, (documents) -> {
+                final Bulk.Builder bulkBuilder = new Bulk.Builder();
+                for (FlowSummary summary : documents) {
+                    final String index = indexStrategy.getIndex(TYPE, Instant.ofEpochMilli(summary.getTimestamp()));
+                    bulkBuilder.addAction(new Index.Builder(summary)
+                            .index(index)
+                            .type(TYPE)
+                            .build());
+                }
+                return new BulkWrapper(bulkBuilder);
+            }, bulkRetryCount);
+            bulkRequest.execute();
+            summariesPersistedMeter.mark(summaries.size());
+        } catch (BulkException ex) {
+            // The bulk result is only available if the request was answered
+            @SuppressWarnings("unchecked")
+            final List<FlowSummary> failed = ex.getBulkResult() != null ? ex.getBulkResult().getFailedDocuments() : Collections.emptyList();
+            if (failed.isEmpty()) {
+                LOG.error("Failed to persist the flow summaries: {}", ex.getMessage(), ex);
+                retry(summaries);
+            } else {
+                LOG.error("Failed to persist {} of the flow summaries: {}", failed.size(), ex.getMessage());
+                summariesPersistedMeter.mark(summaries.size() - failed.size());
+                retry(failed);
+            }
+        } catch (IOException ex) {
+            LOG.error("An error occurred while persisting the flow summaries: {}", ex.getMessage(), ex);
+            retry(summaries);
+        }
+    }
+
+    private void retry(List<FlowSummary> summaries) {
+        synchronized (pendingSummaries) {
+            // Summaries collected in the meantime go after the ones we are retrying
+            for (int i = summaries.size() - 1; i >= 0; i--) {
+                pendingSummaries.addFirst(summaries.get(i));
+            }
+            int dropped = 0;
+            while (pendingSummaries.size() > maxPendingSummaries) {
+                pendingSummaries.removeFirst();
+                dropped++;
+            }
+            if (dropped > 0) {
+                LOG.warn("Dropped {} flow summaries which could not be persisted.", dropped);
+                summariesDroppedMeter.mark(dropped);
+            }
+        }
+    }
+
+    protected List<FlowSummary> collect(long now) {
+        final List<Window> completed = new ArrayList<>();
+        synchronized (windows) {
+            final Iterator<Window> it = windows.values().iterator();
+            while (it.hasNext()) {
+                final Window window = it.next();
+                if (now == Long.MAX_VALUE || window.key.start + window.key.resolution + flushDelayMs <= now) {
+                    completed.add(window);
+                    it.remove();
+                }
+            }
+        }
+        return completed.stream()
+                .flatMap(window -> window.toSummaries().stream())
+                .collect(Collectors.toList());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Long> getResolutions() {
+        return resolutions;
+    }
+
+    public void setResolutions(List<Long> resolutions) {
+        this.resolutions = resolutions.stream()
+                .filter(r -> r > 0)
+                .sorted()
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sets the resolutions from a comma separated list of milliseconds.
+     */
+    public void setResolutionsMs(String resolutions) {
+        setResolutions(Splitter.on(',').trimResults().omitEmptyStrings().splitToList(resolutions).stream()
+                .map(Long::parseLong)
+                .collect(Collectors.toList()));
+    }
+
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+
+    public void setFlushDelayMs(long flushDelayMs) {
+        this.flushDelayMs = flushDelayMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public void setMaxPendingSummaries(int maxPendingSummaries) {
+        this.maxPendingSummaries = maxPendingSummaries;
+    }
+
+    private static class WindowKey {
+        private final long resolution;
+        private final long start;
+        private final int nodeId;
+        private final int ifIndex;
+
+        private WindowKey(long resolution, long start, int nodeId, int ifIndex) {
+            this.resolution = resolution;
+            this.start = start;
+            this.nodeId = nodeId;
+            this.ifIndex = ifIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final WindowKey that = (WindowKey) o;
+            return resolution == that.resolution
+                    && start == that.start
+                    && nodeId == that.nodeId
+                    && ifIndex == that.ifIndex;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(resolution, start, nodeId, ifIndex);
+        }
+    }
+
+    private static class Window {
+        private final WindowKey key;
+        private final NodeDocument exporter;
+        private final TopKSketch<String> applications;
+        private final TopKSketch<String> conversations;
+        private long bytesIn;
+        private long bytesOut;
+
+        private Window(WindowKey key, NodeDocument exporter, int topK) {
+            this.key = key;
+            // Only keep what is needed to filter by exporter
+            this.exporter = new NodeDocument();
+            this.exporter.setNodeId(exporter.getNodeId());
+            this.exporter.setForeignSource(exporter.getForeignSource());
+            this.exporter.setForeignId(exporter.getForeignId());
+            this.applications = new TopKSketch<>(topK);
+            this.conversations = new TopKSketch<>(topK);
+        }
+
+        private void add(String application, String convoKey, long bytes, boolean ingress) {
+            if (ingress) {
+                bytesIn += bytes;
+            } else {
+                bytesOut += bytes;
+            }
+            applications.add(application, bytes, ingress);
+            if (convoKey != null) {
+                conversations.add(convoKey, bytes, ingress);
+            }
+        }
+
+        private List<FlowSummary> toSummaries() {
+            final List<FlowSummary> summaries = new ArrayList<>(1 + applications.size() + conversations.size());
+            final FlowSummary total = newSummary(GroupedBy.TOTAL, null);
+            total.setBytesIngress(bytesIn);
+            total.setBytesEgress(bytesOut);
+            total.setBytesTotal(bytesIn + bytesOut);
+            summaries.add(total);
+            addSummaries(summaries, GroupedBy.APPLICATION, applications);
+            addSummaries(summaries, GroupedBy.CONVERSATION, conversations);
+            return summaries;
+        }
+
+        private void addSummaries(List<FlowSummary> summaries, GroupedBy groupedBy, TopKSketch<String> sketch) {
+            for (TopKSketch.Counter<String> counter : sketch.getTopK()) {
+                final FlowSummary summary = newSummary(groupedBy, counter.getKey());
+                summary.setBytesIngress(counter.getBytesIn());
+                summary.setBytesEgress(counter.getBytesOut());
+                summary.setBytesTotal(counter.getCount());
+                summaries.add(summary);
+            }
+        }
+
+        private FlowSummary newSummary(GroupedBy groupedBy, String key) {
+            final FlowSummary summary = new FlowSummary();
+            summary.setTimestamp(this.key.start);
+            summary.setRange(this.key.resolution);
+            summary.setNodeExporter(exporter);
+            summary.setIfIndex(this.key.ifIndex);
+            summary.setGroupedBy(groupedBy);
+            summary.setKey(key);
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic.aggregate;
+
+import org.opennms.netmgt.flows.elastic.NodeDocument;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Summarizes the traffic of a single key on an interface of an exporter
+ * over a fixed time range.
+ *
+ * Member variables are sorted by the value of the @SerializedName annotation.
+ */
+public class FlowSummary {
+    private static final int DOCUMENT_VERSION = 1;
+
+    /**
+     * Start of the time range in milliseconds.
+     */
+    @SerializedName("@timestamp")
+    private long timestamp;
+
+    /**
+     * Schema version.
+     */
+    @SerializedName("@version")
+    private Integer version = DOCUMENT_VERSION;
+
+    /**
+     * Number of bytes sent on the interface.
+     */
+    @SerializedName("bytes_egress")
+    private long bytesEgress;
+
+    /**
+     * Number of bytes received on the interface.
+     */
+    @SerializedName("bytes_ingress")
+    private long bytesIngress;
+
+    /**
+     * Number of bytes used to rank the keys, may be an over-estimate.
+     */
+    @SerializedName("bytes_total")
+    private long bytesTotal;
+
+    /**
+     * The term of the flows which is summarized.
+     */
+    @SerializedName("grouped_by")
+    private GroupedBy groupedBy;
+
+    /**
+     * SNMP interface index on the exporter.
+     */
+    @SerializedName("if_index")
+    private Integer ifIndex;
+
+    /**
+     * Value of the summarized term, i.e. the application name.
+     */
+    @SerializedName("key")
+    private String key;
+
+    /**
+     * Exporter node.
+     */
+    @SerializedName("node_exporter")
+    private NodeDocument nodeExporter;
+
+    /**
+     * Length of the time range in milliseconds.
+     */
+    @SerializedName("range")
+    private long range;
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public long getBytesEgress() {
+        return bytesEgress;
+    }
+
+    public void setBytesEgress(long bytesEgress) {
+        this.bytesEgress = bytesEgress;
+    }
+
+    public long getBytesIngress() {
+        return bytesIngress;
+    }
+
+    public void setBytesIngress(long bytesIngress) {
+        this.bytesIngress = bytesIngress;
+    }
+
+    public long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    public void setBytesTotal(long bytesTotal) {
+        this.bytesTotal = bytesTotal;
+    }
+
+    public GroupedBy getGroupedBy() {
+        return groupedBy;
+    }
+
+    public void setGroupedBy(GroupedBy groupedBy) {
+        this.groupedBy = groupedBy;
+    }
+
+    public Integer getIfIndex() {
+        return ifIndex;
+    }
+
+    public void setIfIndex(Integer ifIndex) {
+        this.ifIndex = ifIndex;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public NodeDocument getNodeExporter() {
+        return nodeExporter;
+    }
+
+    public void setNodeExporter(NodeDocument nodeExporter) {
+        this.nodeExporter = nodeExporter;
+    }
+
+    public long getRange() {
+        return range;
+    }
+
+    public void setRange(long range) {
+        this.range = range;
+    }
+}
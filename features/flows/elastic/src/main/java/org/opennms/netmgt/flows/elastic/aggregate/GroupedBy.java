@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic.aggregate;
+
+import com.google.gson.annotations.SerializedName;
+
+public enum GroupedBy {
+    /**
+     * Traffic of all flows on the interface.
+     */
+    @SerializedName("total")
+    TOTAL("total", null),
+    @SerializedName("application")
+    APPLICATION("application", "netflow.application"),
+    @SerializedName("conversation")
+    CONVERSATION("conversation", "netflow.convo_key");
+
+    private final String value;
+
+    private final String flowTerm;
+
+    GroupedBy(String value, String flowTerm) {
+        this.value = value;
+        this.flowTerm = flowTerm;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return the term of the flow documents which is summarized
+     */
+    public String getFlowTerm() {
+        return flowTerm;
+    }
+
+    public static GroupedBy fromFlowTerm(String flowTerm) {
+        for (GroupedBy groupedBy : values()) {
+            if (groupedBy.flowTerm != null && groupedBy.flowTerm.equals(flowTerm)) {
+                return groupedBy;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic.aggregate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the keys with the most bytes using a bounded amount of memory.
+ *
+ * This is an implementation of the Space-Saving algorithm: once the sketch is full, the
+ * key with the least bytes is replaced, and the newcomer inherits its count as error.
+ * Keys with more bytes than the error of the sketch are guaranteed to be tracked.
+ *
+ * The bytes reported for a key only include the traffic seen while it was tracked, so
+ * the sum of the reported bytes never exceeds the actual total.
+ *
+ * This class is not thread safe.
+ */
+public class TopKSketch<K> {
+
+    private final int capacity;
+
+    private final Map<K, Counter<K>> counters;
+
+    public TopKSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be strictly positive, got: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(K key, long bytes, boolean ingress) {
+        Counter<K> counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter<>(key, 0);
+            } else {
+                // Evict the counter with the smallest count, the capacity is small
+                // so we do not bother keeping the counters sorted
+                final Counter<K> min = counters.values().stream()
+                        .min(Comparator.comparingLong(c -> c.count))
+                        .get();
+                counters.remove(min.key);
+                counter = new Counter<>(key, min.count);
+            }
+            counters.put(key, counter);
+        }
+        counter.count += bytes;
+        if (ingress) {
+            counter.bytesIn += bytes;
+        } else {
+            counter.bytesOut += bytes;
+        }
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * @return the tracked keys, ordered by their estimated number of bytes
+     */
+    public List<Counter<K>> getTopK() {
+        final List<Counter<K>> topK = new ArrayList<>(counters.values());
+        topK.sort(Comparator.comparingLong((Counter<K> c) -> c.count).reversed());
+        return topK;
+    }
+
+    public static class Counter<K> {
+        private final K key;
+        private final long error;
+        private long count;
+        private long bytesIn;
+        private long bytesOut;
+
+        private Counter(K key, long error) {
+            this.key = key;
+            this.error = error;
+            this.count = error;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        /**
+         * @return an upper bound of the number of bytes for this key
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the maximum over-estimation of {@link #getCount()}
+         */
+        public long getError() {
+            return error;
+        }
+
+        public long getBytesIn() {
+            return bytesIn;
+        }
+
+        public long getBytesOut() {
+            return bytesOut;
+        }
+    }
+}
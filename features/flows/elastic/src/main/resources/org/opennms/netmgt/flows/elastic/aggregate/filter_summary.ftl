@@ -0,0 +1,25 @@
+<#list filters as filter>${filter},</#list>
+{
+  "terms": {
+    "range": [${resolution?long?c}]
+  }
+},
+{
+  "terms": {
+    "if_index": [${ifIndex?long?c}]
+  }
+},
+{
+  "terms": {
+    "grouped_by": ["${groupedBy?json_string}", "total"]
+  }
+},
+{
+  "range": {
+    "@timestamp": {
+      "gte": ${start?long?c},
+      "lt": ${end?long?c},
+      "format": "epoch_millis"
+    }
+  }
+}
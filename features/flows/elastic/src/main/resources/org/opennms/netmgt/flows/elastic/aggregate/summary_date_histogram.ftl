@@ -0,0 +1,17 @@
+"date_histogram": {
+  "field": "@timestamp",
+  "interval": "${step?long?c}ms",
+  "min_doc_count": 0
+},
+"aggs": {
+  "bytes_ingress": {
+    "sum": {
+      "field": "bytes_ingress"
+    }
+  },
+  "bytes_egress": {
+    "sum": {
+      "field": "bytes_egress"
+    }
+  }
+}
@@ -0,0 +1,55 @@
+{
+  "size": 0,
+  "query": {
+    "bool": {
+      "filter": [
+<#include "filter_summary.ftl">
+      ]
+    }
+  },
+  "aggs": {
+    "grouped_by": {
+      "filter": {
+        "bool": {
+          "filter": [
+            {
+              "term": {
+                "grouped_by": "${groupedBy?json_string}"
+              }
+            },
+            {
+              "terms": {
+                "key": [<#list topN as topNTerm>"${topNTerm?json_string}"<#sep>,</#list>]
+              }
+            }
+          ]
+        }
+      },
+      "aggs": {
+        "keys": {
+          "terms": {
+            "field": "key",
+            "size": ${topN?size?long?c}
+          },
+          "aggs": {
+            "series": {
+<#include "summary_date_histogram.ftl">
+            }
+          }
+        }
+      }
+    },
+    "total": {
+      "filter": {
+        "term": {
+          "grouped_by": "total"
+        }
+      },
+      "aggs": {
+        "series": {
+<#include "summary_date_histogram.ftl">
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+{
+  "size": 0,
+  "query": {
+    "bool": {
+      "filter": [
+<#include "filter_summary.ftl">
+      ]
+    }
+  },
+  "aggs": {
+    "grouped_by": {
+      "filter": {
+        "term": {
+          "grouped_by": "${groupedBy?json_string}"
+        }
+      },
+      "aggs": {
+        "keys": {
+          "terms": {
+            "field": "key",
+            "size": ${N?long?c},
+            "order": {
+              "bytes_total": "desc"
+            }
+          },
+          "aggs": {
+            "bytes_total": {
+              "sum": {
+                "field": "bytes_total"
+              }
+            },
+            "bytes_ingress": {
+              "sum": {
+                "field": "bytes_ingress"
+              }
+            },
+            "bytes_egress": {
+              "sum": {
+                "field": "bytes_egress"
+              }
+            }
+          }
+        }
+      }
+    },
+    "total": {
+      "filter": {
+        "term": {
+          "grouped_by": "total"
+        }
+      },
+      "aggs": {
+        "bytes_ingress": {
+          "sum": {
+            "field": "bytes_ingress"
+          }
+        },
+        "bytes_egress": {
+          "sum": {
+            "field": "bytes_egress"
+          }
+        }
+      }
+    }
+  }
+}
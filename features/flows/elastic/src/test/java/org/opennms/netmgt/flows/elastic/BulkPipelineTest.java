@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.plugins.elasticsearch.rest.bulk.BulkWrapper;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.searchbox.action.Action;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Index;
+
+public class BulkPipelineTest {
+
+    private JestClient client;
+
+    private BulkResult result;
+
+    private BulkPipeline<String> pipeline;
+
+    private final List<String> indexed = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        client = mock(JestClient.class);
+        result = mock(BulkResult.class);
+        when(result.isSucceeded()).thenReturn(true);
+        when(client.execute(any(Action.class))).thenReturn(result);
+    }
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.destroy();
+        }
+    }
+
+    @Test
+    public void canIndexOnceBulkSizeIsReached() throws Exception {
+        pipeline = createPipeline(3, 0, 1, 100);
+        final CountDownLatch latch = new CountDownLatch(2);
+        pipeline.index(Arrays.asList("a", "b"), docs -> { indexed.addAll(docs); latch.countDown(); });
+        Thread.sleep(100);
+        verify(client, never()).execute(any(Action.class));
+
+        pipeline.index(Arrays.asList("c", "d"), docs -> { indexed.addAll(docs); latch.countDown(); });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertThat(indexed, contains("a", "b", "c", "d"));
+        verify(client).execute(any(Action.class));
+    }
+
+    @Test
+    public void canFlushAfterInterval() throws Exception {
+        pipeline = createPipeline(1000, 50, 1, 100);
+        final CountDownLatch latch = new CountDownLatch(1);
+        pipeline.index(Collections.singletonList("a"), docs -> { indexed.addAll(docs); latch.countDown(); });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertThat(indexed, contains("a"));
+    }
+
+    @Test
+    public void canBlockWhileQueueIsFull() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        when(client.execute(any(Action.class))).then(invocation -> {
+            blocked.await();
+            return result;
+        });
+        pipeline = createPipeline(1, 0, 1, 2);
+        pipeline.index(Collections.singletonList("a"), indexed::addAll);
+        pipeline.index(Collections.singletonList("b"), indexed::addAll);
+
+        // There is no room left, so the caller is blocked
+        final CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            try {
+                pipeline.index(Collections.singletonList("c"), indexed::addAll);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(200);
+        assertFalse(future.isDone());
+
+        // Once the requests complete, the caller can proceed
+        blocked.countDown();
+        future.get(5, TimeUnit.SECONDS);
+        pipeline.destroy();
+        pipeline = null;
+        assertThat(indexed, contains("a", "b", "c"));
+    }
+
+    @Test
+    public void canReleaseRoomWhenIndexingFails() throws Exception {
+        when(result.isSucceeded()).thenReturn(false);
+        pipeline = createPipeline(1, 0, 1, 1);
+        pipeline.index(Collections.singletonList("a"), indexed::addAll);
+        pipeline.index(Collections.singletonList("b"), indexed::addAll);
+        pipeline.destroy();
+        pipeline = null;
+
+        // Nothing was indexed, but the second call was not blocked
+        assertEquals(0, indexed.size());
+    }
+
+    private BulkPipeline<String> createPipeline(int bulkSize, long flushIntervalMs, int maxInFlight, int queueCapacity) {
+        return new BulkPipeline<>(new MetricRegistry(), client, documents -> {
+            final Bulk.Builder bulkBuilder = new Bulk.Builder();
+            for (String document : documents) {
+                bulkBuilder.addAction(new Index.Builder(document).index("test").type("test").build());
+            }
+            return new BulkWrapper(bulkBuilder);
+        }, 1, bulkSize, flushIntervalMs, maxInFlight, queueCapacity);
+    }
+}
@@ -44,7 +44,6 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.opennms.core.cache.CacheConfigBuilder;
 import org.opennms.core.spring.BeanUtils;
 import org.opennms.core.test.OpenNMSJUnit4ClassRunner;
 import org.opennms.core.test.db.annotations.JUnitTemporaryDatabase;
@@ -147,12 +146,8 @@ public class MarkerCacheIT {
         ), FilterService.NOOP);
 
         final DocumentEnricher documentEnricher = new DocumentEnricher(
-                new MetricRegistry(), nodeDao, interfaceToNodeCache, transactionOperations, classificationEngine,
-                new CacheConfigBuilder()
-                        .withName("flows.node")
-                        .withMaximumSize(1000)
-                        .withExpireAfterWrite(300)
-                        .build());
+                new NodeDocumentIndex(new MetricRegistry(), nodeDao, interfaceToNodeCache, transactionOperations),
+                transactionOperations, classificationEngine);
 
 
         final JestClientFactory factory = new JestClientFactory();
@@ -32,7 +32,6 @@ import java.lang.reflect.Field;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.mockito.Mockito;
-import org.opennms.core.cache.CacheConfigBuilder;
 import org.opennms.core.soa.support.DefaultServiceRegistry;
 import org.opennms.netmgt.dao.api.AssetRecordDao;
 import org.opennms.netmgt.dao.api.CategoryDao;
@@ -80,12 +79,8 @@ public class MockDocumentEnricherFactory {
                 new RuleBuilder().withName("https").withSrcPort("443").withProtocol("tcp,udp").build()
         ), FilterService.NOOP);
         enricher = new DocumentEnricher(
-                new MetricRegistry(), nodeDao, interfaceToNodeCache, transactionTemplate, classificationEngine,
-                new CacheConfigBuilder()
-                    .withName("flows.node")
-                    .withMaximumSize(1000)
-                    .withExpireAfterWrite(300)
-                    .build());
+                new NodeDocumentIndex(new MetricRegistry(), nodeDao, interfaceToNodeCache, transactionTemplate),
+                transactionTemplate, classificationEngine);
 
         // Required for mock node dao
         addServiceRegistry(nodeDao);
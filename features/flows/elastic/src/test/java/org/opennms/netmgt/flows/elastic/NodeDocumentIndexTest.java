@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.core.criteria.Criteria;
+import org.opennms.core.utils.InetAddressUtils;
+import org.opennms.netmgt.dao.api.NodeDao;
+import org.opennms.netmgt.dao.mock.MockInterfaceToNodeCache;
+import org.opennms.netmgt.dao.mock.MockTransactionTemplate;
+import org.opennms.netmgt.events.api.EventConstants;
+import org.opennms.netmgt.model.OnmsCategory;
+import org.opennms.netmgt.model.OnmsIpInterface;
+import org.opennms.netmgt.model.OnmsNode;
+import org.opennms.netmgt.model.PrimaryType;
+import org.opennms.netmgt.model.events.EventBuilder;
+import org.opennms.netmgt.model.monitoringLocations.OnmsMonitoringLocation;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class NodeDocumentIndexTest {
+
+    private NodeDao nodeDao;
+
+    private MockInterfaceToNodeCache interfaceToNodeCache;
+
+    private MetricRegistry metricRegistry;
+
+    private NodeDocumentIndex index;
+
+    @Before
+    public void setUp() {
+        nodeDao = mock(NodeDao.class);
+        interfaceToNodeCache = new MockInterfaceToNodeCache();
+        metricRegistry = new MetricRegistry();
+        final MockTransactionTemplate transactionTemplate = new MockTransactionTemplate();
+        transactionTemplate.afterPropertiesSet();
+        index = new NodeDocumentIndex(metricRegistry, nodeDao, interfaceToNodeCache, transactionTemplate);
+    }
+
+    @Test
+    public void canLoadAllNodesAtOnce() {
+        final OnmsNode node1 = createNode(1, "Default", "10.0.0.1", "10.0.0.2");
+        node1.addCategory(new OnmsCategory("Routers"));
+        final OnmsNode node2 = createNode(2, "Remote", "10.0.0.1");
+        when(nodeDao.findMatching(any(Criteria.class))).thenReturn(Arrays.asList(node1, node2));
+        index.load();
+
+        assertEquals(3, index.size());
+        final NodeDocument document = index.get("Default", "10.0.0.1").get();
+        assertEquals(Integer.valueOf(1), document.getNodeId());
+        assertEquals("fs", document.getForeignSource());
+        assertEquals("1", document.getForeignId());
+        assertEquals(Arrays.asList("Routers"), document.getCategories());
+        // The document is shared by all addresses of the node
+        assertSame(document, index.get("Default", "10.0.0.2").get());
+        assertEquals(Integer.valueOf(2), index.get("Remote", "10.0.0.1").get().getNodeId());
+        assertFalse(index.get("Default", "10.0.0.3").isPresent());
+
+        // Served from the index
+        verify(nodeDao, never()).get(any(Integer.class));
+        assertEquals(4, metricRegistry.meter("nodeIndexHits").getCount());
+        assertEquals(1, metricRegistry.meter("nodeIndexMisses").getCount());
+    }
+
+    @Test
+    public void canUpdateNodesOnEvents() {
+        final OnmsNode node = createNode(1, "Default", "10.0.0.1");
+        when(nodeDao.findMatching(any(Criteria.class))).thenReturn(Arrays.asList(node));
+        index.load();
+
+        // The node gained an interface
+        new OnmsIpInterface(InetAddressUtils.addr("10.0.0.2"), node).setIsManaged("M");
+        when(nodeDao.get(1)).thenReturn(node);
+        index.onEvent(new EventBuilder(EventConstants.NODE_GAINED_INTERFACE_EVENT_UEI, "test")
+                .setNodeid(1)
+                .setInterface(InetAddressUtils.addr("10.0.0.2"))
+                .getEvent());
+        assertEquals(2, index.size());
+        assertEquals(Integer.valueOf(1), index.get("Default", "10.0.0.2").get().getNodeId());
+
+        // The interface was reparented to another node
+        final OnmsNode otherNode = createNode(2, "Default", "10.0.0.2");
+        node.getIpInterfaces().removeIf(iface -> "10.0.0.2".equals(InetAddressUtils.str(iface.getIpAddress())));
+        when(nodeDao.get(2)).thenReturn(otherNode);
+        index.onEvent(new EventBuilder(EventConstants.INTERFACE_REPARENTED_EVENT_UEI, "test")
+                .setNodeid(2)
+                .setInterface(InetAddressUtils.addr("10.0.0.2"))
+                .addParam(EventConstants.PARM_OLD_NODEID, 1)
+                .addParam(EventConstants.PARM_NEW_NODEID, 2)
+                .getEvent());
+        assertEquals(Integer.valueOf(2), index.get("Default", "10.0.0.2").get().getNodeId());
+        assertEquals(Integer.valueOf(1), index.get("Default", "10.0.0.1").get().getNodeId());
+
+        // The node was deleted
+        index.onEvent(new EventBuilder(EventConstants.NODE_DELETED_EVENT_UEI, "test")
+                .setNodeid(1)
+                .getEvent());
+        assertEquals(1, index.size());
+        assertFalse(index.get("Default", "10.0.0.1").isPresent());
+    }
+
+    @Test
+    public void canLoadNodesMissingFromIndex() {
+        final OnmsNode node = createNode(1, "Default", "10.0.0.1");
+        when(nodeDao.get(1)).thenReturn(node);
+        interfaceToNodeCache.setNodeId("Default", InetAddressUtils.addr("10.0.0.1"), 1);
+
+        assertEquals(Integer.valueOf(1), index.get("Default", "10.0.0.1").get().getNodeId());
+        assertEquals(Integer.valueOf(1), index.get("Default", "10.0.0.1").get().getNodeId());
+
+        // The node was only loaded once
+        verify(nodeDao, times(1)).get(1);
+        assertEquals(1, metricRegistry.meter("nodeIndexStale").getCount());
+        assertEquals(1, metricRegistry.meter("nodeIndexHits").getCount());
+    }
+
+    @Test
+    public void canPreferSameNodeAsInterfaceToNodeCache() {
+        final OnmsNode node1 = createNode(1, "Default", "10.0.0.1");
+        node1.getIpInterfaces().iterator().next().setIsSnmpPrimary(PrimaryType.PRIMARY);
+        final OnmsNode node2 = createNode(2, "Default", "10.0.0.1");
+        final OnmsNode node3 = createNode(3, "Default", "10.0.0.1");
+        when(nodeDao.findMatching(any(Criteria.class))).thenReturn(Arrays.asList(node3, node1, node2));
+        index.load();
+
+        assertEquals(Integer.valueOf(2), index.get("Default", "10.0.0.1").get().getNodeId());
+    }
+
+    private static OnmsNode createNode(int nodeId, String location, String... ipAddresses) {
+        final OnmsNode node = new OnmsNode(new OnmsMonitoringLocation(location, location));
+        node.setId(nodeId);
+        node.setForeignSource("fs");
+        node.setForeignId(Integer.toString(nodeId));
+        for (String ipAddress : ipAddresses) {
+            final OnmsIpInterface iface = new OnmsIpInterface(InetAddressUtils.addr(ipAddress), node);
+            iface.setIsManaged("M");
+            iface.setIsSnmpPrimary(PrimaryType.NOT_ELIGIBLE);
+        }
+        return node;
+    }
+}
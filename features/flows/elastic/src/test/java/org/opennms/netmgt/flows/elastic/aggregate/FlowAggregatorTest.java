@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic.aggregate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.netmgt.flows.elastic.Direction;
+import org.opennms.netmgt.flows.elastic.ElasticFlowRepository;
+import org.opennms.netmgt.flows.elastic.FlowDocument;
+import org.opennms.netmgt.flows.elastic.NodeDocument;
+import org.opennms.plugins.elasticsearch.rest.index.IndexStrategy;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+
+public class FlowAggregatorTest {
+
+    private MetricRegistry metricRegistry;
+
+    private JestClient client;
+
+    private FlowAggregator aggregator;
+
+    @Before
+    public void setUp() {
+        metricRegistry = new MetricRegistry();
+        client = mock(JestClient.class);
+        aggregator = new FlowAggregator(metricRegistry, client, IndexStrategy.MONTHLY, 0);
+        aggregator.setEnabled(true);
+        aggregator.setResolutionsMs("60000, 300000");
+        aggregator.setFlushDelayMs(10000);
+    }
+
+    @Test
+    public void canSummarizeFlowsPerInterface() {
+        aggregator.aggregate(Arrays.asList(
+                flow(1, Direction.INGRESS, 2, 3, "http", "c1", 60000, 60000, 100),
+                flow(1, Direction.EGRESS, 2, 3, "http", "c1", 60000, 60000, 50),
+                flow(1, Direction.INGRESS, 2, 3, null, null, 60000, 60000, 10),
+                // Accounted to a different interface
+                flow(1, Direction.INGRESS, 3, 2, "https", "c2", 60000, 60000, 1000),
+                // Not associated with a node
+                flow(null, Direction.INGRESS, 2, 3, "https", "c2", 60000, 60000, 1000)));
+
+        final List<FlowSummary> all = aggregator.collect(Long.MAX_VALUE);
+        final List<FlowSummary> summaries = filter(all, 1, 2, 60000);
+        final FlowSummary total = find(summaries, GroupedBy.TOTAL, null);
+        assertEquals(110, total.getBytesIngress());
+        assertEquals(0, total.getBytesEgress());
+        assertEquals(60000, total.getRange());
+        assertEquals(60000, total.getTimestamp());
+        assertEquals(2, total.getIfIndex().intValue());
+        assertEquals(1, total.getNodeExporter().getNodeId().intValue());
+
+        assertEquals(100, find(summaries, GroupedBy.APPLICATION, "http").getBytesIngress());
+        assertEquals(10, find(summaries, GroupedBy.APPLICATION, ElasticFlowRepository.UNKNOWN_APPLICATION_NAME).getBytesIngress());
+        assertEquals(100, find(summaries, GroupedBy.CONVERSATION, "c1").getBytesIngress());
+
+        // Egress traffic is accounted to the output interface
+        final List<FlowSummary> otherInterface = filter(all, 1, 3, 60000);
+        assertEquals(50, find(otherInterface, GroupedBy.APPLICATION, "http").getBytesEgress());
+        assertEquals(1000, find(otherInterface, GroupedBy.APPLICATION, "https").getBytesIngress());
+
+        // The same traffic is summarized for each resolution
+        assertEquals(110, find(filter(all, 1, 2, 300000), GroupedBy.TOTAL, null).getBytesIngress());
+    }
+
+    @Test
+    public void canSplitFlowsAcrossWindows() {
+        // 90s flow, starting half way into the first minute
+        aggregator.aggregate(Collections.singletonList(flow(1, Direction.INGRESS, 2, 3, "http", "c1", 30000, 120000, 900)));
+
+        final List<FlowSummary> summaries = aggregator.collect(Long.MAX_VALUE).stream()
+                .filter(s -> s.getGroupedBy() == GroupedBy.TOTAL && s.getRange() == 60000)
+                .sorted((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()))
+                .collect(Collectors.toList());
+        assertThat(summaries, hasSize(2));
+        assertEquals(0, summaries.get(0).getTimestamp());
+        assertEquals(300, summaries.get(0).getBytesIngress());
+        assertEquals(60000, summaries.get(1).getTimestamp());
+        assertEquals(600, summaries.get(1).getBytesIngress());
+    }
+
+    @Test
+    public void canApplySamplingInterval() {
+        final FlowDocument flow = flow(1, Direction.INGRESS, 2, 3, "http", "c1", 60000, 60000, 100);
+        flow.setSamplingInterval(10.0);
+        aggregator.aggregate(Collections.singletonList(flow));
+
+        assertEquals(1000, find(filter(aggregator.collect(Long.MAX_VALUE), 1, 2, 60000), GroupedBy.TOTAL, null).getBytesIngress());
+    }
+
+    @Test
+    public void canFlushWindowsOnceComplete() {
+        aggregator.aggregate(Collections.singletonList(flow(1, Direction.INGRESS, 2, 3, "http", "c1", 60000, 60000, 100)));
+
+        // The 1m window ends at 120s, and is flushed after the delay
+        assertThat(aggregator.collect(129999), hasSize(0));
+        assertThat(aggregator.collect(130000), hasSize(3));
+        // The 5m window ends at 300s
+        assertThat(aggregator.collect(309999), hasSize(0));
+        assertThat(aggregator.collect(310000), hasSize(3));
+
+        // Late flows open a new window
+        aggregator.aggregate(Collections.singletonList(flow(1, Direction.INGRESS, 2, 3, "http", "c1", 60000, 60000, 100)));
+        assertThat(aggregator.collect(310000), hasSize(6));
+    }
+
+    @Test
+    public void canRetrySummariesAfterFailedFlush() throws IOException {
+        aggregator.aggregate(Collections.singletonList(flow(1, Direction.INGRESS, 2, 3, "http", "c1", 60000, 60000, 100)));
+
+        // The windows are gone from the map, but their summaries are kept for the next flush
+        when(client.execute(any(Bulk.class))).thenThrow(new IOException("unavailable"));
+        aggregator.flush(Long.MAX_VALUE);
+        assertEquals(0, metricRegistry.meter("summariesPersisted").getCount());
+        assertEquals(6, metricRegistry.getGauges().get("summariesPending").getValue());
+
+        final BulkResult bulkResult = mock(BulkResult.class);
+        when(bulkResult.isSucceeded()).thenReturn(true);
+        when(client.execute(any(Bulk.class))).thenReturn(bulkResult);
+        aggregator.flush(Long.MAX_VALUE);
+        assertEquals(6, metricRegistry.meter("summariesPersisted").getCount());
+        assertEquals(0, metricRegistry.getGauges().get("summariesPending").getValue());
+    }
+
+    @Test
+    public void canDropOldestSummariesWhenRetryingTooMany() throws IOException {
+        aggregator.setMaxPendingSummaries(4);
+        aggregator.aggregate(Collections.singletonList(flow(1, Direction.INGRESS, 2, 3, "http", "c1", 60000, 60000, 100)));
+
+        when(client.execute(any(Bulk.class))).thenThrow(new IOException("unavailable"));
+        aggregator.flush(Long.MAX_VALUE);
+        assertEquals(4, metricRegistry.getGauges().get("summariesPending").getValue());
+        assertEquals(2, metricRegistry.meter("summariesDropped").getCount());
+    }
+
+    @Test
+    public void canIgnoreFlowsWhenDisabled() {
+        aggregator.setEnabled(false);
+        aggregator.aggregate(Collections.singletonList(flow(1, Direction.INGRESS, 2, 3, "http", "c1", 60000, 60000, 100)));
+        assertThat(aggregator.collect(Long.MAX_VALUE), hasSize(0));
+    }
+
+    private static List<FlowSummary> filter(List<FlowSummary> summaries, int nodeId, int ifIndex, long range) {
+        return summaries.stream()
+                .filter(s -> s.getNodeExporter().getNodeId() == nodeId && s.getIfIndex() == ifIndex && s.getRange() == range)
+                .collect(Collectors.toList());
+    }
+
+    private static FlowSummary find(List<FlowSummary> summaries, GroupedBy groupedBy, String key) {
+        final List<FlowSummary> matches = summaries.stream()
+                .filter(s -> s.getGroupedBy() == groupedBy && Objects.equals(s.getKey(), key))
+                .collect(Collectors.toList());
+        assertThat(matches, hasSize(1));
+        return matches.get(0);
+    }
+
+    private static FlowDocument flow(Integer nodeId, Direction direction, int inputSnmp, int outputSnmp,
+                                     String application, String convoKey, long firstSwitched, long lastSwitched, long bytes) {
+        final FlowDocument flow = new FlowDocument();
+        if (nodeId != null) {
+            final NodeDocument exporter = new NodeDocument();
+            exporter.setNodeId(nodeId);
+            flow.setNodeExporter(exporter);
+        }
+        flow.setDirection(direction);
+        flow.setInputSnmp(inputSnmp);
+        flow.setOutputSnmp(outputSnmp);
+        flow.setApplication(application);
+        flow.setConvoKey(convoKey);
+        flow.setFirstSwitched(firstSwitched);
+        flow.setLastSwitched(lastSwitched);
+        flow.setTimestamp(lastSwitched);
+        flow.setBytes(bytes);
+        return flow;
+    }
+}
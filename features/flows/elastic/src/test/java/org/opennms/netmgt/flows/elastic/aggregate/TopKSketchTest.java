@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.elastic.aggregate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class TopKSketchTest {
+
+    @Test
+    public void canTrackAllKeysWithinCapacity() {
+        final TopKSketch<String> sketch = new TopKSketch<>(3);
+        sketch.add("a", 10, true);
+        sketch.add("b", 30, false);
+        sketch.add("a", 5, false);
+        sketch.add("c", 20, true);
+
+        final List<TopKSketch.Counter<String>> topK = sketch.getTopK();
+        assertThat(topK.stream().map(TopKSketch.Counter::getKey).collect(Collectors.toList()), contains("b", "c", "a"));
+        assertEquals(10, topK.get(2).getBytesIn());
+        assertEquals(5, topK.get(2).getBytesOut());
+        assertEquals(15, topK.get(2).getCount());
+        assertEquals(0, topK.get(2).getError());
+    }
+
+    @Test
+    public void canReplaceSmallestKeyWhenFull() {
+        final TopKSketch<String> sketch = new TopKSketch<>(2);
+        sketch.add("a", 100, true);
+        sketch.add("b", 10, true);
+        sketch.add("c", 20, false);
+
+        // b was evicted, and c inherits its count as error
+        final List<TopKSketch.Counter<String>> topK = sketch.getTopK();
+        assertThat(topK.stream().map(TopKSketch.Counter::getKey).collect(Collectors.toList()), contains("a", "c"));
+        assertEquals(30, topK.get(1).getCount());
+        assertEquals(10, topK.get(1).getError());
+        assertEquals(20, topK.get(1).getBytesOut());
+    }
+
+    @Test
+    public void canFindHeavyHitters() {
+        final Random random = new Random(42);
+        final TopKSketch<Integer> sketch = new TopKSketch<>(20);
+        final Map<Integer, Long> actual = new HashMap<>();
+        long total = 0;
+        for (int i = 0; i < 100000; i++) {
+            // Keys 0 to 4 make up for half the traffic, the rest is spread over 1000 keys
+            final int key = random.nextBoolean() ? random.nextInt(5) : 5 + random.nextInt(1000);
+            final long bytes = 1 + random.nextInt(1500);
+            sketch.add(key, bytes, random.nextBoolean());
+            actual.merge(key, bytes, Long::sum);
+            total += bytes;
+        }
+
+        final List<TopKSketch.Counter<Integer>> topK = sketch.getTopK();
+        assertThat(topK.subList(0, 5).stream().map(TopKSketch.Counter::getKey).sorted().collect(Collectors.toList()), contains(0, 1, 2, 3, 4));
+        for (TopKSketch.Counter<Integer> counter : topK) {
+            // The count is an upper bound, and the observed bytes a lower bound
+            assertThat(counter.getCount(), greaterThanOrEqualTo(actual.get(counter.getKey())));
+            assertThat(counter.getBytesIn() + counter.getBytesOut(), lessThanOrEqualTo(actual.get(counter.getKey())));
+            assertThat(counter.getCount() - counter.getError(), lessThanOrEqualTo(actual.get(counter.getKey())));
+        }
+        assertThat(topK.stream().mapToLong(c -> c.getBytesIn() + c.getBytesOut()).sum(), lessThanOrEqualTo(total));
+    }
+}
@@ -28,7 +28,9 @@
 
 package org.opennms.minion.heartbeat.common;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
 
 import javax.xml.bind.annotation.XmlAccessType;
@@ -37,6 +39,7 @@ import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
 import org.opennms.core.ipc.sink.api.Message;
+import org.opennms.core.xml.PayloadCodecs;
 import org.opennms.distributed.core.api.MinionIdentity;
 
 @XmlRootElement(name = "minion")
@@ -49,6 +52,11 @@ public class MinionIdentityDTO implements Message {
     private String location;
     @XmlElement(name = "timestamp")
     private Date timestamp;
+    /**
+     * Names of the payload codecs supported by the Minion.
+     */
+    @XmlElement(name = "codec")
+    private List<String> codecs = new ArrayList<>();
 
     public MinionIdentityDTO() {
 
@@ -58,6 +66,7 @@ public class MinionIdentityDTO implements Message {
         id = minion.getId();
         location = minion.getLocation();
         timestamp = new Date();
+        codecs = new ArrayList<>(PayloadCodecs.getCodecs().keySet());
     }
 
     public String getId() {
@@ -84,9 +93,17 @@ public class MinionIdentityDTO implements Message {
         this.timestamp = timestamp;
     }
 
+    public List<String> getCodecs() {
+        return codecs;
+    }
+
+    public void setCodecs(List<String> codecs) {
+        this.codecs = codecs;
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(id, location, timestamp);
+        return Objects.hash(id, location, timestamp, codecs);
     }
 
     @Override
@@ -100,11 +117,12 @@ public class MinionIdentityDTO implements Message {
         MinionIdentityDTO other = (MinionIdentityDTO) obj;
         return Objects.equals(this.id, other.id)
                 && Objects.equals(this.location, other.location)
-                && Objects.equals(this.timestamp, other.timestamp);
+                && Objects.equals(this.timestamp, other.timestamp)
+                && Objects.equals(this.codecs, other.codecs);
     }
 
     @Override
     public String toString() {
-        return String.format("MinionIdentityDTO[id=%s, location=%s, timestamp=%s]", id, location, timestamp);
+        return String.format("MinionIdentityDTO[id=%s, location=%s, timestamp=%s, codecs=%s]", id, location, timestamp, codecs);
     }
 }
@@ -50,6 +50,11 @@ public class MinionIdentityDTOTest extends XmlTestNoCastor<MinionIdentityDTO> {
         identity.setId("idx");
         identity.setLocation("locationx");
         identity.setTimestamp(timestamp);
+        MinionIdentityDTO identityWithCodecs = new MinionIdentityDTO();
+        identityWithCodecs.setId("idx");
+        identityWithCodecs.setLocation("locationx");
+        identityWithCodecs.setTimestamp(timestamp);
+        identityWithCodecs.setCodecs(Arrays.asList("xml", "deflate"));
         return Arrays.asList(new Object[][] {
             {
                 identity,
@@ -58,6 +63,16 @@ public class MinionIdentityDTOTest extends XmlTestNoCastor<MinionIdentityDTO> {
                    "<location>locationx</location>\n" +
                    "<timestamp>" + StringUtils.iso8601LocalOffsetString(timestamp) + "</timestamp>\n" +
                 "</minion>",
+                null, },
+            {
+                identityWithCodecs,
+                "<minion>\n" +
+                   "<id>idx</id>\n" +
+                   "<location>locationx</location>\n" +
+                   "<timestamp>" + StringUtils.iso8601LocalOffsetString(timestamp) + "</timestamp>\n" +
+                   "<codec>xml</codec>\n" +
+                   "<codec>deflate</codec>\n" +
+                "</minion>",
                 null, }
         });
     }
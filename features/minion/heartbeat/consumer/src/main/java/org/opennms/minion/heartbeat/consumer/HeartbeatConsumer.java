@@ -38,6 +38,7 @@ import java.util.Set;
 import org.opennms.core.ipc.sink.api.MessageConsumer;
 import org.opennms.core.ipc.sink.api.MessageConsumerManager;
 import org.opennms.core.ipc.sink.api.SinkModule;
+import org.opennms.core.xml.PayloadCodecNegotiation;
 import org.opennms.minion.heartbeat.common.HeartbeatModule;
 import org.opennms.minion.heartbeat.common.MinionIdentityDTO;
 import org.opennms.netmgt.dao.api.MinionDao;
@@ -142,6 +143,9 @@ public class HeartbeatConsumer implements MessageConsumer<MinionIdentityDTO, Min
 
         minionDao.saveOrUpdate(minion);
 
+        // Minions which predate the payload codecs don't send any, and keep receiving plain XML
+        PayloadCodecNegotiation.setSupportedCodecs(nextLocation, minionHandle.getId(), minionHandle.getCodecs());
+
         if (prevLocation == null) {
             final EventBuilder eventBuilder = new EventBuilder(EventConstants.MONITORING_SYSTEM_ADDED_UEI,
                     "OpenNMS.Minion.Heartbeat");
@@ -117,6 +117,11 @@ public class TelemetrySinkModule implements SinkModule<TelemetryMessage, Telemet
                 return TelemetrySinkModule.this.queueConfig.getBatchIntervalMs().orElse(DEFAULT_BATCH_INTERVAL_MS);
             }
 
+            @Override
+            public int getTargetLatencyMs() {
+                return TelemetrySinkModule.this.queueConfig.getBatchTargetLatencyMs().orElse(0);
+            }
+
             @Override
             public Object key(TelemetryMessage telemetryMessage) {
                 return telemetryMessage.getSource();
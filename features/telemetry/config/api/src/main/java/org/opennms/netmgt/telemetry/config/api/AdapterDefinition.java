@@ -29,6 +29,7 @@
 package org.opennms.netmgt.telemetry.config.api;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Telemetry adapter definition.
@@ -52,4 +53,29 @@ public interface AdapterDefinition extends TelemetryBeanDefinition {
      * @return the list of configured packages
      */
     List<? extends PackageDefinition> getPackages();
+
+    /**
+     * Number of threads used to hand message logs to the adapter.
+     *
+     * Message logs are partitioned by their source address, so that messages
+     * from a given exporter are always handled in order.
+     * When not set, the message logs are handled by the thread consuming the queue.
+     *
+     * @return the number of threads
+     */
+    default Optional<Integer> getNumThreads() {
+        return Optional.empty();
+    }
+
+    /**
+     * Maximum number of message logs waiting to be handled by each of the
+     * adapter's threads. Message logs are dropped when the limit is reached.
+     *
+     * Only used when the number of threads is set.
+     *
+     * @return the queue size
+     */
+    default Optional<Integer> getQueueSize() {
+        return Optional.empty();
+    }
 }
@@ -69,6 +69,15 @@ public interface QueueDefinition {
      */
     Optional<Integer> getBatchIntervalMs();
 
+    /**
+     * When set, the batch size is adapted at runtime so that messages
+     * wait for roughly this interval (ms) before being dispatched,
+     * and the batch size is used as an upper bound.
+     *
+     * @return the batch target latency
+     */
+    Optional<Integer> getBatchTargetLatencyMs();
+
     /**
      * Maximum number of messages to keep in memory while waiting
      * to be dispatched.
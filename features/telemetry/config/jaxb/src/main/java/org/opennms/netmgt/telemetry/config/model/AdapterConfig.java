@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.opennms.netmgt.telemetry.config.api.AdapterDefinition;
@@ -55,6 +56,12 @@ public class AdapterConfig implements AdapterDefinition {
     @XmlAttribute(name="enabled")
     private boolean enabled;
 
+    @XmlAttribute(name="threads")
+    private Integer numThreads;
+
+    @XmlAttribute(name="queue-size")
+    private Integer queueSize;
+
     @XmlElement(name="parameter")
     private List<Parameter> parameters = new ArrayList<>();
 
@@ -87,6 +94,24 @@ public class AdapterConfig implements AdapterDefinition {
         this.enabled = enabled;
     }
 
+    @Override
+    public Optional<Integer> getNumThreads() {
+        return Optional.ofNullable(this.numThreads);
+    }
+
+    public void setNumThreads(final Integer numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Optional<Integer> getQueueSize() {
+        return Optional.ofNullable(this.queueSize);
+    }
+
+    public void setQueueSize(final Integer queueSize) {
+        this.queueSize = queueSize;
+    }
+
     public List<Parameter> getParameters() {
         return this.parameters;
     }
@@ -118,6 +143,8 @@ public class AdapterConfig implements AdapterDefinition {
         return Objects.equals(this.name, that.name) &&
                 Objects.equals(this.className, that.className) &&
                 Objects.equals(this.enabled, that.enabled) &&
+                Objects.equals(this.numThreads, that.numThreads) &&
+                Objects.equals(this.queueSize, that.queueSize) &&
                 Objects.equals(this.parameters, that.parameters) &&
                 Objects.equals(this.packages, that.packages);
     }
@@ -128,6 +155,8 @@ public class AdapterConfig implements AdapterDefinition {
                 this.name,
                 this.className,
                 this.enabled,
+                this.numThreads,
+                this.queueSize,
                 this.parameters,
                 this.packages);
     }
@@ -138,6 +167,8 @@ public class AdapterConfig implements AdapterDefinition {
                 .add("name", this.name)
                 .add("class-name", this.className)
                 .add("enabled", this.enabled)
+                .add("num-threads", this.numThreads)
+                .add("queue-size", this.queueSize)
                 .addValue(this.parameters)
                 .add("packages", this.packages)
                 .toString();
@@ -60,6 +60,9 @@ public class QueueConfig implements QueueDefinition {
     @XmlAttribute(name="batch-interval")
     private Integer batchIntervalMs;
 
+    @XmlAttribute(name="batch-target-latency")
+    private Integer batchTargetLatencyMs;
+
     @XmlAttribute(name="queue-size")
     private Integer queueSize;
 
@@ -102,6 +105,15 @@ public class QueueConfig implements QueueDefinition {
         this.batchIntervalMs = batchIntervalMs;
     }
 
+    @Override
+    public Optional<Integer> getBatchTargetLatencyMs() {
+        return Optional.ofNullable(this.batchTargetLatencyMs);
+    }
+
+    public void setBatchTargetLatencyMs(final Integer batchTargetLatencyMs) {
+        this.batchTargetLatencyMs = batchTargetLatencyMs;
+    }
+
     @Override
     public Optional<Integer> getQueueSize() {
         return Optional.ofNullable(this.queueSize);
@@ -128,6 +140,7 @@ public class QueueConfig implements QueueDefinition {
                 Objects.equals(this.numThreads, that.numThreads) &&
                 Objects.equals(this.batchSize, that.batchSize) &&
                 Objects.equals(this.batchIntervalMs, that.batchIntervalMs) &&
+                Objects.equals(this.batchTargetLatencyMs, that.batchTargetLatencyMs) &&
                 Objects.equals(this.queueSize, that.queueSize) &&
                 Objects.equals(this.adapters, that.adapters);
     }
@@ -139,6 +152,7 @@ public class QueueConfig implements QueueDefinition {
                 this.numThreads,
                 this.batchSize,
                 this.batchIntervalMs,
+                this.batchTargetLatencyMs,
                 this.queueSize,
                 this.adapters);
     }
@@ -150,6 +164,7 @@ public class QueueConfig implements QueueDefinition {
                 .add("num-threads", this.numThreads)
                 .add("batch-size", this.batchSize)
                 .add("batch-interval-ms", this.batchIntervalMs)
+                .add("batch-target-latency-ms", this.batchTargetLatencyMs)
                 .add("queue-size", this.queueSize)
                 .addValue(this.adapters)
                 .toString();
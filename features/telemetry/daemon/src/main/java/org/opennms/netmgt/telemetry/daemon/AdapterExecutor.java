@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.daemon;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.opennms.core.logging.Logging;
+import org.opennms.netmgt.telemetry.api.adapter.Adapter;
+import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Hands message logs to a single adapter.
+ *
+ * When configured with one or more threads, the message logs are partitioned by their
+ * source address and every partition is handled by a dedicated thread with a bounded queue.
+ * This keeps the message logs of a given exporter in order, while preventing a slow adapter
+ * from holding back the other adapters of the same queue. Message logs which do not fit
+ * in the queue of their partition are dropped.
+ *
+ * Without any threads, the message logs are handled by the calling thread.
+ */
+public class AdapterExecutor implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(AdapterExecutor.class);
+
+    public static final int DEFAULT_QUEUE_SIZE = 100;
+
+    private static final long SHUTDOWN_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private final String name;
+    private final Adapter adapter;
+    private final ThreadPoolExecutor[] partitions;
+
+    private final Timer processingTimer;
+    private final Counter droppedCounter;
+
+    public AdapterExecutor(String name, Adapter adapter, int numThreads, int queueSize, MetricRegistry metrics) {
+        this.name = Objects.requireNonNull(name);
+        this.adapter = Objects.requireNonNull(adapter);
+
+        this.partitions = new ThreadPoolExecutor[Math.max(numThreads, 0)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new ThreadPoolExecutor(1, 1,
+                    0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueSize > 0 ? queueSize : DEFAULT_QUEUE_SIZE),
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("telemetryd-adapter-" + name + "-" + i)
+                            .build());
+        }
+
+        this.processingTimer = metrics.timer(MetricRegistry.name(name, "processing"));
+        this.droppedCounter = metrics.counter(MetricRegistry.name(name, "dropped"));
+        metrics.register(MetricRegistry.name(name, "queue-size"), (Gauge<Integer>) this::getQueueSize);
+    }
+
+    public void handleMessageLog(TelemetryMessageLog messageLog) {
+        if (partitions.length == 0) {
+            handle(messageLog);
+            return;
+        }
+
+        final ThreadPoolExecutor partition = partitions[Math.floorMod(Objects.hashCode(messageLog.getSourceAddress()), partitions.length)];
+        try {
+            partition.execute(() -> {
+                try (Logging.MDCCloseable mdc = Logging.withPrefixCloseable(Telemetryd.LOG_PREFIX)) {
+                    handle(messageLog);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            droppedCounter.inc();
+            LOG.debug("Queue of adapter: {} is full. Dropping message log from: {}:{}.",
+                    name, messageLog.getSourceAddress(), messageLog.getSourcePort());
+        }
+    }
+
+    private void handle(TelemetryMessageLog messageLog) {
+        try (Timer.Context ctx = processingTimer.time()) {
+            adapter.handleMessageLog(messageLog);
+        } catch (RuntimeException e) {
+            LOG.warn("Adapter: {} failed to handle message log: {}. Skipping.", adapter, messageLog, e);
+        }
+    }
+
+    public int getQueueSize() {
+        int size = 0;
+        for (ThreadPoolExecutor partition : partitions) {
+            size += partition.getQueue().size();
+        }
+        return size;
+    }
+
+    public long getDropped() {
+        return droppedCounter.getCount();
+    }
+
+    public Adapter getAdapter() {
+        return adapter;
+    }
+
+    /**
+     * Stops accepting message logs and waits for the queued ones to be handled
+     * before destroying the adapter.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService partition : partitions) {
+            partition.shutdown();
+        }
+
+        final long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MS;
+        for (ExecutorService partition : partitions) {
+            try {
+                if (!partition.awaitTermination(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS)) {
+                    LOG.warn("Adapter: {} did not handle the queued message logs in time. Discarding {} message logs.",
+                            name, partition.shutdownNow().size());
+                }
+            } catch (InterruptedException e) {
+                partition.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        adapter.destroy();
+    }
+}
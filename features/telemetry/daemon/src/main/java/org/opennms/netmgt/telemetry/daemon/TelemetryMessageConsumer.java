@@ -32,7 +32,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -52,7 +51,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import com.google.common.collect.Sets;
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.MetricRegistry;
 
 
 public class TelemetryMessageConsumer implements MessageConsumer<TelemetryMessage, TelemetryProtos.TelemetryMessageLog> {
@@ -65,8 +65,11 @@ public class TelemetryMessageConsumer implements MessageConsumer<TelemetryMessag
     private final TelemetrySinkModule sinkModule;
     private final List<AdapterDefinition> adapterDefs;
 
-    // Actual adapters implementing the logic
-    private final Set<Adapter> adapters = Sets.newHashSet();
+    // Actual adapters implementing the logic, each wrapped in its own executor
+    private final List<AdapterExecutor> adapterExecutors = new ArrayList<>();
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private JmxReporter reporter;
 
     public TelemetryMessageConsumer(QueueConfig queueConfig, TelemetrySinkModule sinkModule) throws Exception {
         this(queueConfig,
@@ -96,8 +99,16 @@ public class TelemetryMessageConsumer implements MessageConsumer<TelemetryMessag
             if (adapter == null) {
                 throw new Exception("No adapter found for class: " + adapterDef.getClassName());
             }
-            adapters.add(adapter);
+            adapterExecutors.add(new AdapterExecutor(adapterDef.getName(), adapter,
+                    adapterDef.getNumThreads().orElse(0),
+                    adapterDef.getQueueSize().orElse(AdapterExecutor.DEFAULT_QUEUE_SIZE),
+                    metrics));
         }
+
+        reporter = JmxReporter.forRegistry(metrics)
+                .inDomain(getClass().getPackage().getName())
+                .build();
+        reporter.start();
     }
 
     @Override
@@ -105,20 +116,19 @@ public class TelemetryMessageConsumer implements MessageConsumer<TelemetryMessag
         try (Logging.MDCCloseable mdc = Logging.withPrefixCloseable(Telemetryd.LOG_PREFIX)) {
             LOG.trace("Received message log: {}", messageLog);
             // Handle the message with all of the adapters
-            for (Adapter adapter : adapters) {
-                try {
-                    adapter.handleMessageLog(messageLog);
-                } catch (RuntimeException e) {
-                    LOG.warn("Adapter: {} failed to handle message log: {}. Skipping.", adapter, messageLog, e);
-                    continue;
-                }
+            for (AdapterExecutor adapterExecutor : adapterExecutors) {
+                adapterExecutor.handleMessageLog(messageLog);
             }
         }
     }
 
     @PreDestroy
     public void destroy() {
-        adapters.forEach((adapter) -> adapter.destroy());
+        if (reporter != null) {
+            reporter.stop();
+            reporter = null;
+        }
+        adapterExecutors.forEach(AdapterExecutor::close);
     }
 
     @Override
@@ -126,6 +136,10 @@ public class TelemetryMessageConsumer implements MessageConsumer<TelemetryMessag
         return sinkModule;
     }
 
+    public MetricRegistry getMetrics() {
+        return metrics;
+    }
+
     public QueueDefinition getQueue() {
         return queueDef;
     }
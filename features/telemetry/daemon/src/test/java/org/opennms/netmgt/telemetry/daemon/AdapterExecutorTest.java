@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.daemon;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.opennms.netmgt.telemetry.api.adapter.Adapter;
+import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLog;
+import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLogEntry;
+import org.opennms.netmgt.telemetry.config.api.AdapterDefinition;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+public class AdapterExecutorTest {
+
+    private final MetricRegistry metrics = new MetricRegistry();
+
+    private AdapterExecutor executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void canHandleMessageLogsInlineWithoutThreads() {
+        final RecordingAdapter adapter = new RecordingAdapter();
+        executor = new AdapterExecutor("test", adapter, 0, 10, metrics);
+
+        executor.handleMessageLog(new MockMessageLog("10.0.0.1", 0));
+
+        assertEquals(Thread.currentThread().getName(), adapter.getThreads().get("10.0.0.1"));
+        assertEquals(1, metrics.timer("test.processing").getCount());
+    }
+
+    @Test
+    public void canKeepOrderingPerSource() {
+        final RecordingAdapter adapter = new RecordingAdapter();
+        executor = new AdapterExecutor("test", adapter, 4, 1000, metrics);
+
+        for (int i = 0; i < 100; i++) {
+            for (int source = 0; source < 8; source++) {
+                executor.handleMessageLog(new MockMessageLog("10.0.0." + source, i));
+            }
+        }
+        await().atMost(10, TimeUnit.SECONDS).until(() -> metrics.timer("test.processing").getCount() == 800);
+
+        assertEquals(0, executor.getDropped());
+        for (int source = 0; source < 8; source++) {
+            final List<Integer> sequence = adapter.getSequences().get("10.0.0." + source);
+            assertEquals(100, sequence.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, sequence.get(i).intValue());
+            }
+            // Every source is handled by a single thread, other than the calling one
+            assertTrue(adapter.getThreads().get("10.0.0." + source).startsWith("telemetryd-adapter-test-"));
+        }
+    }
+
+    @Test
+    public void canDropMessageLogsWhenQueueIsFull() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final RecordingAdapter adapter = new RecordingAdapter(latch);
+        executor = new AdapterExecutor("test", adapter, 1, 2, metrics);
+
+        // The first message log blocks the thread, the next two are queued and the others are dropped
+        executor.handleMessageLog(new MockMessageLog("10.0.0.1", 0));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> executor.getQueueSize() == 0);
+        for (int i = 1; i < 10; i++) {
+            executor.handleMessageLog(new MockMessageLog("10.0.0.1", i));
+        }
+
+        assertEquals(7, executor.getDropped());
+        assertEquals(7, metrics.counter("test.dropped").getCount());
+        assertEquals(2, ((Gauge<?>) metrics.getGauges().get("test.queue-size")).getValue());
+
+        latch.countDown();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> adapter.getSequences().getOrDefault("10.0.0.1", Collections.emptyList()).size() == 3);
+        assertEquals(0, executor.getQueueSize());
+    }
+
+    @Test
+    public void canDrainQueueOnClose() {
+        final RecordingAdapter adapter = new RecordingAdapter();
+        executor = new AdapterExecutor("test", adapter, 2, 1000, metrics);
+        for (int i = 0; i < 100; i++) {
+            executor.handleMessageLog(new MockMessageLog("10.0.0.1", i));
+        }
+
+        executor.close();
+        executor = null;
+
+        assertEquals(100, adapter.getSequences().get("10.0.0.1").size());
+        assertTrue(adapter.isDestroyed());
+    }
+
+    private static class RecordingAdapter implements Adapter {
+        private final Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+        private final Map<String, String> threads = new ConcurrentHashMap<>();
+        private final CountDownLatch latch;
+        private volatile boolean destroyed = false;
+
+        private RecordingAdapter() {
+            this(new CountDownLatch(0));
+        }
+
+        private RecordingAdapter(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void setConfig(AdapterDefinition adapterConfig) {
+            // pass
+        }
+
+        @Override
+        public void handleMessageLog(TelemetryMessageLog messageLog) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            threads.put(messageLog.getSourceAddress(), Thread.currentThread().getName());
+            sequences.computeIfAbsent(messageLog.getSourceAddress(), k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(messageLog.getSourcePort());
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+
+        private Map<String, List<Integer>> getSequences() {
+            return sequences;
+        }
+
+        private Map<String, String> getThreads() {
+            return threads;
+        }
+
+        private boolean isDestroyed() {
+            return destroyed;
+        }
+    }
+
+    /**
+     * Uses the source port to carry the sequence number of the message log.
+     */
+    private static class MockMessageLog implements TelemetryMessageLog {
+        private final String sourceAddress;
+        private final int sequence;
+
+        private MockMessageLog(String sourceAddress, int sequence) {
+            this.sourceAddress = sourceAddress;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public String getLocation() {
+            return "Default";
+        }
+
+        @Override
+        public String getSystemId() {
+            return "test";
+        }
+
+        @Override
+        public int getSourcePort() {
+            return sequence;
+        }
+
+        @Override
+        public String getSourceAddress() {
+            return sourceAddress;
+        }
+
+        @Override
+        public List<? extends TelemetryMessageLogEntry> getMessageList() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -33,6 +33,7 @@ import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 import javax.xml.bind.JAXB;
 
@@ -45,6 +46,8 @@ public class MapBasedAdapterDef implements AdapterDefinition {
     private final String name;
     private final String className;
     private final Map<String, String> parameters;
+    private final Optional<Integer> threads;
+    private final Optional<Integer> queueSize;
 
     protected MapBasedAdapterDef(Map<String, String> properties) {
         this(PropertyTree.from(Objects.requireNonNull(properties)));
@@ -54,6 +57,8 @@ public class MapBasedAdapterDef implements AdapterDefinition {
         this.name = definition.getRequiredString("name");
         this.className = definition.getRequiredString("class-name");
         this.parameters = definition.getMap("parameters");
+        this.threads = definition.getOptionalInteger("threads");
+        this.queueSize = definition.getOptionalInteger("queue-size");
     }
 
     @Override
@@ -71,6 +76,16 @@ public class MapBasedAdapterDef implements AdapterDefinition {
         return name;
     }
 
+    @Override
+    public Optional<Integer> getNumThreads() {
+        return threads;
+    }
+
+    @Override
+    public Optional<Integer> getQueueSize() {
+        return queueSize;
+    }
+
     @Override
     public List<? extends PackageDefinition> getPackages() {
         try (InputStream inputStream = getClass().getResourceAsStream("/package.xml")) {
@@ -87,11 +102,13 @@ public class MapBasedAdapterDef implements AdapterDefinition {
         final MapBasedAdapterDef that = (MapBasedAdapterDef) o;
         return Objects.equals(this.name, that.name)
                 && Objects.equals(this.className, that.className)
-                && Objects.equals(this.parameters, that.parameters);
+                && Objects.equals(this.parameters, that.parameters)
+                && Objects.equals(this.threads, that.threads)
+                && Objects.equals(this.queueSize, that.queueSize);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.name, this.className, this.parameters);
+        return Objects.hash(this.name, this.className, this.parameters, this.threads, this.queueSize);
     }
 }
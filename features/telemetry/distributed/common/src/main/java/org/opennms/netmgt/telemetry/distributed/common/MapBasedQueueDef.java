@@ -38,6 +38,7 @@ public class MapBasedQueueDef implements QueueDefinition {
     private final Optional<Integer> queueSize;
     private final Optional<Integer> batchSize;
     private final Optional<Integer> batchInterval;
+    private final Optional<Integer> batchTargetLatency;
 
     public MapBasedQueueDef(final PropertyTree definition) {
         this.name = definition.getRequiredString("name");
@@ -45,6 +46,7 @@ public class MapBasedQueueDef implements QueueDefinition {
         this.queueSize = definition.getOptionalInteger("queue", "size");
         this.batchSize = definition.getOptionalInteger("batch", "size");
         this.batchInterval = definition.getOptionalInteger("batch", "interval");
+        this.batchTargetLatency = definition.getOptionalInteger("batch", "target-latency");
     }
 
     @Override
@@ -67,6 +69,11 @@ public class MapBasedQueueDef implements QueueDefinition {
         return batchInterval;
     }
 
+    @Override
+    public Optional<Integer> getBatchTargetLatencyMs() {
+        return batchTargetLatency;
+    }
+
     @Override
     public Optional<Integer> getQueueSize() {
         return queueSize;
@@ -30,6 +30,7 @@ package org.opennms.netmgt.telemetry.listeners;
 
 import java.net.InetSocketAddress;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import org.opennms.netmgt.telemetry.api.receiver.Listener;
 import org.slf4j.Logger;
@@ -37,6 +38,7 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -87,6 +89,7 @@ public class TcpListener implements Listener {
                 .option(ChannelOption.SO_REUSEADDR, true)
                 .option(ChannelOption.SO_BACKLOG, 128)
                 .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .childHandler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(final SocketChannel ch) {
@@ -96,14 +99,22 @@ public class TcpListener implements Listener {
                                     @Override
                                     protected void channelRead0(final ChannelHandlerContext ctx,
                                                                 final ByteBuf msg) throws Exception {
-                                        session.parse(ReferenceCountUtil.retain(msg).nioBuffer())
-                                                .handle((result, ex) -> {
-                                                    ReferenceCountUtil.release(msg);
-                                                    if (ex != null) {
-                                                        ctx.fireExceptionCaught(ex);
-                                                    }
-                                                    return result;
-                                                });;
+                                        // Keep the pooled buffer alive until the parser and the dispatcher are done with it
+                                        final CompletableFuture<?> future;
+                                        try {
+                                            future = session.parse(ReferenceCountUtil.retain(msg).nioBuffer());
+                                        } catch (final Exception e) {
+                                            ReferenceCountUtil.release(msg);
+                                            throw e;
+                                        }
+
+                                        future.handle((result, ex) -> {
+                                            ReferenceCountUtil.release(msg);
+                                            if (ex != null) {
+                                                ctx.fireExceptionCaught(ex);
+                                            }
+                                            return result;
+                                        });
                                     }
                                 })
                                 .addLast(new ChannelInboundHandlerAdapter() {
@@ -127,6 +138,9 @@ public class TcpListener implements Listener {
 
         this.parser.stop();
 
+        LOG.info("Closing worker group...");
+        this.workerGroup.shutdownGracefully().sync();
+
         LOG.info("Closing boss group...");
         this.bossGroup.shutdownGracefully().sync();
     }
@@ -29,8 +29,10 @@
 package org.opennms.netmgt.telemetry.listeners;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import org.opennms.netmgt.telemetry.api.receiver.Dispatchable;
 import org.opennms.netmgt.telemetry.api.receiver.Listener;
@@ -41,6 +43,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.Lists;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -49,6 +52,10 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.DatagramPacket;
@@ -63,11 +70,13 @@ public class UdpListener implements Listener {
     private final List<UdpParser> parsers;
 
     private EventLoopGroup bossGroup;
-    private ChannelFuture socketFuture;
+    private final List<ChannelFuture> socketFutures = new ArrayList<>();
 
     private String host = null;
     private int port = 50000;
     private int maxPacketSize = 8096;
+    private boolean reusePort = false;
+    private int threads = 1;
 
     public UdpListener(final String name, final UdpParser parser) {
         this(name, Lists.newArrayList(Objects.requireNonNull(parser)));
@@ -88,7 +97,15 @@ public class UdpListener implements Listener {
     }
 
     public void start() throws InterruptedException {
-        this.bossGroup = new NioEventLoopGroup();
+        // Multiple sockets can only be bound to the same port using SO_REUSEPORT, which requires the native transport
+        final boolean useReusePort = this.reusePort && this.threads > 1 && Epoll.isAvailable();
+        if (this.reusePort && this.threads > 1 && !useReusePort) {
+            LOG.warn("SO_REUSEPORT is not available on this platform. Falling back to a single socket for listener {}.", this.name);
+        }
+
+        this.bossGroup = useReusePort
+                ? new EpollEventLoopGroup(this.threads)
+                : new NioEventLoopGroup();
 
         this.parsers.forEach(parser -> parser.start(this.bossGroup));
 
@@ -96,20 +113,35 @@ public class UdpListener implements Listener {
                 ? SocketUtils.socketAddress(this.host, this.port)
                 : new InetSocketAddress(this.port);
 
-        this.socketFuture = new Bootstrap()
+        // Packets are received into pooled direct buffers which are retained until the parser is done with them
+        final Bootstrap bootstrap = new Bootstrap()
                 .group(this.bossGroup)
-                .channel(NioDatagramChannel.class)
                 .option(ChannelOption.SO_REUSEADDR, true)
                 .option(ChannelOption.SO_RCVBUF, Integer.MAX_VALUE)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(this.maxPacketSize))
-                .handler(new DefaultChannelInitializer())
-                .bind(address)
-                .sync();
+                .handler(new DefaultChannelInitializer());
+
+        if (useReusePort) {
+            // The kernel balances the packets over all sockets by hashing the source and destination,
+            // so all packets of a single exporter are still handled by the same thread
+            bootstrap.channel(EpollDatagramChannel.class)
+                    .option(EpollChannelOption.SO_REUSEPORT, true);
+            for (int i = 0; i < this.threads; i++) {
+                this.socketFutures.add(bootstrap.bind(address).sync());
+            }
+        } else {
+            bootstrap.channel(NioDatagramChannel.class);
+            this.socketFutures.add(bootstrap.bind(address).sync());
+        }
     }
 
     public void stop() throws InterruptedException {
         LOG.info("Closing channel...");
-        this.socketFuture.channel().close().sync();
+        for (final ChannelFuture socketFuture : this.socketFutures) {
+            socketFuture.channel().close().sync();
+        }
+        this.socketFutures.clear();
 
         this.parsers.forEach(parser -> parser.stop());
 
@@ -141,6 +173,22 @@ public class UdpListener implements Listener {
         this.maxPacketSize = maxPacketSize;
     }
 
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public void setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
     @Override
     public String getName() {
         return name;
@@ -164,7 +212,7 @@ public class UdpListener implements Listener {
                         for (final UdpParser parser : parsers) {
                             if (BufferUtils.peek(msg.content().nioBuffer(), ((Dispatchable) parser)::handles)) {
                                 new SingleDatagramPacketParserHandler(parser).channelRead0(ctx, msg);
-                                break;
+                                return;
                             }
                         }
                         LOG.warn("Unhandled packet from {}", msg.sender());
@@ -194,16 +242,25 @@ public class UdpListener implements Listener {
 
         @Override
         protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) throws Exception {
-            parser.parse(
-                    ReferenceCountUtil.retain(msg.content()).nioBuffer(),
-                    msg.sender(), msg.recipient()
-                ).handle((result, ex) -> {
-                    ReferenceCountUtil.release(msg.content());
-                    if (ex != null) {
-                        ctx.fireExceptionCaught(ex);
-                    }
-                    return result;
-                });
+            // The buffer is handed over without copying, so keep it alive until the parser and
+            // the dispatcher are done with it - it is released back to the pool afterwards
+            final CompletableFuture<?> future;
+            try {
+                future = parser.parse(
+                        ReferenceCountUtil.retain(msg.content()).nioBuffer(),
+                        msg.sender(), msg.recipient());
+            } catch (final Exception e) {
+                ReferenceCountUtil.release(msg.content());
+                throw e;
+            }
+
+            future.handle((result, ex) -> {
+                ReferenceCountUtil.release(msg.content());
+                if (ex != null) {
+                    ctx.fireExceptionCaught(ex);
+                }
+                return result;
+            });
         }
     }
 
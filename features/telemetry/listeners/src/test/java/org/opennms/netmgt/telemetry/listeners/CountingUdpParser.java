@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.listeners;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opennms.netmgt.telemetry.api.receiver.Dispatchable;
+
+/**
+ * Counts the packets it receives, optionally only those starting with a given byte.
+ */
+public class CountingUdpParser implements UdpParser, Dispatchable {
+
+    private final String name;
+    private final Byte marker;
+    private final AtomicLong packets = new AtomicLong();
+    private final AtomicLong checksum = new AtomicLong();
+
+    private volatile boolean failing = false;
+
+    public CountingUdpParser(final String name) {
+        this(name, null);
+    }
+
+    public CountingUdpParser(final String name, final Byte marker) {
+        this.name = name;
+        this.marker = marker;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public void start(final ScheduledExecutorService executorService) {
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public boolean handles(final ByteBuffer buffer) {
+        return this.marker == null || (buffer.hasRemaining() && buffer.get() == this.marker);
+    }
+
+    @Override
+    public CompletableFuture<?> parse(final ByteBuffer buffer,
+                                      final InetSocketAddress remoteAddress,
+                                      final InetSocketAddress localAddress) throws Exception {
+        if (this.failing) {
+            throw new IllegalStateException("Failing on purpose");
+        }
+
+        // Touch every byte as a real parser would
+        long sum = 0;
+        while (buffer.hasRemaining()) {
+            sum += buffer.get();
+        }
+        this.checksum.addAndGet(sum);
+        this.packets.incrementAndGet();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    public void setFailing(final boolean failing) {
+        this.failing = failing;
+    }
+
+    public long getPackets() {
+        return this.packets.get();
+    }
+
+    public long getChecksum() {
+        return this.checksum.get();
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.listeners;
+
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Sends bursts of packets to a {@link UdpListener} and waits for them to be parsed.
+ *
+ * The throughput is reported in packets per second and the GC profiler reports the
+ * allocation rate per packet, comparing a single socket to multiple sockets bound using
+ * SO_REUSEPORT. Packets lost by the kernel are not waited for, so compare the throughput
+ * with the "lost" counter printed at the end of each trial.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.netmgt.telemetry.listeners.UdpListenerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class UdpListenerBenchmark {
+    private static final int BURST_SIZE = 1000;
+
+    @Param({"false", "true"})
+    public boolean reusePort;
+
+    @Param({"4"})
+    public int threads;
+
+    @Param({"1400"})
+    public int packetSize;
+
+    private CountingUdpParser parser;
+
+    private UdpListener listener;
+
+    private UdpLoadGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final int port;
+        try (final DatagramSocket socket = new DatagramSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        this.parser = new CountingUdpParser("benchmark");
+        this.listener = new UdpListener("benchmark", this.parser);
+        this.listener.setHost("127.0.0.1");
+        this.listener.setPort(port);
+        this.listener.setReusePort(this.reusePort);
+        this.listener.setThreads(this.threads);
+        this.listener.start();
+
+        // Use more senders than sockets to spread the load over all of them
+        this.generator = new UdpLoadGenerator(new InetSocketAddress("127.0.0.1", port), this.threads * 4, this.packetSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.generator.close();
+        this.listener.stop();
+        System.out.printf("%nSent %d packets, parsed %d, lost %d%n",
+                this.generator.getPacketsSent(), this.parser.getPackets(),
+                this.generator.getPacketsSent() - this.parser.getPackets());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public long receiveBurst() throws Exception {
+        final long expected = this.parser.getPackets() + BURST_SIZE;
+        this.generator.send(BURST_SIZE);
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (this.parser.getPackets() < expected && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        return this.parser.getChecksum();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UdpListenerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.listeners;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class UdpListenerTest {
+
+    private UdpListener listener;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (listener != null) {
+            listener.stop();
+        }
+    }
+
+    @Test
+    public void canReceivePackets() throws Exception {
+        final CountingUdpParser parser = new CountingUdpParser("test");
+        final InetSocketAddress address = startListener(parser, false, 1);
+
+        try (final UdpLoadGenerator generator = new UdpLoadGenerator(address, 1, 512)) {
+            generator.send(100);
+        }
+        await().atMost(10, TimeUnit.SECONDS).until(() -> parser.getPackets() == 100);
+    }
+
+    @Test
+    public void canReceivePacketsOnMultipleSockets() throws Exception {
+        final CountingUdpParser parser = new CountingUdpParser("test");
+        // Falls back to a single socket on platforms without SO_REUSEPORT
+        final InetSocketAddress address = startListener(parser, true, 4);
+
+        try (final UdpLoadGenerator generator = new UdpLoadGenerator(address, 8, 512)) {
+            generator.send(400);
+        }
+        await().atMost(10, TimeUnit.SECONDS).until(() -> parser.getPackets() == 400);
+    }
+
+    @Test
+    public void canDispatchToMatchingParser() throws Exception {
+        final CountingUdpParser first = new CountingUdpParser("first", (byte) 1);
+        final CountingUdpParser second = new CountingUdpParser("second", (byte) 2);
+        listener = new UdpListener("test", Arrays.asList(first, second));
+        final InetSocketAddress address = startListener(listener);
+
+        try (final DatagramChannel channel = DatagramChannel.open()) {
+            for (int i = 0; i < 10; i++) {
+                channel.send(ByteBuffer.wrap(new byte[]{1, 0, 0, 0}), address);
+            }
+            for (int i = 0; i < 5; i++) {
+                channel.send(ByteBuffer.wrap(new byte[]{2, 0, 0, 0}), address);
+            }
+        }
+        await().atMost(10, TimeUnit.SECONDS).until(() -> first.getPackets() + second.getPackets() == 15);
+        assertEquals(10, first.getPackets());
+        assertEquals(5, second.getPackets());
+    }
+
+    @Test
+    public void canReceivePacketsAfterParseFailure() throws Exception {
+        final CountingUdpParser parser = new CountingUdpParser("test");
+        final InetSocketAddress address = startListener(parser, false, 1);
+
+        try (final UdpLoadGenerator generator = new UdpLoadGenerator(address, 1, 512)) {
+            parser.setFailing(true);
+            generator.send(10);
+            // Give the failing packets a chance to be handled before we start counting
+            Thread.sleep(500);
+            parser.setFailing(false);
+
+            generator.send(10);
+        }
+        await().atMost(10, TimeUnit.SECONDS).until(() -> parser.getPackets() == 10);
+    }
+
+    private InetSocketAddress startListener(final UdpParser parser, final boolean reusePort, final int threads) throws Exception {
+        listener = new UdpListener("test", parser);
+        listener.setReusePort(reusePort);
+        listener.setThreads(threads);
+        return startListener(listener);
+    }
+
+    private static InetSocketAddress startListener(final UdpListener listener) throws Exception {
+        listener.setHost("127.0.0.1");
+        listener.setPort(getAvailablePort());
+        listener.start();
+        return new InetSocketAddress("127.0.0.1", listener.getPort());
+    }
+
+    private static int getAvailablePort() throws IOException {
+        try (final DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.listeners;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends UDP packets of a fixed size to a listener.
+ *
+ * Each sender uses its own socket, and therefore its own source port, so that
+ * the packets are balanced over all sockets of a listener using SO_REUSEPORT.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.netmgt.telemetry.listeners.UdpLoadGenerator -Dexec.args="host port senders packetSize seconds"
+ */
+public class UdpLoadGenerator implements AutoCloseable {
+
+    private final InetSocketAddress target;
+    private final List<DatagramChannel> channels = new ArrayList<>();
+    private final ByteBuffer packet;
+
+    private final AtomicLong packetsSent = new AtomicLong();
+
+    private ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public UdpLoadGenerator(final InetSocketAddress target, final int senders, final int packetSize) throws IOException {
+        this.target = Objects.requireNonNull(target);
+
+        for (int i = 0; i < senders; i++) {
+            this.channels.add(DatagramChannel.open());
+        }
+
+        this.packet = ByteBuffer.allocateDirect(packetSize);
+        for (int i = 0; i < packetSize; i++) {
+            this.packet.put((byte) i);
+        }
+        this.packet.flip();
+    }
+
+    /**
+     * Sends the given number of packets, round-robin over all senders, from the calling thread.
+     */
+    public void send(final int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            send(this.channels.get(i % this.channels.size()));
+        }
+    }
+
+    /**
+     * Keeps sending packets from a dedicated thread per sender until {@link #stop()} is called.
+     */
+    public void start() {
+        this.running.set(true);
+        this.executor = Executors.newFixedThreadPool(this.channels.size());
+        for (final DatagramChannel channel : this.channels) {
+            this.executor.execute(() -> {
+                try {
+                    while (this.running.get()) {
+                        send(channel);
+                    }
+                } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        this.running.set(false);
+        if (this.executor != null) {
+            this.executor.shutdown();
+            this.executor.awaitTermination(1, TimeUnit.MINUTES);
+            this.executor = null;
+        }
+    }
+
+    public long getPacketsSent() {
+        return this.packetsSent.get();
+    }
+
+    private void send(final DatagramChannel channel) throws IOException {
+        channel.send(this.packet.duplicate(), this.target);
+        this.packetsSent.incrementAndGet();
+    }
+
+    @Override
+    public void close() throws Exception {
+        stop();
+        for (final DatagramChannel channel : this.channels) {
+            channel.close();
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final InetSocketAddress target = new InetSocketAddress(args.length > 0 ? args[0] : "127.0.0.1",
+                args.length > 1 ? Integer.parseInt(args[1]) : 50000);
+        final int senders = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        final int packetSize = args.length > 3 ? Integer.parseInt(args[3]) : 1400;
+        final int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 60;
+
+        try (final UdpLoadGenerator generator = new UdpLoadGenerator(target, senders, packetSize)) {
+            generator.start();
+            for (int i = 0; i < seconds; i++) {
+                final long before = generator.getPacketsSent();
+                Thread.sleep(1000);
+                System.out.printf("Sent %d packets/s to %s%n", generator.getPacketsSent() - before, target);
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ package org.opennms.netmgt.telemetry.protocols.collection;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -84,6 +85,19 @@ public abstract class AbstractPersistingAdapter implements Adapter {
 
     private String script;
 
+    private boolean precompileScript = false;
+
+    private String mapping;
+
+    private FileUpdateWatcher mappingUpdateWatcher;
+
+    private volatile MetricMapper metricMapper;
+
+    /*
+     * Precompiled scripts are thread safe, so a single builder is shared by all threads.
+     */
+    private volatile ScriptedCollectionSetBuilder sharedCollectionSetBuilder;
+
     /*
      * Since ScriptCollectionSetBuilder is not thread safe , loading of script
      * is handled in ThreadLocal.
@@ -166,6 +180,8 @@ public abstract class AbstractPersistingAdapter implements Adapter {
 
     @Override
     public void handleMessageLog(TelemetryMessageLog messageLog) {
+        // All of the collection sets in the log which match the same package are persisted with the same persister
+        final Map<PackageDefinition, Persister> persisters = new HashMap<>();
         for (TelemetryMessageLogEntry message : messageLog.getMessageList()) {
             handleMessage(message, messageLog).forEach(result -> {
                 // Locate the matching package definition
@@ -175,22 +191,25 @@ public abstract class AbstractPersistingAdapter implements Adapter {
                     return;
                 }
 
-                // Build the repository from the package definition
-                final RrdRepository repository = new RrdRepository();
-                repository.setStep(pkg.getRrd().getStep());
-                repository.setHeartBeat(repository.getStep() * 2);
-                repository.setRraList(pkg.getRrd().getRras());
-                repository.setRrdBaseDir(new File(pkg.getRrd().getBaseDir()));
-
                 // Persist!
                 final CollectionSet collectionSet = result.getCollectionSet();
                 LOG.trace("Persisting collection set: {} for message: {}", collectionSet, message);
-                final Persister persister = persisterFactory.createPersister(EMPTY_SERVICE_PARAMETERS, repository);
+                final Persister persister = persisters.computeIfAbsent(pkg, this::createPersister);
                 collectionSet.visit(persister);
             });
         }
     }
 
+    private Persister createPersister(PackageDefinition pkg) {
+        // Build the repository from the package definition
+        final RrdRepository repository = new RrdRepository();
+        repository.setStep(pkg.getRrd().getStep());
+        repository.setHeartBeat(repository.getStep() * 2);
+        repository.setRraList(pkg.getRrd().getRras());
+        repository.setRrdBaseDir(new File(pkg.getRrd().getBaseDir()));
+        return persisterFactory.createPersister(EMPTY_SERVICE_PARAMETERS, repository);
+    }
+
     @Override
     public void setConfig(AdapterDefinition adapterConfig) {
         this.adapterConfig = adapterConfig;
@@ -254,6 +273,10 @@ public abstract class AbstractPersistingAdapter implements Adapter {
      * existing builder
      */
     protected ScriptedCollectionSetBuilder getCollectionBuilder() {
+        if (precompileScript) {
+            return getSharedCollectionBuilder();
+        }
+
         ScriptedCollectionSetBuilder builder = scriptedCollectionSetBuilders.get();
         // Reload script if reload() happened or earlier invocation of script didn't compile
         if ((builder != null && scriptUpdateMap.get(builder)) || !scriptCompiled.get()) {
@@ -270,10 +293,43 @@ public abstract class AbstractPersistingAdapter implements Adapter {
         return builder;
     }
 
+    /*
+     * Returns the builder shared by all threads, and compiles the script again when it was updated or
+     * failed to compile earlier
+     */
+    private ScriptedCollectionSetBuilder getSharedCollectionBuilder() {
+        ScriptedCollectionSetBuilder builder = sharedCollectionSetBuilder;
+        if (builder != null && Boolean.FALSE.equals(scriptUpdateMap.get(builder))) {
+            return builder;
+        }
+
+        synchronized (this) {
+            builder = sharedCollectionSetBuilder;
+            if (builder == null || !Boolean.FALSE.equals(scriptUpdateMap.get(builder))) {
+                try {
+                    final ScriptedCollectionSetBuilder updated = loadCollectionBuilder(bundleContext, script);
+                    if (builder != null) {
+                        scriptUpdateMap.remove(builder);
+                    }
+                    builder = updated;
+                    sharedCollectionSetBuilder = builder;
+                } catch (Exception e) {
+                    // Keep using the existing builder, if any
+                    LOG.error("Failed to create builder for script '{}'.", script, e);
+                }
+            }
+            return builder;
+        }
+    }
+
     private ScriptedCollectionSetBuilder loadCollectionBuilder(BundleContext bundleContext, String script)
             throws IOException, ScriptException {
         ScriptedCollectionSetBuilder builder;
-        if (bundleContext != null) {
+        if (precompileScript) {
+            builder = new ScriptedCollectionSetBuilder(new File(script), bundleContext, true);
+            scriptUpdateMap.put(builder, false);
+            return builder;
+        } else if (bundleContext != null) {
             builder = new ScriptedCollectionSetBuilder(new File(script), bundleContext);
             scriptUpdateMap.put(builder, false);
             return builder;
@@ -286,7 +342,9 @@ public abstract class AbstractPersistingAdapter implements Adapter {
 
     private ScriptedCollectionSetBuilder checkScript(BundleContext bundleContext, String script)
             throws IOException, ScriptException {
-        if (bundleContext != null) {
+        if (precompileScript) {
+            return new ScriptedCollectionSetBuilder(new File(script), bundleContext, true);
+        } else if (bundleContext != null) {
             return new ScriptedCollectionSetBuilder(new File(script), bundleContext);
         } else {
             return new ScriptedCollectionSetBuilder(new File(script));
@@ -322,6 +380,40 @@ public abstract class AbstractPersistingAdapter implements Adapter {
         };
     }
 
+    /*
+     * Returns the mapper used to build the collection sets from the messages directly, or null
+     * if the collection sets are built using the script
+     */
+    protected MetricMapper getMetricMapper() {
+        return metricMapper;
+    }
+
+    private void loadMetricMapper() {
+        try {
+            metricMapper = MetricMapper.fromFile(new File(mapping));
+            LOG.debug("Loaded metric mapping '{}'.", mapping);
+        } catch (Exception e) {
+            // Keep using the existing mapping, if any
+            LOG.error("Failed to load metric mapping '{}'.", mapping, e);
+        }
+    }
+
+    public String getMapping() {
+        return mapping;
+    }
+
+    public void setMapping(String mapping) {
+        this.mapping = mapping;
+        if (!Strings.isNullOrEmpty(mapping)) {
+            loadMetricMapper();
+            try {
+                mappingUpdateWatcher = new FileUpdateWatcher(mapping, this::loadMetricMapper);
+            } catch (Exception e) {
+                LOG.info("Mapping reload Utils is not registered", e);
+            }
+        }
+    }
+
     public void setBundleContext(BundleContext bundleContext) {
         this.bundleContext = bundleContext;
     }
@@ -335,9 +427,20 @@ public abstract class AbstractPersistingAdapter implements Adapter {
         setFileUpdateCallback(script);
     }
 
+    public boolean isPrecompileScript() {
+        return precompileScript;
+    }
+
+    public void setPrecompileScript(boolean precompileScript) {
+        this.precompileScript = precompileScript;
+    }
+
     public void destroy() {
         if (scriptUpdateWatcher != null) {
             scriptUpdateWatcher.destroy();
         }
+        if (mappingUpdateWatcher != null) {
+            mappingUpdateWatcher.destroy();
+        }
     }
 }
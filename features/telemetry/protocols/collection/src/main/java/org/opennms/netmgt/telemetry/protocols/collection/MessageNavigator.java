@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.collection;
+
+import java.util.List;
+
+/**
+ * Used to navigate the decoded messages of a given protocol by name, allowing
+ * their contents to be mapped to resources and attributes declaratively.
+ *
+ * IMPORTANT: Implementations of this interface must be thread-safe.
+ */
+public interface MessageNavigator {
+
+    /**
+     * Retrieves the nodes nested under the given name.
+     *
+     * @param node the message, or one of its nested nodes
+     * @param name the name of the nested nodes
+     * @return the nested nodes, or an empty list if there are none
+     */
+    List<?> getChildren(Object node, String name);
+
+    /**
+     * Retrieves the value with the given name.
+     *
+     * @param node the message, or one of its nested nodes
+     * @param name the name of the value
+     * @return the value, or null if there is none
+     */
+    Object getValue(Object node, String name);
+}
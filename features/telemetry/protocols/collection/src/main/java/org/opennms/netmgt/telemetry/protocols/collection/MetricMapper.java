@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.collection;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.bind.DataBindingException;
+import javax.xml.bind.JAXB;
+
+import org.opennms.core.utils.RrdLabelUtils;
+import org.opennms.netmgt.collection.api.AttributeGroupType;
+import org.opennms.netmgt.collection.api.AttributeType;
+import org.opennms.netmgt.collection.api.CollectionAgent;
+import org.opennms.netmgt.collection.api.CollectionAttribute;
+import org.opennms.netmgt.collection.api.CollectionResource;
+import org.opennms.netmgt.collection.api.CollectionSet;
+import org.opennms.netmgt.collection.api.CollectionSetVisitor;
+import org.opennms.netmgt.collection.api.CollectionStatus;
+import org.opennms.netmgt.collection.api.Persister;
+import org.opennms.netmgt.collection.support.AbstractCollectionAttribute;
+import org.opennms.netmgt.collection.support.AbstractCollectionAttributeType;
+import org.opennms.netmgt.collection.support.AbstractCollectionResource;
+import org.opennms.netmgt.collection.support.NumericAttributeUtils;
+import org.opennms.netmgt.collection.support.builder.CollectionSetBuilder;
+import org.opennms.netmgt.collection.support.builder.DeferredGenericTypeResource;
+import org.opennms.netmgt.collection.support.builder.InterfaceLevelResource;
+import org.opennms.netmgt.collection.support.builder.NodeLevelResource;
+import org.opennms.netmgt.collection.support.builder.Resource;
+import org.opennms.netmgt.telemetry.protocols.collection.mapping.AttributeMapping;
+import org.opennms.netmgt.telemetry.protocols.collection.mapping.MetricMappingConfig;
+import org.opennms.netmgt.telemetry.protocols.collection.mapping.ResourceMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+
+/**
+ * Maps decoded telemetry messages to collection sets using a {@link MetricMappingConfig}.
+ *
+ * This is an alternative to the {@link ScriptedCollectionSetBuilder} for high frequency
+ * telemetry: the mapping is compiled once, and the collection sets returned by
+ * {@link #map(CollectionAgent, Object, MessageNavigator)} read the values straight from
+ * the message while they are being visited by the persister, without building any
+ * intermediate resources or attributes up front.
+ *
+ * Paths are separated by slashes. All but the last element of an attribute or instance
+ * path must lead to nested nodes, while the last one refers to a value.
+ *
+ * Instances of this class are immutable and thread-safe.
+ */
+public class MetricMapper {
+    private static final Logger LOG = LoggerFactory.getLogger(MetricMapper.class);
+
+    /**
+     * Type of the interface resources in the mapping, see {@link ResourceMapping}.
+     */
+    public static final String RESOURCE_TYPE_INTERFACE = "interface";
+
+    private static final Splitter PATH_SPLITTER = Splitter.on('/').trimResults().omitEmptyStrings();
+
+    private final List<MappedResource> resources = new ArrayList<>();
+
+    public MetricMapper(MetricMappingConfig config) {
+        for (ResourceMapping resource : config.getResources()) {
+            resources.add(new MappedResource(resource));
+        }
+    }
+
+    public static MetricMapper fromFile(File file) throws IOException {
+        try {
+            return new MetricMapper(JAXB.unmarshal(file, MetricMappingConfig.class));
+        } catch (DataBindingException e) {
+            throw new IOException("Failed to read metric mapping from: " + file, e);
+        }
+    }
+
+    /**
+     * Maps the given message.
+     *
+     * @param agent the agent against which the resources are associated
+     * @param message the decoded message
+     * @param navigator used to navigate the message
+     * @return a collection set which is re-evaluated every time it is visited
+     */
+    public CollectionSet map(CollectionAgent agent, Object message, MessageNavigator navigator) {
+        return new MappedCollectionSet(Objects.requireNonNull(agent), Objects.requireNonNull(message), Objects.requireNonNull(navigator));
+    }
+
+    private static List<String> parsePath(String path) {
+        return path == null ? Collections.emptyList() : PATH_SPLITTER.splitToList(path);
+    }
+
+    private static List<?> getNodes(Object node, List<String> path, MessageNavigator navigator) {
+        List<?> nodes = Collections.singletonList(node);
+        for (String name : path) {
+            final List<Object> children = new ArrayList<>();
+            for (Object parent : nodes) {
+                children.addAll(navigator.getChildren(parent, name));
+            }
+            nodes = children;
+        }
+        return nodes;
+    }
+
+    private static Object getValue(Object node, List<String> path, MessageNavigator navigator) {
+        Object current = node;
+        for (String name : path.subList(0, path.size() - 1)) {
+            final List<?> children = navigator.getChildren(current, name);
+            if (children.isEmpty()) {
+                return null;
+            }
+            current = children.get(0);
+        }
+        return navigator.getValue(current, path.get(path.size() - 1));
+    }
+
+    private static class MappedResource {
+        private final String type;
+        private final List<String> path;
+        private final List<String> instance;
+        private final List<MappedAttributeType> attributes = new ArrayList<>();
+
+        private MappedResource(ResourceMapping resource) {
+            this.type = Objects.requireNonNull(resource.getType(), "resource type is required");
+            this.path = parsePath(resource.getPath());
+            this.instance = parsePath(resource.getInstance());
+            if (!CollectionResource.RESOURCE_TYPE_NODE.equals(type) && instance.isEmpty()) {
+                throw new IllegalArgumentException("An instance is required for resources of type: " + type);
+            }
+            for (AttributeMapping attribute : resource.getAttributes()) {
+                attributes.add(new MappedAttributeType(attribute));
+            }
+        }
+
+        private Resource toResource(NodeLevelResource nodeResource, Object node, MessageNavigator navigator) {
+            if (CollectionResource.RESOURCE_TYPE_NODE.equals(type)) {
+                return nodeResource;
+            }
+
+            final Object value = getValue(node, instance, navigator);
+            if (value == null || Strings.isNullOrEmpty(value.toString())) {
+                LOG.debug("No instance found for resource of type: {} at: {}. Skipping.", type, instance);
+                return null;
+            }
+            if (RESOURCE_TYPE_INTERFACE.equals(type) || CollectionResource.RESOURCE_TYPE_IF.equals(type)) {
+                return new InterfaceLevelResource(nodeResource, RrdLabelUtils.computeLabelForRRD(value.toString(), null, null));
+            }
+            return new DeferredGenericTypeResource(nodeResource, type, value.toString());
+        }
+    }
+
+    private static class MappedAttributeType extends AbstractCollectionAttributeType {
+        private final String name;
+        private final AttributeType type;
+        private final List<String> path;
+
+        private MappedAttributeType(AttributeMapping attribute) {
+            super(new AttributeGroupType(Objects.requireNonNull(attribute.getGroup(), "attribute group is required"), AttributeGroupType.IF_TYPE_ALL));
+            this.name = Objects.requireNonNull(attribute.getName(), "attribute name is required");
+            this.type = AttributeType.parse(attribute.getType());
+            if (this.type == null) {
+                throw new IllegalArgumentException("Invalid type: " + attribute.getType() + " for attribute: " + name);
+            }
+            this.path = parsePath(attribute.getPath());
+            if (path.isEmpty()) {
+                throw new IllegalArgumentException("A path is required for attribute: " + name);
+            }
+        }
+
+        @Override
+        public AttributeType getType() {
+            return type;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void storeAttribute(CollectionAttribute collectionAttribute, Persister persister) {
+            if (AttributeType.STRING.equals(type)) {
+                persister.persistStringAttribute(collectionAttribute);
+            } else {
+                persister.persistNumericAttribute(collectionAttribute);
+            }
+        }
+
+        private CollectionAttribute toAttribute(CollectionResource resource, Object node, MessageNavigator navigator) {
+            final Object value = getValue(node, path, navigator);
+            if (value == null) {
+                return null;
+            }
+
+            if (type.isNumeric()) {
+                final Number numericValue = value instanceof Number ? (Number)value : NumericAttributeUtils.parseNumericValue(value.toString());
+                return new MappedAttribute(this, resource, numericValue, null);
+            }
+            return new MappedAttribute(this, resource, null, value.toString());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MappedAttributeType[name=%s, type=%s, path=%s]", name, type, path);
+        }
+    }
+
+    private static class MappedAttribute extends AbstractCollectionAttribute {
+        private final Number numericValue;
+        private final String stringValue;
+
+        private MappedAttribute(MappedAttributeType attributeType, CollectionResource resource, Number numericValue, String stringValue) {
+            super(attributeType, resource);
+            this.numericValue = numericValue;
+            this.stringValue = stringValue;
+        }
+
+        @Override
+        public String getMetricIdentifier() {
+            return getName();
+        }
+
+        @Override
+        public Number getNumericValue() {
+            return numericValue;
+        }
+
+        @Override
+        public String getStringValue() {
+            return stringValue;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Attribute[%s:%s]", getMetricIdentifier(), numericValue != null ? numericValue : stringValue);
+        }
+    }
+
+    private class MappedCollectionSet implements CollectionSet {
+        private final CollectionAgent agent;
+        private final Object message;
+        private final MessageNavigator navigator;
+        private final Date timestamp = new Date();
+
+        private MappedCollectionSet(CollectionAgent agent, Object message, MessageNavigator navigator) {
+            this.agent = agent;
+            this.message = message;
+            this.navigator = navigator;
+        }
+
+        @Override
+        public CollectionStatus getStatus() {
+            return CollectionStatus.SUCCEEDED;
+        }
+
+        @Override
+        public boolean ignorePersist() {
+            return false;
+        }
+
+        @Override
+        public Date getCollectionTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public void visit(CollectionSetVisitor visitor) {
+            visitor.visitCollectionSet(this);
+
+            // Resources are built and visited one at a time, straight from the message
+            final NodeLevelResource nodeResource = new NodeLevelResource(agent.getNodeId());
+            for (MappedResource mappedResource : resources) {
+                for (Object node : getNodes(message, mappedResource.path, navigator)) {
+                    final Resource resource = mappedResource.toResource(nodeResource, node, navigator);
+                    if (resource == null) {
+                        continue;
+                    }
+
+                    final AbstractCollectionResource collectionResource = CollectionSetBuilder.toCollectionResource(resource, agent);
+                    boolean hasAttributes = false;
+                    for (MappedAttributeType attributeType : mappedResource.attributes) {
+                        final CollectionAttribute attribute = attributeType.toAttribute(collectionResource, node, navigator);
+                        if (attribute != null) {
+                            collectionResource.addAttribute(attribute);
+                            hasAttributes = true;
+                        }
+                    }
+                    if (hasAttributes) {
+                        collectionResource.visit(visitor);
+                    }
+                }
+            }
+
+            visitor.completeCollectionSet(this);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MappedCollectionSet[agent=%s, message=%s]", agent, message);
+        }
+    }
+}
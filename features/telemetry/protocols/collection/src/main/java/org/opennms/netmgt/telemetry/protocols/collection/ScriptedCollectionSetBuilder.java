@@ -30,11 +30,21 @@ package org.opennms.netmgt.telemetry.protocols.collection;
 
 import com.google.common.io.Files;
 
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyCodeSource;
+import groovy.lang.Script;
+
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.jsr223.GroovyScriptEngineImpl;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.opennms.features.osgi.script.OSGiScriptEngineManager;
 import org.opennms.netmgt.collection.api.CollectionAgent;
 import org.opennms.netmgt.collection.api.CollectionSet;
 import org.opennms.netmgt.collection.support.builder.CollectionSetBuilder;
 import org.osgi.framework.BundleContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.script.Compilable;
 import javax.script.CompiledScript;
@@ -45,18 +55,28 @@ import javax.script.SimpleBindings;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Uses an external script, executed via JSR-223, to generate a
  * {@link CollectionSet} from some given object using the
  * {@link CollectionSetBuilder}.
  *
+ * Groovy scripts can optionally be precompiled into a script class which
+ * is run directly, bypassing the JSR-223 engine for every message. In this
+ * mode, every thread gets its own instance of the script, and the builder
+ * is thread safe.
+ *
  * @author jwhite
  */
 public class ScriptedCollectionSetBuilder {
+    private static final Logger LOG = LoggerFactory.getLogger(ScriptedCollectionSetBuilder.class);
 
     private CompiledScript compiledScript;
 
+    private ThreadLocal<CollectionScript> collectionScripts;
+
     public ScriptedCollectionSetBuilder(File script) throws IOException, ScriptException {
         this(script, new ScriptEngineManager());
     }
@@ -66,6 +86,14 @@ public class ScriptedCollectionSetBuilder {
     }
 
     public ScriptedCollectionSetBuilder(File script, ScriptEngineManager manager) throws IOException, ScriptException {
+        this(script, manager, false);
+    }
+
+    public ScriptedCollectionSetBuilder(File script, BundleContext bundleContext, boolean precompile) throws IOException, ScriptException {
+        this(script, bundleContext != null ? new OSGiScriptEngineManager(bundleContext) : new ScriptEngineManager(), precompile);
+    }
+
+    public ScriptedCollectionSetBuilder(File script, ScriptEngineManager manager, boolean precompile) throws IOException, ScriptException {
         if (!script.canRead()) {
             throw new IllegalStateException("Cannot read script at '" + script + "'.");
         }
@@ -77,6 +105,16 @@ public class ScriptedCollectionSetBuilder {
             throw new IllegalStateException("No engine found for extension: " + ext);
         }
 
+        if (precompile) {
+            if (engine instanceof GroovyScriptEngineImpl) {
+                // Use the class loader of the engine, so the script sees the same classes as it would when evaluated
+                final Class<? extends Script> scriptClass = compile(((GroovyScriptEngineImpl) engine).getClassLoader(), script);
+                collectionScripts = ThreadLocal.withInitial(() -> new CollectionScript(scriptClass));
+                return;
+            }
+            LOG.warn("Only Groovy scripts can be precompiled. Evaluating script '{}' using the script engine.", script);
+        }
+
         if (!(engine instanceof Compilable)) {
             throw new IllegalStateException("Only engines that can compile scripts are supported.");
         }
@@ -86,11 +124,25 @@ public class ScriptedCollectionSetBuilder {
         }
     }
 
+    private static Class<? extends Script> compile(GroovyClassLoader classLoader, File script) throws IOException, ScriptException {
+        final Class<?> clazz;
+        try {
+            clazz = classLoader.parseClass(new GroovyCodeSource(script));
+        } catch (CompilationFailedException e) {
+            throw new ScriptException(e);
+        }
+        if (!Script.class.isAssignableFrom(clazz)) {
+            throw new ScriptException("Script '" + script + "' does not contain any statements to run.");
+        }
+        return clazz.asSubclass(Script.class);
+    }
+
     /**
      * Builds a collection set from the given message.
      *
      * WARNING: This method is not necessarily thread safe. This depends on the
-     * script, and the script engine that is being used.
+     * script, and the script engine that is being used. Precompiled scripts
+     * are always thread safe.
      *
      * @param agent
      *            the agent associated with the collection set
@@ -101,12 +153,96 @@ public class ScriptedCollectionSetBuilder {
      */
     public CollectionSet build(CollectionAgent agent, Object message) throws ScriptException {
         final CollectionSetBuilder builder = new CollectionSetBuilder(agent);
-        final SimpleBindings globals = new SimpleBindings();
-        globals.put("agent", agent);
-        globals.put("builder", builder);
-        globals.put("msg", message);
-        compiledScript.eval(globals);
+        if (collectionScripts != null) {
+            collectionScripts.get().run(agent, builder, message);
+        } else {
+            final SimpleBindings globals = new SimpleBindings();
+            globals.put("agent", agent);
+            globals.put("builder", builder);
+            globals.put("msg", message);
+            compiledScript.eval(globals);
+        }
         return builder.build();
     }
 
+    public boolean isPrecompiled() {
+        return collectionScripts != null;
+    }
+
+    /**
+     * An instance of a precompiled script, along with the globals passed to it.
+     *
+     * The globals are held in fields rather than in a map, and are cleared after
+     * every run, so nothing is retained between messages.
+     */
+    private static class CollectionScript extends Binding {
+        private final Script script;
+
+        private CollectionAgent agent;
+        private CollectionSetBuilder builder;
+        private Object msg;
+
+        private CollectionScript(Class<? extends Script> scriptClass) {
+            this.script = InvokerHelper.createScript(scriptClass, this);
+        }
+
+        private void run(CollectionAgent agent, CollectionSetBuilder builder, Object msg) throws ScriptException {
+            this.agent = agent;
+            this.builder = builder;
+            this.msg = msg;
+            try {
+                script.run();
+            } catch (RuntimeException e) {
+                throw new ScriptException(e);
+            } finally {
+                this.agent = null;
+                this.builder = null;
+                this.msg = null;
+                // Drop the variables assigned by the script, as a fresh set of bindings would
+                super.getVariables().clear();
+            }
+        }
+
+        @Override
+        public Object getVariable(String name) {
+            switch (name) {
+                case "agent": return agent;
+                case "builder": return builder;
+                case "msg": return msg;
+                default: return super.getVariable(name);
+            }
+        }
+
+        @Override
+        public void setVariable(String name, Object value) {
+            switch (name) {
+                case "agent": agent = (CollectionAgent) value; break;
+                case "builder": builder = (CollectionSetBuilder) value; break;
+                case "msg": msg = value; break;
+                default: super.setVariable(name, value);
+            }
+        }
+
+        @Override
+        public boolean hasVariable(String name) {
+            switch (name) {
+                case "agent":
+                case "builder":
+                case "msg":
+                    return true;
+                default:
+                    return super.hasVariable(name);
+            }
+        }
+
+        @Override
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        public Map getVariables() {
+            final Map variables = new LinkedHashMap(super.getVariables());
+            variables.put("agent", agent);
+            variables.put("builder", builder);
+            variables.put("msg", msg);
+            return variables;
+        }
+    }
 }
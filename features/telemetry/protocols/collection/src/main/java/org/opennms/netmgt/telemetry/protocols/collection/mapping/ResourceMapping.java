@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.collection.mapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Maps the nodes found at the given path of a message to resources of the given type.
+ *
+ * The type is either "node", "interface" or the name of a generic resource type. The
+ * instance of the interface and generic resources is the value found at the instance
+ * path, relative to the node.
+ */
+@XmlAccessorType(XmlAccessType.NONE)
+public class ResourceMapping {
+
+    @XmlAttribute(name="type", required=true)
+    private String type;
+
+    @XmlAttribute(name="path")
+    private String path;
+
+    @XmlAttribute(name="instance")
+    private String instance;
+
+    @XmlElement(name="attribute")
+    private List<AttributeMapping> attributes = new ArrayList<>();
+
+    public String getType() {
+        return this.type;
+    }
+
+    public void setType(final String type) {
+        this.type = type;
+    }
+
+    public String getPath() {
+        return this.path;
+    }
+
+    public void setPath(final String path) {
+        this.path = path;
+    }
+
+    public String getInstance() {
+        return this.instance;
+    }
+
+    public void setInstance(final String instance) {
+        this.instance = instance;
+    }
+
+    public List<AttributeMapping> getAttributes() {
+        return this.attributes;
+    }
+
+    public void setAttributes(final List<AttributeMapping> attributes) {
+        this.attributes = attributes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ResourceMapping that = (ResourceMapping) o;
+        return Objects.equals(this.type, that.type) &&
+                Objects.equals(this.path, that.path) &&
+                Objects.equals(this.instance, that.instance) &&
+                Objects.equals(this.attributes, that.attributes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                this.type,
+                this.path,
+                this.instance,
+                this.attributes);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("type", this.type)
+                .add("path", this.path)
+                .add("instance", this.instance)
+                .add("attributes", this.attributes)
+                .toString();
+    }
+}
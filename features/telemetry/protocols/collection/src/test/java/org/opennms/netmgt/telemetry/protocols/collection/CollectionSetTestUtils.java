@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.collection;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.opennms.core.utils.RrdLabelUtils;
+import org.opennms.netmgt.collection.api.CollectionAttribute;
+import org.opennms.netmgt.collection.api.CollectionSet;
+import org.opennms.netmgt.collection.support.AbstractCollectionSetVisitor;
+
+/**
+ * Helpers for comparing the collection sets built from the messages created by
+ * {@link ScriptedCollectionSetBuilderTest#createMessage(int, long)}.
+ */
+public class CollectionSetTestUtils {
+
+    private CollectionSetTestUtils() {}
+
+    /**
+     * @return the values expected for the given message, keyed by the RRD label of the interface and the attribute name
+     */
+    public static Map<String, Number> expectedValues(int numInterfaces, long seed) {
+        final Map<String, Number> values = new LinkedHashMap<>();
+        for (int i = 0; i < numInterfaces; i++) {
+            final String label = RrdLabelUtils.computeLabelForRRD("ge-0_0_" + i, null, null);
+            values.put(label + "/ifInOctets", (double) (seed * 100 + i));
+            values.put(label + "/ifOutOctets", (double) (seed * 200 + i));
+        }
+        return values;
+    }
+
+    /**
+     * @return the numeric values of the collection set, keyed by resource instance and attribute name
+     */
+    public static Map<String, Number> getValues(CollectionSet collectionSet) {
+        final Map<String, Number> values = new LinkedHashMap<>();
+        collectionSet.visit(new AbstractCollectionSetVisitor() {
+            @Override
+            public void visitAttribute(CollectionAttribute attribute) {
+                final String instance = attribute.getResource().getInstance();
+                final String key = instance != null ? instance + "/" + attribute.getName() : attribute.getName();
+                values.put(key, attribute.getNumericValue().doubleValue());
+            }
+        });
+        return values;
+    }
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.collection;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Navigates messages made of maps and lists, as built by {@link ScriptedCollectionSetBuilderTest#createMessage(int, long)}.
+ */
+public class MapMessageNavigator implements MessageNavigator {
+
+    @Override
+    public List<?> getChildren(Object node, String name) {
+        final Object value = node instanceof Map ? ((Map<?, ?>) node).get(name) : null;
+        if (value instanceof List) {
+            return (List<?>) value;
+        } else if (value instanceof Map) {
+            return Collections.singletonList(value);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Object getValue(Object node, String name) {
+        return node instanceof Map ? ((Map<?, ?>) node).get(name) : null;
+    }
+}
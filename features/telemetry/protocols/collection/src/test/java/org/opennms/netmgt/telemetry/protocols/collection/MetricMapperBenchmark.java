@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.collection;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptEngineManager;
+
+import org.opennms.netmgt.collection.api.CollectionAttribute;
+import org.opennms.netmgt.collection.api.CollectionSet;
+import org.opennms.netmgt.collection.dto.CollectionAgentDTO;
+import org.opennms.netmgt.collection.support.AbstractCollectionSetVisitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the precompiled script with the metric mapping by building collection sets
+ * from messages and visiting them, as the persisters do.
+ *
+ * Every message carries two samples per interface.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.netmgt.telemetry.protocols.collection.MetricMapperBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MetricMapperBenchmark {
+
+    @Param({"script", "mapping"})
+    public String mode;
+
+    @Param({"1", "48"})
+    public int interfaces;
+
+    private CollectionAgentDTO agent;
+
+    private Map<String, Object> message;
+
+    private ScriptedCollectionSetBuilder builder;
+
+    private MetricMapper mapper;
+
+    private final MapMessageNavigator navigator = new MapMessageNavigator();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.agent = ScriptedCollectionSetBuilderTest.createAgent();
+        this.message = ScriptedCollectionSetBuilderTest.createMessage(this.interfaces, 42);
+        if ("script".equals(this.mode)) {
+            this.builder = new ScriptedCollectionSetBuilder(MetricMapperTest.SCRIPT, new ScriptEngineManager(), true);
+        } else {
+            this.mapper = MetricMapper.fromFile(MetricMapperTest.MAPPING);
+        }
+    }
+
+    @Benchmark
+    public void buildAndVisit(Blackhole blackhole) throws Exception {
+        final CollectionSet collectionSet = this.builder != null
+                ? this.builder.build(this.agent, this.message)
+                : this.mapper.map(this.agent, this.message, this.navigator);
+        collectionSet.visit(new AbstractCollectionSetVisitor() {
+            @Override
+            public void visitAttribute(CollectionAttribute attribute) {
+                blackhole.consume(attribute.getResource().getPath());
+                blackhole.consume(attribute.getNumericValue());
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MetricMapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
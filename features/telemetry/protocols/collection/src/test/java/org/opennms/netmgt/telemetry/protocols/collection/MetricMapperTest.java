@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.opennms.netmgt.telemetry.protocols.collection.CollectionSetTestUtils.expectedValues;
+import static org.opennms.netmgt.telemetry.protocols.collection.CollectionSetTestUtils.getValues;
+import static org.opennms.netmgt.telemetry.protocols.collection.ScriptedCollectionSetBuilderTest.createAgent;
+import static org.opennms.netmgt.telemetry.protocols.collection.ScriptedCollectionSetBuilderTest.createMessage;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.script.ScriptEngineManager;
+
+import org.junit.Test;
+import org.opennms.netmgt.collection.api.AttributeType;
+import org.opennms.netmgt.collection.api.CollectionAttribute;
+import org.opennms.netmgt.collection.api.CollectionSet;
+import org.opennms.netmgt.collection.support.AbstractCollectionSetVisitor;
+import org.opennms.netmgt.telemetry.protocols.collection.mapping.AttributeMapping;
+import org.opennms.netmgt.telemetry.protocols.collection.mapping.MetricMappingConfig;
+import org.opennms.netmgt.telemetry.protocols.collection.mapping.ResourceMapping;
+
+public class MetricMapperTest {
+
+    public static final File MAPPING = new File("src/test/resources/interface-telemetry.xml");
+
+    // Labels the interfaces like the mapping does
+    public static final File SCRIPT = new File("src/test/resources/interface-telemetry-labeled.groovy");
+
+    private final MapMessageNavigator navigator = new MapMessageNavigator();
+
+    @Test
+    public void canMapMessagesLikeTheScript() throws Exception {
+        final MetricMapper mapper = MetricMapper.fromFile(MAPPING);
+        assertEquals(expectedValues(3, 1), getValues(mapper.map(createAgent(), createMessage(3, 1), navigator)));
+
+        final ScriptedCollectionSetBuilder builder = new ScriptedCollectionSetBuilder(SCRIPT, new ScriptEngineManager(), true);
+        assertEquals(getValues(builder.build(createAgent(), createMessage(5, 3))),
+                getValues(mapper.map(createAgent(), createMessage(5, 3), navigator)));
+    }
+
+    @Test
+    public void canVisitMappedCollectionSetsMoreThanOnce() throws Exception {
+        final MetricMapper mapper = MetricMapper.fromFile(MAPPING);
+        final CollectionSet collectionSet = mapper.map(createAgent(), createMessage(2, 5), navigator);
+        assertEquals(expectedValues(2, 5), getValues(collectionSet));
+        assertEquals(expectedValues(2, 5), getValues(collectionSet));
+    }
+
+    @Test
+    public void canMapNodeAndGenericResources() {
+        final ResourceMapping nodeResource = resource("node", null, null,
+                attribute("system", "load", "system/load", "gauge"),
+                attribute("system", "version", "system/version", "string"),
+                attribute("system", "missing", "system/missing", "gauge"));
+        final ResourceMapping cpuResource = resource("cpu", "cpus", "id",
+                attribute("cpu-stats", "kernel", "kernel", "gauge"));
+        final MetricMappingConfig config = new MetricMappingConfig();
+        config.setResources(Arrays.asList(nodeResource, cpuResource));
+
+        final Map<String, Object> system = new LinkedHashMap<>();
+        system.put("load", "1.25");
+        system.put("version", "9.2");
+        final Map<String, Object> message = new LinkedHashMap<>();
+        message.put("system", system);
+        message.put("cpus", Arrays.asList(cpu(0, 3), cpu(1, 4), cpu(null, 5)));
+
+        final List<String> attributes = new ArrayList<>();
+        new MetricMapper(config).map(createAgent(), message, navigator).visit(new AbstractCollectionSetVisitor() {
+            @Override
+            public void visitAttribute(CollectionAttribute attribute) {
+                attributes.add(String.format("%s[%s] %s/%s=%s",
+                        attribute.getResource().getResourceTypeName(),
+                        attribute.getResource().getInstance(),
+                        attribute.getAttributeType().getGroupType().getName(),
+                        attribute.getName(),
+                        AttributeType.STRING.equals(attribute.getType()) ? attribute.getStringValue() : attribute.getNumericValue().doubleValue()));
+            }
+        });
+
+        // Missing values are skipped, as are resources without an instance
+        assertEquals(Arrays.asList(
+                "node[node] system/load=1.25",
+                "node[node] system/version=9.2",
+                "cpu[0] cpu-stats/kernel=3.0",
+                "cpu[1] cpu-stats/kernel=4.0"), attributes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failsOnInvalidAttributeTypes() {
+        final MetricMappingConfig config = new MetricMappingConfig();
+        config.setResources(Arrays.asList(resource("node", null, null, attribute("system", "load", "load", "not-a-type"))));
+        new MetricMapper(config);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failsOnMissingInstances() {
+        final MetricMappingConfig config = new MetricMappingConfig();
+        config.setResources(Arrays.asList(resource("cpu", "cpus", null, attribute("cpu-stats", "kernel", "kernel", "gauge"))));
+        new MetricMapper(config);
+    }
+
+    private static ResourceMapping resource(String type, String path, String instance, AttributeMapping... attributes) {
+        final ResourceMapping resource = new ResourceMapping();
+        resource.setType(type);
+        resource.setPath(path);
+        resource.setInstance(instance);
+        resource.setAttributes(Arrays.asList(attributes));
+        return resource;
+    }
+
+    private static AttributeMapping attribute(String group, String name, String path, String type) {
+        final AttributeMapping attribute = new AttributeMapping();
+        attribute.setGroup(group);
+        attribute.setName(name);
+        attribute.setPath(path);
+        attribute.setType(type);
+        return attribute;
+    }
+
+    private static Map<String, Object> cpu(Integer id, int kernel) {
+        final Map<String, Object> cpu = new LinkedHashMap<>();
+        if (id != null) {
+            cpu.put("id", id);
+        }
+        cpu.put("kernel", kernel);
+        return cpu;
+    }
+}
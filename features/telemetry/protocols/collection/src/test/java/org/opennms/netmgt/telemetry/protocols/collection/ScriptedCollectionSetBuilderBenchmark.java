@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.collection;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptEngineManager;
+
+import org.opennms.netmgt.collection.api.CollectionSet;
+import org.opennms.netmgt.collection.dto.CollectionAgentDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Builds collection sets from messages using a script modeled after the interface
+ * telemetry scripts shipped in etc/telemetryd-adapters, either evaluated through the
+ * script engine or precompiled.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.netmgt.telemetry.protocols.collection.ScriptedCollectionSetBuilderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ScriptedCollectionSetBuilderBenchmark {
+
+    @Param({"false", "true"})
+    public boolean precompile;
+
+    @Param({"1", "48"})
+    public int interfaces;
+
+    private CollectionAgentDTO agent;
+
+    private Map<String, Object> message;
+
+    private ScriptedCollectionSetBuilder sharedBuilder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.agent = ScriptedCollectionSetBuilderTest.createAgent();
+        this.message = ScriptedCollectionSetBuilderTest.createMessage(this.interfaces, 42);
+        if (this.precompile) {
+            this.sharedBuilder = new ScriptedCollectionSetBuilder(ScriptedCollectionSetBuilderTest.SCRIPT, new ScriptEngineManager(), true);
+        }
+    }
+
+    /**
+     * Builders using the script engine are not thread safe, so every thread uses its own,
+     * as the adapters do.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private ScriptedCollectionSetBuilder builder;
+
+        @Setup(Level.Trial)
+        public void setUp(ScriptedCollectionSetBuilderBenchmark benchmark) throws Exception {
+            this.builder = benchmark.precompile
+                    ? benchmark.sharedBuilder
+                    : new ScriptedCollectionSetBuilder(ScriptedCollectionSetBuilderTest.SCRIPT);
+        }
+    }
+
+    @Benchmark
+    public CollectionSet build(ThreadState state) throws Exception {
+        return state.builder.build(this.agent, this.message);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ScriptedCollectionSetBuilderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
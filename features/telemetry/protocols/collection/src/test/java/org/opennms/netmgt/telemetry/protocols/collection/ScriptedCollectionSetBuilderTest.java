@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opennms.netmgt.collection.api.CollectionAttribute;
+import org.opennms.netmgt.collection.api.CollectionSet;
+import org.opennms.netmgt.collection.dto.CollectionAgentDTO;
+import org.opennms.netmgt.collection.support.AbstractCollectionSetVisitor;
+
+public class ScriptedCollectionSetBuilderTest {
+
+    public static final File SCRIPT = new File("src/test/resources/interface-telemetry.groovy");
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void canBuildCollectionSetUsingScriptEngine() throws Exception {
+        final ScriptedCollectionSetBuilder builder = new ScriptedCollectionSetBuilder(SCRIPT);
+        assertFalse(builder.isPrecompiled());
+        assertEquals(expectedValues(3, 1), getValues(builder.build(createAgent(), createMessage(3, 1))));
+    }
+
+    @Test
+    public void canBuildCollectionSetUsingPrecompiledScript() throws Exception {
+        final ScriptedCollectionSetBuilder builder = new ScriptedCollectionSetBuilder(SCRIPT, new ScriptEngineManager(), true);
+        assertTrue(builder.isPrecompiled());
+        assertEquals(expectedValues(3, 1), getValues(builder.build(createAgent(), createMessage(3, 1))));
+
+        // The same script instance is reused for the next message
+        assertEquals(expectedValues(2, 7), getValues(builder.build(createAgent(), createMessage(2, 7))));
+    }
+
+    @Test
+    public void canBuildConcurrentlyUsingPrecompiledScript() throws Exception {
+        final ScriptedCollectionSetBuilder builder = new ScriptedCollectionSetBuilder(SCRIPT, new ScriptEngineManager(), true);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                final int thread = i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 500; j++) {
+                        final long seed = thread * 1000 + j;
+                        assertEquals(expectedValues(2, seed), getValues(builder.build(createAgent(), createMessage(2, seed))));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void doesNotRetainVariablesBetweenRuns() throws Exception {
+        final File script = tempFolder.newFile("counter.groovy");
+        Files.write(script.toPath(), ("import org.opennms.netmgt.collection.support.builder.NodeLevelResource\n"
+                + "count = binding.hasVariable('count') ? count + 1 : 1\n"
+                + "builder.withGauge(new NodeLevelResource(agent.getNodeId()), 'test', 'count', count)\n").getBytes());
+
+        final ScriptedCollectionSetBuilder builder = new ScriptedCollectionSetBuilder(script, new ScriptEngineManager(), true);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, getValues(builder.build(createAgent(), null)).get("node/count").intValue());
+        }
+    }
+
+    @Test(expected = ScriptException.class)
+    public void failsOnScriptErrors() throws Exception {
+        final ScriptedCollectionSetBuilder builder = new ScriptedCollectionSetBuilder(SCRIPT, new ScriptEngineManager(), true);
+        builder.build(createAgent(), "not a map");
+    }
+
+    @Test(expected = ScriptException.class)
+    public void failsOnCompilationErrors() throws Exception {
+        final File script = tempFolder.newFile("invalid.groovy");
+        Files.write(script.toPath(), "this is not { groovy".getBytes());
+        new ScriptedCollectionSetBuilder(script, new ScriptEngineManager(), true);
+    }
+
+    public static CollectionAgentDTO createAgent() {
+        final CollectionAgentDTO agent = new CollectionAgentDTO();
+        agent.setNodeId(1);
+        return agent;
+    }
+
+    /**
+     * Builds a message with the given number of interfaces, similar to the ones sent by a device.
+     */
+    public static Map<String, Object> createMessage(int numInterfaces, long seed) {
+        final List<Map<String, Object>> interfaces = new ArrayList<>(numInterfaces);
+        for (int i = 0; i < numInterfaces; i++) {
+            final Map<String, Object> interfaceStats = new LinkedHashMap<>();
+            interfaceStats.put("name", "ge-0_0_" + i);
+            interfaceStats.put("inOctets", seed * 100 + i);
+            interfaceStats.put("outOctets", seed * 200 + i);
+            interfaces.add(interfaceStats);
+        }
+        final Map<String, Object> message = new LinkedHashMap<>();
+        message.put("interfaces", interfaces);
+        return message;
+    }
+
+    private static Map<String, Number> expectedValues(int numInterfaces, long seed) {
+        final Map<String, Number> values = new LinkedHashMap<>();
+        for (int i = 0; i < numInterfaces; i++) {
+            values.put("ge-0_0_" + i + "/ifInOctets", (double) (seed * 100 + i));
+            values.put("ge-0_0_" + i + "/ifOutOctets", (double) (seed * 200 + i));
+        }
+        return values;
+    }
+
+    private static Map<String, Number> getValues(CollectionSet collectionSet) {
+        final Map<String, Number> values = new LinkedHashMap<>();
+        collectionSet.visit(new AbstractCollectionSetVisitor() {
+            @Override
+            public void visitAttribute(CollectionAttribute attribute) {
+                final String instance = attribute.getResource().getInstance();
+                final String key = instance != null ? instance + "/" + attribute.getName() : attribute.getName();
+                values.put(key, attribute.getNumericValue().doubleValue());
+            }
+        });
+        return values;
+    }
+}
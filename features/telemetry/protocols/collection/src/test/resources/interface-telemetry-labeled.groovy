@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+import groovy.util.logging.Slf4j
+import org.opennms.core.utils.RrdLabelUtils
+import org.opennms.netmgt.collection.api.AttributeType
+import org.opennms.netmgt.collection.support.builder.InterfaceLevelResource
+import org.opennms.netmgt.collection.support.builder.NodeLevelResource
+
+@Slf4j
+class CollectionSetGenerator {
+    static generate(agent, builder, Map telemetryMsg) {
+        log.debug("Generating collection set for message: {}", telemetryMsg)
+        NodeLevelResource nodeLevelResource = new NodeLevelResource(agent.getNodeId())
+
+        for (Map interfaceStats : telemetryMsg.interfaces) {
+            // Build an interface-level resource for every interface
+            String interfaceLabel = RrdLabelUtils.computeLabelForRRD(interfaceStats.name, null, null)
+            InterfaceLevelResource interfaceResource = new InterfaceLevelResource(nodeLevelResource, interfaceLabel)
+
+            builder.withNumericAttribute(interfaceResource, "mib2-interfaces", "ifInOctets", interfaceStats.inOctets, AttributeType.COUNTER)
+            builder.withNumericAttribute(interfaceResource, "mib2-interfaces", "ifOutOctets", interfaceStats.outOctets, AttributeType.COUNTER)
+        }
+    }
+}
+
+// Modeled after the interface scripts shipped in etc/telemetryd-adapters,
+// using a map in place of the protocol specific message. Equivalent to
+// interface-telemetry.xml, which labels the interfaces the same way.
+Map telemetryMsg = msg
+
+// Generate the CollectionSet
+CollectionSetGenerator.generate(agent, builder, telemetryMsg)
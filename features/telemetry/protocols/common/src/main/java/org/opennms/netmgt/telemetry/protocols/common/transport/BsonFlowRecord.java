@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.common.transport;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import org.bson.BsonDocument;
+import org.opennms.netmgt.telemetry.protocols.common.utils.BsonUtils;
+
+/**
+ * A flow record sent as BSON document by parsers of previous versions.
+ */
+public class BsonFlowRecord implements FlowMessageBuilder.FlowRecord {
+    private final BsonDocument document;
+
+    public BsonFlowRecord(final BsonDocument document) {
+        this.document = Objects.requireNonNull(document);
+    }
+
+    @Override
+    public Long getLong(final String name) {
+        return BsonUtils.getInt64(this.document, name).orElse(null);
+    }
+
+    @Override
+    public Double getDouble(final String name) {
+        return BsonUtils.getDouble(this.document, name).orElse(null);
+    }
+
+    @Override
+    public String getString(final String name) {
+        return BsonUtils.getString(this.document, name).orElse(null);
+    }
+
+    @Override
+    public Instant getTime(final String name) {
+        return BsonUtils.getTime(this.document, name).orElse(null);
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.common.transport;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage;
+
+/**
+ * Builds a {@link FlowMessage} from the values of a flow record.
+ *
+ * This is the only place the elements of a record are mapped to a flow. The parsers use it
+ * to build the messages they dispatch, and the adapters use it for the BSON documents sent by
+ * parsers of previous versions.
+ */
+public abstract class FlowMessageBuilder {
+
+    /**
+     * The values of a flow record, looked up by the name of their information element.
+     * Every getter returns {@code null} if the record has no value of the expected type.
+     */
+    public interface FlowRecord {
+        Long getLong(final String name);
+
+        Double getDouble(final String name);
+
+        /**
+         * Returns string values and addresses, the latter formatted as host addresses.
+         */
+        String getString(final String name);
+
+        Instant getTime(final String name);
+    }
+
+    public FlowMessage build(final FlowRecord record) {
+        final FlowMessage.Builder builder = FlowMessage.newBuilder();
+        build(record, builder);
+        return builder.build();
+    }
+
+    protected abstract void build(final FlowRecord record, final FlowMessage.Builder builder);
+
+    protected static Integer getInt(final FlowRecord record, final String name) {
+        final Long value = record.getLong(name);
+        return value != null ? value.intValue() : null;
+    }
+
+    protected static long getRequiredLong(final FlowRecord record, final String name) {
+        final Long value = record.getLong(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value: " + name);
+        }
+        return value;
+    }
+
+    @SafeVarargs
+    protected static <V> V first(final V... values) {
+        for (final V value : values) {
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    protected static <V> void setIfPresent(final V value, final Consumer<V> setter) {
+        if (value != null) {
+            setter.accept(value);
+        }
+    }
+}
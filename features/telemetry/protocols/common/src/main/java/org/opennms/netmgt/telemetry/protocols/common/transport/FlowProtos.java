@@ -0,0 +1,3284 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+// Generated by the protocol buffer compiler.  DO NOT EDIT!
+// source: flow.proto
+
+package org.opennms.netmgt.telemetry.protocols.common.transport;
+
+public final class FlowProtos {
+  private FlowProtos() {}
+  public static void registerAllExtensions(
+      com.google.protobuf.ExtensionRegistry registry) {
+  }
+  /**
+   * Protobuf enum {@code Direction}
+   */
+  public enum Direction
+      implements com.google.protobuf.ProtocolMessageEnum {
+    /**
+     * <code>INGRESS = 0;</code>
+     */
+    INGRESS(0, 0),
+    /**
+     * <code>EGRESS = 1;</code>
+     */
+    EGRESS(1, 1),
+    ;
+
+    /**
+     * <code>INGRESS = 0;</code>
+     */
+    public static final int INGRESS_VALUE = 0;
+    /**
+     * <code>EGRESS = 1;</code>
+     */
+    public static final int EGRESS_VALUE = 1;
+
+
+    public final int getNumber() { return value; }
+
+    public static Direction valueOf(int value) {
+      switch (value) {
+        case 0: return INGRESS;
+        case 1: return EGRESS;
+        default: return null;
+      }
+    }
+
+    public static com.google.protobuf.Internal.EnumLiteMap<Direction>
+        internalGetValueMap() {
+      return internalValueMap;
+    }
+    private static com.google.protobuf.Internal.EnumLiteMap<Direction>
+        internalValueMap =
+          new com.google.protobuf.Internal.EnumLiteMap<Direction>() {
+            public Direction findValueByNumber(int number) {
+              return Direction.valueOf(number);
+            }
+          };
+
+    public final com.google.protobuf.Descriptors.EnumValueDescriptor
+        getValueDescriptor() {
+      return getDescriptor().getValues().get(index);
+    }
+    public final com.google.protobuf.Descriptors.EnumDescriptor
+        getDescriptorForType() {
+      return getDescriptor();
+    }
+    public static final com.google.protobuf.Descriptors.EnumDescriptor
+        getDescriptor() {
+      return org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.getDescriptor().getEnumTypes().get(0);
+    }
+
+    private static final Direction[] VALUES = values();
+
+    public static Direction valueOf(
+        com.google.protobuf.Descriptors.EnumValueDescriptor desc) {
+      if (desc.getType() != getDescriptor()) {
+        throw new java.lang.IllegalArgumentException(
+          "EnumValueDescriptor is not for this type.");
+      }
+      return VALUES[desc.getIndex()];
+    }
+
+    private final int index;
+    private final int value;
+
+    private Direction(int index, int value) {
+      this.index = index;
+      this.value = value;
+    }
+
+    // @@protoc_insertion_point(enum_scope:Direction)
+  }
+
+  /**
+   * Protobuf enum {@code SamplingAlgorithm}
+   */
+  public enum SamplingAlgorithm
+      implements com.google.protobuf.ProtocolMessageEnum {
+    /**
+     * <code>UNASSIGNED = 0;</code>
+     */
+    UNASSIGNED(0, 0),
+    /**
+     * <code>SYSTEMATIC_COUNT_BASED_SAMPLING = 1;</code>
+     */
+    SYSTEMATIC_COUNT_BASED_SAMPLING(1, 1),
+    /**
+     * <code>SYSTEMATIC_TIME_BASED_SAMPLING = 2;</code>
+     */
+    SYSTEMATIC_TIME_BASED_SAMPLING(2, 2),
+    /**
+     * <code>RANDOM_N_OUT_OF_N_SAMPLING = 3;</code>
+     */
+    RANDOM_N_OUT_OF_N_SAMPLING(3, 3),
+    /**
+     * <code>UNIFORM_PROBABILISTIC_SAMPLING = 4;</code>
+     */
+    UNIFORM_PROBABILISTIC_SAMPLING(4, 4),
+    /**
+     * <code>PROPERTY_MATCH_FILTERING = 5;</code>
+     */
+    PROPERTY_MATCH_FILTERING(5, 5),
+    /**
+     * <code>HASH_BASED_FILTERING = 6;</code>
+     */
+    HASH_BASED_FILTERING(6, 6),
+    /**
+     * <code>FLOW_STATE_DEPENDENT_INTERMEDIATE_FLOW_SELECTION_PROCESS = 7;</code>
+     */
+    FLOW_STATE_DEPENDENT_INTERMEDIATE_FLOW_SELECTION_PROCESS(7, 7),
+    ;
+
+    /**
+     * <code>UNASSIGNED = 0;</code>
+     */
+    public static final int UNASSIGNED_VALUE = 0;
+    /**
+     * <code>SYSTEMATIC_COUNT_BASED_SAMPLING = 1;</code>
+     */
+    public static final int SYSTEMATIC_COUNT_BASED_SAMPLING_VALUE = 1;
+    /**
+     * <code>SYSTEMATIC_TIME_BASED_SAMPLING = 2;</code>
+     */
+    public static final int SYSTEMATIC_TIME_BASED_SAMPLING_VALUE = 2;
+    /**
+     * <code>RANDOM_N_OUT_OF_N_SAMPLING = 3;</code>
+     */
+    public static final int RANDOM_N_OUT_OF_N_SAMPLING_VALUE = 3;
+    /**
+     * <code>UNIFORM_PROBABILISTIC_SAMPLING = 4;</code>
+     */
+    public static final int UNIFORM_PROBABILISTIC_SAMPLING_VALUE = 4;
+    /**
+     * <code>PROPERTY_MATCH_FILTERING = 5;</code>
+     */
+    public static final int PROPERTY_MATCH_FILTERING_VALUE = 5;
+    /**
+     * <code>HASH_BASED_FILTERING = 6;</code>
+     */
+    public static final int HASH_BASED_FILTERING_VALUE = 6;
+    /**
+     * <code>FLOW_STATE_DEPENDENT_INTERMEDIATE_FLOW_SELECTION_PROCESS = 7;</code>
+     */
+    public static final int FLOW_STATE_DEPENDENT_INTERMEDIATE_FLOW_SELECTION_PROCESS_VALUE = 7;
+
+
+    public final int getNumber() { return value; }
+
+    public static SamplingAlgorithm valueOf(int value) {
+      switch (value) {
+        case 0: return UNASSIGNED;
+        case 1: return SYSTEMATIC_COUNT_BASED_SAMPLING;
+        case 2: return SYSTEMATIC_TIME_BASED_SAMPLING;
+        case 3: return RANDOM_N_OUT_OF_N_SAMPLING;
+        case 4: return UNIFORM_PROBABILISTIC_SAMPLING;
+        case 5: return PROPERTY_MATCH_FILTERING;
+        case 6: return HASH_BASED_FILTERING;
+        case 7: return FLOW_STATE_DEPENDENT_INTERMEDIATE_FLOW_SELECTION_PROCESS;
+        default: return null;
+      }
+    }
+
+    public static com.google.protobuf.Internal.EnumLiteMap<SamplingAlgorithm>
+        internalGetValueMap() {
+      return internalValueMap;
+    }
+    private static com.google.protobuf.Internal.EnumLiteMap<SamplingAlgorithm>
+        internalValueMap =
+          new com.google.protobuf.Internal.EnumLiteMap<SamplingAlgorithm>() {
+            public SamplingAlgorithm findValueByNumber(int number) {
+              return SamplingAlgorithm.valueOf(number);
+            }
+          };
+
+    public final com.google.protobuf.Descriptors.EnumValueDescriptor
+        getValueDescriptor() {
+      return getDescriptor().getValues().get(index);
+    }
+    public final com.google.protobuf.Descriptors.EnumDescriptor
+        getDescriptorForType() {
+      return getDescriptor();
+    }
+    public static final com.google.protobuf.Descriptors.EnumDescriptor
+        getDescriptor() {
+      return org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.getDescriptor().getEnumTypes().get(1);
+    }
+
+    private static final SamplingAlgorithm[] VALUES = values();
+
+    public static SamplingAlgorithm valueOf(
+        com.google.protobuf.Descriptors.EnumValueDescriptor desc) {
+      if (desc.getType() != getDescriptor()) {
+        throw new java.lang.IllegalArgumentException(
+          "EnumValueDescriptor is not for this type.");
+      }
+      return VALUES[desc.getIndex()];
+    }
+
+    private final int index;
+    private final int value;
+
+    private SamplingAlgorithm(int index, int value) {
+      this.index = index;
+      this.value = value;
+    }
+
+    // @@protoc_insertion_point(enum_scope:SamplingAlgorithm)
+  }
+
+  /**
+   * Protobuf enum {@code NetflowVersion}
+   */
+  public enum NetflowVersion
+      implements com.google.protobuf.ProtocolMessageEnum {
+    /**
+     * <code>V5 = 1;</code>
+     */
+    V5(0, 1),
+    /**
+     * <code>V9 = 2;</code>
+     */
+    V9(1, 2),
+    /**
+     * <code>IPFIX = 3;</code>
+     */
+    IPFIX(2, 3),
+    /**
+     * <code>SFLOW = 4;</code>
+     */
+    SFLOW(3, 4),
+    ;
+
+    /**
+     * <code>V5 = 1;</code>
+     */
+    public static final int V5_VALUE = 1;
+    /**
+     * <code>V9 = 2;</code>
+     */
+    public static final int V9_VALUE = 2;
+    /**
+     * <code>IPFIX = 3;</code>
+     */
+    public static final int IPFIX_VALUE = 3;
+    /**
+     * <code>SFLOW = 4;</code>
+     */
+    public static final int SFLOW_VALUE = 4;
+
+
+    public final int getNumber() { return value; }
+
+    public static NetflowVersion valueOf(int value) {
+      switch (value) {
+        case 1: return V5;
+        case 2: return V9;
+        case 3: return IPFIX;
+        case 4: return SFLOW;
+        default: return null;
+      }
+    }
+
+    public static com.google.protobuf.Internal.EnumLiteMap<NetflowVersion>
+        internalGetValueMap() {
+      return internalValueMap;
+    }
+    private static com.google.protobuf.Internal.EnumLiteMap<NetflowVersion>
+        internalValueMap =
+          new com.google.protobuf.Internal.EnumLiteMap<NetflowVersion>() {
+            public NetflowVersion findValueByNumber(int number) {
+              return NetflowVersion.valueOf(number);
+            }
+          };
+
+    public final com.google.protobuf.Descriptors.EnumValueDescriptor
+        getValueDescriptor() {
+      return getDescriptor().getValues().get(index);
+    }
+    public final com.google.protobuf.Descriptors.EnumDescriptor
+        getDescriptorForType() {
+      return getDescriptor();
+    }
+    public static final com.google.protobuf.Descriptors.EnumDescriptor
+        getDescriptor() {
+      return org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.getDescriptor().getEnumTypes().get(2);
+    }
+
+    private static final NetflowVersion[] VALUES = values();
+
+    public static NetflowVersion valueOf(
+        com.google.protobuf.Descriptors.EnumValueDescriptor desc) {
+      if (desc.getType() != getDescriptor()) {
+        throw new java.lang.IllegalArgumentException(
+          "EnumValueDescriptor is not for this type.");
+      }
+      return VALUES[desc.getIndex()];
+    }
+
+    private final int index;
+    private final int value;
+
+    private NetflowVersion(int index, int value) {
+      this.index = index;
+      this.value = value;
+    }
+
+    // @@protoc_insertion_point(enum_scope:NetflowVersion)
+  }
+
+  public interface FlowMessageOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:FlowMessage)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required uint64 timestamp = 1;</code>
+     */
+    boolean hasTimestamp();
+    /**
+     * <code>required uint64 timestamp = 1;</code>
+     */
+    long getTimestamp();
+
+    /**
+     * <code>required .NetflowVersion netflow_version = 2;</code>
+     */
+    boolean hasNetflowVersion();
+    /**
+     * <code>required .NetflowVersion netflow_version = 2;</code>
+     */
+    org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion getNetflowVersion();
+
+    /**
+     * <code>optional uint64 num_bytes = 3;</code>
+     */
+    boolean hasNumBytes();
+    /**
+     * <code>optional uint64 num_bytes = 3;</code>
+     */
+    long getNumBytes();
+
+    /**
+     * <code>optional .Direction direction = 4;</code>
+     */
+    boolean hasDirection();
+    /**
+     * <code>optional .Direction direction = 4;</code>
+     */
+    org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction getDirection();
+
+    /**
+     * <code>optional string dst_address = 5;</code>
+     */
+    boolean hasDstAddress();
+    /**
+     * <code>optional string dst_address = 5;</code>
+     */
+    java.lang.String getDstAddress();
+    /**
+     * <code>optional string dst_address = 5;</code>
+     */
+    com.google.protobuf.ByteString
+        getDstAddressBytes();
+
+    /**
+     * <code>optional uint32 dst_as = 6;</code>
+     */
+    boolean hasDstAs();
+    /**
+     * <code>optional uint32 dst_as = 6;</code>
+     */
+    int getDstAs();
+
+    /**
+     * <code>optional uint32 dst_mask_len = 7;</code>
+     */
+    boolean hasDstMaskLen();
+    /**
+     * <code>optional uint32 dst_mask_len = 7;</code>
+     */
+    int getDstMaskLen();
+
+    /**
+     * <code>optional uint32 dst_port = 8;</code>
+     */
+    boolean hasDstPort();
+    /**
+     * <code>optional uint32 dst_port = 8;</code>
+     */
+    int getDstPort();
+
+    /**
+     * <code>optional uint32 engine_id = 9;</code>
+     */
+    boolean hasEngineId();
+    /**
+     * <code>optional uint32 engine_id = 9;</code>
+     */
+    int getEngineId();
+
+    /**
+     * <code>optional uint32 engine_type = 10;</code>
+     */
+    boolean hasEngineType();
+    /**
+     * <code>optional uint32 engine_type = 10;</code>
+     */
+    int getEngineType();
+
+    /**
+     * <code>optional uint64 first_switched = 11;</code>
+     */
+    boolean hasFirstSwitched();
+    /**
+     * <code>optional uint64 first_switched = 11;</code>
+     */
+    long getFirstSwitched();
+
+    /**
+     * <code>optional uint32 num_flow_records = 12;</code>
+     */
+    boolean hasNumFlowRecords();
+    /**
+     * <code>optional uint32 num_flow_records = 12;</code>
+     */
+    int getNumFlowRecords();
+
+    /**
+     * <code>optional uint64 flow_seq_num = 13;</code>
+     */
+    boolean hasFlowSeqNum();
+    /**
+     * <code>optional uint64 flow_seq_num = 13;</code>
+     */
+    long getFlowSeqNum();
+
+    /**
+     * <code>optional uint32 input_snmp_ifindex = 14;</code>
+     */
+    boolean hasInputSnmpIfindex();
+    /**
+     * <code>optional uint32 input_snmp_ifindex = 14;</code>
+     */
+    int getInputSnmpIfindex();
+
+    /**
+     * <code>optional uint32 ip_protocol_version = 15;</code>
+     */
+    boolean hasIpProtocolVersion();
+    /**
+     * <code>optional uint32 ip_protocol_version = 15;</code>
+     */
+    int getIpProtocolVersion();
+
+    /**
+     * <code>optional uint64 last_switched = 16;</code>
+     */
+    boolean hasLastSwitched();
+    /**
+     * <code>optional uint64 last_switched = 16;</code>
+     */
+    long getLastSwitched();
+
+    /**
+     * <code>optional string next_hop_address = 17;</code>
+     */
+    boolean hasNextHopAddress();
+    /**
+     * <code>optional string next_hop_address = 17;</code>
+     */
+    java.lang.String getNextHopAddress();
+    /**
+     * <code>optional string next_hop_address = 17;</code>
+     */
+    com.google.protobuf.ByteString
+        getNextHopAddressBytes();
+
+    /**
+     * <code>optional uint32 output_snmp_ifindex = 18;</code>
+     */
+    boolean hasOutputSnmpIfindex();
+    /**
+     * <code>optional uint32 output_snmp_ifindex = 18;</code>
+     */
+    int getOutputSnmpIfindex();
+
+    /**
+     * <code>optional uint64 num_packets = 19;</code>
+     */
+    boolean hasNumPackets();
+    /**
+     * <code>optional uint64 num_packets = 19;</code>
+     */
+    long getNumPackets();
+
+    /**
+     * <code>optional uint32 protocol = 20;</code>
+     */
+    boolean hasProtocol();
+    /**
+     * <code>optional uint32 protocol = 20;</code>
+     */
+    int getProtocol();
+
+    /**
+     * <code>optional .SamplingAlgorithm sampling_algorithm = 21;</code>
+     */
+    boolean hasSamplingAlgorithm();
+    /**
+     * <code>optional .SamplingAlgorithm sampling_algorithm = 21;</code>
+     */
+    org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm getSamplingAlgorithm();
+
+    /**
+     * <code>optional double sampling_interval = 22;</code>
+     */
+    boolean hasSamplingInterval();
+    /**
+     * <code>optional double sampling_interval = 22;</code>
+     */
+    double getSamplingInterval();
+
+    /**
+     * <code>optional string src_address = 23;</code>
+     */
+    boolean hasSrcAddress();
+    /**
+     * <code>optional string src_address = 23;</code>
+     */
+    java.lang.String getSrcAddress();
+    /**
+     * <code>optional string src_address = 23;</code>
+     */
+    com.google.protobuf.ByteString
+        getSrcAddressBytes();
+
+    /**
+     * <code>optional uint32 src_as = 24;</code>
+     */
+    boolean hasSrcAs();
+    /**
+     * <code>optional uint32 src_as = 24;</code>
+     */
+    int getSrcAs();
+
+    /**
+     * <code>optional uint32 src_mask_len = 25;</code>
+     */
+    boolean hasSrcMaskLen();
+    /**
+     * <code>optional uint32 src_mask_len = 25;</code>
+     */
+    int getSrcMaskLen();
+
+    /**
+     * <code>optional uint32 src_port = 26;</code>
+     */
+    boolean hasSrcPort();
+    /**
+     * <code>optional uint32 src_port = 26;</code>
+     */
+    int getSrcPort();
+
+    /**
+     * <code>optional uint32 tcp_flags = 27;</code>
+     */
+    boolean hasTcpFlags();
+    /**
+     * <code>optional uint32 tcp_flags = 27;</code>
+     */
+    int getTcpFlags();
+
+    /**
+     * <code>optional uint32 tos = 28;</code>
+     */
+    boolean hasTos();
+    /**
+     * <code>optional uint32 tos = 28;</code>
+     */
+    int getTos();
+
+    /**
+     * <code>optional uint32 vlan = 29;</code>
+     */
+    boolean hasVlan();
+    /**
+     * <code>optional uint32 vlan = 29;</code>
+     */
+    int getVlan();
+  }
+  /**
+   * Protobuf type {@code FlowMessage}
+   */
+  public static final class FlowMessage extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:FlowMessage)
+      FlowMessageOrBuilder {
+    // Use FlowMessage.newBuilder() to construct.
+    private FlowMessage(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private FlowMessage(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final FlowMessage defaultInstance;
+    public static FlowMessage getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public FlowMessage getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private FlowMessage(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              timestamp_ = input.readUInt64();
+              break;
+            }
+            case 16: {
+              int rawValue = input.readEnum();
+              org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion value = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(2, rawValue);
+              } else {
+                bitField0_ |= 0x00000002;
+                netflowVersion_ = value;
+              }
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              numBytes_ = input.readUInt64();
+              break;
+            }
+            case 32: {
+              int rawValue = input.readEnum();
+              org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction value = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(4, rawValue);
+              } else {
+                bitField0_ |= 0x00000008;
+                direction_ = value;
+              }
+              break;
+            }
+            case 42: {
+              com.google.protobuf.ByteString bs = input.readBytes();
+              bitField0_ |= 0x00000010;
+              dstAddress_ = bs;
+              break;
+            }
+            case 48: {
+              bitField0_ |= 0x00000020;
+              dstAs_ = input.readUInt32();
+              break;
+            }
+            case 56: {
+              bitField0_ |= 0x00000040;
+              dstMaskLen_ = input.readUInt32();
+              break;
+            }
+            case 64: {
+              bitField0_ |= 0x00000080;
+              dstPort_ = input.readUInt32();
+              break;
+            }
+            case 72: {
+              bitField0_ |= 0x00000100;
+              engineId_ = input.readUInt32();
+              break;
+            }
+            case 80: {
+              bitField0_ |= 0x00000200;
+              engineType_ = input.readUInt32();
+              break;
+            }
+            case 88: {
+              bitField0_ |= 0x00000400;
+              firstSwitched_ = input.readUInt64();
+              break;
+            }
+            case 96: {
+              bitField0_ |= 0x00000800;
+              numFlowRecords_ = input.readUInt32();
+              break;
+            }
+            case 104: {
+              bitField0_ |= 0x00001000;
+              flowSeqNum_ = input.readUInt64();
+              break;
+            }
+            case 112: {
+              bitField0_ |= 0x00002000;
+              inputSnmpIfindex_ = input.readUInt32();
+              break;
+            }
+            case 120: {
+              bitField0_ |= 0x00004000;
+              ipProtocolVersion_ = input.readUInt32();
+              break;
+            }
+            case 128: {
+              bitField0_ |= 0x00008000;
+              lastSwitched_ = input.readUInt64();
+              break;
+            }
+            case 138: {
+              com.google.protobuf.ByteString bs = input.readBytes();
+              bitField0_ |= 0x00010000;
+              nextHopAddress_ = bs;
+              break;
+            }
+            case 144: {
+              bitField0_ |= 0x00020000;
+              outputSnmpIfindex_ = input.readUInt32();
+              break;
+            }
+            case 152: {
+              bitField0_ |= 0x00040000;
+              numPackets_ = input.readUInt64();
+              break;
+            }
+            case 160: {
+              bitField0_ |= 0x00080000;
+              protocol_ = input.readUInt32();
+              break;
+            }
+            case 168: {
+              int rawValue = input.readEnum();
+              org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm value = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(21, rawValue);
+              } else {
+                bitField0_ |= 0x00100000;
+                samplingAlgorithm_ = value;
+              }
+              break;
+            }
+            case 177: {
+              bitField0_ |= 0x00200000;
+              samplingInterval_ = input.readDouble();
+              break;
+            }
+            case 186: {
+              com.google.protobuf.ByteString bs = input.readBytes();
+              bitField0_ |= 0x00400000;
+              srcAddress_ = bs;
+              break;
+            }
+            case 192: {
+              bitField0_ |= 0x00800000;
+              srcAs_ = input.readUInt32();
+              break;
+            }
+            case 200: {
+              bitField0_ |= 0x01000000;
+              srcMaskLen_ = input.readUInt32();
+              break;
+            }
+            case 208: {
+              bitField0_ |= 0x02000000;
+              srcPort_ = input.readUInt32();
+              break;
+            }
+            case 216: {
+              bitField0_ |= 0x04000000;
+              tcpFlags_ = input.readUInt32();
+              break;
+            }
+            case 224: {
+              bitField0_ |= 0x08000000;
+              tos_ = input.readUInt32();
+              break;
+            }
+            case 232: {
+              bitField0_ |= 0x10000000;
+              vlan_ = input.readUInt32();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.internal_static_FlowMessage_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.internal_static_FlowMessage_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage.class, org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<FlowMessage> PARSER =
+        new com.google.protobuf.AbstractParser<FlowMessage>() {
+      public FlowMessage parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new FlowMessage(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<FlowMessage> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int TIMESTAMP_FIELD_NUMBER = 1;
+    private long timestamp_;
+    /**
+     * <code>required uint64 timestamp = 1;</code>
+     */
+    public boolean hasTimestamp() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>required uint64 timestamp = 1;</code>
+     */
+    public long getTimestamp() {
+      return timestamp_;
+    }
+
+    public static final int NETFLOW_VERSION_FIELD_NUMBER = 2;
+    private org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion netflowVersion_;
+    /**
+     * <code>required .NetflowVersion netflow_version = 2;</code>
+     */
+    public boolean hasNetflowVersion() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>required .NetflowVersion netflow_version = 2;</code>
+     */
+    public org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion getNetflowVersion() {
+      return netflowVersion_;
+    }
+
+    public static final int NUM_BYTES_FIELD_NUMBER = 3;
+    private long numBytes_;
+    /**
+     * <code>optional uint64 num_bytes = 3;</code>
+     */
+    public boolean hasNumBytes() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>optional uint64 num_bytes = 3;</code>
+     */
+    public long getNumBytes() {
+      return numBytes_;
+    }
+
+    public static final int DIRECTION_FIELD_NUMBER = 4;
+    private org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction direction_;
+    /**
+     * <code>optional .Direction direction = 4;</code>
+     */
+    public boolean hasDirection() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    /**
+     * <code>optional .Direction direction = 4;</code>
+     */
+    public org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction getDirection() {
+      return direction_;
+    }
+
+    public static final int DST_ADDRESS_FIELD_NUMBER = 5;
+    private java.lang.Object dstAddress_;
+    /**
+     * <code>optional string dst_address = 5;</code>
+     */
+    public boolean hasDstAddress() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+    /**
+     * <code>optional string dst_address = 5;</code>
+     */
+    public java.lang.String getDstAddress() {
+      java.lang.Object ref = dstAddress_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        if (bs.isValidUtf8()) {
+          dstAddress_ = s;
+        }
+        return s;
+      }
+    }
+    /**
+     * <code>optional string dst_address = 5;</code>
+     */
+    public com.google.protobuf.ByteString
+        getDstAddressBytes() {
+      java.lang.Object ref = dstAddress_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        dstAddress_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int DST_AS_FIELD_NUMBER = 6;
+    private int dstAs_;
+    /**
+     * <code>optional uint32 dst_as = 6;</code>
+     */
+    public boolean hasDstAs() {
+      return ((bitField0_ & 0x00000020) == 0x00000020);
+    }
+    /**
+     * <code>optional uint32 dst_as = 6;</code>
+     */
+    public int getDstAs() {
+      return dstAs_;
+    }
+
+    public static final int DST_MASK_LEN_FIELD_NUMBER = 7;
+    private int dstMaskLen_;
+    /**
+     * <code>optional uint32 dst_mask_len = 7;</code>
+     */
+    public boolean hasDstMaskLen() {
+      return ((bitField0_ & 0x00000040) == 0x00000040);
+    }
+    /**
+     * <code>optional uint32 dst_mask_len = 7;</code>
+     */
+    public int getDstMaskLen() {
+      return dstMaskLen_;
+    }
+
+    public static final int DST_PORT_FIELD_NUMBER = 8;
+    private int dstPort_;
+    /**
+     * <code>optional uint32 dst_port = 8;</code>
+     */
+    public boolean hasDstPort() {
+      return ((bitField0_ & 0x00000080) == 0x00000080);
+    }
+    /**
+     * <code>optional uint32 dst_port = 8;</code>
+     */
+    public int getDstPort() {
+      return dstPort_;
+    }
+
+    public static final int ENGINE_ID_FIELD_NUMBER = 9;
+    private int engineId_;
+    /**
+     * <code>optional uint32 engine_id = 9;</code>
+     */
+    public boolean hasEngineId() {
+      return ((bitField0_ & 0x00000100) == 0x00000100);
+    }
+    /**
+     * <code>optional uint32 engine_id = 9;</code>
+     */
+    public int getEngineId() {
+      return engineId_;
+    }
+
+    public static final int ENGINE_TYPE_FIELD_NUMBER = 10;
+    private int engineType_;
+    /**
+     * <code>optional uint32 engine_type = 10;</code>
+     */
+    public boolean hasEngineType() {
+      return ((bitField0_ & 0x00000200) == 0x00000200);
+    }
+    /**
+     * <code>optional uint32 engine_type = 10;</code>
+     */
+    public int getEngineType() {
+      return engineType_;
+    }
+
+    public static final int FIRST_SWITCHED_FIELD_NUMBER = 11;
+    private long firstSwitched_;
+    /**
+     * <code>optional uint64 first_switched = 11;</code>
+     */
+    public boolean hasFirstSwitched() {
+      return ((bitField0_ & 0x00000400) == 0x00000400);
+    }
+    /**
+     * <code>optional uint64 first_switched = 11;</code>
+     */
+    public long getFirstSwitched() {
+      return firstSwitched_;
+    }
+
+    public static final int NUM_FLOW_RECORDS_FIELD_NUMBER = 12;
+    private int numFlowRecords_;
+    /**
+     * <code>optional uint32 num_flow_records = 12;</code>
+     */
+    public boolean hasNumFlowRecords() {
+      return ((bitField0_ & 0x00000800) == 0x00000800);
+    }
+    /**
+     * <code>optional uint32 num_flow_records = 12;</code>
+     */
+    public int getNumFlowRecords() {
+      return numFlowRecords_;
+    }
+
+    public static final int FLOW_SEQ_NUM_FIELD_NUMBER = 13;
+    private long flowSeqNum_;
+    /**
+     * <code>optional uint64 flow_seq_num = 13;</code>
+     */
+    public boolean hasFlowSeqNum() {
+      return ((bitField0_ & 0x00001000) == 0x00001000);
+    }
+    /**
+     * <code>optional uint64 flow_seq_num = 13;</code>
+     */
+    public long getFlowSeqNum() {
+      return flowSeqNum_;
+    }
+
+    public static final int INPUT_SNMP_IFINDEX_FIELD_NUMBER = 14;
+    private int inputSnmpIfindex_;
+    /**
+     * <code>optional uint32 input_snmp_ifindex = 14;</code>
+     */
+    public boolean hasInputSnmpIfindex() {
+      return ((bitField0_ & 0x00002000) == 0x00002000);
+    }
+    /**
+     * <code>optional uint32 input_snmp_ifindex = 14;</code>
+     */
+    public int getInputSnmpIfindex() {
+      return inputSnmpIfindex_;
+    }
+
+    public static final int IP_PROTOCOL_VERSION_FIELD_NUMBER = 15;
+    private int ipProtocolVersion_;
+    /**
+     * <code>optional uint32 ip_protocol_version = 15;</code>
+     */
+    public boolean hasIpProtocolVersion() {
+      return ((bitField0_ & 0x00004000) == 0x00004000);
+    }
+    /**
+     * <code>optional uint32 ip_protocol_version = 15;</code>
+     */
+    public int getIpProtocolVersion() {
+      return ipProtocolVersion_;
+    }
+
+    public static final int LAST_SWITCHED_FIELD_NUMBER = 16;
+    private long lastSwitched_;
+    /**
+     * <code>optional uint64 last_switched = 16;</code>
+     */
+    public boolean hasLastSwitched() {
+      return ((bitField0_ & 0x00008000) == 0x00008000);
+    }
+    /**
+     * <code>optional uint64 last_switched = 16;</code>
+     */
+    public long getLastSwitched() {
+      return lastSwitched_;
+    }
+
+    public static final int NEXT_HOP_ADDRESS_FIELD_NUMBER = 17;
+    private java.lang.Object nextHopAddress_;
+    /**
+     * <code>optional string next_hop_address = 17;</code>
+     */
+    public boolean hasNextHopAddress() {
+      return ((bitField0_ & 0x00010000) == 0x00010000);
+    }
+    /**
+     * <code>optional string next_hop_address = 17;</code>
+     */
+    public java.lang.String getNextHopAddress() {
+      java.lang.Object ref = nextHopAddress_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        if (bs.isValidUtf8()) {
+          nextHopAddress_ = s;
+        }
+        return s;
+      }
+    }
+    /**
+     * <code>optional string next_hop_address = 17;</code>
+     */
+    public com.google.protobuf.ByteString
+        getNextHopAddressBytes() {
+      java.lang.Object ref = nextHopAddress_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        nextHopAddress_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int OUTPUT_SNMP_IFINDEX_FIELD_NUMBER = 18;
+    private int outputSnmpIfindex_;
+    /**
+     * <code>optional uint32 output_snmp_ifindex = 18;</code>
+     */
+    public boolean hasOutputSnmpIfindex() {
+      return ((bitField0_ & 0x00020000) == 0x00020000);
+    }
+    /**
+     * <code>optional uint32 output_snmp_ifindex = 18;</code>
+     */
+    public int getOutputSnmpIfindex() {
+      return outputSnmpIfindex_;
+    }
+
+    public static final int NUM_PACKETS_FIELD_NUMBER = 19;
+    private long numPackets_;
+    /**
+     * <code>optional uint64 num_packets = 19;</code>
+     */
+    public boolean hasNumPackets() {
+      return ((bitField0_ & 0x00040000) == 0x00040000);
+    }
+    /**
+     * <code>optional uint64 num_packets = 19;</code>
+     */
+    public long getNumPackets() {
+      return numPackets_;
+    }
+
+    public static final int PROTOCOL_FIELD_NUMBER = 20;
+    private int protocol_;
+    /**
+     * <code>optional uint32 protocol = 20;</code>
+     */
+    public boolean hasProtocol() {
+      return ((bitField0_ & 0x00080000) == 0x00080000);
+    }
+    /**
+     * <code>optional uint32 protocol = 20;</code>
+     */
+    public int getProtocol() {
+      return protocol_;
+    }
+
+    public static final int SAMPLING_ALGORITHM_FIELD_NUMBER = 21;
+    private org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm samplingAlgorithm_;
+    /**
+     * <code>optional .SamplingAlgorithm sampling_algorithm = 21;</code>
+     */
+    public boolean hasSamplingAlgorithm() {
+      return ((bitField0_ & 0x00100000) == 0x00100000);
+    }
+    /**
+     * <code>optional .SamplingAlgorithm sampling_algorithm = 21;</code>
+     */
+    public org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm getSamplingAlgorithm() {
+      return samplingAlgorithm_;
+    }
+
+    public static final int SAMPLING_INTERVAL_FIELD_NUMBER = 22;
+    private double samplingInterval_;
+    /**
+     * <code>optional double sampling_interval = 22;</code>
+     */
+    public boolean hasSamplingInterval() {
+      return ((bitField0_ & 0x00200000) == 0x00200000);
+    }
+    /**
+     * <code>optional double sampling_interval = 22;</code>
+     */
+    public double getSamplingInterval() {
+      return samplingInterval_;
+    }
+
+    public static final int SRC_ADDRESS_FIELD_NUMBER = 23;
+    private java.lang.Object srcAddress_;
+    /**
+     * <code>optional string src_address = 23;</code>
+     */
+    public boolean hasSrcAddress() {
+      return ((bitField0_ & 0x00400000) == 0x00400000);
+    }
+    /**
+     * <code>optional string src_address = 23;</code>
+     */
+    public java.lang.String getSrcAddress() {
+      java.lang.Object ref = srcAddress_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        if (bs.isValidUtf8()) {
+          srcAddress_ = s;
+        }
+        return s;
+      }
+    }
+    /**
+     * <code>optional string src_address = 23;</code>
+     */
+    public com.google.protobuf.ByteString
+        getSrcAddressBytes() {
+      java.lang.Object ref = srcAddress_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        srcAddress_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int SRC_AS_FIELD_NUMBER = 24;
+    private int srcAs_;
+    /**
+     * <code>optional uint32 src_as = 24;</code>
+     */
+    public boolean hasSrcAs() {
+      return ((bitField0_ & 0x00800000) == 0x00800000);
+    }
+    /**
+     * <code>optional uint32 src_as = 24;</code>
+     */
+    public int getSrcAs() {
+      return srcAs_;
+    }
+
+    public static final int SRC_MASK_LEN_FIELD_NUMBER = 25;
+    private int srcMaskLen_;
+    /**
+     * <code>optional uint32 src_mask_len = 25;</code>
+     */
+    public boolean hasSrcMaskLen() {
+      return ((bitField0_ & 0x01000000) == 0x01000000);
+    }
+    /**
+     * <code>optional uint32 src_mask_len = 25;</code>
+     */
+    public int getSrcMaskLen() {
+      return srcMaskLen_;
+    }
+
+    public static final int SRC_PORT_FIELD_NUMBER = 26;
+    private int srcPort_;
+    /**
+     * <code>optional uint32 src_port = 26;</code>
+     */
+    public boolean hasSrcPort() {
+      return ((bitField0_ & 0x02000000) == 0x02000000);
+    }
+    /**
+     * <code>optional uint32 src_port = 26;</code>
+     */
+    public int getSrcPort() {
+      return srcPort_;
+    }
+
+    public static final int TCP_FLAGS_FIELD_NUMBER = 27;
+    private int tcpFlags_;
+    /**
+     * <code>optional uint32 tcp_flags = 27;</code>
+     */
+    public boolean hasTcpFlags() {
+      return ((bitField0_ & 0x04000000) == 0x04000000);
+    }
+    /**
+     * <code>optional uint32 tcp_flags = 27;</code>
+     */
+    public int getTcpFlags() {
+      return tcpFlags_;
+    }
+
+    public static final int TOS_FIELD_NUMBER = 28;
+    private int tos_;
+    /**
+     * <code>optional uint32 tos = 28;</code>
+     */
+    public boolean hasTos() {
+      return ((bitField0_ & 0x08000000) == 0x08000000);
+    }
+    /**
+     * <code>optional uint32 tos = 28;</code>
+     */
+    public int getTos() {
+      return tos_;
+    }
+
+    public static final int VLAN_FIELD_NUMBER = 29;
+    private int vlan_;
+    /**
+     * <code>optional uint32 vlan = 29;</code>
+     */
+    public boolean hasVlan() {
+      return ((bitField0_ & 0x10000000) == 0x10000000);
+    }
+    /**
+     * <code>optional uint32 vlan = 29;</code>
+     */
+    public int getVlan() {
+      return vlan_;
+    }
+
+    private void initFields() {
+      timestamp_ = 0L;
+      netflowVersion_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion.V5;
+      numBytes_ = 0L;
+      direction_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction.INGRESS;
+      dstAddress_ = "";
+      dstAs_ = 0;
+      dstMaskLen_ = 0;
+      dstPort_ = 0;
+      engineId_ = 0;
+      engineType_ = 0;
+      firstSwitched_ = 0L;
+      numFlowRecords_ = 0;
+      flowSeqNum_ = 0L;
+      inputSnmpIfindex_ = 0;
+      ipProtocolVersion_ = 0;
+      lastSwitched_ = 0L;
+      nextHopAddress_ = "";
+      outputSnmpIfindex_ = 0;
+      numPackets_ = 0L;
+      protocol_ = 0;
+      samplingAlgorithm_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm.UNASSIGNED;
+      samplingInterval_ = 0D;
+      srcAddress_ = "";
+      srcAs_ = 0;
+      srcMaskLen_ = 0;
+      srcPort_ = 0;
+      tcpFlags_ = 0;
+      tos_ = 0;
+      vlan_ = 0;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      if (!hasTimestamp()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasNetflowVersion()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeUInt64(1, timestamp_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeEnum(2, netflowVersion_.getNumber());
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeUInt64(3, numBytes_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeEnum(4, direction_.getNumber());
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeBytes(5, getDstAddressBytes());
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        output.writeUInt32(6, dstAs_);
+      }
+      if (((bitField0_ & 0x00000040) == 0x00000040)) {
+        output.writeUInt32(7, dstMaskLen_);
+      }
+      if (((bitField0_ & 0x00000080) == 0x00000080)) {
+        output.writeUInt32(8, dstPort_);
+      }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        output.writeUInt32(9, engineId_);
+      }
+      if (((bitField0_ & 0x00000200) == 0x00000200)) {
+        output.writeUInt32(10, engineType_);
+      }
+      if (((bitField0_ & 0x00000400) == 0x00000400)) {
+        output.writeUInt64(11, firstSwitched_);
+      }
+      if (((bitField0_ & 0x00000800) == 0x00000800)) {
+        output.writeUInt32(12, numFlowRecords_);
+      }
+      if (((bitField0_ & 0x00001000) == 0x00001000)) {
+        output.writeUInt64(13, flowSeqNum_);
+      }
+      if (((bitField0_ & 0x00002000) == 0x00002000)) {
+        output.writeUInt32(14, inputSnmpIfindex_);
+      }
+      if (((bitField0_ & 0x00004000) == 0x00004000)) {
+        output.writeUInt32(15, ipProtocolVersion_);
+      }
+      if (((bitField0_ & 0x00008000) == 0x00008000)) {
+        output.writeUInt64(16, lastSwitched_);
+      }
+      if (((bitField0_ & 0x00010000) == 0x00010000)) {
+        output.writeBytes(17, getNextHopAddressBytes());
+      }
+      if (((bitField0_ & 0x00020000) == 0x00020000)) {
+        output.writeUInt32(18, outputSnmpIfindex_);
+      }
+      if (((bitField0_ & 0x00040000) == 0x00040000)) {
+        output.writeUInt64(19, numPackets_);
+      }
+      if (((bitField0_ & 0x00080000) == 0x00080000)) {
+        output.writeUInt32(20, protocol_);
+      }
+      if (((bitField0_ & 0x00100000) == 0x00100000)) {
+        output.writeEnum(21, samplingAlgorithm_.getNumber());
+      }
+      if (((bitField0_ & 0x00200000) == 0x00200000)) {
+        output.writeDouble(22, samplingInterval_);
+      }
+      if (((bitField0_ & 0x00400000) == 0x00400000)) {
+        output.writeBytes(23, getSrcAddressBytes());
+      }
+      if (((bitField0_ & 0x00800000) == 0x00800000)) {
+        output.writeUInt32(24, srcAs_);
+      }
+      if (((bitField0_ & 0x01000000) == 0x01000000)) {
+        output.writeUInt32(25, srcMaskLen_);
+      }
+      if (((bitField0_ & 0x02000000) == 0x02000000)) {
+        output.writeUInt32(26, srcPort_);
+      }
+      if (((bitField0_ & 0x04000000) == 0x04000000)) {
+        output.writeUInt32(27, tcpFlags_);
+      }
+      if (((bitField0_ & 0x08000000) == 0x08000000)) {
+        output.writeUInt32(28, tos_);
+      }
+      if (((bitField0_ & 0x10000000) == 0x10000000)) {
+        output.writeUInt32(29, vlan_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(1, timestamp_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeEnumSize(2, netflowVersion_.getNumber());
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(3, numBytes_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeEnumSize(4, direction_.getNumber());
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(5, getDstAddressBytes());
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(6, dstAs_);
+      }
+      if (((bitField0_ & 0x00000040) == 0x00000040)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(7, dstMaskLen_);
+      }
+      if (((bitField0_ & 0x00000080) == 0x00000080)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(8, dstPort_);
+      }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(9, engineId_);
+      }
+      if (((bitField0_ & 0x00000200) == 0x00000200)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(10, engineType_);
+      }
+      if (((bitField0_ & 0x00000400) == 0x00000400)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(11, firstSwitched_);
+      }
+      if (((bitField0_ & 0x00000800) == 0x00000800)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(12, numFlowRecords_);
+      }
+      if (((bitField0_ & 0x00001000) == 0x00001000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(13, flowSeqNum_);
+      }
+      if (((bitField0_ & 0x00002000) == 0x00002000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(14, inputSnmpIfindex_);
+      }
+      if (((bitField0_ & 0x00004000) == 0x00004000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(15, ipProtocolVersion_);
+      }
+      if (((bitField0_ & 0x00008000) == 0x00008000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(16, lastSwitched_);
+      }
+      if (((bitField0_ & 0x00010000) == 0x00010000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(17, getNextHopAddressBytes());
+      }
+      if (((bitField0_ & 0x00020000) == 0x00020000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(18, outputSnmpIfindex_);
+      }
+      if (((bitField0_ & 0x00040000) == 0x00040000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(19, numPackets_);
+      }
+      if (((bitField0_ & 0x00080000) == 0x00080000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(20, protocol_);
+      }
+      if (((bitField0_ & 0x00100000) == 0x00100000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeEnumSize(21, samplingAlgorithm_.getNumber());
+      }
+      if (((bitField0_ & 0x00200000) == 0x00200000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeDoubleSize(22, samplingInterval_);
+      }
+      if (((bitField0_ & 0x00400000) == 0x00400000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(23, getSrcAddressBytes());
+      }
+      if (((bitField0_ & 0x00800000) == 0x00800000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(24, srcAs_);
+      }
+      if (((bitField0_ & 0x01000000) == 0x01000000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(25, srcMaskLen_);
+      }
+      if (((bitField0_ & 0x02000000) == 0x02000000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(26, srcPort_);
+      }
+      if (((bitField0_ & 0x04000000) == 0x04000000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(27, tcpFlags_);
+      }
+      if (((bitField0_ & 0x08000000) == 0x08000000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(28, tos_);
+      }
+      if (((bitField0_ & 0x10000000) == 0x10000000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(29, vlan_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code FlowMessage}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:FlowMessage)
+        org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessageOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.internal_static_FlowMessage_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.internal_static_FlowMessage_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage.class, org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage.Builder.class);
+      }
+
+      // Construct using org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        timestamp_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        netflowVersion_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion.V5;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        numBytes_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        direction_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction.INGRESS;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        dstAddress_ = "";
+        bitField0_ = (bitField0_ & ~0x00000010);
+        dstAs_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000020);
+        dstMaskLen_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000040);
+        dstPort_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000080);
+        engineId_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000100);
+        engineType_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000200);
+        firstSwitched_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000400);
+        numFlowRecords_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000800);
+        flowSeqNum_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00001000);
+        inputSnmpIfindex_ = 0;
+        bitField0_ = (bitField0_ & ~0x00002000);
+        ipProtocolVersion_ = 0;
+        bitField0_ = (bitField0_ & ~0x00004000);
+        lastSwitched_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00008000);
+        nextHopAddress_ = "";
+        bitField0_ = (bitField0_ & ~0x00010000);
+        outputSnmpIfindex_ = 0;
+        bitField0_ = (bitField0_ & ~0x00020000);
+        numPackets_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00040000);
+        protocol_ = 0;
+        bitField0_ = (bitField0_ & ~0x00080000);
+        samplingAlgorithm_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm.UNASSIGNED;
+        bitField0_ = (bitField0_ & ~0x00100000);
+        samplingInterval_ = 0D;
+        bitField0_ = (bitField0_ & ~0x00200000);
+        srcAddress_ = "";
+        bitField0_ = (bitField0_ & ~0x00400000);
+        srcAs_ = 0;
+        bitField0_ = (bitField0_ & ~0x00800000);
+        srcMaskLen_ = 0;
+        bitField0_ = (bitField0_ & ~0x01000000);
+        srcPort_ = 0;
+        bitField0_ = (bitField0_ & ~0x02000000);
+        tcpFlags_ = 0;
+        bitField0_ = (bitField0_ & ~0x04000000);
+        tos_ = 0;
+        bitField0_ = (bitField0_ & ~0x08000000);
+        vlan_ = 0;
+        bitField0_ = (bitField0_ & ~0x10000000);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.internal_static_FlowMessage_descriptor;
+      }
+
+      public org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage getDefaultInstanceForType() {
+        return org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage.getDefaultInstance();
+      }
+
+      public org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage build() {
+        org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage buildPartial() {
+        org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage result = new org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.timestamp_ = timestamp_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.netflowVersion_ = netflowVersion_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.numBytes_ = numBytes_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.direction_ = direction_;
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.dstAddress_ = dstAddress_;
+        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
+          to_bitField0_ |= 0x00000020;
+        }
+        result.dstAs_ = dstAs_;
+        if (((from_bitField0_ & 0x00000040) == 0x00000040)) {
+          to_bitField0_ |= 0x00000040;
+        }
+        result.dstMaskLen_ = dstMaskLen_;
+        if (((from_bitField0_ & 0x00000080) == 0x00000080)) {
+          to_bitField0_ |= 0x00000080;
+        }
+        result.dstPort_ = dstPort_;
+        if (((from_bitField0_ & 0x00000100) == 0x00000100)) {
+          to_bitField0_ |= 0x00000100;
+        }
+        result.engineId_ = engineId_;
+        if (((from_bitField0_ & 0x00000200) == 0x00000200)) {
+          to_bitField0_ |= 0x00000200;
+        }
+        result.engineType_ = engineType_;
+        if (((from_bitField0_ & 0x00000400) == 0x00000400)) {
+          to_bitField0_ |= 0x00000400;
+        }
+        result.firstSwitched_ = firstSwitched_;
+        if (((from_bitField0_ & 0x00000800) == 0x00000800)) {
+          to_bitField0_ |= 0x00000800;
+        }
+        result.numFlowRecords_ = numFlowRecords_;
+        if (((from_bitField0_ & 0x00001000) == 0x00001000)) {
+          to_bitField0_ |= 0x00001000;
+        }
+        result.flowSeqNum_ = flowSeqNum_;
+        if (((from_bitField0_ & 0x00002000) == 0x00002000)) {
+          to_bitField0_ |= 0x00002000;
+        }
+        result.inputSnmpIfindex_ = inputSnmpIfindex_;
+        if (((from_bitField0_ & 0x00004000) == 0x00004000)) {
+          to_bitField0_ |= 0x00004000;
+        }
+        result.ipProtocolVersion_ = ipProtocolVersion_;
+        if (((from_bitField0_ & 0x00008000) == 0x00008000)) {
+          to_bitField0_ |= 0x00008000;
+        }
+        result.lastSwitched_ = lastSwitched_;
+        if (((from_bitField0_ & 0x00010000) == 0x00010000)) {
+          to_bitField0_ |= 0x00010000;
+        }
+        result.nextHopAddress_ = nextHopAddress_;
+        if (((from_bitField0_ & 0x00020000) == 0x00020000)) {
+          to_bitField0_ |= 0x00020000;
+        }
+        result.outputSnmpIfindex_ = outputSnmpIfindex_;
+        if (((from_bitField0_ & 0x00040000) == 0x00040000)) {
+          to_bitField0_ |= 0x00040000;
+        }
+        result.numPackets_ = numPackets_;
+        if (((from_bitField0_ & 0x00080000) == 0x00080000)) {
+          to_bitField0_ |= 0x00080000;
+        }
+        result.protocol_ = protocol_;
+        if (((from_bitField0_ & 0x00100000) == 0x00100000)) {
+          to_bitField0_ |= 0x00100000;
+        }
+        result.samplingAlgorithm_ = samplingAlgorithm_;
+        if (((from_bitField0_ & 0x00200000) == 0x00200000)) {
+          to_bitField0_ |= 0x00200000;
+        }
+        result.samplingInterval_ = samplingInterval_;
+        if (((from_bitField0_ & 0x00400000) == 0x00400000)) {
+          to_bitField0_ |= 0x00400000;
+        }
+        result.srcAddress_ = srcAddress_;
+        if (((from_bitField0_ & 0x00800000) == 0x00800000)) {
+          to_bitField0_ |= 0x00800000;
+        }
+        result.srcAs_ = srcAs_;
+        if (((from_bitField0_ & 0x01000000) == 0x01000000)) {
+          to_bitField0_ |= 0x01000000;
+        }
+        result.srcMaskLen_ = srcMaskLen_;
+        if (((from_bitField0_ & 0x02000000) == 0x02000000)) {
+          to_bitField0_ |= 0x02000000;
+        }
+        result.srcPort_ = srcPort_;
+        if (((from_bitField0_ & 0x04000000) == 0x04000000)) {
+          to_bitField0_ |= 0x04000000;
+        }
+        result.tcpFlags_ = tcpFlags_;
+        if (((from_bitField0_ & 0x08000000) == 0x08000000)) {
+          to_bitField0_ |= 0x08000000;
+        }
+        result.tos_ = tos_;
+        if (((from_bitField0_ & 0x10000000) == 0x10000000)) {
+          to_bitField0_ |= 0x10000000;
+        }
+        result.vlan_ = vlan_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage) {
+          return mergeFrom((org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage other) {
+        if (other == org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage.getDefaultInstance()) return this;
+        if (other.hasTimestamp()) {
+          setTimestamp(other.getTimestamp());
+        }
+        if (other.hasNetflowVersion()) {
+          setNetflowVersion(other.getNetflowVersion());
+        }
+        if (other.hasNumBytes()) {
+          setNumBytes(other.getNumBytes());
+        }
+        if (other.hasDirection()) {
+          setDirection(other.getDirection());
+        }
+        if (other.hasDstAddress()) {
+          bitField0_ |= 0x00000010;
+          dstAddress_ = other.dstAddress_;
+          onChanged();
+        }
+        if (other.hasDstAs()) {
+          setDstAs(other.getDstAs());
+        }
+        if (other.hasDstMaskLen()) {
+          setDstMaskLen(other.getDstMaskLen());
+        }
+        if (other.hasDstPort()) {
+          setDstPort(other.getDstPort());
+        }
+        if (other.hasEngineId()) {
+          setEngineId(other.getEngineId());
+        }
+        if (other.hasEngineType()) {
+          setEngineType(other.getEngineType());
+        }
+        if (other.hasFirstSwitched()) {
+          setFirstSwitched(other.getFirstSwitched());
+        }
+        if (other.hasNumFlowRecords()) {
+          setNumFlowRecords(other.getNumFlowRecords());
+        }
+        if (other.hasFlowSeqNum()) {
+          setFlowSeqNum(other.getFlowSeqNum());
+        }
+        if (other.hasInputSnmpIfindex()) {
+          setInputSnmpIfindex(other.getInputSnmpIfindex());
+        }
+        if (other.hasIpProtocolVersion()) {
+          setIpProtocolVersion(other.getIpProtocolVersion());
+        }
+        if (other.hasLastSwitched()) {
+          setLastSwitched(other.getLastSwitched());
+        }
+        if (other.hasNextHopAddress()) {
+          bitField0_ |= 0x00010000;
+          nextHopAddress_ = other.nextHopAddress_;
+          onChanged();
+        }
+        if (other.hasOutputSnmpIfindex()) {
+          setOutputSnmpIfindex(other.getOutputSnmpIfindex());
+        }
+        if (other.hasNumPackets()) {
+          setNumPackets(other.getNumPackets());
+        }
+        if (other.hasProtocol()) {
+          setProtocol(other.getProtocol());
+        }
+        if (other.hasSamplingAlgorithm()) {
+          setSamplingAlgorithm(other.getSamplingAlgorithm());
+        }
+        if (other.hasSamplingInterval()) {
+          setSamplingInterval(other.getSamplingInterval());
+        }
+        if (other.hasSrcAddress()) {
+          bitField0_ |= 0x00400000;
+          srcAddress_ = other.srcAddress_;
+          onChanged();
+        }
+        if (other.hasSrcAs()) {
+          setSrcAs(other.getSrcAs());
+        }
+        if (other.hasSrcMaskLen()) {
+          setSrcMaskLen(other.getSrcMaskLen());
+        }
+        if (other.hasSrcPort()) {
+          setSrcPort(other.getSrcPort());
+        }
+        if (other.hasTcpFlags()) {
+          setTcpFlags(other.getTcpFlags());
+        }
+        if (other.hasTos()) {
+          setTos(other.getTos());
+        }
+        if (other.hasVlan()) {
+          setVlan(other.getVlan());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        if (!hasTimestamp()) {
+          
+          return false;
+        }
+        if (!hasNetflowVersion()) {
+          
+          return false;
+        }
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private long timestamp_ ;
+      /**
+       * <code>required uint64 timestamp = 1;</code>
+       */
+      public boolean hasTimestamp() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>required uint64 timestamp = 1;</code>
+       */
+      public long getTimestamp() {
+        return timestamp_;
+      }
+      /**
+       * <code>required uint64 timestamp = 1;</code>
+       */
+      public Builder setTimestamp(long value) {
+        bitField0_ |= 0x00000001;
+        timestamp_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required uint64 timestamp = 1;</code>
+       */
+      public Builder clearTimestamp() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        timestamp_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion netflowVersion_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion.V5;
+      /**
+       * <code>required .NetflowVersion netflow_version = 2;</code>
+       */
+      public boolean hasNetflowVersion() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>required .NetflowVersion netflow_version = 2;</code>
+       */
+      public org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion getNetflowVersion() {
+        return netflowVersion_;
+      }
+      /**
+       * <code>required .NetflowVersion netflow_version = 2;</code>
+       */
+      public Builder setNetflowVersion(org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000002;
+        netflowVersion_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required .NetflowVersion netflow_version = 2;</code>
+       */
+      public Builder clearNetflowVersion() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        netflowVersion_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion.V5;
+        onChanged();
+        return this;
+      }
+
+      private long numBytes_ ;
+      /**
+       * <code>optional uint64 num_bytes = 3;</code>
+       */
+      public boolean hasNumBytes() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>optional uint64 num_bytes = 3;</code>
+       */
+      public long getNumBytes() {
+        return numBytes_;
+      }
+      /**
+       * <code>optional uint64 num_bytes = 3;</code>
+       */
+      public Builder setNumBytes(long value) {
+        bitField0_ |= 0x00000004;
+        numBytes_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 num_bytes = 3;</code>
+       */
+      public Builder clearNumBytes() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        numBytes_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction direction_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction.INGRESS;
+      /**
+       * <code>optional .Direction direction = 4;</code>
+       */
+      public boolean hasDirection() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      /**
+       * <code>optional .Direction direction = 4;</code>
+       */
+      public org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction getDirection() {
+        return direction_;
+      }
+      /**
+       * <code>optional .Direction direction = 4;</code>
+       */
+      public Builder setDirection(org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000008;
+        direction_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional .Direction direction = 4;</code>
+       */
+      public Builder clearDirection() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        direction_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction.INGRESS;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object dstAddress_ = "";
+      /**
+       * <code>optional string dst_address = 5;</code>
+       */
+      public boolean hasDstAddress() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+      /**
+       * <code>optional string dst_address = 5;</code>
+       */
+      public java.lang.String getDstAddress() {
+        java.lang.Object ref = dstAddress_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          if (bs.isValidUtf8()) {
+            dstAddress_ = s;
+          }
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>optional string dst_address = 5;</code>
+       */
+      public com.google.protobuf.ByteString
+          getDstAddressBytes() {
+        java.lang.Object ref = dstAddress_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          dstAddress_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>optional string dst_address = 5;</code>
+       */
+      public Builder setDstAddress(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000010;
+        dstAddress_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional string dst_address = 5;</code>
+       */
+      public Builder clearDstAddress() {
+        bitField0_ = (bitField0_ & ~0x00000010);
+        dstAddress_ = getDefaultInstance().getDstAddress();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional string dst_address = 5;</code>
+       */
+      public Builder setDstAddressBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000010;
+        dstAddress_ = value;
+        onChanged();
+        return this;
+      }
+
+      private int dstAs_ ;
+      /**
+       * <code>optional uint32 dst_as = 6;</code>
+       */
+      public boolean hasDstAs() {
+        return ((bitField0_ & 0x00000020) == 0x00000020);
+      }
+      /**
+       * <code>optional uint32 dst_as = 6;</code>
+       */
+      public int getDstAs() {
+        return dstAs_;
+      }
+      /**
+       * <code>optional uint32 dst_as = 6;</code>
+       */
+      public Builder setDstAs(int value) {
+        bitField0_ |= 0x00000020;
+        dstAs_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 dst_as = 6;</code>
+       */
+      public Builder clearDstAs() {
+        bitField0_ = (bitField0_ & ~0x00000020);
+        dstAs_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int dstMaskLen_ ;
+      /**
+       * <code>optional uint32 dst_mask_len = 7;</code>
+       */
+      public boolean hasDstMaskLen() {
+        return ((bitField0_ & 0x00000040) == 0x00000040);
+      }
+      /**
+       * <code>optional uint32 dst_mask_len = 7;</code>
+       */
+      public int getDstMaskLen() {
+        return dstMaskLen_;
+      }
+      /**
+       * <code>optional uint32 dst_mask_len = 7;</code>
+       */
+      public Builder setDstMaskLen(int value) {
+        bitField0_ |= 0x00000040;
+        dstMaskLen_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 dst_mask_len = 7;</code>
+       */
+      public Builder clearDstMaskLen() {
+        bitField0_ = (bitField0_ & ~0x00000040);
+        dstMaskLen_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int dstPort_ ;
+      /**
+       * <code>optional uint32 dst_port = 8;</code>
+       */
+      public boolean hasDstPort() {
+        return ((bitField0_ & 0x00000080) == 0x00000080);
+      }
+      /**
+       * <code>optional uint32 dst_port = 8;</code>
+       */
+      public int getDstPort() {
+        return dstPort_;
+      }
+      /**
+       * <code>optional uint32 dst_port = 8;</code>
+       */
+      public Builder setDstPort(int value) {
+        bitField0_ |= 0x00000080;
+        dstPort_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 dst_port = 8;</code>
+       */
+      public Builder clearDstPort() {
+        bitField0_ = (bitField0_ & ~0x00000080);
+        dstPort_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int engineId_ ;
+      /**
+       * <code>optional uint32 engine_id = 9;</code>
+       */
+      public boolean hasEngineId() {
+        return ((bitField0_ & 0x00000100) == 0x00000100);
+      }
+      /**
+       * <code>optional uint32 engine_id = 9;</code>
+       */
+      public int getEngineId() {
+        return engineId_;
+      }
+      /**
+       * <code>optional uint32 engine_id = 9;</code>
+       */
+      public Builder setEngineId(int value) {
+        bitField0_ |= 0x00000100;
+        engineId_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 engine_id = 9;</code>
+       */
+      public Builder clearEngineId() {
+        bitField0_ = (bitField0_ & ~0x00000100);
+        engineId_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int engineType_ ;
+      /**
+       * <code>optional uint32 engine_type = 10;</code>
+       */
+      public boolean hasEngineType() {
+        return ((bitField0_ & 0x00000200) == 0x00000200);
+      }
+      /**
+       * <code>optional uint32 engine_type = 10;</code>
+       */
+      public int getEngineType() {
+        return engineType_;
+      }
+      /**
+       * <code>optional uint32 engine_type = 10;</code>
+       */
+      public Builder setEngineType(int value) {
+        bitField0_ |= 0x00000200;
+        engineType_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 engine_type = 10;</code>
+       */
+      public Builder clearEngineType() {
+        bitField0_ = (bitField0_ & ~0x00000200);
+        engineType_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private long firstSwitched_ ;
+      /**
+       * <code>optional uint64 first_switched = 11;</code>
+       */
+      public boolean hasFirstSwitched() {
+        return ((bitField0_ & 0x00000400) == 0x00000400);
+      }
+      /**
+       * <code>optional uint64 first_switched = 11;</code>
+       */
+      public long getFirstSwitched() {
+        return firstSwitched_;
+      }
+      /**
+       * <code>optional uint64 first_switched = 11;</code>
+       */
+      public Builder setFirstSwitched(long value) {
+        bitField0_ |= 0x00000400;
+        firstSwitched_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 first_switched = 11;</code>
+       */
+      public Builder clearFirstSwitched() {
+        bitField0_ = (bitField0_ & ~0x00000400);
+        firstSwitched_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int numFlowRecords_ ;
+      /**
+       * <code>optional uint32 num_flow_records = 12;</code>
+       */
+      public boolean hasNumFlowRecords() {
+        return ((bitField0_ & 0x00000800) == 0x00000800);
+      }
+      /**
+       * <code>optional uint32 num_flow_records = 12;</code>
+       */
+      public int getNumFlowRecords() {
+        return numFlowRecords_;
+      }
+      /**
+       * <code>optional uint32 num_flow_records = 12;</code>
+       */
+      public Builder setNumFlowRecords(int value) {
+        bitField0_ |= 0x00000800;
+        numFlowRecords_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 num_flow_records = 12;</code>
+       */
+      public Builder clearNumFlowRecords() {
+        bitField0_ = (bitField0_ & ~0x00000800);
+        numFlowRecords_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private long flowSeqNum_ ;
+      /**
+       * <code>optional uint64 flow_seq_num = 13;</code>
+       */
+      public boolean hasFlowSeqNum() {
+        return ((bitField0_ & 0x00001000) == 0x00001000);
+      }
+      /**
+       * <code>optional uint64 flow_seq_num = 13;</code>
+       */
+      public long getFlowSeqNum() {
+        return flowSeqNum_;
+      }
+      /**
+       * <code>optional uint64 flow_seq_num = 13;</code>
+       */
+      public Builder setFlowSeqNum(long value) {
+        bitField0_ |= 0x00001000;
+        flowSeqNum_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 flow_seq_num = 13;</code>
+       */
+      public Builder clearFlowSeqNum() {
+        bitField0_ = (bitField0_ & ~0x00001000);
+        flowSeqNum_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int inputSnmpIfindex_ ;
+      /**
+       * <code>optional uint32 input_snmp_ifindex = 14;</code>
+       */
+      public boolean hasInputSnmpIfindex() {
+        return ((bitField0_ & 0x00002000) == 0x00002000);
+      }
+      /**
+       * <code>optional uint32 input_snmp_ifindex = 14;</code>
+       */
+      public int getInputSnmpIfindex() {
+        return inputSnmpIfindex_;
+      }
+      /**
+       * <code>optional uint32 input_snmp_ifindex = 14;</code>
+       */
+      public Builder setInputSnmpIfindex(int value) {
+        bitField0_ |= 0x00002000;
+        inputSnmpIfindex_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 input_snmp_ifindex = 14;</code>
+       */
+      public Builder clearInputSnmpIfindex() {
+        bitField0_ = (bitField0_ & ~0x00002000);
+        inputSnmpIfindex_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int ipProtocolVersion_ ;
+      /**
+       * <code>optional uint32 ip_protocol_version = 15;</code>
+       */
+      public boolean hasIpProtocolVersion() {
+        return ((bitField0_ & 0x00004000) == 0x00004000);
+      }
+      /**
+       * <code>optional uint32 ip_protocol_version = 15;</code>
+       */
+      public int getIpProtocolVersion() {
+        return ipProtocolVersion_;
+      }
+      /**
+       * <code>optional uint32 ip_protocol_version = 15;</code>
+       */
+      public Builder setIpProtocolVersion(int value) {
+        bitField0_ |= 0x00004000;
+        ipProtocolVersion_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 ip_protocol_version = 15;</code>
+       */
+      public Builder clearIpProtocolVersion() {
+        bitField0_ = (bitField0_ & ~0x00004000);
+        ipProtocolVersion_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private long lastSwitched_ ;
+      /**
+       * <code>optional uint64 last_switched = 16;</code>
+       */
+      public boolean hasLastSwitched() {
+        return ((bitField0_ & 0x00008000) == 0x00008000);
+      }
+      /**
+       * <code>optional uint64 last_switched = 16;</code>
+       */
+      public long getLastSwitched() {
+        return lastSwitched_;
+      }
+      /**
+       * <code>optional uint64 last_switched = 16;</code>
+       */
+      public Builder setLastSwitched(long value) {
+        bitField0_ |= 0x00008000;
+        lastSwitched_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 last_switched = 16;</code>
+       */
+      public Builder clearLastSwitched() {
+        bitField0_ = (bitField0_ & ~0x00008000);
+        lastSwitched_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object nextHopAddress_ = "";
+      /**
+       * <code>optional string next_hop_address = 17;</code>
+       */
+      public boolean hasNextHopAddress() {
+        return ((bitField0_ & 0x00010000) == 0x00010000);
+      }
+      /**
+       * <code>optional string next_hop_address = 17;</code>
+       */
+      public java.lang.String getNextHopAddress() {
+        java.lang.Object ref = nextHopAddress_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          if (bs.isValidUtf8()) {
+            nextHopAddress_ = s;
+          }
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>optional string next_hop_address = 17;</code>
+       */
+      public com.google.protobuf.ByteString
+          getNextHopAddressBytes() {
+        java.lang.Object ref = nextHopAddress_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          nextHopAddress_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>optional string next_hop_address = 17;</code>
+       */
+      public Builder setNextHopAddress(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00010000;
+        nextHopAddress_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional string next_hop_address = 17;</code>
+       */
+      public Builder clearNextHopAddress() {
+        bitField0_ = (bitField0_ & ~0x00010000);
+        nextHopAddress_ = getDefaultInstance().getNextHopAddress();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional string next_hop_address = 17;</code>
+       */
+      public Builder setNextHopAddressBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00010000;
+        nextHopAddress_ = value;
+        onChanged();
+        return this;
+      }
+
+      private int outputSnmpIfindex_ ;
+      /**
+       * <code>optional uint32 output_snmp_ifindex = 18;</code>
+       */
+      public boolean hasOutputSnmpIfindex() {
+        return ((bitField0_ & 0x00020000) == 0x00020000);
+      }
+      /**
+       * <code>optional uint32 output_snmp_ifindex = 18;</code>
+       */
+      public int getOutputSnmpIfindex() {
+        return outputSnmpIfindex_;
+      }
+      /**
+       * <code>optional uint32 output_snmp_ifindex = 18;</code>
+       */
+      public Builder setOutputSnmpIfindex(int value) {
+        bitField0_ |= 0x00020000;
+        outputSnmpIfindex_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 output_snmp_ifindex = 18;</code>
+       */
+      public Builder clearOutputSnmpIfindex() {
+        bitField0_ = (bitField0_ & ~0x00020000);
+        outputSnmpIfindex_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private long numPackets_ ;
+      /**
+       * <code>optional uint64 num_packets = 19;</code>
+       */
+      public boolean hasNumPackets() {
+        return ((bitField0_ & 0x00040000) == 0x00040000);
+      }
+      /**
+       * <code>optional uint64 num_packets = 19;</code>
+       */
+      public long getNumPackets() {
+        return numPackets_;
+      }
+      /**
+       * <code>optional uint64 num_packets = 19;</code>
+       */
+      public Builder setNumPackets(long value) {
+        bitField0_ |= 0x00040000;
+        numPackets_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 num_packets = 19;</code>
+       */
+      public Builder clearNumPackets() {
+        bitField0_ = (bitField0_ & ~0x00040000);
+        numPackets_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int protocol_ ;
+      /**
+       * <code>optional uint32 protocol = 20;</code>
+       */
+      public boolean hasProtocol() {
+        return ((bitField0_ & 0x00080000) == 0x00080000);
+      }
+      /**
+       * <code>optional uint32 protocol = 20;</code>
+       */
+      public int getProtocol() {
+        return protocol_;
+      }
+      /**
+       * <code>optional uint32 protocol = 20;</code>
+       */
+      public Builder setProtocol(int value) {
+        bitField0_ |= 0x00080000;
+        protocol_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 protocol = 20;</code>
+       */
+      public Builder clearProtocol() {
+        bitField0_ = (bitField0_ & ~0x00080000);
+        protocol_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm samplingAlgorithm_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm.UNASSIGNED;
+      /**
+       * <code>optional .SamplingAlgorithm sampling_algorithm = 21;</code>
+       */
+      public boolean hasSamplingAlgorithm() {
+        return ((bitField0_ & 0x00100000) == 0x00100000);
+      }
+      /**
+       * <code>optional .SamplingAlgorithm sampling_algorithm = 21;</code>
+       */
+      public org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm getSamplingAlgorithm() {
+        return samplingAlgorithm_;
+      }
+      /**
+       * <code>optional .SamplingAlgorithm sampling_algorithm = 21;</code>
+       */
+      public Builder setSamplingAlgorithm(org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00100000;
+        samplingAlgorithm_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional .SamplingAlgorithm sampling_algorithm = 21;</code>
+       */
+      public Builder clearSamplingAlgorithm() {
+        bitField0_ = (bitField0_ & ~0x00100000);
+        samplingAlgorithm_ = org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm.UNASSIGNED;
+        onChanged();
+        return this;
+      }
+
+      private double samplingInterval_ ;
+      /**
+       * <code>optional double sampling_interval = 22;</code>
+       */
+      public boolean hasSamplingInterval() {
+        return ((bitField0_ & 0x00200000) == 0x00200000);
+      }
+      /**
+       * <code>optional double sampling_interval = 22;</code>
+       */
+      public double getSamplingInterval() {
+        return samplingInterval_;
+      }
+      /**
+       * <code>optional double sampling_interval = 22;</code>
+       */
+      public Builder setSamplingInterval(double value) {
+        bitField0_ |= 0x00200000;
+        samplingInterval_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional double sampling_interval = 22;</code>
+       */
+      public Builder clearSamplingInterval() {
+        bitField0_ = (bitField0_ & ~0x00200000);
+        samplingInterval_ = 0D;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object srcAddress_ = "";
+      /**
+       * <code>optional string src_address = 23;</code>
+       */
+      public boolean hasSrcAddress() {
+        return ((bitField0_ & 0x00400000) == 0x00400000);
+      }
+      /**
+       * <code>optional string src_address = 23;</code>
+       */
+      public java.lang.String getSrcAddress() {
+        java.lang.Object ref = srcAddress_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          if (bs.isValidUtf8()) {
+            srcAddress_ = s;
+          }
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>optional string src_address = 23;</code>
+       */
+      public com.google.protobuf.ByteString
+          getSrcAddressBytes() {
+        java.lang.Object ref = srcAddress_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          srcAddress_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>optional string src_address = 23;</code>
+       */
+      public Builder setSrcAddress(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00400000;
+        srcAddress_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional string src_address = 23;</code>
+       */
+      public Builder clearSrcAddress() {
+        bitField0_ = (bitField0_ & ~0x00400000);
+        srcAddress_ = getDefaultInstance().getSrcAddress();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional string src_address = 23;</code>
+       */
+      public Builder setSrcAddressBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00400000;
+        srcAddress_ = value;
+        onChanged();
+        return this;
+      }
+
+      private int srcAs_ ;
+      /**
+       * <code>optional uint32 src_as = 24;</code>
+       */
+      public boolean hasSrcAs() {
+        return ((bitField0_ & 0x00800000) == 0x00800000);
+      }
+      /**
+       * <code>optional uint32 src_as = 24;</code>
+       */
+      public int getSrcAs() {
+        return srcAs_;
+      }
+      /**
+       * <code>optional uint32 src_as = 24;</code>
+       */
+      public Builder setSrcAs(int value) {
+        bitField0_ |= 0x00800000;
+        srcAs_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 src_as = 24;</code>
+       */
+      public Builder clearSrcAs() {
+        bitField0_ = (bitField0_ & ~0x00800000);
+        srcAs_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int srcMaskLen_ ;
+      /**
+       * <code>optional uint32 src_mask_len = 25;</code>
+       */
+      public boolean hasSrcMaskLen() {
+        return ((bitField0_ & 0x01000000) == 0x01000000);
+      }
+      /**
+       * <code>optional uint32 src_mask_len = 25;</code>
+       */
+      public int getSrcMaskLen() {
+        return srcMaskLen_;
+      }
+      /**
+       * <code>optional uint32 src_mask_len = 25;</code>
+       */
+      public Builder setSrcMaskLen(int value) {
+        bitField0_ |= 0x01000000;
+        srcMaskLen_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 src_mask_len = 25;</code>
+       */
+      public Builder clearSrcMaskLen() {
+        bitField0_ = (bitField0_ & ~0x01000000);
+        srcMaskLen_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int srcPort_ ;
+      /**
+       * <code>optional uint32 src_port = 26;</code>
+       */
+      public boolean hasSrcPort() {
+        return ((bitField0_ & 0x02000000) == 0x02000000);
+      }
+      /**
+       * <code>optional uint32 src_port = 26;</code>
+       */
+      public int getSrcPort() {
+        return srcPort_;
+      }
+      /**
+       * <code>optional uint32 src_port = 26;</code>
+       */
+      public Builder setSrcPort(int value) {
+        bitField0_ |= 0x02000000;
+        srcPort_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 src_port = 26;</code>
+       */
+      public Builder clearSrcPort() {
+        bitField0_ = (bitField0_ & ~0x02000000);
+        srcPort_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int tcpFlags_ ;
+      /**
+       * <code>optional uint32 tcp_flags = 27;</code>
+       */
+      public boolean hasTcpFlags() {
+        return ((bitField0_ & 0x04000000) == 0x04000000);
+      }
+      /**
+       * <code>optional uint32 tcp_flags = 27;</code>
+       */
+      public int getTcpFlags() {
+        return tcpFlags_;
+      }
+      /**
+       * <code>optional uint32 tcp_flags = 27;</code>
+       */
+      public Builder setTcpFlags(int value) {
+        bitField0_ |= 0x04000000;
+        tcpFlags_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 tcp_flags = 27;</code>
+       */
+      public Builder clearTcpFlags() {
+        bitField0_ = (bitField0_ & ~0x04000000);
+        tcpFlags_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int tos_ ;
+      /**
+       * <code>optional uint32 tos = 28;</code>
+       */
+      public boolean hasTos() {
+        return ((bitField0_ & 0x08000000) == 0x08000000);
+      }
+      /**
+       * <code>optional uint32 tos = 28;</code>
+       */
+      public int getTos() {
+        return tos_;
+      }
+      /**
+       * <code>optional uint32 tos = 28;</code>
+       */
+      public Builder setTos(int value) {
+        bitField0_ |= 0x08000000;
+        tos_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 tos = 28;</code>
+       */
+      public Builder clearTos() {
+        bitField0_ = (bitField0_ & ~0x08000000);
+        tos_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int vlan_ ;
+      /**
+       * <code>optional uint32 vlan = 29;</code>
+       */
+      public boolean hasVlan() {
+        return ((bitField0_ & 0x10000000) == 0x10000000);
+      }
+      /**
+       * <code>optional uint32 vlan = 29;</code>
+       */
+      public int getVlan() {
+        return vlan_;
+      }
+      /**
+       * <code>optional uint32 vlan = 29;</code>
+       */
+      public Builder setVlan(int value) {
+        bitField0_ |= 0x10000000;
+        vlan_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 vlan = 29;</code>
+       */
+      public Builder clearVlan() {
+        bitField0_ = (bitField0_ & ~0x10000000);
+        vlan_ = 0;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:FlowMessage)
+    }
+
+    static {
+      defaultInstance = new FlowMessage(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:FlowMessage)
+  }
+
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_FlowMessage_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_FlowMessage_fieldAccessorTable;
+
+  public static com.google.protobuf.Descriptors.FileDescriptor
+      getDescriptor() {
+    return descriptor;
+  }
+  private static com.google.protobuf.Descriptors.FileDescriptor
+      descriptor;
+  static {
+    java.lang.String[] descriptorData = {
+      "\n\nflow.proto\"\255\005\n\013FlowMessage\022\021\n\ttimestam" +
+      "p\030\001 \002(\004\022(\n\017netflow_version\030\002 \002(\0162\017.Netfl" +
+      "owVersion\022\021\n\tnum_bytes\030\003 \001(\004\022\035\n\tdirectio" +
+      "n\030\004 \001(\0162\n.Direction\022\023\n\013dst_address\030\005 \001(\t" +
+      "\022\016\n\006dst_as\030\006 \001(\r\022\024\n\014dst_mask_len\030\007 \001(\r\022\020" +
+      "\n\010dst_port\030\010 \001(\r\022\021\n\tengine_id\030\t \001(\r\022\023\n\013e" +
+      "ngine_type\030\n \001(\r\022\026\n\016first_switched\030\013 \001(\004" +
+      "\022\030\n\020num_flow_records\030\014 \001(\r\022\024\n\014flow_seq_n" +
+      "um\030\r \001(\004\022\032\n\022input_snmp_ifindex\030\016 \001(\r\022\033\n\023" +
+      "ip_protocol_version\030\017 \001(\r\022\025\n\rlast_switch",
+      "ed\030\020 \001(\004\022\030\n\020next_hop_address\030\021 \001(\t\022\033\n\023ou" +
+      "tput_snmp_ifindex\030\022 \001(\r\022\023\n\013num_packets\030\023" +
+      " \001(\004\022\020\n\010protocol\030\024 \001(\r\022.\n\022sampling_algor" +
+      "ithm\030\025 \001(\0162\022.SamplingAlgorithm\022\031\n\021sampli" +
+      "ng_interval\030\026 \001(\001\022\023\n\013src_address\030\027 \001(\t\022\016" +
+      "\n\006src_as\030\030 \001(\r\022\024\n\014src_mask_len\030\031 \001(\r\022\020\n\010" +
+      "src_port\030\032 \001(\r\022\021\n\ttcp_flags\030\033 \001(\r\022\013\n\003tos" +
+      "\030\034 \001(\r\022\014\n\004vlan\030\035 \001(\r*$\n\tDirection\022\013\n\007ING" +
+      "RESS\020\000\022\n\n\006EGRESS\020\001*\246\002\n\021SamplingAlgorithm" +
+      "\022\016\n\nUNASSIGNED\020\000\022#\n\037SYSTEMATIC_COUNT_BAS",
+      "ED_SAMPLING\020\001\022\"\n\036SYSTEMATIC_TIME_BASED_S" +
+      "AMPLING\020\002\022\036\n\032RANDOM_N_OUT_OF_N_SAMPLING\020" +
+      "\003\022\"\n\036UNIFORM_PROBABILISTIC_SAMPLING\020\004\022\034\n" +
+      "\030PROPERTY_MATCH_FILTERING\020\005\022\030\n\024HASH_BASE" +
+      "D_FILTERING\020\006\022<\n8FLOW_STATE_DEPENDENT_IN" +
+      "TERMEDIATE_FLOW_SELECTION_PROCESS\020\007*6\n\016N" +
+      "etflowVersion\022\006\n\002V5\020\001\022\006\n\002V9\020\002\022\t\n\005IPFIX\020\003" +
+      "\022\t\n\005SFLOW\020\004BE\n7org.opennms.netmgt.teleme" +
+      "try.protocols.common.transportB\nFlowProt" +
+      "os"
+    };
+    com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
+        new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
+          public com.google.protobuf.ExtensionRegistry assignDescriptors(
+              com.google.protobuf.Descriptors.FileDescriptor root) {
+            descriptor = root;
+            return null;
+          }
+        };
+    com.google.protobuf.Descriptors.FileDescriptor
+      .internalBuildGeneratedFileFrom(descriptorData,
+        new com.google.protobuf.Descriptors.FileDescriptor[] {
+        }, assigner);
+    internal_static_FlowMessage_descriptor =
+      getDescriptor().getMessageTypes().get(0);
+    internal_static_FlowMessage_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_FlowMessage_descriptor,
+        new java.lang.String[] { "Timestamp", "NetflowVersion", "NumBytes", "Direction", "DstAddress", "DstAs", "DstMaskLen", "DstPort", "EngineId", "EngineType", "FirstSwitched", "NumFlowRecords", "FlowSeqNum", "InputSnmpIfindex", "IpProtocolVersion", "LastSwitched", "NextHopAddress", "OutputSnmpIfindex", "NumPackets", "Protocol", "SamplingAlgorithm", "SamplingInterval", "SrcAddress", "SrcAs", "SrcMaskLen", "SrcPort", "TcpFlags", "Tos", "Vlan", });
+  }
+
+  // @@protoc_insertion_point(outer_class_scope)
+}
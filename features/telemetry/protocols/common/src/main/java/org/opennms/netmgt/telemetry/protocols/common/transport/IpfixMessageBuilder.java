@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.common.transport;
+
+import java.time.Instant;
+
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction;
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage;
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion;
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.primitives.UnsignedLong;
+
+public class IpfixMessageBuilder extends FlowMessageBuilder {
+    private static final Logger LOG = LoggerFactory.getLogger(IpfixMessageBuilder.class);
+
+    @Override
+    protected void build(final FlowRecord record, final FlowMessage.Builder builder) {
+        final long timestamp = getRequiredLong(record, "@exportTime") * 1000;
+
+        builder.setTimestamp(timestamp);
+        builder.setNetflowVersion(NetflowVersion.IPFIX);
+
+        setIfPresent(first(record.getLong("octetDeltaCount"),
+                record.getLong("postOctetDeltaCount"),
+                record.getLong("layer2OctetDeltaCount"),
+                record.getLong("postLayer2OctetDeltaCount"),
+                record.getLong("transportOctetDeltaCount")), builder::setNumBytes);
+
+        final Long direction = record.getLong("flowDirection");
+        if (direction != null) {
+            if (direction == 0x00) {
+                builder.setDirection(Direction.INGRESS);
+            } else if (direction == 0x01) {
+                builder.setDirection(Direction.EGRESS);
+            }
+        }
+
+        setIfPresent(first(record.getString("destinationIPv6Address"),
+                record.getString("destinationIPv4Address")), builder::setDstAddress);
+        setIfPresent(getInt(record, "bgpDestinationAsNumber"), builder::setDstAs);
+        setIfPresent(first(getInt(record, "destinationIPv6PrefixLength"),
+                getInt(record, "destinationIPv4PrefixLength")), builder::setDstMaskLen);
+        setIfPresent(getInt(record, "destinationTransportPort"), builder::setDstPort);
+        setIfPresent(getInt(record, "engineId"), builder::setEngineId);
+        setIfPresent(getInt(record, "engineType"), builder::setEngineType);
+
+        setIfPresent(getSwitched(record, timestamp, "flowStart"), builder::setFirstSwitched);
+
+        setIfPresent(getInt(record, "@recordCount"), builder::setNumFlowRecords);
+        setIfPresent(record.getLong("@sequenceNumber"), builder::setFlowSeqNum);
+        setIfPresent(getInt(record, "ingressInterface"), builder::setInputSnmpIfindex);
+        setIfPresent(getInt(record, "ipVersion"), builder::setIpProtocolVersion);
+
+        setIfPresent(getSwitched(record, timestamp, "flowEnd"), builder::setLastSwitched);
+
+        setIfPresent(first(record.getString("ipNextHopIPv6Address"),
+                record.getString("ipNextHopIPv4Address"),
+                record.getString("bgpNextHopIPv6Address"),
+                record.getString("bgpNextHopIPv4Address")), builder::setNextHopAddress);
+        setIfPresent(getInt(record, "egressInterface"), builder::setOutputSnmpIfindex);
+
+        setIfPresent(first(record.getLong("packetDeltaCount"),
+                record.getLong("postPacketDeltaCount"),
+                record.getLong("transportPacketDeltaCount")), builder::setNumPackets);
+        setIfPresent(getInt(record, "protocolIdentifier"), builder::setProtocol);
+
+        builder.setSamplingAlgorithm(getSamplingAlgorithm(record));
+        setIfPresent(getSamplingInterval(record), builder::setSamplingInterval);
+
+        setIfPresent(first(record.getString("sourceIPv6Address"),
+                record.getString("sourceIPv4Address")), builder::setSrcAddress);
+        setIfPresent(getInt(record, "bgpSourceAsNumber"), builder::setSrcAs);
+        setIfPresent(first(getInt(record, "sourceIPv6PrefixLength"),
+                getInt(record, "sourceIPv4PrefixLength")), builder::setSrcMaskLen);
+        setIfPresent(getInt(record, "sourceTransportPort"), builder::setSrcPort);
+        setIfPresent(getInt(record, "tcpControlBits"), builder::setTcpFlags);
+        setIfPresent(getInt(record, "ipClassOfService"), builder::setTos);
+        setIfPresent(first(getInt(record, "vlanId"),
+                getInt(record, "postVlanId"),
+                getInt(record, "dot1qVlanId"),
+                getInt(record, "dot1qCustomerVlanId"),
+                getInt(record, "postDot1qVlanId"),
+                getInt(record, "postDot1qCustomerVlanId")), builder::setVlan);
+    }
+
+    private static Long getSwitched(final FlowRecord record, final long timestamp, final String prefix) {
+        final Instant time = first(record.getTime(prefix + "Seconds"),
+                record.getTime(prefix + "Milliseconds"),
+                record.getTime(prefix + "Microseconds"),
+                record.getTime(prefix + "Nanoseconds"));
+        if (time != null) {
+            return time.toEpochMilli();
+        }
+
+        final Long delta = record.getLong(prefix + "DeltaMicroseconds");
+        if (delta != null) {
+            return timestamp + delta;
+        }
+
+        final Long sysUpTime = record.getLong(prefix + "SysUpTime");
+        final Instant systemInitTime = record.getTime("systemInitTimeMilliseconds");
+        if (sysUpTime != null && systemInitTime != null) {
+            return systemInitTime.toEpochMilli() + sysUpTime;
+        }
+
+        return null;
+    }
+
+    private static SamplingAlgorithm getSamplingAlgorithm(final FlowRecord record) {
+        final Integer deprecatedSamplingAlgorithm = first(
+                getInt(record, "samplingAlgorithm"),
+                getInt(record, "samplerMode"));
+
+        if (deprecatedSamplingAlgorithm != null) {
+            if (deprecatedSamplingAlgorithm == 1) {
+                return SamplingAlgorithm.SYSTEMATIC_COUNT_BASED_SAMPLING;
+            }
+            if (deprecatedSamplingAlgorithm == 2) {
+                return SamplingAlgorithm.RANDOM_N_OUT_OF_N_SAMPLING;
+            }
+        }
+
+        final Integer selectorAlgorithm = getInt(record, "selectorAlgorithm");
+
+        if (selectorAlgorithm != null) {
+            switch (selectorAlgorithm) {
+                case 0:
+                    return SamplingAlgorithm.UNASSIGNED;
+                case 1:
+                    return SamplingAlgorithm.SYSTEMATIC_COUNT_BASED_SAMPLING;
+                case 2:
+                    return SamplingAlgorithm.SYSTEMATIC_TIME_BASED_SAMPLING;
+                case 3:
+                    return SamplingAlgorithm.RANDOM_N_OUT_OF_N_SAMPLING;
+                case 4:
+                    return SamplingAlgorithm.UNIFORM_PROBABILISTIC_SAMPLING;
+                case 5:
+                    return SamplingAlgorithm.PROPERTY_MATCH_FILTERING;
+                case 6:
+                case 7:
+                case 8:
+                    return SamplingAlgorithm.HASH_BASED_FILTERING;
+                case 9:
+                    return SamplingAlgorithm.FLOW_STATE_DEPENDENT_INTERMEDIATE_FLOW_SELECTION_PROCESS;
+                default:
+                    LOG.warn("Unknown selector algorithm: {}", selectorAlgorithm);
+            }
+        }
+
+        return SamplingAlgorithm.UNASSIGNED;
+    }
+
+    private static Double getSamplingInterval(final FlowRecord record) {
+        final Long deprecatedSamplingInterval = first(
+                record.getLong("samplingInterval"),
+                record.getLong("samplerRandomInterval"));
+
+        if (deprecatedSamplingInterval != null) {
+            return deprecatedSamplingInterval.doubleValue();
+        }
+
+        final Integer selectorAlgorithm = getInt(record, "selectorAlgorithm");
+
+        if (selectorAlgorithm != null) {
+            switch (selectorAlgorithm) {
+                case 0: {
+                    return null;
+                }
+                case 1: {
+                    final double samplingInterval = getLongAsDouble(record, "samplingFlowInterval", 1.0);
+                    final double samplingSpacing = getLongAsDouble(record, "samplingFlowSpacing", 0.0);
+
+                    return (samplingInterval + samplingSpacing) / samplingInterval;
+                }
+                case 2: {
+                    final double flowSamplingTimeInterval = getLongAsDouble(record, "flowSamplingTimeInterval", 1.0);
+                    final double flowSamplingTimeSpacing = getLongAsDouble(record, "flowSamplingTimeSpacing", 0.0);
+
+                    return (flowSamplingTimeInterval + flowSamplingTimeSpacing) / flowSamplingTimeInterval;
+                }
+                case 3: {
+                    final double samplingSize = getLongAsDouble(record, "samplingSize", 1.0); // n
+                    final double samplingPopulation = getLongAsDouble(record, "samplingPopulation", 1.0); // N
+
+                    return samplingPopulation / samplingSize;
+                }
+                case 4: {
+                    final Double samplingProbability = record.getDouble("samplingProbability");
+
+                    return 1.0 / (samplingProbability != null ? samplingProbability : 1.0);
+                }
+                case 5:
+                case 6:
+                case 7: {
+                    final UnsignedLong hashSelectedRangeMin = getUnsignedLong(record, "hashSelectedRangeMin", UnsignedLong.ZERO);
+                    final UnsignedLong hashSelectedRangeMax = getUnsignedLong(record, "hashSelectedRangeMax", UnsignedLong.MAX_VALUE);
+                    final UnsignedLong hashOutputRangeMin = getUnsignedLong(record, "hashOutputRangeMin", UnsignedLong.ZERO);
+                    final UnsignedLong hashOutputRangeMax = getUnsignedLong(record, "hashOutputRangeMax", UnsignedLong.MAX_VALUE);
+
+                    return (hashOutputRangeMax.minus(hashOutputRangeMin)).dividedBy(hashSelectedRangeMax.minus(hashSelectedRangeMin)).doubleValue();
+                }
+                case 8:
+                case 9:
+                default: {
+                    LOG.warn("Unsupported sampling algorithm: {}", selectorAlgorithm);
+                    return Double.NaN;
+                }
+            }
+        }
+        return 1.0;
+    }
+
+    /**
+     * Returns the integer value as a double, or the given default if the record has none.
+     */
+    private static double getLongAsDouble(final FlowRecord record, final String name, final double defaultValue) {
+        final Long value = record.getLong(name);
+        return value != null ? value.doubleValue() : defaultValue;
+    }
+
+    private static UnsignedLong getUnsignedLong(final FlowRecord record, final String name, final UnsignedLong defaultValue) {
+        final Long value = record.getLong(name);
+        return value != null ? UnsignedLong.fromLongBits(value) : defaultValue;
+    }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.common.transport;
+
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.Direction;
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage;
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.NetflowVersion;
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.SamplingAlgorithm;
+
+public class Netflow9MessageBuilder extends FlowMessageBuilder {
+
+    @Override
+    protected void build(final FlowRecord record, final FlowMessage.Builder builder) {
+        final long timestamp = getRequiredLong(record, "@unixSecs") * 1000;
+        final long bootTime = timestamp - getRequiredLong(record, "@sysUpTime");
+
+        builder.setTimestamp(timestamp);
+        builder.setNetflowVersion(NetflowVersion.V9);
+
+        setIfPresent(record.getLong("IN_BYTES"), builder::setNumBytes);
+
+        final Long direction = record.getLong("DIRECTION");
+        if (direction != null) {
+            if (direction == 0) {
+                builder.setDirection(Direction.INGRESS);
+            } else if (direction == 1) {
+                builder.setDirection(Direction.EGRESS);
+            }
+        }
+
+        setIfPresent(first(record.getString("IPV6_DST_ADDR"),
+                record.getString("IPV4_DST_ADDR")), builder::setDstAddress);
+        setIfPresent(getInt(record, "DST_AS"), builder::setDstAs);
+        setIfPresent(first(getInt(record, "IPV6_DST_MASK"),
+                getInt(record, "DST_MASK")), builder::setDstMaskLen);
+        setIfPresent(getInt(record, "L4_DST_PORT"), builder::setDstPort);
+        setIfPresent(getInt(record, "ENGINE_ID"), builder::setEngineId);
+        setIfPresent(getInt(record, "ENGINE_TYPE"), builder::setEngineType);
+
+        final Long firstSwitched = record.getLong("FIRST_SWITCHED");
+        if (firstSwitched != null) {
+            builder.setFirstSwitched(bootTime + firstSwitched);
+        }
+
+        setIfPresent(getInt(record, "@recordCount"), builder::setNumFlowRecords);
+        setIfPresent(record.getLong("@sequenceNumber"), builder::setFlowSeqNum);
+        setIfPresent(getInt(record, "INPUT_SNMP"), builder::setInputSnmpIfindex);
+        setIfPresent(getInt(record, "IP_PROTOCOL_VERSION"), builder::setIpProtocolVersion);
+
+        final Long lastSwitched = record.getLong("LAST_SWITCHED");
+        if (lastSwitched != null) {
+            builder.setLastSwitched(bootTime + lastSwitched);
+        }
+
+        setIfPresent(first(record.getString("IPV6_NEXT_HOP"),
+                record.getString("IPV4_NEXT_HOP"),
+                record.getString("BPG_IPV6_NEXT_HOP"),
+                record.getString("BPG_IPV4_NEXT_HOP")), builder::setNextHopAddress);
+        setIfPresent(getInt(record, "OUTPUT_SNMP"), builder::setOutputSnmpIfindex);
+        setIfPresent(record.getLong("IN_PKTS"), builder::setNumPackets);
+        setIfPresent(getInt(record, "PROTOCOL"), builder::setProtocol);
+
+        final Integer samplingAlgorithm = getInt(record, "SAMPLING_ALGORITHM");
+        if (samplingAlgorithm != null && samplingAlgorithm == 1) {
+            builder.setSamplingAlgorithm(SamplingAlgorithm.SYSTEMATIC_COUNT_BASED_SAMPLING);
+        } else if (samplingAlgorithm != null && samplingAlgorithm == 2) {
+            builder.setSamplingAlgorithm(SamplingAlgorithm.RANDOM_N_OUT_OF_N_SAMPLING);
+        } else {
+            builder.setSamplingAlgorithm(SamplingAlgorithm.UNASSIGNED);
+        }
+
+        final Long samplingInterval = record.getLong("SAMPLING_INTERVAL");
+        if (samplingInterval != null) {
+            builder.setSamplingInterval(samplingInterval.doubleValue());
+        }
+
+        setIfPresent(first(record.getString("IPV6_SRC_ADDR"),
+                record.getString("IPV4_SRC_ADDR")), builder::setSrcAddress);
+        setIfPresent(getInt(record, "SRC_AS"), builder::setSrcAs);
+        setIfPresent(first(getInt(record, "IPV6_SRC_MASK"),
+                getInt(record, "SRC_MASK")), builder::setSrcMaskLen);
+        setIfPresent(getInt(record, "L4_SRC_PORT"), builder::setSrcPort);
+        setIfPresent(getInt(record, "TCP_FLAGS"), builder::setTcpFlags);
+        setIfPresent(getInt(record, "TOS"), builder::setTos);
+        setIfPresent(first(getInt(record, "SRC_VLAN"),
+                getInt(record, "DST_VLAN")), builder::setVlan);
+    }
+}
@@ -38,12 +38,27 @@ import org.bson.BsonInt32;
 import org.bson.BsonInt64;
 import org.bson.BsonString;
 import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
 
 public class BsonUtils {
 
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+
     private BsonUtils() {
     }
 
+    /**
+     * Decodes a BSON encoded document in a single pass.
+     *
+     * A {@link RawBsonDocument} scans all of the encoded elements on every lookup, which adds up
+     * quickly when a flow is converted by looking up dozens of fields by name. The decoded
+     * document is backed by a map instead.
+     */
+    public static BsonDocument parseDocument(final byte[] bytes) {
+        return new RawBsonDocument(bytes).decode(DOCUMENT_CODEC);
+    }
+
     public static Optional<BsonValue> get(final BsonDocument doc, final String... path) {
         BsonValue value = doc;
         for (final String p : path) {
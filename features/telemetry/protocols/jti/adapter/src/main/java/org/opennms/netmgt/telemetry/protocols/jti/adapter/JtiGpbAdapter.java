@@ -46,6 +46,7 @@ import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLog;
 import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLogEntry;
 import org.opennms.netmgt.telemetry.protocols.collection.AbstractPersistingAdapter;
 import org.opennms.netmgt.telemetry.protocols.collection.CollectionSetWithAgent;
+import org.opennms.netmgt.telemetry.protocols.collection.MetricMapper;
 import org.opennms.netmgt.telemetry.protocols.collection.ScriptedCollectionSetBuilder;
 import org.opennms.netmgt.telemetry.protocols.jti.adapter.proto.CpuMemoryUtilizationOuterClass;
 import org.opennms.netmgt.telemetry.protocols.jti.adapter.proto.FirewallOuterClass;
@@ -68,7 +69,8 @@ import com.google.protobuf.InvalidProtocolBufferException;
  * An adapter for handling Junos Telemetry Interface packets.
  *
  * Messages are decoded using the corresponding classes generated by the Google
- * Protobuf definitions and forwarded to a script for further processing.
+ * Protobuf definitions and forwarded to a script for further processing, or
+ * mapped directly when a metric mapping is configured.
  *
  * @author jwhite
  */
@@ -140,6 +142,11 @@ public class JtiGpbAdapter extends AbstractPersistingAdapter {
             return Stream.empty();
         }
 
+        final MetricMapper metricMapper = getMetricMapper();
+        if (metricMapper != null) {
+            return Stream.of(new CollectionSetWithAgent(agent, metricMapper.map(agent, jtiMsg, JtiMessageNavigator.INSTANCE)));
+        }
+
         final ScriptedCollectionSetBuilder builder = getCollectionBuilder();
         if (builder == null) {
             LOG.error("Error compiling script '{}'. See logs for details.", this.getScript());
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.jti.adapter;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.opennms.netmgt.telemetry.protocols.collection.MessageNavigator;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+
+/**
+ * Navigates JTI messages using the field names from the Google Protobuf definitions.
+ *
+ * Extensions are referred to by their name as well, i.e. the interface statistics are found
+ * at "enterprise/juniperNetworks/jnpr_interface_ext/interface_stats".
+ */
+public class JtiMessageNavigator implements MessageNavigator {
+
+    public static final JtiMessageNavigator INSTANCE = new JtiMessageNavigator();
+
+    @Override
+    public List<?> getChildren(Object node, String name) {
+        if (!(node instanceof Message)) {
+            return Collections.emptyList();
+        }
+        final Message message = (Message) node;
+        final Descriptors.FieldDescriptor field = findField(message, name);
+        if (field == null || field.getJavaType() != Descriptors.FieldDescriptor.JavaType.MESSAGE) {
+            return Collections.emptyList();
+        }
+        if (field.isRepeated()) {
+            return (List<?>) message.getField(field);
+        }
+        return message.hasField(field) ? Collections.singletonList(message.getField(field)) : Collections.emptyList();
+    }
+
+    @Override
+    public Object getValue(Object node, String name) {
+        if (!(node instanceof Message)) {
+            return null;
+        }
+        final Message message = (Message) node;
+        final Descriptors.FieldDescriptor field = findField(message, name);
+        if (field == null || field.isRepeated() || !message.hasField(field)) {
+            return null;
+        }
+        final Object value = message.getField(field);
+        if (value instanceof Descriptors.EnumValueDescriptor) {
+            return ((Descriptors.EnumValueDescriptor) value).getName();
+        }
+        return value;
+    }
+
+    private static Descriptors.FieldDescriptor findField(Message message, String name) {
+        final Descriptors.FieldDescriptor field = message.getDescriptorForType().findFieldByName(name);
+        if (field != null) {
+            return field;
+        }
+        // Extensions are only known to the message once they were parsed
+        for (Descriptors.FieldDescriptor extension : message.getAllFields().keySet()) {
+            if (extension.isExtension() && extension.getName().equals(name)) {
+                return extension;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.jti.adapter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.opennms.netmgt.collection.api.CollectionAttribute;
+import org.opennms.netmgt.collection.api.CollectionSet;
+import org.opennms.netmgt.collection.dto.CollectionAgentDTO;
+import org.opennms.netmgt.collection.support.AbstractCollectionSetVisitor;
+import org.opennms.netmgt.telemetry.protocols.collection.MetricMapper;
+import org.opennms.netmgt.telemetry.protocols.collection.ScriptedCollectionSetBuilder;
+import org.opennms.netmgt.telemetry.protocols.jti.adapter.proto.Port;
+import org.opennms.netmgt.telemetry.protocols.jti.adapter.proto.TelemetryTop;
+
+import com.google.common.io.Resources;
+import com.google.protobuf.ExtensionRegistry;
+
+public class JtiMessageNavigatorTest {
+
+    private static final File ETC = new File("../../../../../opennms-base-assembly/src/main/filtered/etc/telemetryd-adapters");
+
+    private static final ExtensionRegistry s_registry = ExtensionRegistry.newInstance();
+
+    static {
+        Port.registerAllExtensions(s_registry);
+        TelemetryTop.registerAllExtensions(s_registry);
+    }
+
+    @Test
+    public void canNavigateInterfaceStatistics() throws Exception {
+        final TelemetryTop.TelemetryStream msg = parseMessage();
+        final JtiMessageNavigator navigator = JtiMessageNavigator.INSTANCE;
+
+        final Object entSensors = navigator.getChildren(msg, "enterprise").get(0);
+        final Object port = navigator.getChildren(navigator.getChildren(entSensors, "juniperNetworks").get(0), "jnpr_interface_ext").get(0);
+        final Port.InterfaceInfos interfaceInfos = msg.getEnterprise()
+                .getExtension(TelemetryTop.juniperNetworks)
+                .getExtension(Port.jnprInterfaceExt)
+                .getInterfaceStats(0);
+        final Object interfaceStats = navigator.getChildren(port, "interface_stats").get(0);
+        assertEquals(interfaceInfos.getIfName(), navigator.getValue(interfaceStats, "if_name"));
+        assertEquals(interfaceInfos.getIngressStats().getIfOctets(),
+                navigator.getValue(navigator.getChildren(interfaceStats, "ingress_stats").get(0), "if_octets"));
+
+        // Unknown fields and values that are not set yield nothing
+        assertEquals(0, navigator.getChildren(msg, "no_such_field").size());
+        assertEquals(null, navigator.getValue(interfaceStats, "no_such_field"));
+        assertEquals(0, navigator.getChildren(interfaceStats, "if_name").size());
+    }
+
+    @Test
+    public void canMapMessagesLikeTheShippedScript() throws Exception {
+        final TelemetryTop.TelemetryStream msg = parseMessage();
+
+        final ScriptedCollectionSetBuilder builder = new ScriptedCollectionSetBuilder(new File(ETC, "junos-telemetry-interface.groovy"));
+        final Map<String, Number> expectedValues = getValues(builder.build(createAgent(), msg));
+        // The payload holds the statistics of 4 interfaces
+        assertEquals(8, expectedValues.size());
+
+        final MetricMapper mapper = MetricMapper.fromFile(new File(ETC, "junos-telemetry-interface.xml"));
+        assertEquals(expectedValues, getValues(mapper.map(createAgent(), msg, JtiMessageNavigator.INSTANCE)));
+    }
+
+    private static TelemetryTop.TelemetryStream parseMessage() throws Exception {
+        final byte[] jtiMsgBytes = Resources.toByteArray(Resources.getResource("jti_15.1F4_ifd_ae_40000.raw"));
+        return TelemetryTop.TelemetryStream.parseFrom(jtiMsgBytes, s_registry);
+    }
+
+    private static CollectionAgentDTO createAgent() {
+        final CollectionAgentDTO agent = new CollectionAgentDTO();
+        agent.setNodeId(1);
+        return agent;
+    }
+
+    /**
+     * @return the numeric values of the collection set, keyed by resource, group and attribute name
+     */
+    private static Map<String, Number> getValues(CollectionSet collectionSet) {
+        final Map<String, Number> values = new LinkedHashMap<>();
+        collectionSet.visit(new AbstractCollectionSetVisitor() {
+            @Override
+            public void visitAttribute(CollectionAttribute attribute) {
+                values.put(String.format("%s[%s] %s/%s (%s)",
+                        attribute.getResource().getResourceTypeName(),
+                        attribute.getResource().getInstance(),
+                        attribute.getAttributeType().getGroupType().getName(),
+                        attribute.getName(),
+                        attribute.getType()),
+                        attribute.getNumericValue().doubleValue());
+            }
+        });
+        return values;
+    }
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.netflow.adapter.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.bson.BsonDocument;
+import org.opennms.netmgt.flows.api.Converter;
+import org.opennms.netmgt.flows.api.Flow;
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage;
+import org.opennms.netmgt.telemetry.protocols.common.utils.BsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+/**
+ * Converts the messages dispatched by the flow parsers.
+ *
+ * The parsers send a {@link FlowMessage} per flow, which only needs to be decoded. Parsers of
+ * previous versions (or configured to do so) send a BSON document per flow instead, which is
+ * handed to the given converter.
+ */
+public class FlowMessageConverter implements Converter<byte[]> {
+    private static final Logger LOG = LoggerFactory.getLogger(FlowMessageConverter.class);
+
+    /**
+     * Every BSON document sent by the parsers starts with the "@version" element.
+     */
+    private static final byte[] BSON_PREFIX = "\u0010@version\u0000".getBytes(StandardCharsets.US_ASCII);
+
+    private final Converter<BsonDocument> bsonConverter;
+
+    public FlowMessageConverter(final Converter<BsonDocument> bsonConverter) {
+        this.bsonConverter = Objects.requireNonNull(bsonConverter);
+    }
+
+    @Override
+    public List<Flow> convert(final byte[] bytes) {
+        if (isBsonDocument(bytes)) {
+            return this.bsonConverter.convert(BsonUtils.parseDocument(bytes));
+        }
+
+        try {
+            return Collections.singletonList(new MessageFlow(FlowMessage.parseFrom(bytes)));
+        } catch (final InvalidProtocolBufferException e) {
+            LOG.warn("Failed to parse flow message. Dropping.", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * A BSON document starts with its total length, followed by the "@version" element written
+     * by the parsers. A flow message starts with the tag of its timestamp field instead.
+     */
+    static boolean isBsonDocument(final byte[] bytes) {
+        if (bytes.length < 4 + BSON_PREFIX.length) {
+            return false;
+        }
+
+        final int length = (bytes[0] & 0xff)
+                | (bytes[1] & 0xff) << 8
+                | (bytes[2] & 0xff) << 16
+                | (bytes[3] & 0xff) << 24;
+        if (length != bytes.length) {
+            return false;
+        }
+
+        for (int i = 0; i < BSON_PREFIX.length; i++) {
+            if (bytes[4 + i] != BSON_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.netflow.adapter.common;
+
+import java.util.Objects;
+
+import org.opennms.netmgt.flows.api.Flow;
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage;
+
+/**
+ * A flow backed by a {@link FlowMessage}, which already holds the normalized values.
+ */
+public class MessageFlow implements Flow {
+    private final FlowMessage message;
+
+    public MessageFlow(final FlowMessage message) {
+        this.message = Objects.requireNonNull(message);
+    }
+
+    @Override
+    public long getTimestamp() {
+        return this.message.getTimestamp();
+    }
+
+    @Override
+    public Long getBytes() {
+        return this.message.hasNumBytes() ? this.message.getNumBytes() : null;
+    }
+
+    @Override
+    public Direction getDirection() {
+        if (!this.message.hasDirection()) {
+            return null;
+        }
+        switch (this.message.getDirection()) {
+            case INGRESS:
+                return Direction.INGRESS;
+            case EGRESS:
+                return Direction.EGRESS;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String getDstAddr() {
+        return this.message.hasDstAddress() ? this.message.getDstAddress() : null;
+    }
+
+    @Override
+    public Integer getDstAs() {
+        return this.message.hasDstAs() ? this.message.getDstAs() : null;
+    }
+
+    @Override
+    public Integer getDstMaskLen() {
+        return this.message.hasDstMaskLen() ? this.message.getDstMaskLen() : null;
+    }
+
+    @Override
+    public Integer getDstPort() {
+        return this.message.hasDstPort() ? this.message.getDstPort() : null;
+    }
+
+    @Override
+    public Integer getEngineId() {
+        return this.message.hasEngineId() ? this.message.getEngineId() : null;
+    }
+
+    @Override
+    public Integer getEngineType() {
+        return this.message.hasEngineType() ? this.message.getEngineType() : null;
+    }
+
+    @Override
+    public Long getFirstSwitched() {
+        return this.message.hasFirstSwitched() ? this.message.getFirstSwitched() : null;
+    }
+
+    @Override
+    public int getFlowRecords() {
+        return this.message.getNumFlowRecords();
+    }
+
+    @Override
+    public long getFlowSeqNum() {
+        return this.message.getFlowSeqNum();
+    }
+
+    @Override
+    public Integer getInputSnmp() {
+        return this.message.hasInputSnmpIfindex() ? this.message.getInputSnmpIfindex() : null;
+    }
+
+    @Override
+    public Integer getIpProtocolVersion() {
+        return this.message.hasIpProtocolVersion() ? this.message.getIpProtocolVersion() : null;
+    }
+
+    @Override
+    public Long getLastSwitched() {
+        return this.message.hasLastSwitched() ? this.message.getLastSwitched() : null;
+    }
+
+    @Override
+    public String getNextHop() {
+        return this.message.hasNextHopAddress() ? this.message.getNextHopAddress() : null;
+    }
+
+    @Override
+    public Integer getOutputSnmp() {
+        return this.message.hasOutputSnmpIfindex() ? this.message.getOutputSnmpIfindex() : null;
+    }
+
+    @Override
+    public Long getPackets() {
+        return this.message.hasNumPackets() ? this.message.getNumPackets() : null;
+    }
+
+    @Override
+    public Integer getProtocol() {
+        return this.message.hasProtocol() ? this.message.getProtocol() : null;
+    }
+
+    @Override
+    public SamplingAlgorithm getSamplingAlgorithm() {
+        switch (this.message.getSamplingAlgorithm()) {
+            case SYSTEMATIC_COUNT_BASED_SAMPLING:
+                return SamplingAlgorithm.SystematicCountBasedSampling;
+            case SYSTEMATIC_TIME_BASED_SAMPLING:
+                return SamplingAlgorithm.SystematicTimeBasedSampling;
+            case RANDOM_N_OUT_OF_N_SAMPLING:
+                return SamplingAlgorithm.RandomNoutOfNSampling;
+            case UNIFORM_PROBABILISTIC_SAMPLING:
+                return SamplingAlgorithm.UniformProbabilisticSampling;
+            case PROPERTY_MATCH_FILTERING:
+                return SamplingAlgorithm.PropertyMatchFiltering;
+            case HASH_BASED_FILTERING:
+                return SamplingAlgorithm.HashBasedFiltering;
+            case FLOW_STATE_DEPENDENT_INTERMEDIATE_FLOW_SELECTION_PROCESS:
+                return SamplingAlgorithm.FlowStateDependentIntermediateFlowSelectionProcess;
+            default:
+                return SamplingAlgorithm.Unassigned;
+        }
+    }
+
+    @Override
+    public Double getSamplingInterval() {
+        return this.message.hasSamplingInterval() ? this.message.getSamplingInterval() : null;
+    }
+
+    @Override
+    public String getSrcAddr() {
+        return this.message.hasSrcAddress() ? this.message.getSrcAddress() : null;
+    }
+
+    @Override
+    public Integer getSrcAs() {
+        return this.message.hasSrcAs() ? this.message.getSrcAs() : null;
+    }
+
+    @Override
+    public Integer getSrcMaskLen() {
+        return this.message.hasSrcMaskLen() ? this.message.getSrcMaskLen() : null;
+    }
+
+    @Override
+    public Integer getSrcPort() {
+        return this.message.hasSrcPort() ? this.message.getSrcPort() : null;
+    }
+
+    @Override
+    public Integer getTcpFlags() {
+        return this.message.hasTcpFlags() ? this.message.getTcpFlags() : null;
+    }
+
+    @Override
+    public Integer getTos() {
+        return this.message.hasTos() ? this.message.getTos() : null;
+    }
+
+    @Override
+    public NetflowVersion getNetflowVersion() {
+        switch (this.message.getNetflowVersion()) {
+            case V5:
+                return NetflowVersion.V5;
+            case V9:
+                return NetflowVersion.V9;
+            case IPFIX:
+                return NetflowVersion.IPFIX;
+            case SFLOW:
+                return NetflowVersion.SFLOW;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Integer getVlan() {
+        return this.message.hasVlan() ? this.message.getVlan() : null;
+    }
+}
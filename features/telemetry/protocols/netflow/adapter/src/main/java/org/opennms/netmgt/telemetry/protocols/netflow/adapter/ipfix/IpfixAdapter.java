@@ -28,23 +28,22 @@
 
 package org.opennms.netmgt.telemetry.protocols.netflow.adapter.ipfix;
 
-import org.bson.BsonDocument;
-import org.bson.RawBsonDocument;
 import org.opennms.netmgt.flows.api.FlowRepository;
 import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLogEntry;
 import org.opennms.netmgt.telemetry.protocols.flows.AbstractFlowAdapter;
+import org.opennms.netmgt.telemetry.protocols.netflow.adapter.common.FlowMessageConverter;
 
 import com.codahale.metrics.MetricRegistry;
 
-public class IpfixAdapter extends AbstractFlowAdapter<BsonDocument> {
+public class IpfixAdapter extends AbstractFlowAdapter<byte[]> {
 
     public IpfixAdapter(final MetricRegistry metricRegistry,
                         final FlowRepository flowRepository) {
-        super(metricRegistry, flowRepository, new IpfixConverter());
+        super(metricRegistry, flowRepository, new FlowMessageConverter(new IpfixConverter()));
     }
 
     @Override
-    protected BsonDocument parse(TelemetryMessageLogEntry message) {
-        return new RawBsonDocument(message.getByteArray());
+    protected byte[] parse(TelemetryMessageLogEntry message) {
+        return message.getByteArray();
     }
 }
@@ -34,11 +34,15 @@ import java.util.List;
 import org.bson.BsonDocument;
 import org.opennms.netmgt.flows.api.Converter;
 import org.opennms.netmgt.flows.api.Flow;
+import org.opennms.netmgt.telemetry.protocols.common.transport.BsonFlowRecord;
+import org.opennms.netmgt.telemetry.protocols.common.transport.IpfixMessageBuilder;
+import org.opennms.netmgt.telemetry.protocols.netflow.adapter.common.MessageFlow;
 
 public class IpfixConverter implements Converter<BsonDocument> {
+    private final IpfixMessageBuilder messageBuilder = new IpfixMessageBuilder();
 
     @Override
     public List<Flow> convert(final BsonDocument packet) {
-        return Collections.singletonList(new IpfixFlow(packet));
+        return Collections.singletonList(new MessageFlow(this.messageBuilder.build(new BsonFlowRecord(packet))));
     }
 }
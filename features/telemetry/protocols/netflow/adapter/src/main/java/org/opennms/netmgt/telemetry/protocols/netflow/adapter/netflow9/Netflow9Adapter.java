@@ -28,23 +28,22 @@
 
 package org.opennms.netmgt.telemetry.protocols.netflow.adapter.netflow9;
 
-import org.bson.BsonDocument;
-import org.bson.RawBsonDocument;
 import org.opennms.netmgt.flows.api.FlowRepository;
 import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLogEntry;
 import org.opennms.netmgt.telemetry.protocols.flows.AbstractFlowAdapter;
+import org.opennms.netmgt.telemetry.protocols.netflow.adapter.common.FlowMessageConverter;
 
 import com.codahale.metrics.MetricRegistry;
 
-public class Netflow9Adapter extends AbstractFlowAdapter<BsonDocument> {
+public class Netflow9Adapter extends AbstractFlowAdapter<byte[]> {
 
     public Netflow9Adapter(final MetricRegistry metricRegistry,
                            final FlowRepository flowRepository) {
-        super(metricRegistry, flowRepository, new Netflow9Converter());
+        super(metricRegistry, flowRepository, new FlowMessageConverter(new Netflow9Converter()));
     }
 
     @Override
-    protected BsonDocument parse(TelemetryMessageLogEntry message) {
-        return new RawBsonDocument(message.getByteArray());
+    protected byte[] parse(TelemetryMessageLogEntry message) {
+        return message.getByteArray();
     }
 }
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.netflow.adapter;
+
+import static org.opennms.netmgt.telemetry.common.utils.BufferUtils.slice;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.opennms.netmgt.flows.api.Converter;
+import org.opennms.netmgt.flows.api.Flow;
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowProtos.FlowMessage;
+import org.opennms.netmgt.telemetry.protocols.common.utils.BsonUtils;
+import org.opennms.netmgt.telemetry.protocols.netflow.adapter.common.FlowMessageConverter;
+import org.opennms.netmgt.telemetry.protocols.netflow.adapter.ipfix.IpfixConverter;
+import org.opennms.netmgt.telemetry.protocols.netflow.adapter.netflow9.Netflow9Converter;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ParserBase;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.Protocol;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.RecordProvider;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.Value;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ipfix.proto.Header;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ipfix.proto.Packet;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.Session;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.TcpSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the number of flows per second (on a single thread) that make it from the
+ * parser to the adapter: each operation serializes a captured flow record, decodes it
+ * again and reads all the fields of the resulting {@link Flow}.
+ *
+ * The "raw" format reproduces the previous behavior where the parsers sent BSON documents
+ * and the fields were looked up in a {@link RawBsonDocument}. The "parsed" format uses
+ * {@link BsonUtils#parseDocument(byte[])} like the adapters do for BSON documents sent by
+ * older parsers, and the "message" format sends a {@link FlowMessage} like the parsers do now.
+ *
+ * Once finished, the throughput of the "message" format is reported relative to the "raw"
+ * format, which is expected to be at least {@value #TARGET_SPEEDUP} times as high.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.netmgt.telemetry.protocols.netflow.adapter.FlowAdapterBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class FlowAdapterBenchmark {
+    private final static Path FOLDER = Paths.get("src/test/resources/flows");
+
+    private final static double TARGET_SPEEDUP = 2.0;
+
+    @Param({"netflow9", "ipfix"})
+    public String protocol;
+
+    @Param({"raw", "parsed", "message"})
+    public String format;
+
+    private final List<Iterable<Value<?>>> records = new ArrayList<>();
+
+    private Protocol flowProtocol;
+
+    private Converter<BsonDocument> converter;
+
+    private FlowMessageConverter messageConverter;
+
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final Session session = new TcpSession();
+        if ("ipfix".equals(this.protocol)) {
+            this.flowProtocol = Protocol.IPFIX;
+            this.converter = new IpfixConverter();
+            for (final String file : new String[]{"ipfix_test_vmware_vds_tpl.dat", "ipfix_test_vmware_vds_data264.dat", "ipfix_test_vmware_vds_data266.dat"}) {
+                final ByteBuffer buffer = read(file);
+                do {
+                    final Header header = new Header(slice(buffer, Header.SIZE));
+                    collect(new Packet(session, header, slice(buffer, header.length - Header.SIZE)));
+                } while (buffer.hasRemaining());
+            }
+        } else {
+            this.flowProtocol = Protocol.NETFLOW9;
+            this.converter = new Netflow9Converter();
+            for (final String file : new String[]{"netflow9_template.dat", "netflow9_records.dat"}) {
+                final ByteBuffer buffer = read(file);
+                collect(netflow9Packet(session, buffer));
+            }
+        }
+
+        this.messageConverter = new FlowMessageConverter(this.converter);
+
+        if (this.records.isEmpty()) {
+            throw new IllegalStateException("No flow records found in captures");
+        }
+    }
+
+    @Benchmark
+    public void parseAndConvert(final Blackhole blackhole) {
+        final Iterable<Value<?>> record = this.records.get(this.next++ % this.records.size());
+
+        // Parser side
+        final ByteBuffer buffer = "message".equals(this.format)
+                ? ParserBase.serializeMessage(this.flowProtocol, record)
+                : ParserBase.serialize(this.flowProtocol, record);
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        // Adapter side
+        final List<Flow> flows;
+        if ("raw".equals(this.format)) {
+            flows = this.converter.convert(new RawBsonDocument(bytes));
+        } else {
+            flows = this.messageConverter.convert(bytes);
+        }
+        for (final Flow flow : flows) {
+            consume(flow, blackhole);
+        }
+    }
+
+    private static RecordProvider netflow9Packet(final Session session, final ByteBuffer buffer) throws Exception {
+        final org.opennms.netmgt.telemetry.protocols.netflow.parser.netflow9.proto.Header header =
+                new org.opennms.netmgt.telemetry.protocols.netflow.parser.netflow9.proto.Header(slice(buffer, org.opennms.netmgt.telemetry.protocols.netflow.parser.netflow9.proto.Header.SIZE));
+        return new org.opennms.netmgt.telemetry.protocols.netflow.parser.netflow9.proto.Packet(session, header, buffer);
+    }
+
+    private void collect(final RecordProvider packet) {
+        packet.getRecords().forEach(this.records::add);
+    }
+
+    private static void consume(final Flow flow, final Blackhole blackhole) {
+        blackhole.consume(flow.getTimestamp());
+        blackhole.consume(flow.getBytes());
+        blackhole.consume(flow.getDirection());
+        blackhole.consume(flow.getDstAddr());
+        blackhole.consume(flow.getDstAs());
+        blackhole.consume(flow.getDstMaskLen());
+        blackhole.consume(flow.getDstPort());
+        blackhole.consume(flow.getEngineId());
+        blackhole.consume(flow.getEngineType());
+        blackhole.consume(flow.getFirstSwitched());
+        blackhole.consume(flow.getFlowRecords());
+        blackhole.consume(flow.getFlowSeqNum());
+        blackhole.consume(flow.getInputSnmp());
+        blackhole.consume(flow.getIpProtocolVersion());
+        blackhole.consume(flow.getLastSwitched());
+        blackhole.consume(flow.getNextHop());
+        blackhole.consume(flow.getOutputSnmp());
+        blackhole.consume(flow.getPackets());
+        blackhole.consume(flow.getProtocol());
+        blackhole.consume(flow.getSamplingAlgorithm());
+        blackhole.consume(flow.getSamplingInterval());
+        blackhole.consume(flow.getSrcAddr());
+        blackhole.consume(flow.getSrcAs());
+        blackhole.consume(flow.getSrcMaskLen());
+        blackhole.consume(flow.getSrcPort());
+        blackhole.consume(flow.getTcpFlags());
+        blackhole.consume(flow.getTos());
+        blackhole.consume(flow.getNetflowVersion());
+        blackhole.consume(flow.getVlan());
+    }
+
+    private static ByteBuffer read(final String file) throws Exception {
+        return ByteBuffer.wrap(Files.readAllBytes(FOLDER.resolve(file)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        final Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(FlowAdapterBenchmark.class.getSimpleName())
+                .build()).run();
+
+        final Map<String, Map<String, Double>> scores = new TreeMap<>();
+        for (final RunResult result : results) {
+            final BenchmarkParams params = result.getParams();
+            scores.computeIfAbsent(params.getParam("protocol"), k -> new TreeMap<>())
+                    .put(params.getParam("format"), result.getPrimaryResult().getScore());
+        }
+
+        for (final Map.Entry<String, Map<String, Double>> e : scores.entrySet()) {
+            final double speedup = e.getValue().get("message") / e.getValue().get("raw");
+            System.out.printf("%s: message format is %.2fx as fast as raw BSON (target: %.1fx) - %s%n",
+                    e.getKey(), speedup, TARGET_SPEEDUP, speedup >= TARGET_SPEEDUP ? "PASS" : "FAIL");
+        }
+    }
+}
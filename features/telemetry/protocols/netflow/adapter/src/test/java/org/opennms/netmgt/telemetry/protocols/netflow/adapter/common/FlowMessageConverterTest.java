@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.netflow.adapter.common;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.opennms.netmgt.telemetry.common.utils.BufferUtils.slice;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.opennms.netmgt.flows.api.Flow;
+import org.opennms.netmgt.telemetry.protocols.netflow.adapter.ipfix.IpfixConverter;
+import org.opennms.netmgt.telemetry.protocols.netflow.adapter.netflow9.Netflow9Converter;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ParserBase;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.Protocol;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.Value;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ipfix.proto.Header;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ipfix.proto.Packet;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.Session;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.TcpSession;
+
+public class FlowMessageConverterTest {
+    private final static Path FOLDER = Paths.get("src/test/resources/flows");
+
+    @Test
+    public void canConvertNetflow9Messages() throws Exception {
+        final List<Iterable<Value<?>>> records = new ArrayList<>();
+        final Session session = new TcpSession();
+        for (final String file : Arrays.asList("netflow9_template.dat", "netflow9_records.dat")) {
+            final ByteBuffer buffer = read(file);
+            do {
+                final org.opennms.netmgt.telemetry.protocols.netflow.parser.netflow9.proto.Header header =
+                        new org.opennms.netmgt.telemetry.protocols.netflow.parser.netflow9.proto.Header(slice(buffer, org.opennms.netmgt.telemetry.protocols.netflow.parser.netflow9.proto.Header.SIZE));
+                new org.opennms.netmgt.telemetry.protocols.netflow.parser.netflow9.proto.Packet(session, header, buffer).getRecords().forEach(records::add);
+            } while (buffer.hasRemaining());
+        }
+        assertThat(records, hasSize(5));
+
+        verify(Protocol.NETFLOW9, new FlowMessageConverter(new Netflow9Converter()), records);
+    }
+
+    @Test
+    public void canConvertIpfixMessages() throws Exception {
+        final List<List<String>> captures = Arrays.asList(
+                Arrays.asList("ipfix.dat"),
+                Arrays.asList("ipfix_test_openbsd_pflow_tpl.dat", "ipfix_test_openbsd_pflow_data.dat"),
+                Arrays.asList("ipfix_test_mikrotik_tpl.dat", "ipfix_test_mikrotik_data258.dat", "ipfix_test_mikrotik_data259.dat"),
+                Arrays.asList("ipfix_test_vmware_vds_tpl.dat", "ipfix_test_vmware_vds_data264.dat", "ipfix_test_vmware_vds_data266.dat", "ipfix_test_vmware_vds_data266_267.dat"),
+                Arrays.asList("ipfix_test_barracuda_tpl.dat", "ipfix_test_barracuda_data256.dat"),
+                Arrays.asList("ipfix_test_yaf_tpls_option_tpl.dat", "ipfix_test_yaf_tpl45841.dat", "ipfix_test_yaf_data45841.dat", "ipfix_test_yaf_data45873.dat", "ipfix_test_yaf_data53248.dat"));
+
+        final List<Iterable<Value<?>>> records = new ArrayList<>();
+        for (final List<String> files : captures) {
+            final Session session = new TcpSession();
+            for (final String file : files) {
+                final ByteBuffer buffer = read(file);
+                do {
+                    final Header header = new Header(slice(buffer, Header.SIZE));
+                    new Packet(session, header, slice(buffer, header.length - Header.SIZE)).getRecords().forEach(records::add);
+                } while (buffer.hasRemaining());
+            }
+        }
+        assertThat(records.size(), greaterThan(0));
+
+        verify(Protocol.IPFIX, new FlowMessageConverter(new IpfixConverter()), records);
+    }
+
+    /**
+     * Converts every record from the flow message as well as from the BSON document, which must result in the same flow.
+     */
+    private static void verify(final Protocol protocol, final FlowMessageConverter converter, final List<Iterable<Value<?>>> records) {
+        for (final Iterable<Value<?>> record : records) {
+            final byte[] message = bytes(ParserBase.serializeMessage(protocol, record));
+            final byte[] document = bytes(ParserBase.serialize(protocol, record));
+            assertFalse(FlowMessageConverter.isBsonDocument(message));
+            assertTrue(FlowMessageConverter.isBsonDocument(document));
+
+            final List<Flow> expected = converter.convert(document);
+            final List<Flow> actual = converter.convert(message);
+            assertThat(actual, hasSize(1));
+            assertThat(expected, hasSize(1));
+            assertEquals(expected.get(0), actual.get(0));
+        }
+    }
+
+    private static void assertEquals(final Flow expected, final Flow actual) {
+        assertThat(actual.getTimestamp(), equalTo(expected.getTimestamp()));
+        assertThat(actual.getBytes(), equalTo(expected.getBytes()));
+        assertThat(actual.getDirection(), equalTo(expected.getDirection()));
+        assertThat(actual.getDstAddr(), equalTo(expected.getDstAddr()));
+        assertThat(actual.getDstAs(), equalTo(expected.getDstAs()));
+        assertThat(actual.getDstMaskLen(), equalTo(expected.getDstMaskLen()));
+        assertThat(actual.getDstPort(), equalTo(expected.getDstPort()));
+        assertThat(actual.getEngineId(), equalTo(expected.getEngineId()));
+        assertThat(actual.getEngineType(), equalTo(expected.getEngineType()));
+        assertThat(actual.getFirstSwitched(), equalTo(expected.getFirstSwitched()));
+        assertThat(actual.getFlowRecords(), equalTo(expected.getFlowRecords()));
+        assertThat(actual.getFlowSeqNum(), equalTo(expected.getFlowSeqNum()));
+        assertThat(actual.getInputSnmp(), equalTo(expected.getInputSnmp()));
+        assertThat(actual.getIpProtocolVersion(), equalTo(expected.getIpProtocolVersion()));
+        assertThat(actual.getLastSwitched(), equalTo(expected.getLastSwitched()));
+        assertThat(actual.getNextHop(), equalTo(expected.getNextHop()));
+        assertThat(actual.getOutputSnmp(), equalTo(expected.getOutputSnmp()));
+        assertThat(actual.getPackets(), equalTo(expected.getPackets()));
+        assertThat(actual.getProtocol(), equalTo(expected.getProtocol()));
+        assertThat(actual.getSamplingAlgorithm(), equalTo(expected.getSamplingAlgorithm()));
+        assertThat(actual.getSamplingInterval(), equalTo(expected.getSamplingInterval()));
+        assertThat(actual.getSrcAddr(), equalTo(expected.getSrcAddr()));
+        assertThat(actual.getSrcAs(), equalTo(expected.getSrcAs()));
+        assertThat(actual.getSrcMaskLen(), equalTo(expected.getSrcMaskLen()));
+        assertThat(actual.getSrcPort(), equalTo(expected.getSrcPort()));
+        assertThat(actual.getTcpFlags(), equalTo(expected.getTcpFlags()));
+        assertThat(actual.getTos(), equalTo(expected.getTos()));
+        assertThat(actual.getNetflowVersion(), equalTo(expected.getNetflowVersion()));
+        assertThat(actual.getVlan(), equalTo(expected.getVlan()));
+    }
+
+    private static byte[] bytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer read(final String file) throws Exception {
+        return ByteBuffer.wrap(Files.readAllBytes(FOLDER.resolve(file)));
+    }
+}
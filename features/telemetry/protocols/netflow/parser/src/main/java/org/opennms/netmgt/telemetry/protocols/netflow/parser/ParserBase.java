@@ -55,6 +55,7 @@ import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.SignedVal
 import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.StringValue;
 import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.UndeclaredValue;
 import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.UnsignedValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.transport.ValueFlowRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,6 +68,8 @@ public class ParserBase {
 
     private final AsyncDispatcher<TelemetryMessage> dispatcher;
 
+    private boolean bsonFormat = false;
+
     public ParserBase(final Protocol protocol,
                       final String name,
                       final AsyncDispatcher<TelemetryMessage> dispatcher) {
@@ -79,12 +82,26 @@ public class ParserBase {
         return this.name;
     }
 
+    public boolean isBsonFormat() {
+        return this.bsonFormat;
+    }
+
+    /**
+     * Dispatches the flows as BSON documents, like previous versions did, instead of flow messages.
+     * This is only needed while the adapters run on a version which can not read flow messages.
+     */
+    public void setBsonFormat(final boolean bsonFormat) {
+        this.bsonFormat = bsonFormat;
+    }
+
     protected CompletableFuture<?> transmit(final RecordProvider packet, final InetSocketAddress remoteAddress) throws Exception {
         LOG.trace("Got packet: {}", packet);
 
         // Return a future which completes when message is parsed and all records are transmitted
         return CompletableFuture.allOf(packet.getRecords().map(record -> {
-            final ByteBuffer buffer = serialize(this.protocol, record);
+            final ByteBuffer buffer = this.bsonFormat
+                    ? serialize(this.protocol, record)
+                    : serializeMessage(this.protocol, record);
 
             // Build the message to dispatch
             final TelemetryMessage msg = new TelemetryMessage(remoteAddress, buffer);
@@ -113,6 +130,10 @@ public class ParserBase {
         return output.getByteBuffers().get(0).asNIO();
     }
 
+    public static ByteBuffer serializeMessage(final Protocol protocol, final Iterable<Value<?>> record) {
+        return ByteBuffer.wrap(protocol.messageBuilder.build(new ValueFlowRecord(record)).toByteArray());
+    }
+
     private static class FlowBuilderVisitor implements Value.Visitor {
         // TODO: Really use ordinal for enums?
 
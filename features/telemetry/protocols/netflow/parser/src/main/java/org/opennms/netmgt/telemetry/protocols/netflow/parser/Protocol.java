@@ -28,13 +28,20 @@
 
 package org.opennms.netmgt.telemetry.protocols.netflow.parser;
 
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowMessageBuilder;
+import org.opennms.netmgt.telemetry.protocols.common.transport.IpfixMessageBuilder;
+import org.opennms.netmgt.telemetry.protocols.common.transport.Netflow9MessageBuilder;
+
 public enum Protocol {
-    NETFLOW9(org.opennms.netmgt.telemetry.protocols.netflow.parser.netflow9.proto.Header.VERSION),
-    IPFIX(org.opennms.netmgt.telemetry.protocols.netflow.parser.ipfix.proto.Header.VERSION);
+    NETFLOW9(org.opennms.netmgt.telemetry.protocols.netflow.parser.netflow9.proto.Header.VERSION, new Netflow9MessageBuilder()),
+    IPFIX(org.opennms.netmgt.telemetry.protocols.netflow.parser.ipfix.proto.Header.VERSION, new IpfixMessageBuilder());
 
     public final int version;
 
-    Protocol(final int version) {
+    public final FlowMessageBuilder messageBuilder;
+
+    Protocol(final int version, final FlowMessageBuilder messageBuilder) {
         this.version = version;
+        this.messageBuilder = messageBuilder;
     }
 }
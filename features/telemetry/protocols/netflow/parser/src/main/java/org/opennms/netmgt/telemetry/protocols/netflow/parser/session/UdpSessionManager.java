@@ -34,67 +34,73 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.Value;
 
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Maps;
-
+/**
+ * Keeps the templates and option values received from UDP exporters.
+ *
+ * Templates and options are stored per exporter and observation domain so that
+ * resolving the options of a data record only has to consider the option
+ * templates of the same domain, indexed by the values of their scope fields.
+ * All state can be accessed concurrently by the parsers and the housekeeping
+ * task, which expires templates and their options.
+ */
 public class UdpSessionManager {
     private final class UdpSession implements Session {
         private final class Resolver implements Session.Resolver {
-            private final long observationDomainId;
-
-            private Resolver(final long observationDomainId) {
-                this.observationDomainId = observationDomainId;
-            }
+            private final Domain domain;
 
-            private Key key(final int templateId) {
-                return new Key(UdpSession.this.remoteAddress, UdpSession.this.localAddress, this.observationDomainId, templateId);
+            private Resolver(final Domain domain) {
+                this.domain = domain;
             }
 
             @Override
             public Optional<Template> lookupTemplate(final int templateId) {
-                return Optional.ofNullable(UdpSessionManager.this.templates.get(key(templateId))).map(v -> v.template);
+                if (this.domain == null) {
+                    return Optional.empty();
+                }
+                return Optional.ofNullable(this.domain.templates.get(templateId)).map(v -> v.template);
             }
 
             @Override
             public List<Value<?>> lookupOptions(final List<Value<?>> values) {
-                final LinkedHashMap<String, Value<?>> options = new LinkedHashMap();
+                if (this.domain == null || this.domain.options.isEmpty()) {
+                    return new ArrayList<>(0);
+                }
 
-                final Set<String> scoped = values.stream().map(Value::getName).collect(Collectors.toSet());
+                final LinkedHashMap<String, Value<?>> options = new LinkedHashMap<>();
 
-                for (final Map.Entry<Key, Map<Set<Value<?>>, List<Value<?>>>> e : Iterables.filter(UdpSessionManager.this.options.entrySet(),
-                                                                                                   e -> Objects.equals(e.getKey().localAddress, UdpSession.this.localAddress) &&
-                                                                                                        Objects.equals(e.getKey().remoteAddress, UdpSession.this.remoteAddress) &&
-                                                                                                        Objects.equals(e.getKey().observationDomainId, this.observationDomainId))) {
-                    final Template template = UdpSessionManager.this.templates.get(e.getKey()).template;
+                final Set<String> scoped = values.stream().map(Value::getName).collect(Collectors.toSet());
 
-                    final Set<String> scopes = template.scopes.stream().map(Scope::getName).collect(Collectors.toSet());
+                for (final Options e : this.domain.options.values()) {
+                    // Ignore options of templates which have been withdrawn or have expired
+                    if (!this.domain.templates.containsKey(e.templateId)) {
+                        continue;
+                    }
 
-                    if (scoped.containsAll(scopes)) {
+                    if (scoped.containsAll(e.scopes)) {
                         // Found option template where scoped fields is subset of actual data fields
 
                         final Set<Value<?>> scopeValues = values.stream()
-                                .filter(s -> scopes.contains(s.getName()))
+                                .filter(s -> e.scopes.contains(s.getName()))
                                 .collect(Collectors.toSet());
 
-                        for (final Value<?> value : e.getValue().getOrDefault(scopeValues, Collections.emptyList())) {
+                        for (final Value<?> value : e.values.getOrDefault(scopeValues, Collections.emptyList())) {
                             options.put(value.getName(), value);
                         }
                     }
                 }
 
-                return new ArrayList(options.values());
+                return new ArrayList<>(options.values());
             }
         }
 
@@ -106,21 +112,37 @@ public class UdpSessionManager {
             this.localAddress = localAddress;
         }
 
+        private Key key(final long observationDomainId) {
+            return new Key(this.remoteAddress, this.localAddress, observationDomainId);
+        }
+
         @Override
         public void addTemplate(final long observationDomainId, final Template template) {
-            final Key key = new Key(this.remoteAddress, this.localAddress, observationDomainId, template.id);
-            UdpSessionManager.this.templates.put(key, new TemplateWrapper(template));
+            UdpSessionManager.this.domains.compute(key(observationDomainId), (k, domain) -> {
+                if (domain == null) {
+                    domain = new Domain();
+                }
+                domain.templates.put(template.id, new TemplateWrapper(template));
+                return domain;
+            });
         }
 
         @Override
         public void removeTemplate(final long observationDomainId, final int templateId) {
-            final Key key = new Key(this.remoteAddress, this.localAddress, observationDomainId, templateId);
-            UdpSessionManager.this.templates.remove(key);
+            final Domain domain = UdpSessionManager.this.domains.get(key(observationDomainId));
+            if (domain != null) {
+                domain.templates.remove(templateId);
+                domain.options.remove(templateId);
+            }
         }
 
         @Override
         public void removeAllTemplate(final long observationDomainId, final Template.Type type) {
-            UdpSessionManager.this.templates.entrySet().removeIf(e -> e.getKey().observationDomainId == observationDomainId && e.getValue().template.type == type);
+            final Domain domain = UdpSessionManager.this.domains.get(key(observationDomainId));
+            if (domain != null) {
+                domain.templates.values().removeIf(v -> v.template.type == type);
+                domain.options.keySet().retainAll(domain.templates.keySet());
+            }
         }
 
         @Override
@@ -132,13 +154,29 @@ public class UdpSessionManager {
                 return;
             }
 
-            final Key key = new Key(this.remoteAddress, this.localAddress, observationDomainId, templateId);
-            UdpSessionManager.this.options.computeIfAbsent(key, (k) -> new HashMap()).put(new HashSet(scopes), values);
+            final Set<Value<?>> scopeValues = Collections.unmodifiableSet(scopes.stream().collect(Collectors.toSet()));
+            final Set<String> scopeNames = scopeValues.stream().map(Value::getName).collect(Collectors.toSet());
+
+            UdpSessionManager.this.domains.compute(key(observationDomainId), (k, domain) -> {
+                if (domain == null) {
+                    domain = new Domain();
+                }
+
+                Options options = domain.options.get(templateId);
+                if (options == null || !options.scopes.equals(scopeNames)) {
+                    // The template has changed its scope fields, previous values can never match again
+                    options = new Options(templateId, scopeNames);
+                    domain.options.put(templateId, options);
+                }
+                options.values.put(scopeValues, values);
+
+                return domain;
+            });
         }
 
         @Override
         public Session.Resolver getResolver(final long observationDomainId) {
-            return new Resolver(observationDomainId);
+            return new Resolver(UdpSessionManager.this.domains.get(key(observationDomainId)));
         }
     }
 
@@ -146,16 +184,13 @@ public class UdpSessionManager {
         public final InetSocketAddress remoteAddress;
         public final InetSocketAddress localAddress;
         public final long observationDomainId;
-        public final int templateId;
 
         Key(final InetSocketAddress remoteAddress,
             final InetSocketAddress localAddress,
-            final long observationDomainId,
-            final int templateId) {
+            final long observationDomainId) {
             this.remoteAddress = Objects.requireNonNull(remoteAddress);
             this.localAddress = Objects.requireNonNull(localAddress);
             this.observationDomainId = observationDomainId;
-            this.templateId = templateId;
         }
 
         @Override
@@ -165,14 +200,39 @@ public class UdpSessionManager {
 
             final Key that = (Key) o;
             return this.observationDomainId == that.observationDomainId &&
-                    this.templateId == that.templateId &&
                     Objects.equals(this.remoteAddress, that.remoteAddress) &&
                     Objects.equals(this.localAddress, that.localAddress);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(this.remoteAddress, this.localAddress, this.observationDomainId, this.templateId);
+            return Objects.hash(this.remoteAddress, this.localAddress, this.observationDomainId);
+        }
+    }
+
+    /**
+     * The templates and options of a single observation domain of an exporter.
+     */
+    private final static class Domain {
+        public final Map<Integer, TemplateWrapper> templates = new ConcurrentHashMap<>();
+        public final Map<Integer, Options> options = new ConcurrentHashMap<>();
+
+        private boolean isEmpty() {
+            return this.templates.isEmpty() && this.options.isEmpty();
+        }
+    }
+
+    /**
+     * The option values received for an option template, indexed by the values of the scope fields.
+     */
+    private final static class Options {
+        public final int templateId;
+        public final Set<String> scopes;
+        public final Map<Set<Value<?>>, List<Value<?>>> values = new ConcurrentHashMap<>();
+
+        private Options(final int templateId, final Set<String> scopes) {
+            this.templateId = templateId;
+            this.scopes = scopes;
         }
     }
 
@@ -186,8 +246,7 @@ public class UdpSessionManager {
         }
     }
 
-    private final Map<Key, TemplateWrapper> templates = Maps.newHashMap();
-    private final Map<Key, Map<Set<Value<?>>, List<Value<?>>>> options = Maps.newHashMap();
+    private final Map<Key, Domain> domains = new ConcurrentHashMap<>();
 
     private final Duration timeout;
 
@@ -197,7 +256,14 @@ public class UdpSessionManager {
 
     public void doHousekeeping() {
         final Instant timeout = Instant.now().minus(this.timeout);
-        UdpSessionManager.this.templates.entrySet().removeIf(e -> e.getValue().insertionTime.isBefore(timeout));
+        for (final Key key : this.domains.keySet()) {
+            // Updates to a domain are done while holding its entry so they can not be lost here
+            this.domains.computeIfPresent(key, (k, domain) -> {
+                domain.templates.values().removeIf(v -> v.insertionTime.isBefore(timeout));
+                domain.options.keySet().retainAll(domain.templates.keySet());
+                return domain.isEmpty() ? null : domain;
+            });
+        }
     }
 
     public Session getSession(final InetSocketAddress remoteAddress, final InetSocketAddress localAddress) {
@@ -205,6 +271,6 @@ public class UdpSessionManager {
     }
 
     public void drop(final InetSocketAddress remoteAddress, final InetSocketAddress localAddress) {
-        this.templates.entrySet().removeIf(e -> Objects.equals(e.getKey().remoteAddress, remoteAddress) && Objects.equals(e.getKey().localAddress, localAddress));
+        this.domains.keySet().removeIf(k -> Objects.equals(k.remoteAddress, remoteAddress) && Objects.equals(k.localAddress, localAddress));
     }
 }
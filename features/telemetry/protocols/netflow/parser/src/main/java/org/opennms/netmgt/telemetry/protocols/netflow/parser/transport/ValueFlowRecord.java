@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.netflow.parser.transport;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.opennms.netmgt.telemetry.protocols.common.transport.FlowMessageBuilder;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.Value;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.DateTimeValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.FloatValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.IPv4AddressValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.IPv6AddressValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.SignedValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.StringValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.UnsignedValue;
+
+/**
+ * A flow record holding the values decoded by a parser.
+ *
+ * The values are interpreted the same way as the elements of the BSON document built from the
+ * same record, so both result in the same flows.
+ */
+public class ValueFlowRecord implements FlowMessageBuilder.FlowRecord {
+    private final Map<String, Value<?>> values = new HashMap<>();
+
+    public ValueFlowRecord(final Iterable<Value<?>> record) {
+        for (final Value<?> value : record) {
+            // The first value wins if an element is repeated, like a lookup in the BSON document does
+            this.values.putIfAbsent(value.getName(), value);
+        }
+    }
+
+    @Override
+    public Long getLong(final String name) {
+        final Value<?> value = this.values.get(name);
+        if (value instanceof UnsignedValue) {
+            return ((UnsignedValue) value).getValue().longValue();
+        }
+        if (value instanceof SignedValue) {
+            return ((SignedValue) value).getValue();
+        }
+        return null;
+    }
+
+    @Override
+    public Double getDouble(final String name) {
+        final Value<?> value = this.values.get(name);
+        if (value instanceof FloatValue) {
+            return ((FloatValue) value).getValue();
+        }
+        return null;
+    }
+
+    @Override
+    public String getString(final String name) {
+        final Value<?> value = this.values.get(name);
+        if (value instanceof IPv4AddressValue || value instanceof IPv6AddressValue) {
+            return ((InetAddress) value.getValue()).getHostAddress();
+        }
+        if (value instanceof StringValue) {
+            return ((StringValue) value).getValue();
+        }
+        return null;
+    }
+
+    @Override
+    public Instant getTime(final String name) {
+        final Value<?> value = this.values.get(name);
+        if (value instanceof DateTimeValue) {
+            return ((DateTimeValue) value).getValue();
+        }
+        return null;
+    }
+}
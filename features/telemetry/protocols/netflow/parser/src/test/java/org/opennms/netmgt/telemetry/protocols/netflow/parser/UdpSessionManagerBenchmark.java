@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.netflow.parser;
+
+import static org.opennms.netmgt.telemetry.common.utils.BufferUtils.slice;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ipfix.proto.Header;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ipfix.proto.Packet;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.Session;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.UdpSessionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Parses captured IPFIX packets with option data from a growing number of
+ * exporters sharing the same {@link UdpSessionManager}.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.netmgt.telemetry.protocols.netflow.parser.UdpSessionManagerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class UdpSessionManagerBenchmark {
+    private final static Path FOLDER = Paths.get("src/test/resources/flows");
+
+    private final static InetSocketAddress LOCAL_ADDRESS = new InetSocketAddress("127.0.0.1", 4739);
+
+    @Param({"1", "100", "500"})
+    public int exporters;
+
+    private UdpSessionManager sessionManager;
+
+    private InetSocketAddress[] remoteAddresses;
+
+    private ByteBuffer data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.sessionManager = new UdpSessionManager(Duration.ofMinutes(30));
+        this.remoteAddresses = new InetSocketAddress[this.exporters];
+
+        for (int i = 0; i < this.exporters; i++) {
+            this.remoteAddresses[i] = new InetSocketAddress(String.format("10.0.%d.%d", i / 256, i % 256), 4739);
+
+            // Every exporter announces its templates and sends its option data
+            final Session session = this.sessionManager.getSession(this.remoteAddresses[i], LOCAL_ADDRESS);
+            parse(session, read("ipfix_test_yaf_tpls_option_tpl.dat"));
+            parse(session, read("ipfix_test_yaf_tpl45841.dat"));
+        }
+
+        this.data = read("ipfix_test_yaf_data45841.dat");
+    }
+
+    @Benchmark
+    public int parseData() throws Exception {
+        final InetSocketAddress remoteAddress = this.remoteAddresses[ThreadLocalRandom.current().nextInt(this.exporters)];
+        return parse(this.sessionManager.getSession(remoteAddress, LOCAL_ADDRESS), this.data.duplicate());
+    }
+
+    private static int parse(final Session session, final ByteBuffer buffer) throws Exception {
+        int records = 0;
+        do {
+            final Header header = new Header(slice(buffer, Header.SIZE));
+            final Packet packet = new Packet(session, header, slice(buffer, header.length - Header.SIZE));
+            records += packet.getRecords().count();
+        } while (buffer.hasRemaining());
+        return records;
+    }
+
+    private static ByteBuffer read(final String file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(FOLDER.resolve(file))) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            channel.read(buffer);
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UdpSessionManagerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.netflow.parser.session;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.Value;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.StringValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.UnsignedValue;
+
+public class UdpSessionManagerTest {
+    private final static InetSocketAddress LOCAL = new InetSocketAddress("127.0.0.1", 4739);
+    private final static InetSocketAddress EXPORTER1 = new InetSocketAddress("10.0.0.1", 50000);
+    private final static InetSocketAddress EXPORTER2 = new InetSocketAddress("10.0.0.2", 50000);
+
+    @Test
+    public void testOptionsAreResolvedByScopePerExporter() {
+        final UdpSessionManager manager = new UdpSessionManager(Duration.ofMinutes(30));
+
+        final Session session1 = manager.getSession(EXPORTER1, LOCAL);
+        session1.addTemplate(1, Template.builder(256, Template.Type.OPTIONS_TEMPLATE).build());
+        session1.addOptions(1, 256, scopes(1), Arrays.asList(new StringValue("ifName", Optional.empty(), "eth0")));
+        session1.addOptions(1, 256, scopes(2), Arrays.asList(new StringValue("ifName", Optional.empty(), "eth1")));
+
+        final Session session2 = manager.getSession(EXPORTER2, LOCAL);
+        session2.addTemplate(1, Template.builder(256, Template.Type.OPTIONS_TEMPLATE).build());
+        session2.addOptions(1, 256, scopes(1), Arrays.asList(new StringValue("ifName", Optional.empty(), "ge-0/0/0")));
+
+        Assert.assertEquals("eth0", ifName(manager.getSession(EXPORTER1, LOCAL).getResolver(1).lookupOptions(record(1))));
+        Assert.assertEquals("eth1", ifName(manager.getSession(EXPORTER1, LOCAL).getResolver(1).lookupOptions(record(2))));
+        Assert.assertEquals("ge-0/0/0", ifName(manager.getSession(EXPORTER2, LOCAL).getResolver(1).lookupOptions(record(1))));
+
+        // Unknown scope values, observation domains and exporters do not resolve any options
+        Assert.assertTrue(manager.getSession(EXPORTER2, LOCAL).getResolver(1).lookupOptions(record(2)).isEmpty());
+        Assert.assertTrue(manager.getSession(EXPORTER1, LOCAL).getResolver(2).lookupOptions(record(1)).isEmpty());
+        Assert.assertTrue(manager.getSession(new InetSocketAddress("10.0.0.3", 50000), LOCAL).getResolver(1).lookupOptions(record(1)).isEmpty());
+
+        // Withdrawing the template removes its options for this exporter only
+        session1.removeTemplate(1, 256);
+        Assert.assertFalse(manager.getSession(EXPORTER1, LOCAL).getResolver(1).lookupTemplate(256).isPresent());
+        Assert.assertTrue(manager.getSession(EXPORTER1, LOCAL).getResolver(1).lookupOptions(record(1)).isEmpty());
+        Assert.assertEquals("ge-0/0/0", ifName(manager.getSession(EXPORTER2, LOCAL).getResolver(1).lookupOptions(record(1))));
+    }
+
+    @Test
+    public void testHousekeepingExpiresTemplatesAndOptions() throws Exception {
+        final UdpSessionManager manager = new UdpSessionManager(Duration.ofMillis(1));
+
+        final Session session = manager.getSession(EXPORTER1, LOCAL);
+        session.addTemplate(1, Template.builder(256, Template.Type.OPTIONS_TEMPLATE).build());
+        session.addOptions(1, 256, scopes(1), Arrays.asList(new StringValue("ifName", Optional.empty(), "eth0")));
+        Assert.assertEquals("eth0", ifName(session.getResolver(1).lookupOptions(record(1))));
+
+        Thread.sleep(10);
+        manager.doHousekeeping();
+
+        Assert.assertFalse(session.getResolver(1).lookupTemplate(256).isPresent());
+        Assert.assertTrue(session.getResolver(1).lookupOptions(record(1)).isEmpty());
+
+        // The exporter can start over
+        session.addTemplate(1, Template.builder(256, Template.Type.OPTIONS_TEMPLATE).build());
+        Assert.assertTrue(session.getResolver(1).lookupTemplate(256).isPresent());
+
+        manager.drop(EXPORTER1, LOCAL);
+        Assert.assertFalse(session.getResolver(1).lookupTemplate(256).isPresent());
+    }
+
+    private static List<Value<?>> scopes(final long ifIndex) {
+        return Collections.singletonList(new UnsignedValue("ingressInterface", ifIndex));
+    }
+
+    private static List<Value<?>> record(final long ifIndex) {
+        return Arrays.asList(new UnsignedValue("ingressInterface", ifIndex), new UnsignedValue("octetDeltaCount", 1500));
+    }
+
+    private static String ifName(final List<Value<?>> options) {
+        Assert.assertEquals(1, options.size());
+        return (String) options.get(0).getValue();
+    }
+}
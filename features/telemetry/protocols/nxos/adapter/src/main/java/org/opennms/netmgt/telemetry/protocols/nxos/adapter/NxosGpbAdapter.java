@@ -47,6 +47,7 @@ import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLog;
 import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLogEntry;
 import org.opennms.netmgt.telemetry.protocols.collection.AbstractPersistingAdapter;
 import org.opennms.netmgt.telemetry.protocols.collection.CollectionSetWithAgent;
+import org.opennms.netmgt.telemetry.protocols.collection.MetricMapper;
 import org.opennms.netmgt.telemetry.protocols.collection.ScriptedCollectionSetBuilder;
 import org.opennms.netmgt.telemetry.protocols.nxos.adapter.proto.TelemetryBis;
 import org.opennms.netmgt.telemetry.protocols.nxos.adapter.proto.TelemetryBis.Telemetry;
@@ -130,6 +131,11 @@ public class NxosGpbAdapter extends AbstractPersistingAdapter {
             return Stream.empty();
         }
 
+        final MetricMapper metricMapper = getMetricMapper();
+        if (metricMapper != null) {
+            return Stream.of(new CollectionSetWithAgent(agent, metricMapper.map(agent, msg, NxosMessageNavigator.INSTANCE)));
+        }
+
         final ScriptedCollectionSetBuilder builder = getCollectionBuilder();
         if (builder == null) {
             LOG.error("Error compiling script '{}'. See logs for details.", this.getScript());
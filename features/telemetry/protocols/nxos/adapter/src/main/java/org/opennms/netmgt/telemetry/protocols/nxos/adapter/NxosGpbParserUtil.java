@@ -200,7 +200,7 @@ public class NxosGpbParserUtil {
         return null;
     }
 
-    private static TelemetryBis.TelemetryField findFieldWithName(TelemetryBis.TelemetryField field, String name) {
+    static TelemetryBis.TelemetryField findFieldWithName(TelemetryBis.TelemetryField field, String name) {
         if (Objects.equals(field.getName(), name)) {
             return field;
         }
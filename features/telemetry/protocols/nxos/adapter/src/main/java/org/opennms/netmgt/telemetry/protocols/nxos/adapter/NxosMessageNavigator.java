@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.nxos.adapter;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.opennms.netmgt.telemetry.protocols.collection.MessageNavigator;
+import org.opennms.netmgt.telemetry.protocols.nxos.adapter.proto.TelemetryBis;
+
+/**
+ * Navigates the key/value fields of NX-OS messages.
+ *
+ * Like the {@link NxosGpbParserUtil}, fields are looked up by name at any depth, so that
+ * the rows of a table are found at "ROW_cpu_usage" and their values at "cpuid", without
+ * bothering about the structure in between.
+ */
+public class NxosMessageNavigator implements MessageNavigator {
+
+    public static final NxosMessageNavigator INSTANCE = new NxosMessageNavigator();
+
+    @Override
+    public List<?> getChildren(Object node, String name) {
+        final TelemetryBis.TelemetryField field = findField(node, name);
+        return field != null ? field.getFieldsList() : Collections.emptyList();
+    }
+
+    @Override
+    public Object getValue(Object node, String name) {
+        final TelemetryBis.TelemetryField field = findField(node, name);
+        if (field == null) {
+            return null;
+        }
+        switch (field.getValueByTypeCase()) {
+            case STRING_VALUE:
+                return field.getStringValue();
+            case BOOL_VALUE:
+                return field.getBoolValue();
+            case UINT32_VALUE:
+                return field.getUint32Value();
+            case UINT64_VALUE:
+                return field.getUint64Value();
+            case SINT32_VALUE:
+                return field.getSint32Value();
+            case SINT64_VALUE:
+                return field.getSint64Value();
+            case DOUBLE_VALUE:
+                return field.getDoubleValue();
+            case FLOAT_VALUE:
+                return field.getFloatValue();
+            default:
+                return null;
+        }
+    }
+
+    private static TelemetryBis.TelemetryField findField(Object node, String name) {
+        final List<TelemetryBis.TelemetryField> fields;
+        if (node instanceof TelemetryBis.Telemetry) {
+            fields = ((TelemetryBis.Telemetry) node).getDataGpbkvList();
+        } else if (node instanceof TelemetryBis.TelemetryField) {
+            fields = ((TelemetryBis.TelemetryField) node).getFieldsList();
+        } else {
+            return null;
+        }
+        for (TelemetryBis.TelemetryField field : fields) {
+            final TelemetryBis.TelemetryField matchingField = NxosGpbParserUtil.findFieldWithName(field, name);
+            if (matchingField != null) {
+                return matchingField;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.features.telemetry.protocols.nxos.adapter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.netmgt.collection.api.CollectionAttribute;
+import org.opennms.netmgt.collection.api.CollectionSet;
+import org.opennms.netmgt.collection.api.Parameter;
+import org.opennms.netmgt.collection.api.ResourceType;
+import org.opennms.netmgt.collection.api.ResourceTypeMapper;
+import org.opennms.netmgt.collection.api.StrategyDefinition;
+import org.opennms.netmgt.collection.dto.CollectionAgentDTO;
+import org.opennms.netmgt.collection.support.AbstractCollectionSetVisitor;
+import org.opennms.netmgt.collection.support.IndexStorageStrategy;
+import org.opennms.netmgt.collection.support.PersistAllSelectorStrategy;
+import org.opennms.netmgt.telemetry.protocols.collection.MetricMapper;
+import org.opennms.netmgt.telemetry.protocols.collection.ScriptedCollectionSetBuilder;
+import org.opennms.netmgt.telemetry.protocols.nxos.adapter.NxosGpbParserUtil;
+import org.opennms.netmgt.telemetry.protocols.nxos.adapter.NxosMessageNavigator;
+import org.opennms.netmgt.telemetry.protocols.nxos.adapter.proto.TelemetryBis;
+
+import com.google.common.io.Resources;
+import com.google.protobuf.ExtensionRegistry;
+
+public class NxosMessageNavigatorTest {
+
+    private static final File ETC = new File("../../../../../opennms-base-assembly/src/main/filtered/etc/telemetryd-adapters");
+
+    private static final ExtensionRegistry s_registry = ExtensionRegistry.newInstance();
+
+    static {
+        TelemetryBis.registerAllExtensions(s_registry);
+    }
+
+    @Before
+    public void setUp() {
+        // The CPUs are stored as generic resources
+        ResourceTypeMapper.getInstance().setResourceTypeMapper(CpuResourceType::new);
+    }
+
+    @Test
+    public void canNavigateFieldsAtAnyDepth() throws Exception {
+        final TelemetryBis.Telemetry msg = parseMessage();
+        final NxosMessageNavigator navigator = NxosMessageNavigator.INSTANCE;
+
+        // Values are returned as they are stored in the message
+        assertEquals("1.25", navigator.getValue(msg, "load_avg_1min"));
+        assertEquals("OK", navigator.getValue(msg, "current_memory_status"));
+
+        final List<TelemetryBis.TelemetryField> rows = NxosGpbParserUtil.getRowsFromTable(msg, "cpu_usage");
+        final List<?> children = navigator.getChildren(msg, "ROW_cpu_usage");
+        assertEquals(rows, children);
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(NxosGpbParserUtil.getValueFromRowAsString(rows.get(i), "cpuid"), navigator.getValue(children.get(i), "cpuid").toString());
+            assertEquals(NxosGpbParserUtil.getValueFromRowAsString(rows.get(i), "kernel"), navigator.getValue(children.get(i), "kernel").toString());
+        }
+
+        // Unknown fields yield nothing
+        assertEquals(0, navigator.getChildren(msg, "no_such_field").size());
+        assertEquals(null, navigator.getValue(msg, "no_such_field"));
+        assertEquals(null, navigator.getValue("not a message", "load_avg_1min"));
+    }
+
+    @Test
+    public void canMapMessagesLikeTheShippedScript() throws Exception {
+        final TelemetryBis.Telemetry msg = parseMessage();
+
+        final ScriptedCollectionSetBuilder builder = new ScriptedCollectionSetBuilder(new File(ETC, "cisco-nxos-telemetry-interface.groovy"));
+        final Map<String, Number> expectedValues = getValues(builder.build(createAgent(), msg));
+        // The load average of the node, and the kernel load of every CPU
+        assertEquals(1 + NxosGpbParserUtil.getRowsFromTable(msg, "cpu_usage").size(), expectedValues.size());
+
+        final MetricMapper mapper = MetricMapper.fromFile(new File(ETC, "cisco-nxos-telemetry-interface.xml"));
+        assertEquals(expectedValues, getValues(mapper.map(createAgent(), msg, NxosMessageNavigator.INSTANCE)));
+    }
+
+    private static TelemetryBis.Telemetry parseMessage() throws Exception {
+        final byte[] nxosMsgBytes = Resources.toByteArray(Resources.getResource("nxos-proto-buf.raw"));
+        final ByteBuffer buf = ByteBuffer.wrap(nxosMsgBytes, 6, nxosMsgBytes.length - 6);
+        return TelemetryBis.Telemetry.parseFrom(buf, s_registry);
+    }
+
+    private static CollectionAgentDTO createAgent() {
+        final CollectionAgentDTO agent = new CollectionAgentDTO();
+        agent.setNodeId(1);
+        return agent;
+    }
+
+    /**
+     * @return the numeric values of the collection set, keyed by resource, group and attribute name
+     */
+    private static Map<String, Number> getValues(CollectionSet collectionSet) {
+        final Map<String, Number> values = new LinkedHashMap<>();
+        collectionSet.visit(new AbstractCollectionSetVisitor() {
+            @Override
+            public void visitAttribute(CollectionAttribute attribute) {
+                values.put(String.format("%s[%s] %s/%s (%s)",
+                        attribute.getResource().getResourceTypeName(),
+                        attribute.getResource().getInstance(),
+                        attribute.getAttributeType().getGroupType().getName(),
+                        attribute.getName(),
+                        attribute.getType()),
+                        attribute.getNumericValue().doubleValue());
+            }
+        });
+        return values;
+    }
+
+    private static class CpuResourceType implements ResourceType {
+        private final String name;
+
+        private CpuResourceType(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getLabel() {
+            return name;
+        }
+
+        @Override
+        public String getResourceLabel() {
+            return "${index}";
+        }
+
+        @Override
+        public StrategyDefinition getStorageStrategy() {
+            return strategy(IndexStorageStrategy.class);
+        }
+
+        @Override
+        public StrategyDefinition getPersistenceSelectorStrategy() {
+            return strategy(PersistAllSelectorStrategy.class);
+        }
+
+        private static StrategyDefinition strategy(Class<?> clazz) {
+            return new StrategyDefinition() {
+                @Override
+                public String getClazz() {
+                    return clazz.getName();
+                }
+
+                @Override
+                public List<Parameter> getParameters() {
+                    return Collections.emptyList();
+                }
+            };
+        }
+    }
+}
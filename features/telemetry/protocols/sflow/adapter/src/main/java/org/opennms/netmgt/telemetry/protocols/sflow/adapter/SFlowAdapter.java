@@ -29,13 +29,19 @@
 package org.opennms.netmgt.telemetry.protocols.sflow.adapter;
 
 import org.bson.BsonDocument;
-import org.bson.RawBsonDocument;
 import org.opennms.netmgt.flows.api.FlowRepository;
 import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLogEntry;
+import org.opennms.netmgt.telemetry.protocols.common.utils.BsonUtils;
 import org.opennms.netmgt.telemetry.protocols.flows.AbstractFlowAdapter;
 
 import com.codahale.metrics.MetricRegistry;
 
+/**
+ * Unlike the Netflow v9 and IPFIX adapters, this adapter still receives BSON documents.
+ * A document holds all samples of a datagram, and it is shared with the
+ * {@link SFlowTelemetryAdapter}, which hands the counter samples to user scripts as
+ * documents.
+ */
 public class SFlowAdapter extends AbstractFlowAdapter<BsonDocument> {
 
     public SFlowAdapter(final MetricRegistry metricRegistry,
@@ -45,6 +51,6 @@ public class SFlowAdapter extends AbstractFlowAdapter<BsonDocument> {
 
     @Override
     protected BsonDocument parse(TelemetryMessageLogEntry message) {
-        return new RawBsonDocument(message.getByteArray());
+        return BsonUtils.parseDocument(message.getByteArray());
     }
 }
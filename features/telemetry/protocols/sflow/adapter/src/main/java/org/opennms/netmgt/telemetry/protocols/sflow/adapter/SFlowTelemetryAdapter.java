@@ -40,7 +40,6 @@ import javax.script.ScriptException;
 
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
-import org.bson.RawBsonDocument;
 import org.opennms.netmgt.collection.api.CollectionAgent;
 import org.opennms.netmgt.collection.api.CollectionAgentFactory;
 import org.opennms.netmgt.collection.api.CollectionSet;
@@ -50,6 +49,7 @@ import org.opennms.netmgt.telemetry.api.adapter.TelemetryMessageLogEntry;
 import org.opennms.netmgt.telemetry.protocols.collection.AbstractPersistingAdapter;
 import org.opennms.netmgt.telemetry.protocols.collection.CollectionSetWithAgent;
 import org.opennms.netmgt.telemetry.protocols.collection.ScriptedCollectionSetBuilder;
+import org.opennms.netmgt.telemetry.protocols.common.utils.BsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,7 +70,7 @@ public class SFlowTelemetryAdapter extends AbstractPersistingAdapter {
         LOG.debug("Received {} telemetry messages", messageLog.getMessageList().size());
 
         LOG.trace("Parsing packet: {}", message);
-        final BsonDocument document = new RawBsonDocument(message.getByteArray()).getDocument("data");
+        final BsonDocument document = BsonUtils.parseDocument(message.getByteArray()).getDocument("data");
         if (document == null) {
             return Stream.empty();
         }
@@ -29,6 +29,7 @@
 package org.opennms.netmgt.alarmd;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
@@ -37,6 +38,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
@@ -54,20 +59,30 @@ import org.opennms.netmgt.xml.event.UpdateField;
 import org.opennms.netmgt.xml.eventconf.LogDestType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.support.TransactionOperations;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Singleton to persist OnmsAlarms.
  *
+ * When a coalescing window is set, consecutive reductions of the same reduction key
+ * that would only increment the counter of the alarm (same severity and alarm type,
+ * no update fields, no related alarms) are buffered for the duration of the window
+ * and applied as a single update carrying the summed counter and the latest event.
+ * Any other event for the same key flushes the buffered reductions before being
+ * processed, so the order of the reductions is preserved.
+ *
  * @author <a href="mailto:david@opennms.org">David Hustace</a>
  * @version $Id: $
  */
-public class AlarmPersisterImpl implements AlarmPersister {
+public class AlarmPersisterImpl implements AlarmPersister, InitializingBean, DisposableBean {
     private static final Logger LOG = LoggerFactory.getLogger(AlarmPersisterImpl.class);
 
     public static final String RELATED_REDUCTION_KEY_PREFIX = "related-reductionKey";
@@ -75,6 +90,7 @@ public class AlarmPersisterImpl implements AlarmPersister {
     protected static final Integer NUM_STRIPE_LOCKS = Integer.getInteger("org.opennms.alarmd.stripe.locks", Alarmd.THREADS * 4);
     protected static boolean NEW_IF_CLEARED = Boolean.getBoolean("org.opennms.alarmd.newIfClearedAlarmExists");
     protected static boolean LEGACY_ALARM_STATE = Boolean.getBoolean("org.opennms.alarmd.legacyAlarmState");
+    protected static final long COALESCE_WINDOW_MS = Long.getLong("org.opennms.alarmd.coalesceWindowMs", 0L);
 
     @Autowired
     private AlarmDao m_alarmDao;
@@ -91,6 +107,9 @@ public class AlarmPersisterImpl implements AlarmPersister {
     @Autowired
     private AlarmEntityNotifier m_alarmEntityNotifier;
 
+    @Autowired(required=false)
+    private AlarmReductionKeyIndex m_reductionKeyIndex;
+
     private Striped<Lock> lockStripes = StripedExt.fairLock(NUM_STRIPE_LOCKS);
 
     private final Set<AlarmPersisterExtension> extensions = Sets.newConcurrentHashSet();
@@ -99,6 +118,38 @@ public class AlarmPersisterImpl implements AlarmPersister {
     
     private boolean m_legacyAlarmState = LEGACY_ALARM_STATE;
 
+    private long m_coalesceWindowMs = COALESCE_WINDOW_MS;
+
+    /**
+     * Reductions being coalesced, keyed by reduction key. Entries are only
+     * accessed while holding the lock for their reduction key.
+     */
+    private final Map<String, CoalescedReductions> m_coalescedReductions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService m_coalescedReductionsFlusher;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (m_coalesceWindowMs > 0) {
+            LOG.info("Coalescing reductions of the same alarm over windows of {}ms.", m_coalesceWindowMs);
+            m_coalescedReductionsFlusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("alarmd-coalesced-reductions-flusher")
+                    .setDaemon(true)
+                    .build());
+            m_coalescedReductionsFlusher.scheduleWithFixedDelay(() -> flushCoalescedReductions(false),
+                    m_coalesceWindowMs, m_coalesceWindowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (m_coalescedReductionsFlusher != null) {
+            m_coalescedReductionsFlusher.shutdown();
+            m_coalescedReductionsFlusher = null;
+        }
+        flushCoalescedReductions(true);
+    }
+
     @Override
     public OnmsAlarm persist(Event event) {
         Objects.requireNonNull(event, "Cannot create alarm from null event.");
@@ -113,12 +164,34 @@ public class AlarmPersisterImpl implements AlarmPersister {
         // Lock both the reduction and clear keys (if set) using a fair striped lock
         // We do this to ensure that clears and triggers are processed in the same order
         // as the calls are made
-        final Iterable<Lock> locks = lockStripes.bulkGet(getLockKeys(event));
+        final Collection<String> lockKeys = getLockKeys(event);
+        final Iterable<Lock> locks = lockStripes.bulkGet(lockKeys);
         final OnmsAlarm alarm;
         try {
             locks.forEach(Lock::lock);
+
+            if (m_coalesceWindowMs > 0) {
+                final CoalescedReductions coalesced = m_coalescedReductions.get(event.getAlarmData().getReductionKey());
+                if (coalesced != null && coalesced.add(event)) {
+                    // The reduction will be applied when the window closes
+                    return null;
+                }
+                // Apply any pending reductions for these keys before processing the event
+                for (String key : lockKeys) {
+                    final CoalescedReductions pending = m_coalescedReductions.remove(key);
+                    if (pending != null) {
+                        applyCoalescedReductions(pending);
+                    }
+                }
+            }
+
             // Process the alarm inside a transaction
             alarm = m_transactionOperations.execute((action) -> addOrReduceEventAsAlarm(event));
+
+            if (m_coalesceWindowMs > 0 && alarm != null && canCoalesceReductionsOf(alarm, event)) {
+                // Buffer subsequent reductions of this alarm
+                m_coalescedReductions.put(alarm.getReductionKey(), new CoalescedReductions(alarm, event));
+            }
         } finally {
             locks.forEach(Lock::unlock);
         }
@@ -126,6 +199,155 @@ public class AlarmPersisterImpl implements AlarmPersister {
         return alarm;
     }
 
+    /**
+     * Applies the reductions that were coalesced for longer than the window,
+     * or all of them if forced.
+     */
+    private void flushCoalescedReductions(boolean force) {
+        final long now = System.currentTimeMillis();
+        for (Map.Entry<String, CoalescedReductions> entry : m_coalescedReductions.entrySet()) {
+            if (!force && now - entry.getValue().getCreatedAt() < m_coalesceWindowMs) {
+                continue;
+            }
+            final Lock lock = lockStripes.get(entry.getKey());
+            lock.lock();
+            try {
+                final CoalescedReductions pending = m_coalescedReductions.remove(entry.getKey());
+                if (pending != null) {
+                    applyCoalescedReductions(pending);
+                }
+            } catch (Exception e) {
+                LOG.error("Failed to apply the coalesced reductions for reduction key: {}", entry.getKey(), e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies the coalesced reductions as a single update.
+     *
+     * Must be called while holding the lock for the reduction key.
+     */
+    private void applyCoalescedReductions(CoalescedReductions pending) {
+        final List<Event> events = pending.getEvents();
+        if (events.isEmpty()) {
+            return;
+        }
+
+        m_transactionOperations.execute((action) -> {
+            final OnmsAlarm alarm = m_alarmDao.get(pending.getAlarmId());
+            final Event lastEvent = events.get(events.size() - 1);
+            final OnmsEvent lastPersistedEvent = m_eventDao.get(lastEvent.getDbid());
+
+            if (alarm == null || lastPersistedEvent == null
+                    || !Objects.equals(pending.getReductionKey(), alarm.getReductionKey())
+                    || !Objects.equals(pending.getSeverity(), alarm.getSeverity())
+                    || isResolvedAlarm(alarm)
+                    || !alarm.getRelatedAlarms().isEmpty()) {
+                // The alarm was changed since we started buffering, reduce the events one at a time
+                LOG.debug("applyCoalescedReductions: alarm with reductionKey:{} was updated, reducing {} events individually", pending.getReductionKey(), events.size());
+                events.forEach(this::addOrReduceEventAsAlarm);
+                return null;
+            }
+
+            LOG.debug("applyCoalescedReductions: reducing {} events to existing alarm with reductionKey:{}", events.size(), pending.getReductionKey());
+            alarm.setLastEvent(lastPersistedEvent);
+            alarm.setLastEventTime(lastPersistedEvent.getEventTime());
+            alarm.setCounter(alarm.getCounter() + events.size());
+            alarm.setLogMsg(lastPersistedEvent.getEventLogMsg());
+            lastPersistedEvent.setAlarm(alarm);
+
+            // Trigger extensions, allowing them to mangle the alarm
+            try {
+                extensions.forEach(ext -> ext.afterAlarmUpdated(alarm, lastEvent, lastPersistedEvent));
+            } catch (Exception ex) {
+                LOG.error("An error occurred while invoking the extension callbacks.", ex);
+            }
+
+            m_alarmDao.update(alarm);
+            m_eventDao.update(lastPersistedEvent);
+            m_eventDao.setAlarmForEvents(alarm.getId(), events.subList(0, events.size() - 1).stream()
+                    .map(Event::getDbid)
+                    .collect(Collectors.toList()));
+
+            if (lastEvent.getAlarmData().isAutoClean()) {
+                m_eventDao.deletePreviousEventsForAlarm(alarm.getId(), lastPersistedEvent);
+            }
+
+            m_alarmEntityNotifier.didUpdateAlarmWithReducedEvent(alarm);
+            return null;
+        });
+    }
+
+    /**
+     * Subsequent reductions of the alarm can be coalesced if they would only increment
+     * the counter, and update the last event.
+     */
+    private boolean canCoalesceReductionsOf(OnmsAlarm alarm, Event event) {
+        return Objects.equals(alarm.getReductionKey(), event.getAlarmData().getReductionKey())
+                && !isResolutionEvent(event)
+                && !isResolvedAlarm(alarm)
+                && !OnmsSeverity.CLEARED.equals(alarm.getSeverity())
+                && alarm.getRelatedAlarms().isEmpty();
+    }
+
+    /**
+     * Reductions of the same alarm, buffered for the duration of the coalescing window.
+     */
+    private static class CoalescedReductions {
+        private final Integer alarmId;
+        private final String reductionKey;
+        private final OnmsSeverity severity;
+        private final Integer alarmType;
+        private final long createdAt = System.currentTimeMillis();
+        private final List<Event> events = new ArrayList<>();
+
+        private CoalescedReductions(OnmsAlarm alarm, Event event) {
+            alarmId = alarm.getId();
+            reductionKey = alarm.getReductionKey();
+            severity = alarm.getSeverity();
+            alarmType = event.getAlarmData().getAlarmType();
+        }
+
+        /**
+         * Buffers the event if its reduction would only increment the counter of the alarm.
+         *
+         * @return true if the event was buffered
+         */
+        private boolean add(Event event) {
+            if (event.getDbid() == null
+                    || !Objects.equals(alarmType, event.getAlarmData().getAlarmType())
+                    || event.getAlarmData().hasUpdateFields()
+                    || event.getParmCollection().stream().anyMatch(AlarmPersisterImpl::isRelatedReductionKeyWithContent)
+                    || !Objects.equals(severity, OnmsSeverity.get(event.getSeverity()))) {
+                return false;
+            }
+            events.add(event);
+            return true;
+        }
+
+        private Integer getAlarmId() {
+            return alarmId;
+        }
+
+        private String getReductionKey() {
+            return reductionKey;
+        }
+
+        private OnmsSeverity getSeverity() {
+            return severity;
+        }
+
+        private long getCreatedAt() {
+            return createdAt;
+        }
+
+        private List<Event> getEvents() {
+            return events;
+        }
+    }
+
     private OnmsAlarm addOrReduceEventAsAlarm(Event event) throws IllegalStateException {
         
         final OnmsEvent persistedEvent = m_eventDao.get(event.getDbid());
@@ -145,11 +367,11 @@ public class AlarmPersisterImpl implements AlarmPersister {
             didSwapReductionKeyWithClearKey = true;
         }
 
-        OnmsAlarm alarm = m_alarmDao.findByReductionKey(key);
+        OnmsAlarm alarm = findByReductionKey(key);
 
         if (alarm == null && didSwapReductionKeyWithClearKey) {
             // if the clearKey returns null, still need to check the reductionKey
-            alarm = m_alarmDao.findByReductionKey(reductionKey);
+            alarm = findByReductionKey(reductionKey);
         }
 
         if (alarm == null || (m_createNewAlarmIfClearedAlarmExists && OnmsSeverity.CLEARED.equals(alarm.getSeverity()))) {
@@ -391,7 +613,14 @@ public class AlarmPersisterImpl implements AlarmPersister {
         }
         Set<String> reductionKeys = list.stream().filter(AlarmPersisterImpl::isRelatedReductionKeyWithContent).map(p -> p.getValue().getContent()).collect(Collectors.toSet());
         // Only existing alarms are returned. Reduction Keys for non-existing alarms are dropped.
-        return reductionKeys.stream().map(reductionKey -> m_alarmDao.findByReductionKey(reductionKey)).filter(Objects::nonNull).collect(Collectors.toSet());
+        return reductionKeys.stream().map(this::findByReductionKey).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private OnmsAlarm findByReductionKey(String reductionKey) {
+        if (m_reductionKeyIndex != null) {
+            return m_reductionKeyIndex.findByReductionKey(reductionKey);
+        }
+        return m_alarmDao.findByReductionKey(reductionKey);
     }
 
     private static boolean isRelatedReductionKeyWithContent(Parm param) {
@@ -502,6 +731,14 @@ public class AlarmPersisterImpl implements AlarmPersister {
         m_alarmEntityNotifier = alarmEntityNotifier;
     }
 
+    public AlarmReductionKeyIndex getReductionKeyIndex() {
+        return m_reductionKeyIndex;
+    }
+
+    public void setReductionKeyIndex(AlarmReductionKeyIndex reductionKeyIndex) {
+        m_reductionKeyIndex = reductionKeyIndex;
+    }
+
     public void onExtensionRegistered(final AlarmPersisterExtension ext, final Map<String,String> properties) {
         LOG.debug("onExtensionRegistered: {} with properties: {}", ext, properties);
         extensions.add(ext);
@@ -519,6 +756,15 @@ public class AlarmPersisterImpl implements AlarmPersister {
     public void setCreateNewAlarmIfClearedAlarmExists(boolean createNewAlarmIfClearedAlarmExists) {
         m_createNewAlarmIfClearedAlarmExists = createNewAlarmIfClearedAlarmExists;
     }
+
+    public long getCoalesceWindowMs() {
+        return m_coalesceWindowMs;
+    }
+
+    public void setCoalesceWindowMs(long coalesceWindowMs) {
+        m_coalesceWindowMs = coalesceWindowMs;
+    }
+
     public boolean islegacyAlarmState() {
         return m_legacyAlarmState;
     }
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.alarmd;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opennms.netmgt.dao.api.AlarmDao;
+import org.opennms.netmgt.dao.api.DefaultAlarmEntityListener;
+import org.opennms.netmgt.model.OnmsAlarm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * A memory resident index of alarm ids keyed by reduction key, used by the
+ * {@link AlarmPersisterImpl} to turn reductions into primary key lookups.
+ *
+ * The index is loaded at startup and kept up to date using the callbacks
+ * issued by the {@link org.opennms.netmgt.dao.api.AlarmEntityNotifier}.
+ * Since alarms can also be deleted or re-keyed outside of the notifier
+ * (i.e. by Vacuumd), every hit is verified against the alarm that is loaded,
+ * and misses fall back to querying by reduction key.
+ *
+ * The index is only used when the "org.opennms.alarmd.reductionKeyIndex"
+ * system property is set to true.
+ */
+public class AlarmReductionKeyIndex extends DefaultAlarmEntityListener implements InitializingBean {
+    private static final Logger LOG = LoggerFactory.getLogger(AlarmReductionKeyIndex.class);
+
+    public static final String ENABLED_SYS_PROP = "org.opennms.alarmd.reductionKeyIndex";
+
+    @Autowired
+    private AlarmDao m_alarmDao;
+
+    @Autowired
+    private TransactionOperations m_transactionOperations;
+
+    private boolean m_enabled = Boolean.getBoolean(ENABLED_SYS_PROP);
+
+    private final Map<String, Integer> m_alarmIdsByReductionKey = new ConcurrentHashMap<>();
+
+    private final AtomicLong m_hits = new AtomicLong();
+
+    private final AtomicLong m_misses = new AtomicLong();
+
+    @Override
+    public void afterPropertiesSet() {
+        if (m_enabled) {
+            load();
+        }
+    }
+
+    /**
+     * (Re)loads the index from the database.
+     */
+    public void load() {
+        final Map<String, Integer> alarmIdsByReductionKey = m_transactionOperations.execute(status -> m_alarmDao.getAlarmIdsByReductionKey());
+        m_alarmIdsByReductionKey.clear();
+        m_alarmIdsByReductionKey.putAll(alarmIdsByReductionKey);
+        LOG.info("Loaded {} reduction keys in the alarm index.", m_alarmIdsByReductionKey.size());
+    }
+
+    /**
+     * Finds the alarm with the given reduction key.
+     *
+     * Must be called from within a transaction.
+     *
+     * @param reductionKey the reduction key
+     * @return the alarm, or null if none exists
+     */
+    public OnmsAlarm findByReductionKey(String reductionKey) {
+        if (!m_enabled || reductionKey == null) {
+            return m_alarmDao.findByReductionKey(reductionKey);
+        }
+
+        final Integer alarmId = m_alarmIdsByReductionKey.get(reductionKey);
+        if (alarmId != null) {
+            final OnmsAlarm alarm = m_alarmDao.get(alarmId);
+            if (alarm != null && Objects.equals(reductionKey, alarm.getReductionKey())) {
+                m_hits.incrementAndGet();
+                return alarm;
+            }
+            // The alarm was deleted or archived without us being notified
+            LOG.debug("Evicting stale entry for reduction key: {} with alarm id: {}", reductionKey, alarmId);
+            m_alarmIdsByReductionKey.remove(reductionKey, alarmId);
+        }
+
+        m_misses.incrementAndGet();
+        final OnmsAlarm alarm = m_alarmDao.findByReductionKey(reductionKey);
+        if (alarm != null && alarm.getId() != null) {
+            m_alarmIdsByReductionKey.put(reductionKey, alarm.getId());
+        }
+        return alarm;
+    }
+
+    @Override
+    public void onAlarmCreated(OnmsAlarm alarm) {
+        if (m_enabled && alarm.getReductionKey() != null && alarm.getId() != null) {
+            m_alarmIdsByReductionKey.put(alarm.getReductionKey(), alarm.getId());
+        }
+    }
+
+    @Override
+    public void onAlarmArchived(OnmsAlarm alarm, String previousReductionKey) {
+        if (m_enabled && previousReductionKey != null) {
+            m_alarmIdsByReductionKey.remove(previousReductionKey, alarm.getId());
+        }
+    }
+
+    @Override
+    public void onAlarmDeleted(OnmsAlarm alarm) {
+        if (m_enabled && alarm.getReductionKey() != null) {
+            m_alarmIdsByReductionKey.remove(alarm.getReductionKey(), alarm.getId());
+        }
+    }
+
+    public int size() {
+        return m_alarmIdsByReductionKey.size();
+    }
+
+    public long getHits() {
+        return m_hits.get();
+    }
+
+    public long getMisses() {
+        return m_misses.get();
+    }
+
+    public boolean isEnabled() {
+        return m_enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        m_enabled = enabled;
+    }
+
+    public void setAlarmDao(AlarmDao alarmDao) {
+        m_alarmDao = alarmDao;
+    }
+
+    public void setTransactionOperations(TransactionOperations transactionOperations) {
+        m_transactionOperations = transactionOperations;
+    }
+}
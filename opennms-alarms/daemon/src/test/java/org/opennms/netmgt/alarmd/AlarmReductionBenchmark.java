@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.alarmd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opennms.core.test.OpenNMSJUnit4ClassRunner;
+import org.opennms.core.test.db.MockDatabase;
+import org.opennms.core.test.db.TemporaryDatabaseAware;
+import org.opennms.core.test.db.annotations.JUnitTemporaryDatabase;
+import org.opennms.netmgt.dao.api.AlarmDao;
+import org.opennms.netmgt.dao.api.DistPollerDao;
+import org.opennms.netmgt.model.OnmsAlarm;
+import org.opennms.netmgt.model.OnmsDistPoller;
+import org.opennms.netmgt.model.OnmsSeverity;
+import org.opennms.netmgt.model.events.EventBuilder;
+import org.opennms.netmgt.xml.event.AlarmData;
+import org.opennms.netmgt.xml.event.Event;
+import org.opennms.test.JUnitConfigurationEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Replays a stream of events against a database with a large number of
+ * active alarms, with and without the {@link AlarmReductionKeyIndex}, and
+ * logs the resulting throughput.
+ *
+ * The number of alarms and events can be tuned using the
+ * "org.opennms.alarmd.benchmark.alarms" and "org.opennms.alarmd.benchmark.events"
+ * system properties.
+ *
+ * Since it takes several minutes, the class name doesn't match the patterns of
+ * the test runs, and it has to be run explicitly with:
+ * mvn verify -DskipITs=false -Dit.test=AlarmReductionBenchmark
+ */
+@RunWith(OpenNMSJUnit4ClassRunner.class)
+@ContextConfiguration(locations={
+        "classpath:/META-INF/opennms/applicationContext-soa.xml",
+        "classpath:/META-INF/opennms/applicationContext-commonConfigs.xml",
+        "classpath:/META-INF/opennms/applicationContext-minimal-conf.xml",
+        "classpath:/META-INF/opennms/applicationContext-dao.xml",
+        "classpath*:/META-INF/opennms/component-dao.xml",
+        "classpath:/META-INF/opennms/applicationContext-daemon.xml",
+        "classpath:/META-INF/opennms/mockEventIpcManager.xml",
+        "classpath:/META-INF/opennms/applicationContext-alarmd.xml"
+})
+@JUnitConfigurationEnvironment
+@JUnitTemporaryDatabase(dirtiesContext=false,tempDbClass=MockDatabase.class)
+public class AlarmReductionBenchmark implements TemporaryDatabaseAware<MockDatabase> {
+    private static final Logger LOG = LoggerFactory.getLogger(AlarmReductionBenchmark.class);
+
+    private static final String UEI = "uei.opennms.org/test/benchmark";
+
+    private static final int NUM_ALARMS = Integer.getInteger("org.opennms.alarmd.benchmark.alarms", 100000);
+
+    private static final int NUM_EVENTS = Integer.getInteger("org.opennms.alarmd.benchmark.events", 10000);
+
+    @Autowired
+    private AlarmDao m_alarmDao;
+
+    @Autowired
+    private DistPollerDao m_distPollerDao;
+
+    @Autowired
+    private TransactionOperations m_transactionOperations;
+
+    @Autowired
+    private AlarmPersisterImpl m_alarmPersister;
+
+    @Autowired
+    private AlarmReductionKeyIndex m_reductionKeyIndex;
+
+    private MockDatabase m_database;
+
+    private final Random m_random = new Random(42);
+
+    @Before
+    public void setUp() {
+        final Date now = new Date();
+        for (int offset = 0; offset < NUM_ALARMS; offset += 1000) {
+            final int start = offset;
+            m_transactionOperations.execute(status -> {
+                final OnmsDistPoller distPoller = m_distPollerDao.whoami();
+                for (int i = start; i < Math.min(start + 1000, NUM_ALARMS); i++) {
+                    final OnmsAlarm alarm = new OnmsAlarm();
+                    alarm.setUei(UEI);
+                    alarm.setDistPoller(distPoller);
+                    alarm.setReductionKey(reductionKey(i));
+                    alarm.setAlarmType(OnmsAlarm.PROBLEM_TYPE);
+                    alarm.setCounter(1);
+                    alarm.setSeverity(OnmsSeverity.MAJOR);
+                    alarm.setFirstEventTime(now);
+                    alarm.setLastEventTime(now);
+                    m_alarmDao.save(alarm);
+                }
+                m_alarmDao.flush();
+                return null;
+            });
+        }
+    }
+
+    @Test
+    public void canReplayEventStream() {
+        m_reductionKeyIndex.setEnabled(false);
+        m_alarmPersister.setReductionKeyIndex(null);
+
+        // Warm up
+        replay("warmup");
+        final double withoutIndex = replay("without index");
+
+        m_reductionKeyIndex.setEnabled(true);
+        m_reductionKeyIndex.load();
+        m_alarmPersister.setReductionKeyIndex(m_reductionKeyIndex);
+        final double withIndex = replay("with index");
+
+        LOG.info("Reduced {} events/s without the index and {} events/s with the index, using {} active alarms.",
+                String.format("%.2f", withoutIndex), String.format("%.2f", withIndex), NUM_ALARMS);
+
+        // Every reduction should have been served by the index
+        assertEquals(NUM_EVENTS, m_reductionKeyIndex.getHits());
+        assertEquals(0, m_reductionKeyIndex.getMisses());
+
+        // The events were all reduced, and no new alarms were created
+        m_transactionOperations.execute(status -> {
+            assertEquals(NUM_ALARMS, m_alarmDao.countAll());
+            final long totalCount = m_alarmDao.findAll().stream().mapToLong(OnmsAlarm::getCounter).sum();
+            assertEquals(NUM_ALARMS + 3L * NUM_EVENTS, totalCount);
+            return null;
+        });
+    }
+
+    /**
+     * @return the number of events reduced per second
+     */
+    private double replay(String label) {
+        // Persist the events before we start the clock
+        final List<Event> events = new ArrayList<>(NUM_EVENTS);
+        for (int i = 0; i < NUM_EVENTS; i++) {
+            final EventBuilder builder = new EventBuilder(UEI, "test");
+            builder.setTime(new Date());
+            builder.setSeverity(OnmsSeverity.MAJOR.getLabel());
+            builder.setLogDest("logndisplay");
+            builder.setLogMessage("benchmark");
+
+            final AlarmData data = new AlarmData();
+            data.setAlarmType(OnmsAlarm.PROBLEM_TYPE);
+            data.setReductionKey(reductionKey(m_random.nextInt(NUM_ALARMS)));
+            builder.setAlarmData(data);
+
+            final Event event = builder.getEvent();
+            m_database.writeEvent(event);
+            events.add(event);
+        }
+
+        final long start = System.nanoTime();
+        for (Event event : events) {
+            m_alarmPersister.persist(event);
+        }
+        final long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed > 0);
+
+        final double rate = NUM_EVENTS / (elapsed / (double)TimeUnit.SECONDS.toNanos(1));
+        LOG.info("Replayed {} events {} in {}ms.", NUM_EVENTS, label, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return rate;
+    }
+
+    private static String reductionKey(int i) {
+        return String.format("%s::%d", UEI, i);
+    }
+
+    @Override
+    public void setTemporaryDatabase(final MockDatabase database) {
+        m_database = database;
+    }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.alarmd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.netmgt.dao.api.AlarmDao;
+import org.opennms.netmgt.model.OnmsAlarm;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class AlarmReductionKeyIndexTest {
+
+    private AlarmDao alarmDao;
+
+    private AlarmReductionKeyIndex index;
+
+    @Before
+    public void setUp() {
+        alarmDao = mock(AlarmDao.class);
+        index = new AlarmReductionKeyIndex();
+        index.setAlarmDao(alarmDao);
+        index.setTransactionOperations(new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        });
+        index.setEnabled(true);
+    }
+
+    @Test
+    public void canUsePrimaryKeyLookupsForIndexedAlarms() {
+        final OnmsAlarm alarm = alarm(1, "uei.opennms.org/nodes/nodeDown::1");
+        when(alarmDao.getAlarmIdsByReductionKey()).thenReturn(Collections.singletonMap("uei.opennms.org/nodes/nodeDown::1", 1));
+        when(alarmDao.get(1)).thenReturn(alarm);
+        index.afterPropertiesSet();
+
+        assertSame(alarm, index.findByReductionKey("uei.opennms.org/nodes/nodeDown::1"));
+        verify(alarmDao, never()).findByReductionKey(anyString());
+        assertEquals(1, index.getHits());
+    }
+
+    @Test
+    public void canFallBackToDaoOnMissesAndStaleEntries() {
+        when(alarmDao.getAlarmIdsByReductionKey()).thenReturn(Collections.singletonMap("uei.opennms.org/nodes/nodeDown::1", 1));
+        index.afterPropertiesSet();
+
+        // The alarm was deleted behind our back
+        when(alarmDao.get(1)).thenReturn(null);
+        assertNull(index.findByReductionKey("uei.opennms.org/nodes/nodeDown::1"));
+        verify(alarmDao, times(1)).findByReductionKey("uei.opennms.org/nodes/nodeDown::1");
+        assertEquals(0, index.size());
+
+        // An alarm we didn't know about is found using the DAO, and indexed
+        final OnmsAlarm alarm = alarm(2, "uei.opennms.org/nodes/nodeDown::2");
+        when(alarmDao.findByReductionKey("uei.opennms.org/nodes/nodeDown::2")).thenReturn(alarm);
+        when(alarmDao.get(2)).thenReturn(alarm);
+        assertSame(alarm, index.findByReductionKey("uei.opennms.org/nodes/nodeDown::2"));
+        assertSame(alarm, index.findByReductionKey("uei.opennms.org/nodes/nodeDown::2"));
+        verify(alarmDao, times(1)).findByReductionKey("uei.opennms.org/nodes/nodeDown::2");
+        assertEquals(2, index.getMisses());
+        assertEquals(1, index.getHits());
+    }
+
+    @Test
+    public void canTrackAlarmCallbacks() {
+        final OnmsAlarm alarm = alarm(3, "uei.opennms.org/nodes/nodeDown::3");
+        index.onAlarmCreated(alarm);
+        assertEquals(1, index.size());
+
+        // Archiving an alarm changes its reduction key
+        alarm.archive();
+        index.onAlarmArchived(alarm, "uei.opennms.org/nodes/nodeDown::3");
+        assertEquals(0, index.size());
+
+        final OnmsAlarm other = alarm(4, "uei.opennms.org/nodes/nodeDown::4");
+        index.onAlarmCreated(other);
+        index.onAlarmDeleted(other);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void canBypassIndexWhenDisabled() {
+        index.setEnabled(false);
+        index.afterPropertiesSet();
+        index.onAlarmCreated(alarm(5, "uei.opennms.org/nodes/nodeDown::5"));
+        assertEquals(0, index.size());
+
+        index.findByReductionKey("uei.opennms.org/nodes/nodeDown::5");
+        verify(alarmDao, times(1)).findByReductionKey("uei.opennms.org/nodes/nodeDown::5");
+        verify(alarmDao, never()).getAlarmIdsByReductionKey();
+    }
+
+    private static OnmsAlarm alarm(int id, String reductionKey) {
+        final OnmsAlarm alarm = new OnmsAlarm();
+        alarm.setId(id);
+        alarm.setReductionKey(reductionKey);
+        return alarm;
+    }
+}
@@ -325,6 +325,37 @@ public class AlarmdIT implements TemporaryDatabaseAware<MockDatabase>, Initializ
         }
     }
 
+    @Test
+    public void canCoalesceReductions() throws Exception {
+        final String reductionKey = "uei.opennms.org/nodes/nodeDown:1";
+        final AlarmPersisterImpl persister = (AlarmPersisterImpl)m_alarmd.getPersister();
+        persister.setCoalesceWindowMs(500);
+        persister.afterPropertiesSet();
+        try {
+            final MockNode node = m_mockNetwork.getNode(1);
+            for (int i = 0; i < 10; i++) {
+                sendNodeDownEvent(node);
+            }
+
+            // The reductions are applied in bulk once the window closes
+            await().atMost(10, SECONDS).until(() -> m_alarmDao.findByReductionKey(reductionKey).getCounter(), equalTo(10));
+            assertEquals(1, m_alarmDao.findAll().size());
+
+            // Every event is still associated with the alarm
+            final Integer alarmId = m_alarmDao.findByReductionKey(reductionKey).getId();
+            assertEquals(10, m_database.countRows("select * from events where alarmid = ?", alarmId));
+
+            // The clear is not deferred, and flushes the pending reduction first
+            sendNodeDownEvent(node);
+            sendNodeUpEvent(node);
+            await().until(() -> m_alarmDao.findByReductionKey(reductionKey).getSeverity(), equalTo(OnmsSeverity.CLEARED));
+            assertEquals(Integer.valueOf(11), m_alarmDao.findByReductionKey(reductionKey).getCounter());
+        } finally {
+            persister.destroy();
+            persister.setCoalesceWindowMs(0);
+        }
+    }
+
     @Test
     @Transactional
     public void testPersistSituations() throws Exception {
@@ -117,6 +117,14 @@ public class TrapdConfiguration implements  Serializable {
 	@XmlAttribute(name="batch-interval", required=false)
     private int _batchInterval = 500;
 
+    /**
+     * When set, the batch size is adapted at runtime so that messages
+     * wait for roughly this interval (ms) before being dispatched, and the
+     * batch-size becomes an upper bound.
+     */
+	@XmlAttribute(name="batch-target-latency", required=false)
+    private int _batchTargetLatency = 0;
+
     /**
      * keeps track of state for field: _newSuspectOnTrap
      */
@@ -209,7 +217,7 @@ public class TrapdConfiguration implements  Serializable {
 
     public int hashCode() {
         return Objects.hash(_snmpTrapAddress, _snmpTrapPort, _has_snmpTrapPort, _newSuspectOnTrap, _snmpv3UserList,
-                _includeRawMessage, _threads, _queueSize, _batchSize, _batchInterval, _useAddessFromVarbind);
+                _includeRawMessage, _threads, _queueSize, _batchSize, _batchInterval, _batchTargetLatency, _useAddessFromVarbind);
     }
 
     @Override()
@@ -229,6 +237,7 @@ public class TrapdConfiguration implements  Serializable {
                     && Objects.equals(_queueSize, other._queueSize)
                     && Objects.equals(_batchSize, other._batchSize)
                     && Objects.equals(_batchInterval, other._batchInterval)
+                    && Objects.equals(_batchTargetLatency, other._batchTargetLatency)
                     && Objects.equals(_useAddessFromVarbind, other._useAddessFromVarbind);
             return equals;
         }
@@ -558,4 +567,12 @@ public class TrapdConfiguration implements  Serializable {
     public void setBatchInterval(int _batchInterval) {
         this._batchInterval = _batchInterval;
     }
+
+    public int getBatchTargetLatency() {
+        return _batchTargetLatency;
+    }
+
+    public void setBatchTargetLatency(int _batchTargetLatency) {
+        this._batchTargetLatency = _batchTargetLatency;
+    }
 }
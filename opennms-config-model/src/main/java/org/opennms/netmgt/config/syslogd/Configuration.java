@@ -149,6 +149,14 @@ public class Configuration implements Serializable {
     @XmlAttribute(name = "batch-interval")
     private Integer m_batchInterval;
 
+    /**
+     * When set, the batch size is adapted at runtime so that messages
+     *  wait for roughly this interval (ms) before being dispatched, and the
+     *  batch-size becomes an upper bound.
+     */
+    @XmlAttribute(name = "batch-target-latency")
+    private Integer m_batchTargetLatency;
+
     @XmlAttribute(name = "timezone")
     private String timeZone;
 
@@ -251,6 +259,14 @@ public class Configuration implements Serializable {
         m_batchInterval = ConfigUtils.assertMinimumInclusive(batchInterval, 1, "batch-interval");
     }
 
+    public Integer getBatchTargetLatency() {
+        return m_batchTargetLatency != null ? m_batchTargetLatency : 0;
+    }
+
+    public void setBatchTargetLatency(final Integer batchTargetLatency) {
+        m_batchTargetLatency = ConfigUtils.assertMinimumInclusive(batchTargetLatency, 0, "batch-target-latency");
+    }
+
     public Optional<TimeZone> getTimeZone(){
         if(Strings.emptyToNull(this.timeZone) ==null){
             return Optional.empty();
@@ -289,6 +305,7 @@ public class Configuration implements Serializable {
                             m_queueSize, 
                             m_batchSize, 
                             m_batchInterval,
+                            m_batchTargetLatency,
                             timeZone,
                             includeRawSyslogmessage);
     }
@@ -319,6 +336,7 @@ public class Configuration implements Serializable {
                     && Objects.equals(this.m_queueSize, that.m_queueSize)
                     && Objects.equals(this.m_batchSize, that.m_batchSize)
                     && Objects.equals(this.m_batchInterval, that.m_batchInterval)
+                    && Objects.equals(this.m_batchTargetLatency, that.m_batchTargetLatency)
                     && Objects.equals(this.timeZone, that.timeZone)
                     && Objects.equals(this.includeRawSyslogmessage, that.includeRawSyslogmessage);
         }
@@ -0,0 +1,422 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.xml.eventconf;
+
+import static org.opennms.netmgt.xml.eventconf.Maskelement.TAG_SNMP_EID;
+import static org.opennms.netmgt.xml.eventconf.Maskelement.TAG_SNMP_GENERIC;
+import static org.opennms.netmgt.xml.eventconf.Maskelement.TAG_SNMP_SPECIFIC;
+import static org.opennms.netmgt.xml.eventconf.Maskelement.TAG_SOURCE;
+import static org.opennms.netmgt.xml.eventconf.Maskelement.TAG_UEI;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * An immutable, indexed view of an initialized {@link Events} tree that
+ * answers {@link Events#findFirstMatchingEvent(org.opennms.netmgt.xml.event.Event)}
+ * without scanning every event definition.
+ *
+ * <p>The tree is flattened into the exact order in which {@link Events} searches
+ * it: the UEI index of a level, followed by the (priority ordered) event
+ * definitions of that level, followed by each of the loaded event files. Every
+ * event definition is then filed under one of its mask elements or varbinds
+ * that can only match a single value, or a value prefix (i.e. the enterprise id
+ * of a trap), so that only the definitions which could possibly match a given
+ * event are evaluated. Definitions without such a constraint are always
+ * evaluated. Candidates are visited in their original order, so the first match
+ * is identical to the one found by the linear scan.</p>
+ *
+ * <p>Instances must be rebuilt whenever the underlying {@link Events} are
+ * re-initialized.</p>
+ */
+public class EventDecisionTree {
+
+    /**
+     * Mask elements to index on, from most to least selective.
+     */
+    private static final String[] PREFERRED_MASK_ELEMENTS = new String[] {
+            TAG_UEI, TAG_SNMP_EID, TAG_SNMP_SPECIFIC, TAG_SNMP_GENERIC, TAG_SOURCE
+    };
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Event definitions by search position, UEI lookups occupy a position
+     * of their own and are represented by a null entry.
+     */
+    private final Event[] m_definitions;
+
+    private final Map<String, UeiHit> m_ueiHits;
+
+    private final FieldIndex[] m_fieldIndexes;
+
+    private final int[] m_unindexed;
+
+    private final int m_levels;
+
+    private EventDecisionTree(final Builder builder) {
+        m_definitions = builder.m_definitions.toArray(new Event[builder.m_definitions.size()]);
+        m_ueiHits = builder.m_ueiHits;
+        m_fieldIndexes = builder.m_fieldIndexes.values().stream()
+                .map(FieldIndexBuilder::build)
+                .toArray(FieldIndex[]::new);
+        m_unindexed = toArray(builder.m_unindexed);
+        m_levels = builder.m_levels;
+    }
+
+    /**
+     * Compiles the given events, which must already have been initialized.
+     */
+    public static EventDecisionTree compile(final Events events) {
+        final Builder builder = new Builder();
+        builder.addLevel(events);
+        return new EventDecisionTree(builder);
+    }
+
+    public Event findFirstMatchingEvent(final org.opennms.netmgt.xml.event.Event matchingEvent) {
+        // A UEI match stops the search at the position of the level that indexed it
+        final String uei = matchingEvent.getUei();
+        final UeiHit ueiHit = uei == null ? null : m_ueiHits.get(uei);
+        final int limit = ueiHit == null ? Integer.MAX_VALUE : ueiHit.position;
+
+        final List<int[]> candidates = new ArrayList<>(m_fieldIndexes.length + 1);
+        candidates.add(m_unindexed);
+        for (final FieldIndex fieldIndex : m_fieldIndexes) {
+            fieldIndex.collect(matchingEvent, candidates);
+        }
+
+        // Merge the sorted candidate lists and evaluate them in search order
+        final int[] cursors = new int[candidates.size()];
+        int last = -1;
+        while (true) {
+            int next = limit;
+            int nextList = -1;
+            for (int i = 0; i < cursors.length; i++) {
+                final int[] positions = candidates.get(i);
+                if (cursors[i] < positions.length && positions[cursors[i]] < next) {
+                    next = positions[cursors[i]];
+                    nextList = i;
+                }
+            }
+            if (nextList < 0) {
+                break;
+            }
+            cursors[nextList]++;
+            if (next == last) {
+                // Already evaluated through another list
+                continue;
+            }
+            last = next;
+
+            final Event definition = m_definitions[next];
+            if (definition.matches(matchingEvent)) {
+                return definition;
+            }
+        }
+
+        return ueiHit == null ? null : ueiHit.event;
+    }
+
+    /**
+     * @return the number of event definitions in the tree, including the
+     * prioritized definitions that are searched more than once
+     */
+    public int size() {
+        return m_definitions.length - m_levels;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("definitions", size())
+                .add("levels", m_levels)
+                .add("ueis", m_ueiHits.size())
+                .add("fields", m_fieldIndexes.length)
+                .add("unindexed", m_unindexed.length)
+                .toString();
+    }
+
+    private static int[] toArray(final List<Integer> positions) {
+        if (positions.isEmpty()) {
+            return EMPTY;
+        }
+        final int[] array = new int[positions.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = positions.get(i);
+        }
+        return array;
+    }
+
+    private static class UeiHit {
+        private final int position;
+        private final Event event;
+
+        private UeiHit(final int position, final Event event) {
+            this.position = position;
+            this.event = event;
+        }
+    }
+
+    private static class FieldIndex {
+        private final Field m_field;
+        private final Map<String, int[]> m_exact;
+        private final PrefixNode m_prefixes;
+
+        private FieldIndex(final Field field, final Map<String, int[]> exact, final PrefixNode prefixes) {
+            m_field = field;
+            m_exact = exact;
+            m_prefixes = prefixes;
+        }
+
+        private void collect(final org.opennms.netmgt.xml.event.Event matchingEvent, final List<int[]> candidates) {
+            final String value = m_field.get(matchingEvent);
+            if (value == null) {
+                return;
+            }
+            final int[] positions = m_exact.get(value);
+            if (positions != null) {
+                candidates.add(positions);
+            }
+            if (m_prefixes != null) {
+                m_prefixes.collect(value, candidates);
+            }
+        }
+    }
+
+    /**
+     * A character trie holding the positions of the definitions that match
+     * any value starting with the path to the node.
+     */
+    private static class PrefixNode {
+        private final Map<Character, PrefixNode> m_children = new HashMap<>();
+        private List<Integer> m_pending = new ArrayList<>();
+        private int[] m_positions = EMPTY;
+
+        private void add(final String prefix, final int position) {
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.m_children.computeIfAbsent(prefix.charAt(i), c -> new PrefixNode());
+            }
+            node.m_pending.add(position);
+        }
+
+        private void freeze() {
+            m_positions = toArray(m_pending);
+            m_pending = null;
+            m_children.values().forEach(PrefixNode::freeze);
+        }
+
+        private void collect(final String value, final List<int[]> candidates) {
+            PrefixNode node = this;
+            int i = 0;
+            while (node != null) {
+                if (node.m_positions.length > 0) {
+                    candidates.add(node.m_positions);
+                }
+                if (i >= value.length()) {
+                    break;
+                }
+                node = node.m_children.get(value.charAt(i++));
+            }
+        }
+    }
+
+    private static class FieldIndexBuilder {
+        private final Field m_field;
+        private final Map<String, List<Integer>> m_exact = new HashMap<>();
+        private PrefixNode m_prefixes;
+
+        private FieldIndexBuilder(final Field field) {
+            m_field = field;
+        }
+
+        private void add(final IndexKey key, final int position) {
+            for (final String value : key.exactValues) {
+                final List<Integer> positions = m_exact.computeIfAbsent(value, v -> new ArrayList<>());
+                // A definition may list the same value twice
+                if (positions.isEmpty() || positions.get(positions.size() - 1) != position) {
+                    positions.add(position);
+                }
+            }
+            for (final String prefix : key.prefixes) {
+                if (m_prefixes == null) {
+                    m_prefixes = new PrefixNode();
+                }
+                m_prefixes.add(prefix, position);
+            }
+        }
+
+        private FieldIndex build() {
+            final Map<String, int[]> exact = new HashMap<>();
+            m_exact.forEach((value, positions) -> exact.put(value, toArray(positions)));
+            if (m_prefixes != null) {
+                m_prefixes.freeze();
+            }
+            return new FieldIndex(m_field, exact, m_prefixes);
+        }
+    }
+
+    /**
+     * A field that must hold one of the given values, or start with one of the
+     * given prefixes, for a definition to match.
+     */
+    private static class IndexKey {
+        private final String name;
+        private final Field field;
+        private final List<String> exactValues = new ArrayList<>();
+        private final List<String> prefixes = new ArrayList<>();
+
+        private IndexKey(final String name, final Field field) {
+            this.name = name;
+            this.field = field;
+        }
+
+        /**
+         * Mirrors the value handling in {@link Maskelement#constructMatcher()}
+         * and {@link Varbind#constructMatcher()}.
+         *
+         * @return the key, or null if any of the values is a regular expression
+         */
+        private static IndexKey of(final String name, final Field field, final List<String> values) {
+            final IndexKey key = new IndexKey(name, field);
+            for (final String value : values) {
+                if (value == null) {
+                    continue;
+                } else if (value.startsWith("~")) {
+                    return null;
+                } else if (value.endsWith("%")) {
+                    key.prefixes.add(value.substring(0, value.length() - 1));
+                } else {
+                    key.exactValues.add(value);
+                }
+            }
+            return key;
+        }
+
+        private boolean isExact() {
+            return prefixes.isEmpty();
+        }
+
+        private boolean isSelective() {
+            return prefixes.stream().noneMatch(String::isEmpty);
+        }
+    }
+
+    private static class Builder {
+        private final List<Event> m_definitions = new ArrayList<>();
+        private final Map<String, UeiHit> m_ueiHits = new HashMap<>();
+        private final Map<String, FieldIndexBuilder> m_fieldIndexes = new LinkedHashMap<>();
+        private final List<Integer> m_unindexed = new ArrayList<>();
+        private int m_levels = 0;
+
+        private void addLevel(final Events events) {
+            m_levels++;
+            final int ueiPosition = m_definitions.size();
+            m_definitions.add(null);
+            for (final Map.Entry<String, Event> entry : events.getEventsByUei().entrySet()) {
+                // Levels closer to the root are searched first
+                m_ueiHits.putIfAbsent(entry.getKey(), new UeiHit(ueiPosition, entry.getValue()));
+            }
+
+            for (final Event event : events.getEvents()) {
+                addDefinition(event);
+            }
+
+            for (final Events loadedEvents : events.getLoadedEvents()) {
+                addLevel(loadedEvents);
+            }
+        }
+
+        private void addDefinition(final Event event) {
+            final int position = m_definitions.size();
+            m_definitions.add(event);
+
+            final Mask mask = event.getMask();
+            final IndexKey key;
+            if (mask == null || mask.getMaskelements().isEmpty()) {
+                if (event.getUei() == null) {
+                    // Never matches
+                    return;
+                }
+                key = IndexKey.of(TAG_UEI, EventMatchers.field(TAG_UEI), Collections.singletonList(event.getUei()));
+            } else {
+                key = selectKey(mask);
+            }
+
+            if (key == null) {
+                m_unindexed.add(position);
+            } else {
+                m_fieldIndexes.computeIfAbsent(key.name, k -> new FieldIndexBuilder(key.field)).add(key, position);
+            }
+        }
+
+        private static IndexKey selectKey(final Mask mask) {
+            final List<IndexKey> keys = new ArrayList<>();
+            for (final String mename : PREFERRED_MASK_ELEMENTS) {
+                final Maskelement element = mask.getMaskElement(mename);
+                if (element != null) {
+                    addKey(keys, IndexKey.of(mename, EventMatchers.field(mename), element.getMevalues()));
+                }
+            }
+            for (final Maskelement element : mask.getMaskelements()) {
+                addKey(keys, IndexKey.of(element.getMename(), EventMatchers.field(element.getMename()), element.getMevalues()));
+            }
+            for (final Varbind varbind : mask.getVarbinds()) {
+                if (varbind.getVbnumber() != null && varbind.getVbnumber() > 0) {
+                    addKey(keys, IndexKey.of("varbind#" + varbind.getVbnumber(), EventMatchers.varbind(varbind.getVbnumber()), varbind.getVbvalues()));
+                }
+            }
+
+            // Favor keys with exact values, then keys with non-empty prefixes
+            for (final IndexKey key : keys) {
+                if (key.isExact()) {
+                    return key;
+                }
+            }
+            for (final IndexKey key : keys) {
+                if (key.isSelective()) {
+                    return key;
+                }
+            }
+            return null;
+        }
+
+        private static void addKey(final List<IndexKey> keys, final IndexKey key) {
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+    }
+}
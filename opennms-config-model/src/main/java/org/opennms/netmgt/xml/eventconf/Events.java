@@ -446,6 +446,22 @@ public class Events implements Serializable {
         }
     }
 
+    /**
+     * @return the UEI to event definition index for this level of the
+     * configuration, only valid once {@link #initialize(Partition, EventOrdering)}
+     * has been called
+     */
+    Map<String, Event> getEventsByUei() {
+        return Collections.unmodifiableMap(m_eventsByUei);
+    }
+
+    /**
+     * @return the event files loaded beneath this level, in search order
+     */
+    Collection<Events> getLoadedEvents() {
+        return Collections.unmodifiableCollection(m_loadedEventFiles.values());
+    }
+
     public Events getLoadEventsByFile(final String relativePath) {
         return m_loadedEventFiles.get(relativePath);
     }
@@ -44,6 +44,7 @@ import org.opennms.core.config.api.ConfigReloadContainer;
 import org.opennms.core.xml.JaxbUtils;
 import org.opennms.netmgt.config.api.EventConfDao;
 import org.opennms.netmgt.xml.eventconf.Event;
+import org.opennms.netmgt.xml.eventconf.EventDecisionTree;
 import org.opennms.netmgt.xml.eventconf.EventLabelComparator;
 import org.opennms.netmgt.xml.eventconf.EventMatchers;
 import org.opennms.netmgt.xml.eventconf.EventOrdering;
@@ -63,6 +64,11 @@ public class DefaultEventConfDao implements EventConfDao, InitializingBean {
 	private static final Logger LOG = LoggerFactory.getLogger(DefaultEventConfDao.class);
 	private static final String DEFAULT_PROGRAMMATIC_STORE_RELATIVE_PATH = "events/programmatic.events.xml";
 
+	/**
+	 * System property used to enable the {@link EventDecisionTree} by default.
+	 */
+	public static final String DECISION_TREE_SYS_PROP = "org.opennms.eventd.eventconf.decisionTree";
+
     /**
      * Relative URL for the programmatic store configuration, relative to the
      * root configuration resource (which must be resolvable to a URL).
@@ -83,6 +89,14 @@ public class DefaultEventConfDao implements EventConfDao, InitializingBean {
 
 	private ConfigReloadContainer<Events> m_extContainer;
 
+	/**
+	 * When enabled, {@link #findByEvent(org.opennms.netmgt.xml.event.Event)} is answered
+	 * by a decision tree compiled from the loaded events instead of scanning them.
+	 */
+	private boolean m_useDecisionTree = Boolean.getBoolean(DECISION_TREE_SYS_PROP);
+
+	private volatile EventDecisionTree m_decisionTree;
+
 	public String getProgrammaticStoreRelativeUrl() {
 		return m_programmaticStoreRelativePath;
 	}
@@ -91,6 +105,17 @@ public class DefaultEventConfDao implements EventConfDao, InitializingBean {
 		m_programmaticStoreRelativePath = programmaticStoreRelativeUrl;
 	}
 
+	public boolean isUseDecisionTree() {
+		return m_useDecisionTree;
+	}
+
+	public synchronized void setUseDecisionTree(boolean useDecisionTree) {
+		m_useDecisionTree = useDecisionTree;
+		if (m_events != null) {
+			compileDecisionTree(m_events);
+		}
+	}
+
 	@Override
 	public void reload() throws DataAccessException {
 		try {
@@ -185,6 +210,7 @@ public class DefaultEventConfDao implements EventConfDao, InitializingBean {
 	public void addEvent(Event event) {
 		m_events.addEvent(event);
 		m_events.initialize(m_partition, new EventOrdering());
+		compileDecisionTree(m_events);
 	}
 
 	@Override
@@ -197,6 +223,7 @@ public class DefaultEventConfDao implements EventConfDao, InitializingBean {
 
 		programmaticEvents.addEvent(event);
 		m_events.initialize(m_partition, new EventOrdering());
+		compileDecisionTree(m_events);
 
 	}
 
@@ -211,6 +238,7 @@ public class DefaultEventConfDao implements EventConfDao, InitializingBean {
 		}
 
 		m_events.initialize(m_partition, new EventOrdering());
+		compileDecisionTree(m_events);
 
 		return true;
 
@@ -235,6 +263,10 @@ public class DefaultEventConfDao implements EventConfDao, InitializingBean {
 
 	@Override
 	public Event findByEvent(final org.opennms.netmgt.xml.event.Event matchingEvent) {
+		final EventDecisionTree decisionTree = m_decisionTree;
+		if (decisionTree != null) {
+			return decisionTree.findFirstMatchingEvent(matchingEvent);
+		}
 		return m_events.findFirstMatchingEvent(matchingEvent);
 	}
 
@@ -313,6 +345,7 @@ public class DefaultEventConfDao implements EventConfDao, InitializingBean {
 
             // Order the events for efficient searching
             events.initialize(m_partition, new EventOrdering());
+            compileDecisionTree(events);
 
             m_events = events;
         } catch (Exception e) {
@@ -327,6 +360,7 @@ public class DefaultEventConfDao implements EventConfDao, InitializingBean {
 
 			m_partition = new EnterpriseIdPartition();
 			events.initialize(m_partition, new EventOrdering());
+			compileDecisionTree(events);
 
 			m_events = events;
 		} catch (Exception e) {
@@ -334,6 +368,21 @@ public class DefaultEventConfDao implements EventConfDao, InitializingBean {
 		}
 	}
 
+    /**
+     * Rebuilds the decision tree for the given, initialized, events.
+     * Must be called whenever the events are re-initialized.
+     */
+    private void compileDecisionTree(Events events) {
+        if (!m_useDecisionTree) {
+            m_decisionTree = null;
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        final EventDecisionTree decisionTree = EventDecisionTree.compile(events);
+        LOG.info("Compiled event decision tree {} in {}ms.", decisionTree, System.currentTimeMillis() - start);
+        m_decisionTree = decisionTree;
+    }
+
     private void initExtensions() {
         m_extContainer = new ConfigReloadContainer.Builder<>(Events.class)
                 .withMerger((source, target) -> {
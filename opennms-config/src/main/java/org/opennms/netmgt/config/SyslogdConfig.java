@@ -143,6 +143,15 @@ public interface SyslogdConfig {
      */
     int getBatchIntervalMs();
 
+    /**
+     * When greater than 0, the batch size is adapted at runtime so that
+     * messages wait for roughly this interval before being dispatched,
+     * and the batch size is used as an upper bound.
+     *
+     * @return target latency in ms, or 0 if batches have a fixed size
+     */
+    int getBatchTargetLatencyMs();
+
     /**
      * Optional:
      * - if not null it will be used as default time zone if no time zone is given
@@ -223,6 +223,11 @@ public final class SyslogdConfigFactory implements SyslogdConfig {
         return m_config.getConfiguration().getBatchInterval();
     }
 
+    @Override
+    public int getBatchTargetLatencyMs() {
+        return m_config.getConfiguration().getBatchTargetLatency();
+    }
+
     @Override
     public TimeZone getTimeZone() {
         return m_config.getConfiguration().getTimeZone().orElse(null);
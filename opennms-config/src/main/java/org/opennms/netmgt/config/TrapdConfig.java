@@ -81,6 +81,15 @@ public interface TrapdConfig {
      */
     int getBatchIntervalMs();
 
+    /**
+     * When greater than 0, the batch size is adapted at runtime so that
+     * messages wait for roughly this interval before being dispatched,
+     * and the batch size is used as an upper bound.
+     *
+     * @return target latency in ms, or 0 if batches have a fixed size
+     */
+    int getBatchTargetLatencyMs();
+
     void update(TrapdConfig config);
 
     boolean shouldUseAddressFromVarbind();
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.config;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.opennms.core.xml.JaxbUtils;
+import org.opennms.netmgt.model.events.EventBuilder;
+import org.opennms.netmgt.xml.eventconf.Event;
+import org.opennms.netmgt.xml.eventconf.Events;
+import org.opennms.netmgt.xml.eventconf.LogDestType;
+import org.opennms.netmgt.xml.eventconf.Logmsg;
+import org.opennms.netmgt.xml.eventconf.Mask;
+import org.opennms.netmgt.xml.eventconf.Maskelement;
+import org.opennms.netmgt.xml.eventconf.Varbind;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Compares the scan performed by {@link DefaultEventConfDao#findByEvent(org.opennms.netmgt.xml.event.Event)}
+ * with the {@link org.opennms.netmgt.xml.eventconf.EventDecisionTree} over generated
+ * trap definitions of increasing size.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.netmgt.config.EventConfDaoBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class EventConfDaoBenchmark {
+
+    private static final int EVENTS_PER_FILE = 500;
+
+    private static final int NUM_ENTERPRISES = 200;
+
+    @Param({"1000", "5000", "15000"})
+    public int numDefinitions;
+
+    private DefaultEventConfDao m_scanDao;
+
+    private DefaultEventConfDao m_decisionTreeDao;
+
+    private org.opennms.netmgt.xml.event.Event[] m_traps;
+
+    private int m_next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final File eventConfDir = Files.createTempDirectory("eventconf").toFile();
+        eventConfDir.deleteOnExit();
+        final File eventConf = writeEventConf(eventConfDir, numDefinitions, new Random(42));
+
+        m_scanDao = new DefaultEventConfDao();
+        m_scanDao.setUseDecisionTree(false);
+        m_scanDao.setConfigResource(new FileSystemResource(eventConf));
+        m_scanDao.afterPropertiesSet();
+
+        m_decisionTreeDao = new DefaultEventConfDao();
+        m_decisionTreeDao.setUseDecisionTree(true);
+        m_decisionTreeDao.setConfigResource(new FileSystemResource(eventConf));
+        m_decisionTreeDao.afterPropertiesSet();
+
+        // Mix of traps that hit specific definitions, prefix definitions and nothing at all
+        final Random random = new Random(13);
+        m_traps = new org.opennms.netmgt.xml.event.Event[1024];
+        for (int i = 0; i < m_traps.length; i++) {
+            final EventBuilder eb = new EventBuilder(null, "trapd");
+            eb.setEnterpriseId(".1.3.6.1.4.1." + random.nextInt(NUM_ENTERPRISES * 2) + ".1");
+            eb.setGeneric(6);
+            eb.setSpecific(random.nextInt(numDefinitions / NUM_ENTERPRISES + 2));
+            eb.addParam(".1.3.6.1.4.1.5813.20.1", Integer.toString(random.nextInt(4)));
+            m_traps[i] = eb.getEvent();
+        }
+    }
+
+    @Benchmark
+    public Event scan() {
+        return m_scanDao.findByEvent(nextTrap());
+    }
+
+    @Benchmark
+    public Event decisionTree() {
+        return m_decisionTreeDao.findByEvent(nextTrap());
+    }
+
+    private org.opennms.netmgt.xml.event.Event nextTrap() {
+        m_next = (m_next + 1) & (m_traps.length - 1);
+        return m_traps[m_next];
+    }
+
+    private static File writeEventConf(final File dir, final int numDefinitions, final Random random) throws Exception {
+        final Events root = new Events();
+        final Map<String, Events> files = new LinkedHashMap<>();
+        Events file = null;
+        for (int i = 0; i < numDefinitions; i++) {
+            if (i % EVENTS_PER_FILE == 0) {
+                file = new Events();
+                final String fileName = "events/generated-" + (i / EVENTS_PER_FILE) + ".events.xml";
+                root.addEventFile(fileName);
+                files.put(fileName, file);
+            }
+
+            final int enterprise = i % NUM_ENTERPRISES;
+            final Event event = new Event();
+            event.setUei("uei.opennms.org/generated/" + enterprise + "/" + i);
+            event.setEventLabel("Generated event " + i);
+            event.setDescr("Generated event " + i);
+            final Logmsg logmsg = new Logmsg();
+            logmsg.setContent("Generated event " + i);
+            logmsg.setDest(LogDestType.LOGNDISPLAY);
+            event.setLogmsg(logmsg);
+            event.setSeverity("Indeterminate");
+
+            final int kind = random.nextInt(10);
+            if (kind < 9) {
+                final Mask mask = new Mask();
+                if (kind < 8) {
+                    mask.addMaskelement(maskelement(Maskelement.TAG_SNMP_EID, ".1.3.6.1.4.1." + enterprise + ".1"));
+                } else {
+                    // Wildcard enterprise ids end up in the unpartitioned list
+                    mask.addMaskelement(maskelement(Maskelement.TAG_SNMP_EID, ".1.3.6.1.4.1." + enterprise + "%"));
+                    final Varbind varbind = new Varbind();
+                    varbind.setVbnumber(1);
+                    varbind.setVbvalues(Arrays.asList(Integer.toString(random.nextInt(4))));
+                    mask.addVarbind(varbind);
+                }
+                mask.addMaskelement(maskelement(Maskelement.TAG_SNMP_GENERIC, "6"));
+                mask.addMaskelement(maskelement(Maskelement.TAG_SNMP_SPECIFIC, Integer.toString(i / NUM_ENTERPRISES)));
+                event.setMask(mask);
+            }
+            file.addEvent(event);
+        }
+
+        new File(dir, "events").mkdirs();
+        for (final Map.Entry<String, Events> entry : files.entrySet()) {
+            JaxbUtils.marshal(entry.getValue(), new File(dir, entry.getKey()));
+        }
+        final File eventConf = new File(dir, "eventconf.xml");
+        JaxbUtils.marshal(root, eventConf);
+        return eventConf;
+    }
+
+    private static Maskelement maskelement(final String name, final String value) {
+        final Maskelement element = new Maskelement();
+        element.setMename(name);
+        element.addMevalue(value);
+        return element;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EventConfDaoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
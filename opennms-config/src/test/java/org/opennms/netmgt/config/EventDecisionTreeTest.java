@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.core.test.ConfigurationTestUtils;
+import org.opennms.core.test.MockLogAppender;
+import org.opennms.netmgt.model.events.EventBuilder;
+import org.opennms.netmgt.xml.eventconf.Event;
+import org.opennms.netmgt.xml.eventconf.EventDecisionTree;
+import org.opennms.netmgt.xml.eventconf.Events;
+import org.opennms.netmgt.xml.eventconf.Mask;
+import org.opennms.netmgt.xml.eventconf.Maskelement;
+import org.opennms.netmgt.xml.eventconf.Varbind;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Verifies that the {@link EventDecisionTree} finds the same event
+ * definitions as the scan performed by {@link Events}.
+ */
+public class EventDecisionTreeTest {
+
+    private final Random m_random = new Random(42);
+
+    @Before
+    public void setUp() {
+        MockLogAppender.setupLogging();
+    }
+
+    @After
+    public void tearDown() {
+        MockLogAppender.assertNoWarningsOrGreater();
+    }
+
+    @Test
+    public void canMatchLikeScanWithMatcherTestEvents() throws Exception {
+        verifyEquivalence(new FileSystemResource(new File("src/test/resources/matcher-test.events.xml")));
+    }
+
+    @Test
+    public void canMatchLikeScanWithPrioritizedEvents() throws Exception {
+        verifyEquivalence(new FileSystemResource(new File("src/test/resources/priority/eventconf.xml")));
+        verifyEquivalence(new FileSystemResource(new File("src/test/resources/priority/eventconf2.xml")));
+        verifyEquivalence(new FileSystemResource(new File("src/test/resources/priority/eventconf3.xml")));
+    }
+
+    @Test
+    public void canMatchLikeScanWithStandardConfiguration() throws Exception {
+        verifyEquivalence(new FileSystemResource(ConfigurationTestUtils.getFileForConfigFile("eventconf.xml")));
+    }
+
+    @Test
+    public void canUseDecisionTreeInDao() throws Exception {
+        final DefaultEventConfDao eventConfDao = new DefaultEventConfDao();
+        eventConfDao.setUseDecisionTree(true);
+        eventConfDao.setConfigResource(new FileSystemResource(new File("src/test/resources/matcher-test.events.xml")));
+        eventConfDao.afterPropertiesSet();
+
+        final EventBuilder eb = new EventBuilder("uei.opennms.org/threshold/highThresholdExceeded", "JUnit");
+        eb.setNodeid(201);
+        Event event = eventConfDao.findByEvent(eb.getEvent());
+        assertEquals("Call Windows People", event.getOperinstruct());
+
+        // Definitions added at runtime must be visible to the rebuilt tree
+        final Event programmatic = new Event();
+        programmatic.setUei("uei.opennms.org/test/decisionTree");
+        programmatic.setEventLabel("Decision tree test");
+        programmatic.setSeverity("Warning");
+        eventConfDao.addEventToProgrammaticStore(programmatic);
+
+        event = eventConfDao.findByEvent(new EventBuilder("uei.opennms.org/test/decisionTree", "JUnit").getEvent());
+        assertNotNull(event);
+        assertEquals("Warning", event.getSeverity());
+    }
+
+    private void verifyEquivalence(final Resource configResource) throws Exception {
+        final DefaultEventConfDao eventConfDao = new DefaultEventConfDao();
+        eventConfDao.setConfigResource(configResource);
+        eventConfDao.afterPropertiesSet();
+
+        final Events events = eventConfDao.getRootEvents();
+        final EventDecisionTree decisionTree = EventDecisionTree.compile(events);
+
+        for (final Event definition : eventConfDao.getAllEvents()) {
+            for (final org.opennms.netmgt.xml.event.Event event : toEvents(definition)) {
+                assertSame("Mismatch for " + event + " generated from " + definition,
+                        events.findFirstMatchingEvent(event), decisionTree.findFirstMatchingEvent(event));
+            }
+        }
+    }
+
+    /**
+     * Generates events that target the given definition, as well as a few
+     * near misses, with and without a UEI.
+     */
+    private List<org.opennms.netmgt.xml.event.Event> toEvents(final Event definition) {
+        final List<org.opennms.netmgt.xml.event.Event> events = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final boolean withUei = i % 2 == 0;
+            final boolean nearMiss = i >= 2;
+            final EventBuilder eb = new EventBuilder(withUei ? definition.getUei() : null, "JUnit");
+            final Mask mask = definition.getMask();
+            if (mask != null) {
+                for (final Maskelement element : mask.getMaskelements()) {
+                    final String value = pick(element.getMevalues(), nearMiss);
+                    if (value != null) {
+                        setField(eb, element.getMename(), value);
+                    }
+                }
+                final List<String> varbinds = new ArrayList<>();
+                for (final Varbind varbind : mask.getVarbinds()) {
+                    final String value = pick(varbind.getVbvalues(), nearMiss);
+                    if (value == null || varbind.getVbnumber() == null || varbind.getVbnumber() <= 0) {
+                        continue;
+                    }
+                    while (varbinds.size() < varbind.getVbnumber()) {
+                        varbinds.add("unset");
+                    }
+                    varbinds.set(varbind.getVbnumber() - 1, value);
+                }
+                for (int vb = 0; vb < varbinds.size(); vb++) {
+                    eb.addParam(".1.3.6.1.4.1.5813.20." + (vb + 1), varbinds.get(vb));
+                }
+            }
+            events.add(eb.getEvent());
+        }
+        return events;
+    }
+
+    private String pick(final List<String> values, final boolean nearMiss) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        final String value = values.get(m_random.nextInt(values.size()));
+        if (value == null || value.startsWith("~")) {
+            return null;
+        } else if (value.endsWith("%")) {
+            return value.substring(0, value.length() - 1) + (nearMiss ? "" : ".1");
+        }
+        return nearMiss && m_random.nextBoolean() ? value + "1" : value;
+    }
+
+    private static void setField(final EventBuilder eb, final String name, final String value) {
+        try {
+            switch (name) {
+            case Maskelement.TAG_UEI:
+                eb.setUei(value);
+                break;
+            case Maskelement.TAG_SOURCE:
+                eb.setSource(value);
+                break;
+            case Maskelement.TAG_NODEID:
+                eb.setNodeid(Long.parseLong(value));
+                break;
+            case Maskelement.TAG_HOST:
+                eb.setHost(value);
+                break;
+            case Maskelement.TAG_SNMP_EID:
+                eb.setEnterpriseId(value);
+                break;
+            case Maskelement.TAG_SNMP_GENERIC:
+                eb.setGeneric(Integer.parseInt(value));
+                break;
+            case Maskelement.TAG_SNMP_SPECIFIC:
+                eb.setSpecific(Integer.parseInt(value));
+                break;
+            case Maskelement.TAG_SNMP_COMMUNITY:
+                eb.setCommunity(value);
+                break;
+            default:
+                if (name.startsWith("parm[") && name.endsWith("]")) {
+                    eb.addParam(name.substring(5, name.length() - 1), value);
+                }
+            }
+        } catch (final NumberFormatException e) {
+            // Leave the field unset
+        }
+    }
+}
@@ -40,6 +40,15 @@ public interface AlarmDao extends LegacyOnmsDao<OnmsAlarm, Integer> {
 
     OnmsAlarm findByReductionKey(String reductionKey);
 
+    /**
+     * Retrieves the ids of all of the alarms, keyed by their reduction key.
+     *
+     * Only the id and reduction key columns are loaded, no alarm entities are created.
+     *
+     * @return a map of alarm ids, keyed by reduction key
+     */
+    Map<String, Integer> getAlarmIdsByReductionKey();
+
     /**
      * <p>Get the list of current - not yet acknowledged - alarms per node with severity greater than normal,
      * reflecting the max severity, the minimum last event time and alarm count;
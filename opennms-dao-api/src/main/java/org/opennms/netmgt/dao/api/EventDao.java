@@ -28,6 +28,7 @@
 
 package org.opennms.netmgt.dao.api;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,15 @@ public interface EventDao extends LegacyOnmsDao<OnmsEvent, Integer> {
 
     int deletePreviousEventsForAlarm(final Integer id, final OnmsEvent e);
 
+    /**
+     * Associates the given events with the alarm, using a single bulk update.
+     *
+     * @param alarmId id of the alarm
+     * @param eventIds ids of the events
+     * @return the number of events that were updated
+     */
+    int setAlarmForEvents(final Integer alarmId, final Collection<Integer> eventIds);
+
     /**
      * Returns a list of events which have been created
      * AFTER date and the uei of each event matches one uei entry of the ueiList.
@@ -51,4 +61,15 @@ public interface EventDao extends LegacyOnmsDao<OnmsEvent, Integer> {
 
     List<OnmsEvent> getEventsForEventParameters(final Map<String, String> eventParameters);
 
+    /**
+     * Inserts the given events, and their parameters, using JDBC batch statements
+     * instead of one insert per entity. An id is assigned to each of the events.
+     *
+     * The events are written directly to the database and are not attached to
+     * the current session.
+     *
+     * @param events the events to insert
+     */
+    void saveInBatch(List<OnmsEvent> events);
+
 }
@@ -86,6 +86,13 @@ public class MockAlarmDao extends AbstractMockDao<OnmsAlarm, Integer> implements
         return null;
     }
 
+    @Override
+    public Map<String, Integer> getAlarmIdsByReductionKey() {
+        return findAll().stream()
+                .filter(alarm -> alarm.getReductionKey() != null)
+                .collect(Collectors.toMap(OnmsAlarm::getReductionKey, OnmsAlarm::getId));
+    }
+
     @Override
     public List<AlarmSummary> getNodeAlarmSummaries() {
         throw new UnsupportedOperationException("Not yet implemented!");
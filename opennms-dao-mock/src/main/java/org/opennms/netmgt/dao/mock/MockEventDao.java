@@ -29,6 +29,7 @@
 package org.opennms.netmgt.dao.mock;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -42,6 +43,7 @@ import java.util.stream.Stream;
 import org.opennms.netmgt.dao.api.CountedObject;
 import org.opennms.netmgt.dao.api.EventCountDao;
 import org.opennms.netmgt.dao.api.EventDao;
+import org.opennms.netmgt.model.OnmsAlarm;
 import org.opennms.netmgt.model.OnmsEvent;
 
 public class MockEventDao extends AbstractMockDao<OnmsEvent, Integer> implements EventDao, EventCountDao {
@@ -63,6 +65,20 @@ public class MockEventDao extends AbstractMockDao<OnmsEvent, Integer> implements
         throw new UnsupportedOperationException("Not yet implemented!");
     }
 
+    @Override
+    public int setAlarmForEvents(final Integer alarmId, final Collection<Integer> eventIds) {
+        final OnmsAlarm alarm = getAlarmDao().get(alarmId);
+        int updated = 0;
+        for (final Integer eventId : eventIds) {
+            final OnmsEvent event = get(eventId);
+            if (event != null) {
+                event.setAlarm(alarm);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
     @Override
     public List<OnmsEvent> getEventsAfterDate(List<String> ueiList, Date date) {
         List<OnmsEvent> matchingEvents = new ArrayList<OnmsEvent>();
@@ -75,6 +91,11 @@ public class MockEventDao extends AbstractMockDao<OnmsEvent, Integer> implements
         return matchingEvents;
     }
 
+    @Override
+    public void saveInBatch(final List<OnmsEvent> events) {
+        events.forEach(this::save);
+    }
+
     @Override
     public Set<CountedObject<String>> getUeiCounts(final Integer limit) {
         final Map<String,Long> counts = new HashMap<String,Long>();
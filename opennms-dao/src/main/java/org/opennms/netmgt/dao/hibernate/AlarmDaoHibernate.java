@@ -32,6 +32,7 @@ import java.math.BigInteger;
 import java.sql.SQLException;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -68,6 +69,17 @@ public class AlarmDaoHibernate extends AbstractDaoHibernate<OnmsAlarm, Integer>
         return super.findUnique(hql, reductionKey);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Integer> getAlarmIdsByReductionKey() {
+        final List<Object[]> rows = findObjects(Object[].class, "select alarm.reductionKey, alarm.id from OnmsAlarm as alarm where alarm.reductionKey is not null");
+        final Map<String, Integer> alarmIdsByReductionKey = new HashMap<>(rows.size());
+        for (Object[] row : rows) {
+            alarmIdsByReductionKey.put((String)row[0], (Integer)row[1]);
+        }
+        return alarmIdsByReductionKey;
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<AlarmSummary> getNodeAlarmSummariesIncludeAcknowledgedOnes(List<Integer> nodeIds) {
@@ -28,7 +28,11 @@
 
 package org.opennms.netmgt.dao.hibernate;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -36,13 +40,26 @@ import java.util.Map;
 import org.hibernate.HibernateException;
 import org.hibernate.Query;
 import org.hibernate.Session;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.opennms.core.utils.InetAddressUtils;
 import org.opennms.netmgt.dao.api.EventDao;
 import org.opennms.netmgt.model.OnmsEvent;
+import org.opennms.netmgt.model.OnmsEventParameter;
 import org.springframework.dao.DataAccessException;
 import org.springframework.orm.hibernate3.HibernateCallback;
 
 public class EventDaoHibernate extends AbstractDaoHibernate<OnmsEvent, Integer> implements EventDao {
 
+    private static final String INSERT_EVENT_SQL = "INSERT INTO events (eventId, eventUei, nodeId, eventTime, eventHost, eventSource, ipAddr, " +
+            "systemId, eventSnmpHost, serviceId, eventSnmp, eventCreateTime, eventDescr, eventLogGroup, eventLogMsg, eventSeverity, " +
+            "eventPathOutage, eventCorrelation, eventSuppressedCount, eventOperInstruct, eventAutoAction, eventOperAction, " +
+            "eventOperActionMenuText, eventNotification, eventTTicket, eventTTicketState, eventForward, eventMouseOverText, " +
+            "eventLog, eventDisplay, eventAckUser, eventAckTime, alarmId, ifIndex) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_EVENT_PARAMETER_SQL = "INSERT INTO event_parameters (eventID, name, value, type) VALUES (?, ?, ?, ?)";
+
 	public EventDaoHibernate() {
 		super(OnmsEvent.class);
 	}
@@ -55,6 +72,22 @@ public class EventDaoHibernate extends AbstractDaoHibernate<OnmsEvent, Integer>
         return bulkDelete(hql, values);
     }
 
+    @Override
+    public int setAlarmForEvents(final Integer alarmId, final Collection<Integer> eventIds) {
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+        return getHibernateTemplate().execute(new HibernateCallback<Integer>() {
+            @Override
+            public Integer doInHibernate(Session session) throws HibernateException, SQLException {
+                return session.createSQLQuery("UPDATE events SET alarmId = :alarmId WHERE eventId IN (:eventIds)")
+                        .setParameter("alarmId", alarmId)
+                        .setParameterList("eventIds", eventIds)
+                        .executeUpdate();
+            }
+        });
+    }
+
     @Override
     public List<OnmsEvent> getEventsAfterDate(final List<String> ueiList, final Date date) {
         final String hql = "From OnmsEvent e where e.eventUei in (:eventUei) and e.eventTime > :eventTime order by e.eventTime desc";
@@ -70,6 +103,106 @@ public class EventDaoHibernate extends AbstractDaoHibernate<OnmsEvent, Integer>
         });
     }
 
+    @Override
+    public void saveInBatch(final List<OnmsEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        getHibernateTemplate().execute(new HibernateCallback<Void>() {
+            @Override
+            public Void doInHibernate(Session session) throws HibernateException, SQLException {
+                // Use the same generator as the entity mapping so that the ids never
+                // collide with those of events saved through the session
+                final SessionImplementor sessionImplementor = (SessionImplementor) session;
+                final IdentifierGenerator generator = sessionImplementor.getFactory().getIdentifierGenerator(OnmsEvent.class.getName());
+                for (final OnmsEvent event : events) {
+                    event.setId((Integer) generator.generate(sessionImplementor, event));
+                }
+
+                session.doWork(connection -> {
+                    try (final PreparedStatement eventStatement = connection.prepareStatement(INSERT_EVENT_SQL);
+                         final PreparedStatement parameterStatement = connection.prepareStatement(INSERT_EVENT_PARAMETER_SQL)) {
+                        int numParameters = 0;
+                        for (final OnmsEvent event : events) {
+                            setEventValues(eventStatement, event);
+                            eventStatement.addBatch();
+
+                            if (event.getEventParameters() != null) {
+                                for (final OnmsEventParameter parameter : event.getEventParameters()) {
+                                    parameterStatement.setInt(1, event.getId());
+                                    parameterStatement.setString(2, parameter.getName());
+                                    parameterStatement.setString(3, parameter.getValue());
+                                    parameterStatement.setString(4, parameter.getType());
+                                    parameterStatement.addBatch();
+                                    numParameters++;
+                                }
+                            }
+                        }
+                        eventStatement.executeBatch();
+                        if (numParameters > 0) {
+                            parameterStatement.executeBatch();
+                        }
+                    }
+                });
+                return null;
+            }
+        });
+    }
+
+    private static void setEventValues(final PreparedStatement statement, final OnmsEvent event) throws SQLException {
+        int i = 1;
+        statement.setInt(i++, event.getId());
+        statement.setString(i++, event.getEventUei());
+        setInteger(statement, i++, event.getNode() == null ? null : event.getNode().getId());
+        setTimestamp(statement, i++, event.getEventTime());
+        statement.setString(i++, event.getEventHost());
+        statement.setString(i++, event.getEventSource());
+        statement.setString(i++, event.getIpAddr() == null ? null : InetAddressUtils.str(event.getIpAddr()));
+        statement.setString(i++, event.getDistPoller() == null ? null : event.getDistPoller().getId());
+        statement.setString(i++, event.getEventSnmpHost());
+        setInteger(statement, i++, event.getServiceType() == null ? null : event.getServiceType().getId());
+        statement.setString(i++, event.getEventSnmp());
+        setTimestamp(statement, i++, event.getEventCreateTime());
+        statement.setString(i++, event.getEventDescr());
+        statement.setString(i++, event.getEventLogGroup());
+        statement.setString(i++, event.getEventLogMsg());
+        setInteger(statement, i++, event.getEventSeverity());
+        statement.setString(i++, event.getEventPathOutage());
+        statement.setString(i++, event.getEventCorrelation());
+        setInteger(statement, i++, event.getEventSuppressedCount());
+        statement.setString(i++, event.getEventOperInstruct());
+        statement.setString(i++, event.getEventAutoAction());
+        statement.setString(i++, event.getEventOperAction());
+        statement.setString(i++, event.getEventOperActionMenuText());
+        statement.setString(i++, event.getEventNotification());
+        statement.setString(i++, event.getEventTTicket());
+        setInteger(statement, i++, event.getEventTTicketState());
+        statement.setString(i++, event.getEventForward());
+        statement.setString(i++, event.getEventMouseOverText());
+        statement.setString(i++, event.getEventLog());
+        statement.setString(i++, event.getEventDisplay());
+        statement.setString(i++, event.getEventAckUser());
+        setTimestamp(statement, i++, event.getEventAckTime());
+        setInteger(statement, i++, event.getAlarm() == null ? null : event.getAlarm().getId());
+        setInteger(statement, i++, event.getIfIndex());
+    }
+
+    private static void setInteger(final PreparedStatement statement, final int index, final Integer value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.INTEGER);
+        } else {
+            statement.setInt(index, value);
+        }
+    }
+
+    private static void setTimestamp(final PreparedStatement statement, final int index, final Date value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.TIMESTAMP);
+        } else {
+            statement.setTimestamp(index, new Timestamp(value.getTime()));
+        }
+    }
+
     public List<OnmsEvent> getEventsForEventParameters(final Map<String, String> eventParameters) {
         final StringBuffer hqlStringBuffer = new StringBuffer("From OnmsEvent e where ");
         for (int i = 0; i < eventParameters.size(); i++) {
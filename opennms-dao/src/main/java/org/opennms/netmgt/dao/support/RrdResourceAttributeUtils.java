@@ -62,7 +62,7 @@ public abstract class RrdResourceAttributeUtils {
      */
     public static final String STRINGS_PROPERTIES_FILE_NAME = "strings.properties";
 
-    private static final PropertiesCache s_cache = new PropertiesCache();
+    private static final PropertiesCache s_cache = new PropertiesCache(Long.getLong(PropertiesCache.WRITE_BEHIND_INTERVAL, 0));
 
     /**
      * <p>getAttributesAtRelativePath</p>
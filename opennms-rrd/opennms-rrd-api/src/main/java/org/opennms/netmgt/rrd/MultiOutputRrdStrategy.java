@@ -259,4 +259,26 @@ public class MultiOutputRrdStrategy implements RrdStrategy<List<Object>,List<Obj
             m_strategies.get(i).updateFile(rrd.get(i), owner, data);
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean supportsNumericUpdates() {
+        if (m_strategies.isEmpty()) {
+            return false;
+        }
+        for (RrdStrategy<Object, Object> strategy : m_strategies) {
+            if (!strategy.supportsNumericUpdates()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateFile(List<Object> rrd, String owner, long timestamp, double[] values) throws Exception {
+        for (int i = 0; i < rrd.size(); i++) {
+            m_strategies.get(i).updateFile(rrd.get(i), owner, timestamp, values);
+        }
+    }
 }
@@ -44,7 +44,7 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class RrdMetaDataUtils {
     private static final Logger LOG = LoggerFactory.getLogger(RrdMetaDataUtils.class);
-    private static PropertiesCache s_cache = new PropertiesCache();
+    private static PropertiesCache s_cache = new PropertiesCache(Long.getLong(PropertiesCache.WRITE_BEHIND_INTERVAL, 0));
 
     /**
      * Writes a file with the attribute to rrd track mapping next to the rrd file.
@@ -31,6 +31,7 @@ package org.opennms.netmgt.rrd;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.Collection;
 import java.util.List;
 import java.util.Properties;
@@ -124,6 +125,52 @@ public interface RrdStrategy<D extends Object,F extends Object> {
      */
     public void updateFile(F rrd, String owner, String data) throws Exception;
 
+    /**
+     * Returns true if {@link #updateFile(Object, String, long, double[])} stores the
+     * values without formatting them as a string, and the objects returned by
+     * {@link #openFile(String)} hold the files open, so that callers benefit from keeping
+     * them open between updates.
+     *
+     * @return false by default
+     */
+    default boolean supportsNumericUpdates() {
+        return false;
+    }
+
+    /**
+     * Updates the supplied round robin database with the given values, in the
+     * order of the data sources, without formatting them as a string first.
+     * Values which are not finite are stored as unknown.
+     *
+     * Unless {@link #supportsNumericUpdates()} is true, the values are formatted and
+     * passed to {@link #updateFile(Object, String, String)}. Integer values beyond
+     * 2^53, i.e. large 64-bit counters, are not exact as double and should be
+     * formatted from the original value by the caller instead.
+     *
+     * @param rrd
+     *            an rrd object created using openFile
+     * @param owner
+     *            the owner of the rrd
+     * @param timestamp
+     *            the timestamp of the values in seconds
+     * @param values
+     *            the values of the data sources
+     * @throws java.lang.Exception
+     *             if an error occurs updating the file
+     */
+    default void updateFile(F rrd, String owner, long timestamp, double[] values) throws Exception {
+        final StringBuilder data = new StringBuilder().append(timestamp);
+        for (double value : values) {
+            data.append(':');
+            if (Double.isFinite(value)) {
+                data.append(BigDecimal.valueOf(value).stripTrailingZeros().toPlainString());
+            } else {
+                data.append('U');
+            }
+        }
+        updateFile(rrd, owner, data.toString());
+    }
+
     /**
      * This closes the supplied round robin database
      *
@@ -0,0 +1,638 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.rrd;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.opennms.core.logging.Logging;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Queuing implementation of RrdStrategy which spreads the queued operations
+ * over a number of independent shards.
+ *
+ * Every file is assigned to a shard by hashing its path, and every shard has
+ * its own lock, its own pending operations and a single write thread. Since a
+ * file is only ever written by the thread of its shard, no file reservations
+ * are needed and enqueuing threads only contend with the writer of one shard.
+ *
+ * The pending updates of a file are kept together, so all of them are written
+ * with a single open and close of the file. Updates for a timestamp which is
+ * already pending for the file are merged into the pending update, since the
+ * delegate would reject them anyway. Files requested by graphs through
+ * {@link #promoteEnqueuedFiles(Collection)} are written before all others.
+ *
+ * The backlog and write rate of every shard are exposed through JMX.
+ *
+ * This implementation delegates all the actual writing to another RrdStrategy
+ * implementation.
+ */
+public class ShardedQueuingRrdStrategy implements RrdStrategy<ShardedQueuingRrdStrategy.CreateOperation, String> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedQueuingRrdStrategy.class);
+
+    private final RrdStrategy<Object, Object> m_delegate;
+
+    private final MetricRegistry m_metrics = new MetricRegistry();
+
+    private final AtomicLong m_totalOperationsPending = new AtomicLong();
+
+    private final Meter m_enqueued = m_metrics.meter("enqueued");
+
+    private final Counter m_merged = m_metrics.counter("merged");
+
+    private final Counter m_promotions = m_metrics.counter("promotions");
+
+    private final Counter m_discarded = m_metrics.counter("discarded");
+
+    private final Counter m_errors = m_metrics.counter("errors");
+
+    private Properties m_configurationProperties;
+
+    private int m_shardCount = Runtime.getRuntime().availableProcessors();
+
+    private boolean m_queueCreates;
+
+    private long m_queueHighWaterMark;
+
+    private String m_category = "queued";
+
+    private volatile Shard[] m_shards;
+
+    private JmxReporter m_reporter;
+
+    /**
+     * Represents the creation of a rrd file.
+     */
+    public static class CreateOperation {
+        private final String m_fileName;
+        private final Object m_rrdDef;
+
+        CreateOperation(final String fileName, final Object rrdDef) {
+            m_fileName = fileName;
+            m_rrdDef = rrdDef;
+        }
+
+        public String getFileName() {
+            return m_fileName;
+        }
+
+        public Object getRrdDef() {
+            return m_rrdDef;
+        }
+    }
+
+    /**
+     * An update of a rrd file, either as a formatted update string or as
+     * a timestamp and values, as passed to the strategy.
+     */
+    private static class PendingUpdate {
+        private final String owner;
+        private final String data;
+        private final long timestamp;
+        private final double[] values;
+
+        PendingUpdate(final String owner, final String data, final long timestamp, final double[] values) {
+            this.owner = owner;
+            this.data = data;
+            this.timestamp = timestamp;
+            this.values = values;
+        }
+
+        String getTimestamp() {
+            if (values != null) {
+                return Long.toString(timestamp);
+            }
+            final int colon = data.indexOf(':');
+            return colon >= 0 ? data.substring(0, colon) : data;
+        }
+    }
+
+    /**
+     * The pending operations of a single file.
+     */
+    private static class PendingFile {
+        private final String fileName;
+        private CreateOperation create;
+        private final Map<String, PendingUpdate> updates = new LinkedHashMap<>();
+
+        PendingFile(final String fileName) {
+            this.fileName = fileName;
+        }
+
+        int getCount() {
+            return updates.size() + (create != null ? 1 : 0);
+        }
+    }
+
+    private class Shard implements Runnable {
+        private final ReentrantLock m_lock = new ReentrantLock();
+        private final Condition m_workAvailable = m_lock.newCondition();
+        private final Map<String, PendingFile> m_pendingFiles = new LinkedHashMap<>();
+        private final ArrayDeque<String> m_promotedFiles = new ArrayDeque<>();
+        private final Thread m_thread;
+        private final Meter m_writes;
+        private volatile int m_backlog = 0;
+        private volatile boolean m_running = true;
+
+        Shard(final int index) {
+            m_writes = m_metrics.meter(MetricRegistry.name("shard-" + index, "writes"));
+            m_metrics.register(MetricRegistry.name("shard-" + index, "backlog"), (Gauge<Integer>) () -> m_backlog);
+
+            m_thread = new Thread(this, ShardedQueuingRrdStrategy.class.getSimpleName() + "-" + index);
+            m_thread.setDaemon(true);
+            m_thread.start();
+        }
+
+        void addCreate(final CreateOperation op) {
+            m_lock.lock();
+            try {
+                final PendingFile pendingFile = getPendingFile(op.getFileName());
+                if (pendingFile.create == null) {
+                    m_backlog++;
+                    m_totalOperationsPending.incrementAndGet();
+                } else {
+                    m_merged.inc();
+                }
+                pendingFile.create = op;
+                m_workAvailable.signal();
+            } finally {
+                m_lock.unlock();
+            }
+        }
+
+        void addUpdate(final String fileName, final PendingUpdate update) {
+            m_lock.lock();
+            try {
+                // Keep the first update for a timestamp, later ones would be rejected by the delegate
+                if (getPendingFile(fileName).updates.putIfAbsent(update.getTimestamp(), update) == null) {
+                    m_backlog++;
+                    m_totalOperationsPending.incrementAndGet();
+                } else {
+                    m_merged.inc();
+                }
+                m_workAvailable.signal();
+            } finally {
+                m_lock.unlock();
+            }
+        }
+
+        void promote(final String fileName) {
+            m_lock.lock();
+            try {
+                if (m_pendingFiles.containsKey(fileName)) {
+                    m_promotedFiles.addLast(fileName);
+                    m_promotions.inc();
+                }
+            } finally {
+                m_lock.unlock();
+            }
+        }
+
+        void stop() {
+            m_lock.lock();
+            try {
+                m_running = false;
+                m_workAvailable.signal();
+            } finally {
+                m_lock.unlock();
+            }
+        }
+
+        private PendingFile getPendingFile(final String fileName) {
+            return m_pendingFiles.computeIfAbsent(fileName, PendingFile::new);
+        }
+
+        /**
+         * Waits for work and removes the next file to write, promoted files first.
+         *
+         * @return the next file or null if the shard was stopped and all work is done
+         */
+        private PendingFile takeNext() throws InterruptedException {
+            m_lock.lock();
+            try {
+                while (m_running && m_pendingFiles.isEmpty()) {
+                    m_workAvailable.await();
+                }
+
+                PendingFile pendingFile = null;
+                while (pendingFile == null && !m_promotedFiles.isEmpty()) {
+                    pendingFile = m_pendingFiles.remove(m_promotedFiles.pollFirst());
+                }
+                if (pendingFile == null) {
+                    final Iterator<PendingFile> it = m_pendingFiles.values().iterator();
+                    if (!it.hasNext()) {
+                        return null;
+                    }
+                    pendingFile = it.next();
+                    it.remove();
+                }
+
+                m_backlog -= pendingFile.getCount();
+                m_totalOperationsPending.addAndGet(-pendingFile.getCount());
+                return pendingFile;
+            } finally {
+                m_lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            Logging.putPrefix(m_category);
+            try {
+                PendingFile pendingFile;
+                while ((pendingFile = takeNext()) != null) {
+                    write(pendingFile);
+                }
+            } catch (final InterruptedException e) {
+                LOG.warn("Interrupted while waiting for work, {} operations are lost.", m_backlog);
+            }
+        }
+
+        private void write(final PendingFile pendingFile) {
+            if (pendingFile.create != null) {
+                try {
+                    m_delegate.createFile(pendingFile.create.getRrdDef());
+                } catch (final Throwable e) {
+                    m_errors.inc();
+                    LOG.warn("Error creating file {}: {}", pendingFile.fileName, e.getMessage(), e);
+                    return;
+                }
+            }
+
+            if (pendingFile.updates.isEmpty()) {
+                return;
+            }
+
+            Object rrd = null;
+            try {
+                rrd = m_delegate.openFile(pendingFile.fileName);
+                for (final PendingUpdate update : pendingFile.updates.values()) {
+                    try {
+                        if (update.values != null) {
+                            m_delegate.updateFile(rrd, update.owner, update.timestamp, update.values);
+                        } else {
+                            m_delegate.updateFile(rrd, update.owner, update.data);
+                        }
+                        m_writes.mark();
+                    } catch (final Throwable e) {
+                        // Keep going, a rejected update doesn't affect the following ones
+                        m_errors.inc();
+                        LOG.debug("Error processing update for file {}: {}", pendingFile.fileName, e.getMessage(), e);
+                    }
+                }
+            } catch (final Throwable e) {
+                m_errors.inc();
+                LOG.warn("Error opening file {}: {}", pendingFile.fileName, e.getMessage(), e);
+            } finally {
+                if (rrd != null) {
+                    try {
+                        m_delegate.closeFile(rrd);
+                    } catch (final Throwable e) {
+                        m_errors.inc();
+                        LOG.warn("Error closing file {}: {}", pendingFile.fileName, e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Constructor for ShardedQueuingRrdStrategy.</p>
+     *
+     * @param delegate a {@link org.opennms.netmgt.rrd.RrdStrategy} object.
+     */
+    public ShardedQueuingRrdStrategy(final RrdStrategy<Object, Object> delegate) {
+        m_delegate = delegate;
+        m_metrics.register("pending", (Gauge<Long>) m_totalOperationsPending::get);
+    }
+
+    /**
+     * <p>getDelegate</p>
+     *
+     * @return a {@link org.opennms.netmgt.rrd.RrdStrategy} object.
+     */
+    public RrdStrategy<Object, Object> getDelegate() {
+        return m_delegate;
+    }
+
+    public Properties getConfigurationProperties() {
+        return m_configurationProperties;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setConfigurationProperties(final Properties configurationParameters) {
+        m_configurationProperties = configurationParameters;
+    }
+
+    public int getShards() {
+        return m_shardCount;
+    }
+
+    /**
+     * Sets the number of shards, and therefore write threads. Must be set
+     * before the first operation is enqueued.
+     *
+     * @param shards the number of shards, defaults to the number of processors
+     */
+    public void setShards(final int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("The number of shards must be positive: " + shards);
+        }
+        m_shardCount = shards;
+    }
+
+    public boolean queueCreates() {
+        return m_queueCreates;
+    }
+
+    public void setQueueCreates(final boolean queueCreates) {
+        m_queueCreates = queueCreates;
+    }
+
+    public long getQueueHighWaterMark() {
+        return m_queueHighWaterMark;
+    }
+
+    /**
+     * Sets the number of pending operations, over all shards, above which
+     * new operations are discarded.
+     *
+     * @param queueHighWaterMark the maximum number of pending operations, or zero for no limit
+     */
+    public void setQueueHighWaterMark(final long queueHighWaterMark) {
+        m_queueHighWaterMark = queueHighWaterMark;
+    }
+
+    public String getCategory() {
+        return m_category;
+    }
+
+    public void setCategory(final String category) {
+        m_category = category;
+    }
+
+    public long getTotalOperationsPending() {
+        return m_totalOperationsPending.get();
+    }
+
+    /**
+     * Returns the metrics of the queue, the backlog and write rate of every shard, and
+     * the number of enqueued, merged, promoted and discarded operations.
+     *
+     * @return the metric registry
+     */
+    public MetricRegistry getMetrics() {
+        return m_metrics;
+    }
+
+    private Shard[] getShardsOrStart() {
+        Shard[] shards = m_shards;
+        if (shards == null) {
+            synchronized (this) {
+                shards = m_shards;
+                if (shards == null) {
+                    shards = new Shard[m_shardCount];
+                    for (int i = 0; i < shards.length; i++) {
+                        shards[i] = new Shard(i);
+                    }
+                    m_reporter = JmxReporter.forRegistry(m_metrics)
+                            .inDomain(getClass().getPackage().getName())
+                            .build();
+                    m_reporter.start();
+                    m_shards = shards;
+                }
+            }
+        }
+        return shards;
+    }
+
+    private Shard getShard(final String fileName) {
+        final Shard[] shards = getShardsOrStart();
+        return shards[(fileName.hashCode() & Integer.MAX_VALUE) % shards.length];
+    }
+
+    private boolean accept(final String fileName) {
+        if (m_queueHighWaterMark > 0 && m_totalOperationsPending.get() >= m_queueHighWaterMark) {
+            m_discarded.inc();
+            LOG.error("RRD Data Queue is Full!! Discarding operation for file {}", fileName);
+            return false;
+        }
+        m_enqueued.mark();
+        return true;
+    }
+
+    /**
+     * Stops the write threads once all pending operations have been written.
+     */
+    public void destroy() {
+        final Shard[] shards;
+        synchronized (this) {
+            shards = m_shards;
+            m_shards = null;
+        }
+        if (shards == null) {
+            return;
+        }
+        for (final Shard shard : shards) {
+            shard.stop();
+        }
+        for (final Shard shard : shards) {
+            try {
+                shard.m_thread.join(TimeUnit.MINUTES.toMillis(1));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        m_reporter.stop();
+    }
+
+    //
+    // RrdStrategy Implementation.. These methods just enqueue the calls as
+    // operations
+    //
+
+    /** {@inheritDoc} */
+    @Override
+    public CreateOperation createDefinition(final String creator, final String directory, final String rrdName, final int step, final List<RrdDataSource> dataSources, final List<String> rraList) throws Exception {
+        final String fileName = directory + File.separator + rrdName + m_delegate.getDefaultFileExtension();
+        final Object def = m_delegate.createDefinition(creator, directory, rrdName, step, dataSources, rraList);
+        return new CreateOperation(fileName, def);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void createFile(final CreateOperation op) throws Exception {
+        if (op.getRrdDef() == null) {
+            // The delegate did not return a definition, the file already exists
+            return;
+        }
+        if (m_queueCreates) {
+            if (accept(op.getFileName())) {
+                getShard(op.getFileName()).addCreate(op);
+            }
+        } else {
+            m_delegate.createFile(op.getRrdDef());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String openFile(final String fileName) throws Exception {
+        return fileName;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateFile(final String rrdFile, final String owner, final String data) throws Exception {
+        if (accept(rrdFile)) {
+            getShard(rrdFile).addUpdate(rrdFile, new PendingUpdate(owner, data, 0, null));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateFile(final String rrdFile, final String owner, final long timestamp, final double[] values) throws Exception {
+        if (accept(rrdFile)) {
+            getShard(rrdFile).addUpdate(rrdFile, new PendingUpdate(owner, null, timestamp, values));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void closeFile(final String rrd) throws Exception {
+        // no need to do anything here
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void promoteEnqueuedFiles(final Collection<String> rrdFiles) {
+        if (m_shards != null) {
+            for (final String rrdFile : rrdFiles) {
+                getShard(rrdFile).promote(rrdFile);
+            }
+        }
+        m_delegate.promoteEnqueuedFiles(rrdFiles);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Double fetchLastValue(final String rrdFile, final String ds, final int interval) throws NumberFormatException, RrdException {
+        return m_delegate.fetchLastValue(rrdFile, ds, interval);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Double fetchLastValue(final String rrdFile, final String ds, final String consolidationFunction, final int interval) throws NumberFormatException, RrdException {
+        return m_delegate.fetchLastValue(rrdFile, ds, consolidationFunction, interval);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Double fetchLastValueInRange(final String rrdFile, final String ds, final int interval, final int range) throws NumberFormatException, RrdException {
+        return m_delegate.fetchLastValueInRange(rrdFile, ds, interval, range);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InputStream createGraph(final String command, final File workDir) throws IOException, RrdException {
+        return m_delegate.createGraph(command, workDir);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RrdGraphDetails createGraphReturnDetails(final String command, final File workDir) throws IOException, RrdException {
+        return m_delegate.createGraphReturnDetails(command, workDir);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getGraphLeftOffset() {
+        return m_delegate.getGraphLeftOffset();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getGraphRightOffset() {
+        return m_delegate.getGraphRightOffset();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getGraphTopOffsetWithText() {
+        return m_delegate.getGraphTopOffsetWithText();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getDefaultFileExtension() {
+        return m_delegate.getDefaultFileExtension();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getStats() {
+        final StringBuilder stats = new StringBuilder();
+        stats.append("pending=").append(getTotalOperationsPending())
+            .append(", enqueued=").append(m_enqueued.getCount())
+            .append(", merged=").append(m_merged.getCount())
+            .append(", promotions=").append(m_promotions.getCount())
+            .append(", discarded=").append(m_discarded.getCount())
+            .append(", errors=").append(m_errors.getCount());
+        final Shard[] shards = m_shards;
+        if (shards != null) {
+            for (int i = 0; i < shards.length; i++) {
+                stats.append(String.format("\nshard-%d: backlog=%d, writes=%d (%.2f/s)", i, shards[i].m_backlog, shards[i].m_writes.getCount(), shards[i].m_writes.getOneMinuteRate()));
+            }
+        }
+        return stats.toString();
+    }
+}
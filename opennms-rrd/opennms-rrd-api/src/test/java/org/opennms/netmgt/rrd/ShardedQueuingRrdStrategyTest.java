@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.rrd;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ShardedQueuingRrdStrategyTest {
+
+    /**
+     * Records the updates per file, and blocks while writing the file named "block"
+     * until it is released.
+     */
+    private static class RecordingRrdStrategy extends NullRrdStrategy {
+        private final Map<String, List<String>> updates = new ConcurrentHashMap<>();
+        private final Map<String, String> threads = new ConcurrentHashMap<>();
+        private final List<String> opened = new CopyOnWriteArrayList<>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public Object openFile(String fileName) {
+            opened.add(fileName);
+            if ("block".equals(fileName)) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return fileName;
+        }
+
+        @Override
+        public void updateFile(Object rrd, String owner, String data) {
+            updates.computeIfAbsent((String)rrd, f -> new CopyOnWriteArrayList<>()).add(data);
+            final String previousThread = threads.putIfAbsent((String)rrd, Thread.currentThread().getName());
+            assertTrue(previousThread == null || previousThread.equals(Thread.currentThread().getName()));
+        }
+
+        @Override
+        public void updateFile(Object rrd, String owner, long timestamp, double[] values) {
+            updateFile(rrd, owner, timestamp + ":" + Arrays.toString(values));
+        }
+    }
+
+    private final RecordingRrdStrategy m_delegate = new RecordingRrdStrategy();
+
+    private ShardedQueuingRrdStrategy m_strategy;
+
+    @After
+    public void tearDown() {
+        m_delegate.release.countDown();
+        if (m_strategy != null) {
+            m_strategy.destroy();
+        }
+    }
+
+    @Test
+    public void canWriteUpdatesInOrder() throws Exception {
+        m_strategy = createStrategy(4);
+        for (int ts = 1; ts <= 10; ts++) {
+            for (int file = 0; file < 100; file++) {
+                m_strategy.updateFile("file" + file, "test", ts + ":" + file);
+            }
+        }
+        await().atMost(10, TimeUnit.SECONDS).until(() -> m_strategy.getTotalOperationsPending() == 0);
+        m_strategy.destroy();
+
+        for (int file = 0; file < 100; file++) {
+            final List<String> expected = new ArrayList<>();
+            for (int ts = 1; ts <= 10; ts++) {
+                expected.add(ts + ":" + file);
+            }
+            assertEquals(expected, m_delegate.updates.get("file" + file));
+        }
+        // Every shard has its own thread and updates are grouped per file
+        assertTrue(m_delegate.opened.size() <= 1000);
+        assertEquals(1000L, m_strategy.getMetrics().meter("enqueued").getCount());
+    }
+
+    @Test
+    public void canMergeUpdatesForTheSameTimestamp() throws Exception {
+        m_strategy = createStrategy(1);
+        m_strategy.updateFile("block", "test", "1:0");
+        assertTrue(m_delegate.blocked.await(10, TimeUnit.SECONDS));
+
+        m_strategy.updateFile("file", "test", "1:1");
+        m_strategy.updateFile("file", "test", "1:2");
+        m_strategy.updateFile("file", "test", 2, new double[] { 3.0 });
+        m_strategy.updateFile("file", "test", 2, new double[] { 4.0 });
+        assertEquals(2L, m_strategy.getTotalOperationsPending());
+        assertEquals(2L, m_strategy.getMetrics().counter("merged").getCount());
+
+        m_delegate.release.countDown();
+        m_strategy.destroy();
+        assertEquals(Arrays.asList("1:1", "2:[3.0]"), m_delegate.updates.get("file"));
+    }
+
+    @Test
+    public void canPromoteFiles() throws Exception {
+        m_strategy = createStrategy(1);
+        m_strategy.updateFile("block", "test", "1:0");
+        assertTrue(m_delegate.blocked.await(10, TimeUnit.SECONDS));
+
+        m_strategy.updateFile("file1", "test", "1:1");
+        m_strategy.updateFile("file2", "test", "1:2");
+        m_strategy.updateFile("file3", "test", "1:3");
+        m_strategy.promoteEnqueuedFiles(Collections.singleton("file3"));
+        // Files without pending updates are ignored
+        m_strategy.promoteEnqueuedFiles(Collections.singleton("file4"));
+        assertEquals(1L, m_strategy.getMetrics().counter("promotions").getCount());
+
+        m_delegate.release.countDown();
+        m_strategy.destroy();
+        assertArrayEquals(new String[] { "block", "file3", "file1", "file2" }, m_delegate.opened.toArray());
+    }
+
+    @Test
+    public void canDiscardOperationsWhenFull() throws Exception {
+        m_strategy = createStrategy(1);
+        m_strategy.setQueueHighWaterMark(2);
+        m_strategy.updateFile("block", "test", "1:0");
+        assertTrue(m_delegate.blocked.await(10, TimeUnit.SECONDS));
+
+        for (int ts = 1; ts <= 5; ts++) {
+            m_strategy.updateFile("file", "test", ts + ":0");
+        }
+        assertEquals(3L, m_strategy.getMetrics().counter("discarded").getCount());
+        assertEquals(2, ((Number)m_strategy.getMetrics().getGauges().get("shard-0.backlog").getValue()).intValue());
+
+        m_delegate.release.countDown();
+        m_strategy.destroy();
+        assertEquals(Arrays.asList("1:0", "2:0"), m_delegate.updates.get("file"));
+    }
+
+    private ShardedQueuingRrdStrategy createStrategy(int shards) {
+        final ShardedQueuingRrdStrategy strategy = new ShardedQueuingRrdStrategy(m_delegate);
+        strategy.setShards(shards);
+        return strategy;
+    }
+}
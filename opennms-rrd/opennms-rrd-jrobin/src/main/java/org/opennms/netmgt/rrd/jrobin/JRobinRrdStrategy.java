@@ -44,6 +44,7 @@ import java.util.Map.Entry;
 import java.util.Properties;
 
 import org.jrobin.core.FetchData;
+import org.jrobin.core.RrdBackendFactory;
 import org.jrobin.core.RrdDb;
 import org.jrobin.core.RrdDef;
 import org.jrobin.core.RrdException;
@@ -62,7 +63,8 @@ import org.slf4j.LoggerFactory;
 /**
  * Provides a JRobin based implementation of RrdStrategy. It uses JRobin 1.4 in
  * FILE mode (NIO is too memory consuming for the large number of files that we
- * open)
+ * open). The memory-mapped backend of {@link MappedRrdBackendFactory} can be
+ * selected with the "MMAP" factory name.
  *
  * @author ranger
  * @version $Id: $
@@ -71,6 +73,8 @@ public class JRobinRrdStrategy implements RrdStrategy<RrdDef,RrdDb> {
     private static final Logger LOG = LoggerFactory.getLogger(JRobinRrdStrategy.class);
     private static final String BACKEND_FACTORY_PROPERTY = "org.jrobin.core.RrdBackendFactory";
     private static final String DEFAULT_BACKEND_FACTORY = "FILE";
+    private static final String MMAP_SYNC_PERIOD_PROPERTY = "org.opennms.rrd.jrobin.mmap.syncPeriod";
+    private static final String MMAP_MAX_MAPPED_FILES_PROPERTY = "org.opennms.rrd.jrobin.mmap.maxMappedFiles";
 
     /*
      * Ensure that we only initialize certain things *once* per
@@ -130,6 +134,9 @@ public class JRobinRrdStrategy implements RrdStrategy<RrdDef,RrdDb> {
                 factory = (String)m_configurationProperties.get(BACKEND_FACTORY_PROPERTY);
             }
             try {
+                if (MappedRrdBackendFactory.NAME.equals(factory)) {
+                    registerMappedBackendFactory();
+                }
                 RrdDb.setDefaultFactory(factory);
                 s_initialized=true;
             } catch (RrdException e) {
@@ -138,6 +145,19 @@ public class JRobinRrdStrategy implements RrdStrategy<RrdDef,RrdDb> {
         }
     }
 
+    private void registerMappedBackendFactory() throws RrdException {
+        long syncPeriod = MappedRrdBackendFactory.DEFAULT_SYNC_PERIOD;
+        int maxMappedFiles = MappedRrdBackendFactory.DEFAULT_MAX_MAPPED_FILES;
+        try {
+            syncPeriod = Long.parseLong(m_configurationProperties.getProperty(MMAP_SYNC_PERIOD_PROPERTY, Long.toString(syncPeriod)));
+            maxMappedFiles = Integer.parseInt(m_configurationProperties.getProperty(MMAP_MAX_MAPPED_FILES_PROPERTY, Integer.toString(maxMappedFiles)));
+        } catch (final NumberFormatException e) {
+            LOG.warn("Invalid memory-mapped backend configuration, using a sync period of {}s and at most {} mapped files", syncPeriod, maxMappedFiles, e);
+        }
+        LOG.info("Using memory-mapped RRD files with a sync period of {}s and at most {} mapped files", syncPeriod, maxMappedFiles);
+        RrdBackendFactory.registerFactory(new MappedRrdBackendFactory(syncPeriod, maxMappedFiles));
+    }
+
     /**
      * Closes the JRobin RrdDb.
      *
@@ -226,6 +246,28 @@ public class JRobinRrdStrategy implements RrdStrategy<RrdDef,RrdDb> {
         sample.setAndUpdate(data);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * JRobin stores all values as double, so they are not less exact than the parsed strings.
+     */
+    @Override
+    public boolean supportsNumericUpdates() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Creates a sample from the JRobin RrdDb and sets the values directly, without parsing them.
+     */
+    @Override
+    public void updateFile(final RrdDb rrdFile, final String owner, final long timestamp, final double[] values) throws Exception {
+        final Sample sample = rrdFile.createSample(timestamp);
+        sample.setValues(values);
+        sample.update();
+    }
+
     /**
      * Initialized the RrdDb to use the FILE factory because the NIO factory
      * uses too much memory for our implementation.
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.rrd.jrobin;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.jrobin.core.RrdBackend;
+
+/**
+ * JRobin backend which reads and writes a memory-mapped file, see {@link MappedRrdBackendFactory}.
+ */
+public class MappedRrdBackend extends RrdBackend {
+
+    private final boolean m_readOnly;
+
+    private final MappedRrdBackendFactory.MappedFile m_file;
+
+    private final MappedRrdBackendFactory m_factory;
+
+    private boolean m_closed = false;
+
+    MappedRrdBackend(final String path, final boolean readOnly, final MappedRrdBackendFactory.MappedFile file, final MappedRrdBackendFactory factory) {
+        super(path);
+        m_readOnly = readOnly;
+        m_file = file;
+        m_factory = factory;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void write(final long offset, final byte[] b) throws IOException {
+        if (m_readOnly) {
+            throw new IOException("File " + getPath() + " was opened read-only");
+        }
+        // Use a view, so concurrent reads and writes don't share the position
+        final ByteBuffer view = m_file.getBuffer().duplicate();
+        view.position((int) offset);
+        view.put(b);
+        m_file.markDirty();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void read(final long offset, final byte[] b) throws IOException {
+        final ByteBuffer view = m_file.getBuffer().duplicate();
+        view.position((int) offset);
+        view.get(b);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getLength() throws IOException {
+        return m_file.getLength();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void setLength(final long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("File " + getPath() + " is too large to be mapped: " + length);
+        }
+        m_file.remap(m_readOnly, length);
+    }
+
+    /**
+     * Releases the file, the changes are written by the factory.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!m_closed) {
+            m_closed = true;
+            m_factory.release(m_file);
+        }
+    }
+}
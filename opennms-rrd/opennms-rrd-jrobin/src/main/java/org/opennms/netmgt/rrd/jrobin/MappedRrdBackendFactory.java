@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.rrd.jrobin;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jrobin.core.RrdBackend;
+import org.jrobin.core.RrdBackendFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JRobin backend factory which accesses the RRD files through memory-mapped buffers.
+ *
+ * Unlike JRobin's own NIO backend, the mappings are kept after the RrdDb is closed,
+ * so the files can be opened and closed for every update without mapping them again.
+ * Changes are not written when the file is closed, instead the dirty pages of all
+ * mapped files are synced by a background thread at a fixed period, and when the
+ * file is evicted. The number of mapped files is capped by evicting the least
+ * recently used files which are not open.
+ *
+ * A mapping is dropped and the file is mapped again when the file was replaced
+ * or deleted since it was mapped.
+ */
+public class MappedRrdBackendFactory extends RrdBackendFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedRrdBackendFactory.class);
+
+    /** Name of the factory, as used with {@link org.jrobin.core.RrdDb#setDefaultFactory(String)} */
+    public static final String NAME = "MMAP";
+
+    public static final long DEFAULT_SYNC_PERIOD = 60;
+
+    public static final int DEFAULT_MAX_MAPPED_FILES = 1000;
+
+    private final int m_maxMappedFiles;
+
+    private final Map<String, MappedFile> m_files = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ScheduledExecutorService m_syncer;
+
+    /**
+     * A file and its mapping, shared by all backends of the same path.
+     */
+    static class MappedFile {
+        private final File m_file;
+        private volatile MappedByteBuffer m_buffer;
+        private boolean m_writable;
+        private Object m_fileKey;
+        private int m_references = 0;
+        private volatile boolean m_dirty = false;
+
+        MappedFile(final String path) {
+            m_file = new File(path);
+        }
+
+        MappedByteBuffer getBuffer() throws IOException {
+            final MappedByteBuffer buffer = m_buffer;
+            if (buffer == null) {
+                throw new IOException("File " + m_file + " is not mapped");
+            }
+            return buffer;
+        }
+
+        /**
+         * Maps the file, unless it is already mapped in a suitable mode.
+         */
+        synchronized void map(final boolean readOnly) throws IOException {
+            if (m_buffer != null && (readOnly || m_writable)) {
+                return;
+            }
+            if (readOnly && !m_file.exists()) {
+                throw new FileNotFoundException("Could not open " + m_file + " [non existent]");
+            }
+            remap(readOnly, -1);
+        }
+
+        /**
+         * Maps the file again, after resizing it if the length is not negative.
+         */
+        synchronized void remap(final boolean readOnly, final long length) throws IOException {
+            sync();
+            try (final RandomAccessFile file = new RandomAccessFile(m_file, readOnly ? "r" : "rw")) {
+                if (length >= 0) {
+                    file.setLength(length);
+                }
+                final long size = file.length();
+                m_buffer = size > 0 ? file.getChannel().map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 0, size) : null;
+                m_writable = !readOnly;
+            }
+            // The mapping stays valid after the file is closed
+            m_fileKey = getFileKey(m_file);
+        }
+
+        long getLength() {
+            final MappedByteBuffer buffer = m_buffer;
+            return buffer != null ? buffer.capacity() : 0;
+        }
+
+        void markDirty() {
+            m_dirty = true;
+        }
+
+        boolean isDirty() {
+            return m_dirty;
+        }
+
+        /**
+         * Writes the dirty pages of the mapping to disk.
+         */
+        synchronized void sync() {
+            if (m_dirty && m_buffer != null) {
+                m_dirty = false;
+                m_buffer.force();
+            }
+        }
+
+        /**
+         * @return true if the file was replaced or deleted since it was mapped
+         */
+        boolean isStale() {
+            return m_buffer != null && !Objects.equals(m_fileKey, getFileKey(m_file));
+        }
+
+        /**
+         * Syncs and releases the mapping. Must only be called while the file is not open.
+         */
+        synchronized void unmap() {
+            sync();
+            final MappedByteBuffer buffer = m_buffer;
+            m_buffer = null;
+            if (buffer != null) {
+                clean(buffer);
+            }
+        }
+
+        /**
+         * Releases the mapping right away, rather than once the buffer is garbage collected,
+         * so that evicted files don't keep holding address space and file handles.
+         */
+        private static void clean(final MappedByteBuffer buffer) {
+            try {
+                // Java 8: ((sun.nio.ch.DirectBuffer) buffer).cleaner().clean(), called reflectively
+                // since the bundle can't import sun.nio.ch
+                final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                final Object cleaner = cleanerMethod.invoke(buffer);
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            } catch (final ReflectiveOperationException | RuntimeException e) {
+                try {
+                    // Java 9 and later
+                    final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                    final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                    theUnsafe.setAccessible(true);
+                    unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+                } catch (final ReflectiveOperationException | RuntimeException ex) {
+                    LOG.debug("clean: failed to unmap buffer, it is unmapped once garbage collected", ex);
+                }
+            }
+        }
+
+        private static Object getFileKey(final File file) {
+            try {
+                final BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                // Not every file system provides a key, fall back to the creation time
+                return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+            } catch (final IOException e) {
+                return null;
+            }
+        }
+    }
+
+    public MappedRrdBackendFactory() {
+        this(DEFAULT_SYNC_PERIOD, DEFAULT_MAX_MAPPED_FILES);
+    }
+
+    /**
+     * @param syncPeriod the period in seconds at which dirty pages are written to disk
+     * @param maxMappedFiles the maximum number of files kept mapped while they are not open
+     */
+    public MappedRrdBackendFactory(final long syncPeriod, final int maxMappedFiles) {
+        if (syncPeriod <= 0) {
+            throw new IllegalArgumentException("The sync period must be positive: " + syncPeriod);
+        }
+        m_maxMappedFiles = maxMappedFiles;
+        m_syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "jrobin-mmap-syncer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        m_syncer.scheduleWithFixedDelay(this::sync, syncPeriod, syncPeriod, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::sync, "jrobin-mmap-shutdown"));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected RrdBackend open(final String path, final boolean readOnly) throws IOException {
+        final MappedFile file;
+        synchronized (m_files) {
+            MappedFile existing = m_files.get(path);
+            if (existing != null && existing.m_references == 0 && existing.isStale()) {
+                LOG.debug("open: file {} changed since it was mapped, mapping it again", path);
+                m_files.remove(path);
+                existing.unmap();
+                existing = null;
+            }
+            if (existing == null) {
+                existing = new MappedFile(path);
+                m_files.put(path, existing);
+            }
+            existing.m_references++;
+            file = existing;
+            evict();
+        }
+
+        try {
+            file.map(readOnly);
+        } catch (final IOException e) {
+            release(file);
+            throw e;
+        }
+        return new MappedRrdBackend(path, readOnly, file, this);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean exists(final String path) throws IOException {
+        return new File(path).exists();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean shouldValidateHeader(final String path) throws IOException {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getFactoryName() {
+        return NAME;
+    }
+
+    /**
+     * Called when a backend is closed.
+     */
+    void release(final MappedFile file) {
+        synchronized (m_files) {
+            file.m_references--;
+            evict();
+        }
+    }
+
+    /**
+     * Unmaps the least recently used files which are not open, until no more
+     * than the maximum number of files are mapped.
+     */
+    private void evict() {
+        if (m_files.size() <= m_maxMappedFiles) {
+            return;
+        }
+        final Iterator<MappedFile> it = m_files.values().iterator();
+        while (m_files.size() > m_maxMappedFiles && it.hasNext()) {
+            final MappedFile file = it.next();
+            if (file.m_references == 0) {
+                it.remove();
+                file.unmap();
+            }
+        }
+    }
+
+    /**
+     * Writes the dirty pages of all mapped files to disk.
+     */
+    public void sync() {
+        final List<MappedFile> dirtyFiles = new ArrayList<>();
+        synchronized (m_files) {
+            for (final MappedFile file : m_files.values()) {
+                if (file.isDirty()) {
+                    dirtyFiles.add(file);
+                }
+            }
+        }
+        for (final MappedFile file : dirtyFiles) {
+            try {
+                file.sync();
+            } catch (final RuntimeException e) {
+                LOG.warn("sync: Failed to write the changes to {}", file.m_file, e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of files which are currently mapped
+     */
+    public int getMappedFiles() {
+        synchronized (m_files) {
+            return m_files.size();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.rrd.jrobin;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jrobin.core.FetchData;
+import org.jrobin.core.RrdBackendFactory;
+import org.jrobin.core.RrdDb;
+import org.jrobin.core.RrdDef;
+import org.jrobin.core.Sample;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares updating and fetching JRobin files with the default FILE backend and the
+ * {@link MappedRrdBackendFactory}. Every operation opens and closes the file, as the
+ * {@link JRobinRrdStrategy} does, using the default RRAs of the data collection.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.opennms.netmgt.rrd.jrobin.MappedRrdBackendBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MappedRrdBackendBenchmark {
+
+    private static final int STEP = 300;
+
+    private static final String[] RRAS = new String[] {
+            "RRA:AVERAGE:0.5:1:2016",
+            "RRA:AVERAGE:0.5:12:1488",
+            "RRA:AVERAGE:0.5:288:366",
+            "RRA:MAX:0.5:288:366",
+            "RRA:MIN:0.5:288:366"
+    };
+
+    @Param({"FILE", "MMAP"})
+    public String backend;
+
+    @Param({"1000"})
+    public int numFiles;
+
+    @Param({"10"})
+    public int numDataSources;
+
+    private File directory;
+
+    private RrdBackendFactory factory;
+
+    private final List<String> files = new ArrayList<>();
+
+    private int nextFile = 0;
+
+    private long timestamp;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("rrd-backend").toFile();
+        factory = MappedRrdBackendFactory.NAME.equals(backend) ? new MappedRrdBackendFactory() : RrdBackendFactory.getFactory(backend);
+
+        timestamp = System.currentTimeMillis() / 1000L;
+        timestamp -= timestamp % STEP;
+        for (int i = 0; i < numFiles; i++) {
+            final RrdDef def = new RrdDef(new File(directory, "file" + i + ".jrb").getAbsolutePath(), timestamp - STEP, STEP);
+            for (int j = 0; j < numDataSources; j++) {
+                def.addDatasource("ds" + j, "GAUGE", STEP * 2, Double.NaN, Double.NaN);
+            }
+            for (String rra : RRAS) {
+                def.addArchive(rra);
+            }
+            new RrdDb(def, factory).close();
+            files.add(def.getPath());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (factory instanceof MappedRrdBackendFactory) {
+            ((MappedRrdBackendFactory)factory).sync();
+        }
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void update() throws Exception {
+        final String file = files.get(nextFile);
+        if (++nextFile == numFiles) {
+            // Every file was updated, move on to the next step
+            nextFile = 0;
+            timestamp += STEP;
+        }
+
+        final double[] values = new double[numDataSources];
+        for (int i = 0; i < numDataSources; i++) {
+            values[i] = timestamp % 1000 + i;
+        }
+
+        final RrdDb rrd = new RrdDb(file, factory);
+        try {
+            final Sample sample = rrd.createSample(timestamp);
+            sample.setValues(values);
+            sample.update();
+        } finally {
+            rrd.close();
+        }
+    }
+
+    @Benchmark
+    public double[] fetch() throws Exception {
+        final String file = files.get(nextFile);
+        if (++nextFile == numFiles) {
+            nextFile = 0;
+        }
+
+        // Fetch the last day, as for a graph
+        final RrdDb rrd = new RrdDb(file, true, factory);
+        try {
+            final long end = rrd.getLastUpdateTime();
+            final FetchData data = rrd.createFetchRequest("AVERAGE", end - 86400, end).fetchData();
+            return data.getValues("ds0");
+        } finally {
+            rrd.close();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MappedRrdBackendBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2019 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2019 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.rrd.jrobin;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.jrobin.core.FetchData;
+import org.jrobin.core.RrdBackendFactory;
+import org.jrobin.core.RrdDb;
+import org.jrobin.core.RrdDef;
+import org.jrobin.core.Sample;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedRrdBackendFactoryTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final MappedRrdBackendFactory m_factory = new MappedRrdBackendFactory(3600, 2);
+
+    @Test
+    public void canReadAndWriteFiles() throws Exception {
+        final String path = new File(tempFolder.getRoot(), "test.jrb").getAbsolutePath();
+
+        final MappedRrdBackend backend = (MappedRrdBackend) m_factory.open(path, false);
+        backend.setLength(16);
+        backend.write(4, new byte[] { 1, 2, 3 });
+        final byte[] read = new byte[3];
+        backend.read(4, read);
+        assertArrayEquals(new byte[] { 1, 2, 3 }, read);
+        backend.close();
+
+        // The mapping is kept, and the changes are visible before they are synced
+        final MappedRrdBackend readOnly = (MappedRrdBackend) m_factory.open(path, true);
+        assertEquals(16, readOnly.getLength());
+        readOnly.read(4, read);
+        assertArrayEquals(new byte[] { 1, 2, 3 }, read);
+        readOnly.close();
+        assertEquals(1, m_factory.getMappedFiles());
+
+        m_factory.sync();
+        assertEquals(3, Files.readAllBytes(new File(path).toPath())[6]);
+    }
+
+    @Test
+    public void canEvictLeastRecentlyUsedFiles() throws Exception {
+        final MappedRrdBackend first = createFile("first.jrb");
+        final MappedRrdBackend second = createFile("second.jrb");
+        final MappedRrdBackend third = createFile("third.jrb");
+
+        // Open files are never evicted
+        assertEquals(3, m_factory.getMappedFiles());
+
+        first.write(0, new byte[] { 42 });
+        first.close();
+        second.close();
+        third.close();
+        assertEquals(2, m_factory.getMappedFiles());
+
+        // The evicted file was synced
+        assertEquals(42, Files.readAllBytes(new File(tempFolder.getRoot(), "first.jrb").toPath())[0]);
+    }
+
+    @Test
+    public void canMapReplacedFilesAgain() throws Exception {
+        final File file = new File(tempFolder.getRoot(), "test.jrb");
+        createFile(file.getName()).close();
+
+        assertTrue(file.delete());
+        Files.write(file.toPath(), new byte[] { 7, 7, 7, 7 });
+
+        final MappedRrdBackend backend = (MappedRrdBackend) m_factory.open(file.getAbsolutePath(), true);
+        assertEquals(4, backend.getLength());
+        final byte[] read = new byte[1];
+        backend.read(0, read);
+        assertEquals(7, read[0]);
+        backend.close();
+    }
+
+    @Test
+    public void canUpdateAndFetchRrds() throws Exception {
+        final String path = new File(tempFolder.getRoot(), "test.jrb").getAbsolutePath();
+        final RrdDef def = new RrdDef(path, 1000, 300);
+        def.addDatasource("ds", "GAUGE", 600, Double.NaN, Double.NaN);
+        def.addArchive("RRA:AVERAGE:0.5:1:100");
+        new RrdDb(def, m_factory).close();
+
+        for (int i = 1; i <= 10; i++) {
+            final RrdDb rrd = new RrdDb(path, m_factory);
+            final Sample sample = rrd.createSample(1000 + i * 300);
+            sample.setValue("ds", i);
+            sample.update();
+            rrd.close();
+        }
+
+        // The file backend sees the same data once it was synced
+        m_factory.sync();
+        final RrdDb rrd = new RrdDb(path, true, RrdBackendFactory.getFactory("FILE"));
+        final FetchData data = rrd.createFetchRequest("AVERAGE", 1000 + 10 * 300, 1000 + 10 * 300).fetchData();
+        assertEquals(10.0, data.getValues("ds")[0], 0.0001);
+        rrd.close();
+    }
+
+    private MappedRrdBackend createFile(String name) throws Exception {
+        final MappedRrdBackend backend = (MappedRrdBackend) m_factory.open(new File(tempFolder.getRoot(), name).getAbsolutePath(), false);
+        backend.setLength(8);
+        return backend;
+    }
+}